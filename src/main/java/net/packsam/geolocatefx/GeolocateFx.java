@@ -2,14 +2,19 @@ package net.packsam.geolocatefx;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -18,11 +23,9 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.mutable.MutableBoolean;
 
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.beans.Observable;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
@@ -30,23 +33,41 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import net.packsam.geolocatefx.cache.CacheDirectory;
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.cache.ThumbnailCache;
+import net.packsam.geolocatefx.cache.ThumbnailImageCache;
+import net.packsam.geolocatefx.cache.ThumbnailPinning;
 import net.packsam.geolocatefx.config.Configuration;
 import net.packsam.geolocatefx.config.ConfigurationIO;
 import net.packsam.geolocatefx.config.MapSetup;
 import net.packsam.geolocatefx.event.DroppedFilesEvent;
+import net.packsam.geolocatefx.event.RemoveImagesEvent;
 import net.packsam.geolocatefx.event.SetGeolocationEvent;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
 import net.packsam.geolocatefx.model.ApplicationModel;
+import net.packsam.geolocatefx.model.ImageIndex;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageModelUpdates;
+import net.packsam.geolocatefx.model.ImageStatistics;
 import net.packsam.geolocatefx.model.LatLong;
 import net.packsam.geolocatefx.task.CreateThumbnailTask;
+import net.packsam.geolocatefx.task.DirectoryImport;
 import net.packsam.geolocatefx.task.ExternalProcessTask;
+import net.packsam.geolocatefx.task.ImageWatcher;
+import net.packsam.geolocatefx.task.MetaDataShards;
 import net.packsam.geolocatefx.task.ReadMetaDataAndCreateThumbnailTask;
 import net.packsam.geolocatefx.task.ReadMetaDataTask;
+import net.packsam.geolocatefx.task.TaskRegistry;
+import net.packsam.geolocatefx.task.TaskScheduler;
+import net.packsam.geolocatefx.task.ThumbnailScheduler;
 import net.packsam.geolocatefx.task.WriteGeolocationTask;
+import net.packsam.geolocatefx.thumbnail.ThumbnailStrategies;
 import net.packsam.geolocatefx.ui.ApplicationLayout;
 import net.packsam.geolocatefx.ui.ErrorAlert;
 import net.packsam.geolocatefx.ui.SettingsDialog;
@@ -59,11 +80,59 @@ import net.packsam.geolocatefx.ui.SettingsDialog;
 public class GeolocateFx extends Application {
 
 	/**
-	 * Comparator for sorting selected images.
+	 * Default number of threads reading meta data, exiftool processes default to the same number.
 	 */
-	private final static Comparator<ImageModel> IMAGE_COMPARATOR = Comparator
-			.comparing(ImageModel::getCreationDate)
-			.thenComparing(ImageModel::getImage);
+	final static int DEFAULT_META_DATA_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Default number of threads for CPU bound tasks.
+	 */
+	final static int DEFAULT_THUMBNAIL_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Maximum number of requests waiting for an exiftool process.
+	 */
+	final static int EXIFTOOL_QUEUE_CAPACITY = 64;
+
+	/**
+	 * Interval in seconds for writing new meta data cache entries to disk.
+	 */
+	private final static int META_DATA_CACHE_FLUSH_INTERVAL = 5;
+
+	/**
+	 * Default maximum size of the thumbnail cache in MiB.
+	 */
+	final static int DEFAULT_THUMBNAIL_CACHE_SIZE = 256;
+
+	/**
+	 * Default maximum size of the decoded thumbnail images in memory in MiB.
+	 */
+	private final static int DEFAULT_THUMBNAIL_IMAGE_CACHE_SIZE = 64;
+
+	/**
+	 * Interval in seconds for removing least recently used thumbnails.
+	 */
+	private final static int THUMBNAIL_CACHE_COMPACTION_INTERVAL = 30;
+
+	/**
+	 * Maximum number of images per thumbnail task for formats that need external processes. The strategies split them into smaller batches if needed.
+	 */
+	final static int THUMBNAIL_BATCH_SIZE = 32;
+
+	/**
+	 * Default patterns for the names of files and directories skipped when importing directories.
+	 */
+	final static String DEFAULT_IMPORT_EXCLUDE_PATTERNS = ".*,@eaDir,$RECYCLE.BIN,System Volume Information";
+
+	/**
+	 * Maximum number of files added to the model at once while importing directories.
+	 */
+	final static int IMPORT_BATCH_SIZE = 500;
+
+	/**
+	 * Delay in ms without further changes before a changed file is loaded again.
+	 */
+	private final static int FILE_CHANGE_DELAY = 1000;
 
 	/**
 	 * IO system for loading / writing configuration.
@@ -76,9 +145,34 @@ public class GeolocateFx extends Application {
 	private final ApplicationModel model;
 
 	/**
-	 * Executor service for running background tasks.
+	 * Scheduler for background and user tasks.
+	 */
+	private TaskScheduler taskScheduler;
+
+	/**
+	 * Scheduler for the thumbnail tasks following the visible images.
+	 */
+	private ThumbnailScheduler thumbnailScheduler;
+
+	/**
+	 * Registry of the meta data and thumbnail tasks by file.
+	 */
+	private final TaskRegistry taskRegistry = new TaskRegistry();
+
+	/**
+	 * Pump applying the results of background tasks to the image models.
 	 */
-	private final ExecutorService backgroundTaskExecutorService;
+	private final ImageModelUpdates modelUpdates = new ImageModelUpdates();
+
+	/**
+	 * Number of threads reading meta data.
+	 */
+	private int metaDataParallelism;
+
+	/**
+	 * Pool for walking imported directories.
+	 */
+	private ForkJoinPool importPool;
 
 	/**
 	 * Executor service für scheduled tasks.
@@ -90,6 +184,31 @@ public class GeolocateFx extends Application {
 	 */
 	private Configuration configuration;
 
+	/**
+	 * Pool of exiftool processes.
+	 */
+	private ExiftoolPool exiftoolPool;
+
+	/**
+	 * Persistent meta data cache.
+	 */
+	private MetaDataCache metaDataCache;
+
+	/**
+	 * Central thumbnail store.
+	 */
+	private ThumbnailCache thumbnailCache;
+
+	/**
+	 * Strategies for creating thumbnails by file type.
+	 */
+	private ThumbnailStrategies thumbnailStrategies;
+
+	/**
+	 * Decoded thumbnail images shared by all image list cells.
+	 */
+	private ThumbnailImageCache thumbnailImageCache;
+
 	/**
 	 * Primary stage.
 	 */
@@ -101,14 +220,24 @@ public class GeolocateFx extends Application {
 	private ApplicationLayout rootController;
 
 	/**
-	 * Flag if the image list has to be sorted.
+	 * Images whose creation date has been changed since the image list has been sorted.
+	 */
+	private final Set<ImageModel> changedImages = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Counters over the selected images.
+	 */
+	private ImageStatistics imageStatistics;
+
+	/**
+	 * Pinning of the thumbnails of the selected images in the thumbnail cache.
 	 */
-	private final MutableBoolean shouldSortImages = new MutableBoolean(false);
+	private ThumbnailPinning thumbnailPinning;
 
 	/**
-	 * Flag if the images in progress should be counted.
+	 * Watcher for changes of the selected images on disk.
 	 */
-	private final MutableBoolean shouldCountTasks = new MutableBoolean(false);
+	private ImageWatcher imageWatcher;
 
 	/**
 	 * Ctor.
@@ -116,7 +245,6 @@ public class GeolocateFx extends Application {
 	public GeolocateFx() {
 		configurationIO = new ConfigurationIO();
 		model = new ApplicationModel();
-		backgroundTaskExecutorService = Executors.newFixedThreadPool(2, new GroupedThreadFactory("background-tasks"));
 		scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new GroupedThreadFactory("scheduled-tasks"));
 	}
 
@@ -139,6 +267,42 @@ public class GeolocateFx extends Application {
 		try {
 			// load configuration
 			configuration = configurationIO.readConfiguration();
+			metaDataParallelism = Math.max(1, configuration.getMetaDataParallelism() != null ? configuration.getMetaDataParallelism() : DEFAULT_META_DATA_PARALLELISM);
+			int thumbnailParallelism = configuration.getThumbnailParallelism() != null ? configuration.getThumbnailParallelism() : DEFAULT_THUMBNAIL_PARALLELISM;
+			taskScheduler = new TaskScheduler(
+					metaDataParallelism,
+					thumbnailParallelism,
+					new GroupedThreadFactory("io-tasks"),
+					new GroupedThreadFactory("cpu-tasks")
+			);
+			importPool = new ForkJoinPool(metaDataParallelism);
+			Integer exiftoolProcessCount = configuration.getExiftoolProcessCount();
+			exiftoolPool = new ExiftoolPool(
+					() -> configuration.getExiftoolPath(),
+					exiftoolProcessCount != null ? exiftoolProcessCount : metaDataParallelism,
+					EXIFTOOL_QUEUE_CAPACITY
+			);
+			metaDataCache = new MetaDataCache(new File(CacheDirectory.getCacheDirectory(), "metadata.bin"));
+			metaDataCache.open();
+			scheduledExecutorService.scheduleWithFixedDelay(metaDataCache::flush, META_DATA_CACHE_FLUSH_INTERVAL, META_DATA_CACHE_FLUSH_INTERVAL, TimeUnit.SECONDS);
+			int thumbnailCacheSize = configuration.getThumbnailCacheSize() != null ? configuration.getThumbnailCacheSize() : DEFAULT_THUMBNAIL_CACHE_SIZE;
+			thumbnailCache = new ThumbnailCache(CacheDirectory.getCacheDirectory("thumbnails"), thumbnailCacheSize * 1024L * 1024L);
+			thumbnailCache.open();
+			thumbnailStrategies = ThumbnailStrategies.createDefault(exiftoolPool, () -> configuration.getConvertPath());
+			int thumbnailImageCacheSize = configuration.getThumbnailImageCacheSize() != null ? configuration.getThumbnailImageCacheSize() : DEFAULT_THUMBNAIL_IMAGE_CACHE_SIZE;
+			thumbnailImageCache = new ThumbnailImageCache(thumbnailImageCacheSize * 1024L * 1024L, Constants.THUMBNAIL_WIDTH);
+			thumbnailScheduler = new ThumbnailScheduler(taskScheduler, this::createThumbnailTask, thumbnailParallelism * 2, THUMBNAIL_BATCH_SIZE);
+			imageStatistics = new ImageStatistics(model.getSelectedImages(), im -> isVideo(im.getImage()), () -> taskRegistry.getPendingCount() + thumbnailScheduler.getPendingCount());
+			thumbnailPinning = new ThumbnailPinning(model.getSelectedImages(), thumbnailCache);
+			scheduledExecutorService.scheduleWithFixedDelay(thumbnailCache::compact, THUMBNAIL_CACHE_COMPACTION_INTERVAL, THUMBNAIL_CACHE_COMPACTION_INTERVAL, TimeUnit.SECONDS);
+			imageWatcher = new ImageWatcher(
+					model.getSelectedImages(),
+					model.getImageIndex(),
+					FILE_CHANGE_DELAY,
+					new GroupedThreadFactory("image-watcher"),
+					this::onImagesChanged
+			);
+			imageWatcher.start();
 			MapSetup lastPositionConfiguration = configuration.getLastPosition();
 			LatLong lastPosition = null;
 			Integer lastZoom = null;
@@ -172,9 +336,14 @@ public class GeolocateFx extends Application {
 			// bind all together
 			rootController = rootLoader.getController();
 			rootController.setOnOpenImages(this::onSelectImages);
+			rootController.setOnOpenFolder(this::onSelectFolder);
 			rootController.setOnGeolocationSet(this::onGeolocationSet);
 			rootController.setOnFilesDropped(this::onFilesDropped);
 			rootController.setOnOpenSettings(this::onOpenSettings);
+			rootController.setThumbnailImageCache(thumbnailImageCache);
+			rootController.setImageStatistics(imageStatistics, taskScheduler);
+			rootController.setOnRemoveImages(this::onRemoveImages);
+			rootController.setOnVisibleImagesChanged(e -> thumbnailScheduler.setVisibleImages(e.getVisibleImages(), e.getPrefetchImages()));
 			rootController.imagesProperty().bind(model.selectedImagesProperty());
 			rootController.initializeMap(configuration.getGoogleMapsApiKey(), lastPosition, lastZoom);
 		} catch (Exception e) {
@@ -199,8 +368,32 @@ public class GeolocateFx extends Application {
 	public void stop() throws Exception {
 		try {
 			// stop all tasks
-			backgroundTaskExecutorService.shutdownNow();
 			scheduledExecutorService.shutdownNow();
+			if (importPool != null) {
+				importPool.shutdownNow();
+			}
+			if (imageWatcher != null) {
+				imageWatcher.close();
+				imageWatcher.logStatistics();
+			}
+			if (taskScheduler != null) {
+				taskScheduler.shutdownNow();
+				taskScheduler.logStatistics();
+			}
+			if (exiftoolPool != null) {
+				exiftoolPool.shutdown();
+			}
+			if (metaDataCache != null) {
+				metaDataCache.close();
+			}
+			if (thumbnailStrategies != null) {
+				thumbnailStrategies.logStatistics();
+			}
+			if (thumbnailImageCache != null) {
+				thumbnailImageCache.logStatistics();
+			}
+			modelUpdates.logStatistics();
+			rootController.logStatistics();
 
 			// save last position
 			LatLong mapPosition = rootController.getMapPosition();
@@ -265,6 +458,27 @@ public class GeolocateFx extends Application {
 		}
 	}
 
+	/**
+	 * Event handler for the "select folder" button.
+	 *
+	 * @param actionEvent
+	 * 		action event
+	 */
+	private void onSelectFolder(ActionEvent actionEvent) {
+		// open directory dialog
+		DirectoryChooser dialog = new DirectoryChooser();
+		dialog.setTitle("Select folder");
+		if (StringUtils.isNotEmpty(configuration.getLastImagePath())) {
+			dialog.setInitialDirectory(new File(configuration.getLastImagePath()));
+		}
+		File directory = dialog.showDialog(primaryStage);
+
+		if (directory != null) {
+			addImages(Collections.singletonList(directory));
+			configuration.setLastImagePath(directory.getAbsolutePath());
+		}
+	}
+
 	/**
 	 * Event handler when a geo location should be set.
 	 *
@@ -277,11 +491,17 @@ public class GeolocateFx extends Application {
 			return;
 		}
 
-		List<ImageModel> imageModels = model.getSelectedImages().stream()
-				.filter(im -> images.contains(im.getImage()))
+		ImageIndex imageIndex = model.getImageIndex();
+		List<ImageModel> imageModels = images.stream()
+				.map(imageIndex::get)
+				.filter(Objects::nonNull)
+				.distinct()
 				.collect(Collectors.toList());
+		if (imageModels.isEmpty()) {
+			return;
+		}
 
-		scheduleTask(new WriteGeolocationTask(configuration.getExiftoolPath(), event.getGeolocation(), imageModels));
+		scheduleTask(new WriteGeolocationTask(exiftoolPool, metaDataCache, event.getGeolocation(), imageModels, modelUpdates), TaskScheduler.Lane.USER, imageModels);
 	}
 
 	/**
@@ -317,50 +537,197 @@ public class GeolocateFx extends Application {
 			return;
 		}
 
+		// directories are walked in background and come back in batches
+		List<File> directories = imageFiles.stream()
+				.filter(File::isDirectory)
+				.collect(Collectors.toList());
+		if (!directories.isEmpty()) {
+			importDirectories(directories, newGeolocation);
+		}
+
+		ImageIndex imageIndex = model.getImageIndex();
+		List<ImageModel> imageModels = imageFiles.stream()
+				.filter(file -> !directories.contains(file) && !imageIndex.contains(file) && (isImage(file) || isVideo(file)))
+				.map(this::createImageModel)
+				.collect(Collectors.toList());
+		addImageModels(imageModels, newGeolocation);
+	}
+
+	/**
+	 * Adds the given image models to the list of selected images. Images that are already selected are skipped. Needs no file access, so walked directories can pass
+	 * batches of models created in background.
+	 *
+	 * @param imageModels
+	 * 		new image models of images and videos
+	 * @param newGeolocation
+	 * 		optional new geolocation to write to file
+	 */
+	private void addImageModels(List<ImageModel> imageModels, LatLong newGeolocation) {
 		ObservableList<ImageModel> selectedImages = model.getSelectedImages();
 
-		// filter only new files
-		Set<File> existingFiles = selectedImages.stream()
-				.map(ImageModel::getImage)
-				.collect(Collectors.toSet());
-		List<File> newImageFiles = imageFiles.stream()
-				.filter(((Predicate<File>) existingFiles::contains).negate())
+		// filter only new files, also drop duplicates within the given files
+		ImageIndex imageIndex = model.getImageIndex();
+		Set<Path> newPaths = new HashSet<>();
+		List<ImageModel> newImageModels = imageModels.stream()
+				.filter(im -> !imageIndex.contains(im.getImage()) && newPaths.add(ImageIndex.getKey(im.getImage())))
 				.collect(Collectors.toList());
 
 		// handle images
-		List<ImageModel> imageIMs = newImageFiles.stream()
-				.filter(this::isImage)
-				.map(this::createImageModel)
+		List<ImageModel> imageIMs = newImageModels.stream()
+				.filter(im -> isImage(im.getImage()))
 				.collect(Collectors.toList());
 
-		if (!imageIMs.isEmpty()) {
-			imageIMs.forEach(im -> scheduleTask(new CreateThumbnailTask(configuration.getConvertPath(), im)));
-			scheduleTask(new ReadMetaDataTask(configuration.getExiftoolPath(), imageIMs));
-		}
+		loadImages(imageIMs);
 
 		// handle videos
-		List<ImageModel> videoIMs = newImageFiles.stream()
-				.filter(this::isVideo)
-				.map(this::createImageModel)
+		List<ImageModel> videoIMs = newImageModels.stream()
+				.filter(im -> isVideo(im.getImage()))
 				.collect(Collectors.toList());
 
-		if (!videoIMs.isEmpty()) {
-			videoIMs.forEach(im -> scheduleTask(new ReadMetaDataAndCreateThumbnailTask(configuration.getExiftoolPath(), configuration.getConvertPath(), im)));
-		}
+		loadVideos(videoIMs);
 
 		ArrayList<ImageModel> allIMs = new ArrayList<>();
 		allIMs.addAll(imageIMs);
 		allIMs.addAll(videoIMs);
 
 		if (newGeolocation != null && !allIMs.isEmpty()) {
-			scheduleTask(new WriteGeolocationTask(configuration.getExiftoolPath(), newGeolocation, allIMs));
+			scheduleTask(new WriteGeolocationTask(exiftoolPool, metaDataCache, newGeolocation, allIMs, modelUpdates), TaskScheduler.Lane.USER, allIMs);
 		}
 
 		selectedImages.addAll(allIMs);
 	}
 
 	/**
-	 * Creates an image model for the given file.
+	 * Loads meta data and thumbnails of the given images.
+	 *
+	 * @param imageIMs
+	 * 		image models of images
+	 */
+	private void loadImages(List<ImageModel> imageIMs) {
+		if (imageIMs.isEmpty()) {
+			return;
+		}
+
+		thumbnailScheduler.add(imageIMs);
+
+		// the cache lookup and the file sizes for the shards need disk I/O
+		taskScheduler.submit(() -> {
+			// only images without valid cache entry have to be read
+			List<ImageModel> uncachedImageIMs = imageIMs.stream()
+					.filter(((Predicate<ImageModel>) this::applyCachedMetaData).negate())
+					.collect(Collectors.toList());
+			MetaDataShards.split(uncachedImageIMs, metaDataParallelism)
+					.forEach(shard -> scheduleTask(
+							taskRegistry.register(TaskRegistry.Operation.META_DATA, shard, ims -> new ReadMetaDataTask(exiftoolPool, metaDataCache, ims, modelUpdates)),
+							TaskScheduler.Lane.IO,
+							shard
+					));
+		}, TaskScheduler.Lane.IO);
+	}
+
+	/**
+	 * Loads meta data and thumbnails of the given videos.
+	 *
+	 * @param videoIMs
+	 * 		image models of videos
+	 */
+	private void loadVideos(List<ImageModel> videoIMs) {
+		if (videoIMs.isEmpty()) {
+			return;
+		}
+
+		// the cache lookup needs disk I/O
+		taskScheduler.submit(() -> {
+			List<ImageModel> cachedVideoIMs = new ArrayList<>();
+			videoIMs.forEach(im -> {
+				if (applyCachedMetaData(im)) {
+					cachedVideoIMs.add(im);
+				} else {
+					scheduleTask(
+							taskRegistry.register(EnumSet.of(TaskRegistry.Operation.META_DATA, TaskRegistry.Operation.THUMBNAIL), Collections.singletonList(im), ims -> new ReadMetaDataAndCreateThumbnailTask(exiftoolPool, metaDataCache, configuration.getConvertPath(), thumbnailStrategies, thumbnailCache, im, modelUpdates)),
+							TaskScheduler.Lane.IO,
+							Collections.singletonList(im)
+					);
+				}
+			});
+			if (!cachedVideoIMs.isEmpty()) {
+				// duration and frame rate are known, only the thumbnail is missing; the thumbnail needs them to select the frame
+				modelUpdates.runAfterPending(() -> thumbnailScheduler.add(cachedVideoIMs));
+			}
+		}, TaskScheduler.Lane.IO);
+	}
+
+	/**
+	 * Event handler when loaded files have been changed on disk. Only files whose cached meta data is outdated are loaded again, so the application's own writes and events
+	 * without real changes do not trigger a refresh. Called on the watching thread, the outdated images are loaded on the FX thread.
+	 *
+	 * @param changedIMs
+	 * 		image models of the changed files
+	 */
+	private void onImagesChanged(List<ImageModel> changedIMs) {
+		List<ImageModel> outdatedIMs = changedIMs.stream()
+				.filter(im -> metaDataCache.get(im.getImage()) == null)
+				.collect(Collectors.toList());
+		if (!outdatedIMs.isEmpty()) {
+			Platform.runLater(() -> loadChangedImages(outdatedIMs));
+		}
+	}
+
+	/**
+	 * Loads the given changed images again if they are still loaded.
+	 *
+	 * @param outdatedIMs
+	 * 		image models of the changed files with outdated meta data
+	 */
+	private void loadChangedImages(List<ImageModel> outdatedIMs) {
+		ImageIndex imageIndex = model.getImageIndex();
+		outdatedIMs.removeIf(im -> imageIndex.get(im.getImage()) != im);
+		if (outdatedIMs.isEmpty()) {
+			return;
+		}
+
+		loadImages(outdatedIMs.stream()
+				.filter(im -> isImage(im.getImage()))
+				.collect(Collectors.toList()));
+		loadVideos(outdatedIMs.stream()
+				.filter(im -> isVideo(im.getImage()))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Walks the given directories in background and adds all found images and videos in batches. The image models of a batch are created on the walker thread, so the FX
+	 * thread does not read any file attributes.
+	 *
+	 * @param directories
+	 * 		directories to import
+	 * @param newGeolocation
+	 * 		optional new geolocation to write to file
+	 */
+	private void importDirectories(List<File> directories, LatLong newGeolocation) {
+		String excludePatterns = configuration.getImportExcludePatterns() != null ? configuration.getImportExcludePatterns() : DEFAULT_IMPORT_EXCLUDE_PATTERNS;
+		DirectoryImport directoryImport = new DirectoryImport(
+				importPool,
+				file -> isImage(file) || isVideo(file),
+				excludePatterns,
+				IMPORT_BATCH_SIZE,
+				(files, applied) -> {
+					List<ImageModel> imageModels = files.stream()
+							.map(this::createImageModel)
+							.collect(Collectors.toList());
+					Platform.runLater(() -> {
+						try {
+							addImageModels(imageModels, newGeolocation);
+						} finally {
+							applied.run();
+						}
+					});
+				}
+		);
+		directoryImport.start(directories);
+	}
+
+	/**
+	 * Creates an image model for the given file. Reads the file attributes, may be called from any thread.
 	 *
 	 * @param file
 	 * 		file
@@ -369,18 +736,101 @@ public class GeolocateFx extends Application {
 	private ImageModel createImageModel(File file) {
 		ImageModel imageModel = new ImageModel();
 		imageModel.setImage(file);
-		imageModel.setCreationDate(new Date(file.lastModified()));
-		try {
-			imageModel.setCreationDate(new Date(Files.readAttributes(file.toPath(), BasicFileAttributes.class).creationTime().toMillis()));
-		} catch (Exception e) {
-		}
+		imageModel.setCreationDate(getFileCreationDate(file));
 
-		imageModel.creationDateProperty().addListener(this::onImageModelChanged);
-		imageModel.fileInProgressProperty().addListener(this::onImageModelInProgress);
+		imageModel.creationDateProperty().addListener(o -> onImageModelChanged(imageModel));
 
 		return imageModel;
 	}
 
+	/**
+	 * Event handler when the user removed images. Drops their pending thumbnails and cancels their meta data and thumbnail tasks, running external processes are killed. Geolocation writes are not cancelled.
+	 *
+	 * @param event
+	 * 		event
+	 */
+	private void onRemoveImages(RemoveImagesEvent event) {
+		Set<ImageModel> removedImages = Collections.newSetFromMap(new IdentityHashMap<>());
+		removedImages.addAll(event.getImages());
+		if (removedImages.isEmpty()) {
+			return;
+		}
+
+		thumbnailScheduler.remove(removedImages);
+		taskRegistry.cancel(removedImages);
+		taskScheduler.purge();
+		model.getSelectedImages().removeAll(removedImages);
+	}
+
+	/**
+	 * Creates a thumbnail task for the given images.
+	 *
+	 * @param imageModels
+	 * 		image models
+	 * @return thumbnail task or <code>null</code> if all images are handled by other tasks
+	 */
+	private CreateThumbnailTask createThumbnailTask(List<ImageModel> imageModels) {
+		CreateThumbnailTask task = taskRegistry.register(
+				TaskRegistry.Operation.THUMBNAIL,
+				imageModels,
+				ims -> new CreateThumbnailTask(configuration.getConvertPath(), thumbnailStrategies, thumbnailCache, ims, modelUpdates)
+		);
+		if (task != null) {
+			task.setErrorHandler(createErrorHandler(imageModels));
+		}
+		return task;
+	}
+
+	/**
+	 * Sets the cached meta data to the given image model through the update pump. Reads the cache file, so it must not be called on the FX thread.
+	 *
+	 * <p>
+	 * The entry is read and posted while holding the monitor of the unlocked image. A running write updates the cache and posts its geolocation before it releases the
+	 * image, and the next write cannot lock the image before the entry has been posted, so an outdated entry never overwrites a written geolocation.
+	 * </p>
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> if there was a valid cache entry
+	 */
+	private boolean applyCachedMetaData(ImageModel imageModel) {
+		synchronized (imageModel) {
+			try {
+				while (imageModel.isFileInProgress()) {
+					imageModel.wait();
+				}
+			} catch (InterruptedException e) {
+				// shutting down
+				Thread.currentThread().interrupt();
+				return false;
+			}
+
+			MetaDataCache.Entry entry = metaDataCache.get(imageModel.getImage());
+			if (entry == null) {
+				return false;
+			}
+
+			Date creationDate = entry.getCreationDate() != null ? entry.getCreationDate() : getFileCreationDate(imageModel.getImage());
+			modelUpdates.setMetaData(imageModel, entry.getGeolocation(), creationDate, entry.getDuration(), entry.getVideoFrameRate());
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the creation date of the given file from the file system.
+	 *
+	 * @param file
+	 * 		file
+	 * @return creation date or modification date if the file attributes cannot be read
+	 */
+	private static Date getFileCreationDate(File file) {
+		try {
+			return new Date(Files.readAttributes(file.toPath(), BasicFileAttributes.class).creationTime().toMillis());
+		} catch (Exception e) {
+			return new Date(file.lastModified());
+		}
+	}
+
 	/**
 	 * Checks if the given file is an image.
 	 *
@@ -388,7 +838,7 @@ public class GeolocateFx extends Application {
 	 * 		file
 	 * @return <code>true</code> if this is an image
 	 */
-	private boolean isImage(File file) {
+	static boolean isImage(File file) {
 		String extension = FilenameUtils.getExtension(file.getName());
 		return StringUtils.equalsAnyIgnoreCase(extension, "jpg", "jpeg", "png", "tif", "tiff", "dng", "raw", "cr2", "cr3", "nef", "nrw", "arw", "srf", "sr2", "srw", "psd");
 	}
@@ -400,7 +850,7 @@ public class GeolocateFx extends Application {
 	 * 		file
 	 * @return <code>true</code> if this is a video
 	 */
-	private boolean isVideo(File file) {
+	static boolean isVideo(File file) {
 		String extension = FilenameUtils.getExtension(file.getName());
 		return StringUtils.equalsAnyIgnoreCase(extension, "mp4", "mov", "m2ts", "avi");
 	}
@@ -436,65 +886,68 @@ public class GeolocateFx extends Application {
 		}
 	}
 
-	private void scheduleOncePerSecond(MutableBoolean syncLock, Runnable command) {
-		synchronized (syncLock) {
-			if (syncLock.isTrue()) {
-				// already scheduled
-				return;
-			}
-			syncLock.setTrue();
-			scheduledExecutorService.schedule(command, 1, TimeUnit.SECONDS);
-		}
-	}
-
 	/**
-	 * Event handler when the image model data has been changed.
+	 * Event handler when the creation date of an image model has been changed. The image is moved to its new position in the next pulse, together with all other changed
+	 * images.
 	 *
-	 * @param observable
-	 * 		observable
+	 * @param imageModel
+	 * 		changed image model
 	 */
-	private void onImageModelChanged(Observable observable) {
-		scheduleOncePerSecond(shouldSortImages, this::sortImages);
+	private void onImageModelChanged(ImageModel imageModel) {
+		synchronized (changedImages) {
+			if (changedImages.isEmpty()) {
+				Platform.runLater(this::sortImages);
+			}
+			changedImages.add(imageModel);
+		}
 	}
 
 	/**
-	 * Sorts the image list.
+	 * Moves the changed images to their sorted positions.
 	 */
 	private void sortImages() {
-		shouldSortImages.setFalse();
-		Platform.runLater(() -> model.selectedImagesProperty().sort(IMAGE_COMPARATOR));
+		List<ImageModel> imageModels;
+		synchronized (changedImages) {
+			imageModels = new ArrayList<>(changedImages);
+			changedImages.clear();
+		}
+		model.getSortedImages().reposition(imageModels);
 	}
 
 	/**
-	 * Event handler when the progress flag of the image model has been changed.
+	 * Adds the given task to the given lane of the task scheduler and adds an error handler.
 	 *
-	 * @param observable
-	 * 		observable
-	 */
-	private void onImageModelInProgress(Observable observable) {
-		scheduleOncePerSecond(shouldCountTasks, this::countImagesInProgress);
-	}
-
-	/**
-	 * Counts the model images that are in progress.
+	 * @param task
+	 * 		task to execute, may be <code>null</code> if there is nothing to do
+	 * @param lane
+	 * 		lane to run the task in
+	 * @param imageModels
+	 * 		image models of the task, marked as failed if the task fails
 	 */
-	private void countImagesInProgress() {
-		shouldCountTasks.setFalse();
-		long imagesInProgress = model.selectedImagesProperty().stream()
-				.filter(ImageModel::isFileInProgress)
-				.count();
-		Platform.runLater(() -> rootController.setBackgroundTaskCount(imagesInProgress));
+	private void scheduleTask(ExternalProcessTask<?> task, TaskScheduler.Lane lane, List<ImageModel> imageModels) {
+		if (task == null) {
+			// all files are handled by other tasks
+			return;
+		}
+		task.setErrorHandler(createErrorHandler(imageModels));
+		taskScheduler.submit(task, lane);
+		imageStatistics.scheduleUpdate();
 	}
 
 	/**
-	 * Adds the given task to the internal scheduler and adds an error handler.
+	 * Creates an error handler that marks the given image models as failed and shows the error. The failure flags are reset, since a new task has been started for them. Both
+	 * changes are applied through the update pump, as tasks are also created and fail on background threads.
 	 *
-	 * @param task
-	 * 		task to execute
+	 * @param imageModels
+	 * 		image models of the task
+	 * @return error handler
 	 */
-	private void scheduleTask(ExternalProcessTask<?> task) {
-		task.setErrorHandler(this::handleTaskError);
-		backgroundTaskExecutorService.submit(task);
+	private ExternalProcessTask.ErrorHandler createErrorHandler(List<ImageModel> imageModels) {
+		imageModels.forEach(im -> modelUpdates.setFailed(im, false));
+		return (processName, exitCode, error, e) -> {
+			imageModels.forEach(im -> modelUpdates.setFailed(im, true));
+			handleTaskError(processName, exitCode, error, e);
+		};
 	}
 
 	/**
@@ -544,7 +997,7 @@ public class GeolocateFx extends Application {
 	 *
 	 * @author osterrath
 	 */
-	private class GroupedThreadFactory implements ThreadFactory {
+	static class GroupedThreadFactory implements ThreadFactory {
 		/**
 		 * Thread group name.
 		 */
@@ -566,7 +1019,7 @@ public class GeolocateFx extends Application {
 		 * @param threadGroupName
 		 * 		thread group name.
 		 */
-		private GroupedThreadFactory(String threadGroupName) {
+		GroupedThreadFactory(String threadGroupName) {
 			this.threadGroupName = threadGroupName;
 			threadGroup = new ThreadGroup(threadGroupName);
 		}
@@ -0,0 +1,33 @@
+package net.packsam.geolocatefx;
+
+import java.util.Arrays;
+
+import javafx.application.Application;
+
+/**
+ * Entry point of the application jar. The Java launcher starts the JavaFX toolkit before the main method of an application class is called, which fails on servers without
+ * display. This class is no application class, so the batch mode can be started without the toolkit.
+ *
+ * @author osterrath
+ */
+public class GeolocateFxLauncher {
+	/**
+	 * Main method. Starts the batch mode without user interface if the first argument is <code>--headless</code>, otherwise the application.
+	 *
+	 * @param args
+	 * 		command line args
+	 */
+	public static void main(String[] args) {
+		if (args.length > 0 && HeadlessGeolocateFx.HEADLESS_OPTION.equals(args[0])) {
+			HeadlessGeolocateFx.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		Application.launch(GeolocateFx.class, args);
+	}
+
+	/**
+	 * Private ctor.
+	 */
+	private GeolocateFxLauncher() {
+	}
+}
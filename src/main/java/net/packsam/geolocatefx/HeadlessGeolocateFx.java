@@ -0,0 +1,445 @@
+package net.packsam.geolocatefx;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import net.packsam.geolocatefx.cache.CacheDirectory;
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.cache.ThumbnailCache;
+import net.packsam.geolocatefx.config.Configuration;
+import net.packsam.geolocatefx.config.ConfigurationIO;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
+import net.packsam.geolocatefx.model.ImageIndex;
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+import net.packsam.geolocatefx.task.BatchGeotagging;
+import net.packsam.geolocatefx.task.DirectoryImport;
+import net.packsam.geolocatefx.thumbnail.ThumbnailStrategies;
+import net.packsam.geolocatefx.track.GpxTrack;
+
+/**
+ * Batch mode for geotagging images from the command line without user interface, e.g. in scripted ingest pipelines on servers without display. The images are tagged with a
+ * fixed coordinate or with the positions of a GPX track at their creation dates. The user's configuration and caches are used like in the application.
+ *
+ * @author osterrath
+ */
+public class HeadlessGeolocateFx {
+	/**
+	 * Option of the launcher's main method for starting the batch mode.
+	 */
+	final static String HEADLESS_OPTION = "--headless";
+
+	/**
+	 * Default maximum time in s between an image and the next track point.
+	 */
+	private final static int DEFAULT_MAX_GAP = 300;
+
+	/**
+	 * Exit code when all images have been processed.
+	 */
+	private final static int EXIT_OK = 0;
+
+	/**
+	 * Exit code when some tasks have failed.
+	 */
+	private final static int EXIT_FAILED = 1;
+
+	/**
+	 * Exit code for invalid arguments.
+	 */
+	private final static int EXIT_USAGE = 2;
+
+	/**
+	 * Output for results and statistics.
+	 */
+	private final PrintStream out;
+
+	/**
+	 * Output for errors.
+	 */
+	private final PrintStream err;
+
+	/**
+	 * Files and directories to tag.
+	 */
+	private final List<File> paths = new ArrayList<>();
+
+	/**
+	 * Fixed geolocation for all images.
+	 */
+	private LatLong coordinate;
+
+	/**
+	 * GPX track file.
+	 */
+	private File trackFile;
+
+	/**
+	 * Maximum time in s between an image and the next track point.
+	 */
+	private int maxGap = DEFAULT_MAX_GAP;
+
+	/**
+	 * Correction in s added to the creation dates before matching them against the track.
+	 */
+	private int timeOffset;
+
+	/**
+	 * Number of tasks running in parallel, <code>null</code> for the configured value.
+	 */
+	private Integer parallelism;
+
+	/**
+	 * Path to exiftool, <code>null</code> for the configured path.
+	 */
+	private String exiftoolPath;
+
+	/**
+	 * Path to Image Magick convert, <code>null</code> for the configured path.
+	 */
+	private String convertPath;
+
+	/**
+	 * Flag if images that already have a geolocation are tagged again.
+	 */
+	private boolean overwrite;
+
+	/**
+	 * Flag if the thumbnails are created.
+	 */
+	private boolean thumbnails;
+
+	/**
+	 * Flag if the geolocations are only printed but not written.
+	 */
+	private boolean dryRun;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param out
+	 * 		output for results and statistics
+	 * @param err
+	 * 		output for errors
+	 */
+	HeadlessGeolocateFx(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param args
+	 * 		command line args
+	 */
+	public static void main(String[] args) {
+		System.exit(new HeadlessGeolocateFx(System.out, System.err).run(args));
+	}
+
+	/**
+	 * Tags the images given by the command line args.
+	 *
+	 * @param args
+	 * 		command line args
+	 * @return exit code
+	 */
+	int run(String[] args) {
+		try {
+			parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			printUsage();
+			return EXIT_USAGE;
+		}
+
+		Configuration configuration;
+		Function<ImageModel, LatLong> locator;
+		try {
+			configuration = new ConfigurationIO().readConfiguration();
+			locator = createLocator();
+		} catch (IOException e) {
+			err.println(e.getMessage());
+			return EXIT_USAGE;
+		}
+		if (exiftoolPath != null) {
+			configuration.setExiftoolPath(exiftoolPath);
+		}
+		if (convertPath != null) {
+			configuration.setConvertPath(convertPath);
+		}
+		int metaDataParallelism = Math.max(1, parallelism != null ? parallelism : (configuration.getMetaDataParallelism() != null ? configuration.getMetaDataParallelism() : GeolocateFx.DEFAULT_META_DATA_PARALLELISM));
+		Integer exiftoolProcessCount = configuration.getExiftoolProcessCount();
+
+		long start = System.nanoTime();
+		List<ImageModel> imageModels = collectImages(configuration, metaDataParallelism);
+		long collectTime = System.nanoTime() - start;
+		out.println(String.format("found %d images in %.1f s", imageModels.size(), collectTime / 1e9));
+
+		ExiftoolPool exiftoolPool = new ExiftoolPool(
+				configuration::getExiftoolPath,
+				parallelism != null ? parallelism : (exiftoolProcessCount != null ? exiftoolProcessCount : metaDataParallelism),
+				GeolocateFx.EXIFTOOL_QUEUE_CAPACITY
+		);
+		MetaDataCache metaDataCache = new MetaDataCache(new File(CacheDirectory.getCacheDirectory(), "metadata.bin"));
+		ThumbnailCache thumbnailCache = null;
+		try {
+			metaDataCache.open();
+
+			BatchGeotagging batchGeotagging = new BatchGeotagging(exiftoolPool, metaDataCache, metaDataParallelism, locator, new GeolocateFx.GroupedThreadFactory("batch-tasks"));
+			batchGeotagging.setOverwrite(overwrite);
+			batchGeotagging.setDryRun(dryRun);
+			if (dryRun) {
+				batchGeotagging.setMatchHandler((im, geolocation) -> out.println(String.format("%s\t%.6f\t%.6f", im.getImage(), geolocation.getLatitude(), geolocation.getLongitude())));
+			}
+			if (thumbnails) {
+				int thumbnailCacheSize = configuration.getThumbnailCacheSize() != null ? configuration.getThumbnailCacheSize() : GeolocateFx.DEFAULT_THUMBNAIL_CACHE_SIZE;
+				thumbnailCache = new ThumbnailCache(CacheDirectory.getCacheDirectory("thumbnails"), thumbnailCacheSize * 1024L * 1024L);
+				thumbnailCache.open();
+				batchGeotagging.setThumbnailCreation(configuration.getConvertPath(), ThumbnailStrategies.createDefault(exiftoolPool, configuration::getConvertPath), thumbnailCache, GeolocateFx.THUMBNAIL_BATCH_SIZE);
+			}
+
+			batchGeotagging.run(imageModels);
+
+			out.println(batchGeotagging.getStatistics());
+			out.println(exiftoolPool.getStatistics());
+			out.println(String.format("total: %.1f s", (System.nanoTime() - start) / 1e9));
+			return batchGeotagging.getFailedTaskCount() > 0 ? EXIT_FAILED : EXIT_OK;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return EXIT_FAILED;
+		} finally {
+			exiftoolPool.shutdown();
+			metaDataCache.close();
+			if (thumbnailCache != null) {
+				thumbnailCache.compact();
+			}
+		}
+	}
+
+	/**
+	 * Parses the command line args.
+	 *
+	 * @param args
+	 * 		command line args
+	 * @throws IllegalArgumentException
+	 * 		invalid args
+	 */
+	private void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			switch (arg) {
+				case "--coordinate":
+					coordinate = parseCoordinate(getValue(args, ++i, arg));
+					break;
+				case "--track":
+					trackFile = new File(getValue(args, ++i, arg));
+					break;
+				case "--max-gap":
+					maxGap = parseInt(getValue(args, ++i, arg), arg);
+					break;
+				case "--time-offset":
+					timeOffset = parseInt(getValue(args, ++i, arg), arg);
+					break;
+				case "--parallelism":
+					parallelism = Math.max(1, parseInt(getValue(args, ++i, arg), arg));
+					break;
+				case "--exiftool":
+					exiftoolPath = getValue(args, ++i, arg);
+					break;
+				case "--convert":
+					convertPath = getValue(args, ++i, arg);
+					break;
+				case "--overwrite":
+					overwrite = true;
+					break;
+				case "--thumbnails":
+					thumbnails = true;
+					break;
+				case "--dry-run":
+					dryRun = true;
+					break;
+				default:
+					if (arg.startsWith("--")) {
+						throw new IllegalArgumentException("Unknown option " + arg);
+					}
+					paths.add(new File(arg));
+			}
+		}
+
+		if ((coordinate == null) == (trackFile == null)) {
+			throw new IllegalArgumentException("Either --coordinate or --track is required");
+		}
+		if (paths.isEmpty()) {
+			throw new IllegalArgumentException("No files given");
+		}
+	}
+
+	/**
+	 * Returns the value of an option.
+	 *
+	 * @param args
+	 * 		command line args
+	 * @param index
+	 * 		index of the value
+	 * @param option
+	 * 		option name
+	 * @return value
+	 * @throws IllegalArgumentException
+	 * 		value is missing
+	 */
+	private static String getValue(String[] args, int index, String option) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + option);
+		}
+		return args[index];
+	}
+
+	/**
+	 * Parses an integer option.
+	 *
+	 * @param value
+	 * 		value
+	 * @param option
+	 * 		option name
+	 * @return integer value
+	 * @throws IllegalArgumentException
+	 * 		value is no integer
+	 */
+	private static int parseInt(String value, String option) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+		}
+	}
+
+	/**
+	 * Parses a coordinate in the form <code>latitude,longitude</code>.
+	 *
+	 * @param value
+	 * 		value
+	 * @return coordinate
+	 * @throws IllegalArgumentException
+	 * 		value is no valid coordinate
+	 */
+	private static LatLong parseCoordinate(String value) {
+		String[] parts = value.split(",");
+		try {
+			if (parts.length == 2) {
+				double latitude = Double.parseDouble(parts[0].trim());
+				double longitude = Double.parseDouble(parts[1].trim());
+				if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+					return new LatLong(latitude, longitude);
+				}
+			}
+		} catch (NumberFormatException e) {
+			// handled below
+		}
+		throw new IllegalArgumentException("Invalid coordinate " + value + ", expected latitude,longitude");
+	}
+
+	/**
+	 * Creates the function determining the geolocation of an image.
+	 *
+	 * @return locator
+	 * @throws IOException
+	 * 		track file could not be read
+	 */
+	private Function<ImageModel, LatLong> createLocator() throws IOException {
+		if (coordinate != null) {
+			LatLong fixedCoordinate = coordinate;
+			return im -> fixedCoordinate;
+		}
+
+		GpxTrack track = GpxTrack.read(trackFile);
+		out.println(String.format("read %d track points from %s", track.size(), trackFile));
+		long offset = TimeUnit.SECONDS.toMillis(timeOffset);
+		long maxGapMillis = TimeUnit.SECONDS.toMillis(maxGap);
+		return im -> im.getCreationDate() != null ? track.getPosition(new Date(im.getCreationDate().getTime() + offset), maxGapMillis) : null;
+	}
+
+	/**
+	 * Creates the image models for all images and videos in the given files and directories. Every file is only added once.
+	 *
+	 * @param configuration
+	 * 		configuration
+	 * @param walkParallelism
+	 * 		number of threads walking the directories
+	 * @return image models
+	 */
+	private List<ImageModel> collectImages(Configuration configuration, int walkParallelism) {
+		List<File> files = new ArrayList<>();
+		List<File> directories = new ArrayList<>();
+		for (File path : paths) {
+			if (path.isDirectory()) {
+				directories.add(path);
+			} else if (path.isFile() && (GeolocateFx.isImage(path) || GeolocateFx.isVideo(path))) {
+				files.add(path);
+			} else {
+				err.println("Skipping " + path);
+			}
+		}
+
+		if (!directories.isEmpty()) {
+			ForkJoinPool importPool = new ForkJoinPool(walkParallelism);
+			try {
+				String excludePatterns = configuration.getImportExcludePatterns() != null ? configuration.getImportExcludePatterns() : GeolocateFx.DEFAULT_IMPORT_EXCLUDE_PATTERNS;
+				List<File> foundFiles = Collections.synchronizedList(new ArrayList<>());
+				new DirectoryImport(
+						importPool,
+						file -> GeolocateFx.isImage(file) || GeolocateFx.isVideo(file),
+						excludePatterns,
+						GeolocateFx.IMPORT_BATCH_SIZE,
+						(batch, applied) -> {
+							foundFiles.addAll(batch);
+							applied.run();
+						}
+				).walk(directories);
+				files.addAll(foundFiles);
+			} finally {
+				importPool.shutdownNow();
+			}
+		}
+
+		Set<Path> keys = new HashSet<>();
+		List<ImageModel> imageModels = new ArrayList<>();
+		for (File file : files) {
+			if (keys.add(ImageIndex.getKey(file))) {
+				ImageModel imageModel = new ImageModel();
+				imageModel.setImage(file);
+				imageModels.add(imageModel);
+			}
+		}
+		return imageModels;
+	}
+
+	/**
+	 * Prints the usage to the error output.
+	 */
+	private void printUsage() {
+		err.println("Usage: geolocatefx " + HEADLESS_OPTION + " [options] <file or directory>...");
+		err.println("Options:");
+		err.println("  --coordinate <lat>,<lon>  geolocation for all images");
+		err.println("  --track <file>            GPX track matched against the creation dates of the images");
+		err.println("  --max-gap <seconds>       maximum time between an image and the next track point (default " + DEFAULT_MAX_GAP + ")");
+		err.println("  --time-offset <seconds>   correction added to the creation dates before matching (default 0)");
+		err.println("  --parallelism <n>         number of parallel tasks and exiftool processes (default from configuration)");
+		err.println("  --exiftool <path>         path to exiftool (default from configuration)");
+		err.println("  --convert <path>          path to Image Magick convert (default from configuration)");
+		err.println("  --overwrite               also tag images that already have a geolocation");
+		err.println("  --thumbnails              create the thumbnails in the thumbnail cache");
+		err.println("  --dry-run                 only print the determined geolocations");
+	}
+}
@@ -0,0 +1,63 @@
+package net.packsam.geolocatefx.cache;
+
+import java.io.File;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Class for locating the users cache directory of the application.
+ *
+ * @author osterrath
+ */
+public class CacheDirectory {
+	/**
+	 * Application name used for the directory.
+	 */
+	private final static String APPLICATION_NAME = "GeolocateFx";
+
+	/**
+	 * Private ctor.
+	 */
+	private CacheDirectory() {
+	}
+
+	/**
+	 * Returns the cache directory for the current platform, e.g. <code>%LOCALAPPDATA%\GeolocateFx\Cache</code> on Windows, <code>~/Library/Caches/GeolocateFx</code> on
+	 * macOS and <code>$XDG_CACHE_HOME/GeolocateFx</code> on all other systems. The directory will be created if it does not exist.
+	 *
+	 * @return cache directory
+	 */
+	public static File getCacheDirectory() {
+		String userHome = System.getProperty("user.home");
+		String osName = StringUtils.lowerCase(System.getProperty("os.name"));
+
+		File directory;
+		if (StringUtils.contains(osName, "win")) {
+			String localAppData = System.getenv("LOCALAPPDATA");
+			File base = StringUtils.isNotEmpty(localAppData) ? new File(localAppData) : new File(userHome, "AppData" + File.separator + "Local");
+			directory = new File(new File(base, APPLICATION_NAME), "Cache");
+		} else if (StringUtils.contains(osName, "mac")) {
+			directory = new File(userHome, "Library" + File.separator + "Caches" + File.separator + APPLICATION_NAME);
+		} else {
+			String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+			File base = StringUtils.isNotEmpty(xdgCacheHome) ? new File(xdgCacheHome) : new File(userHome, ".cache");
+			directory = new File(base, APPLICATION_NAME);
+		}
+
+		directory.mkdirs();
+		return directory;
+	}
+
+	/**
+	 * Returns the given sub directory of the cache directory. The directory will be created if it does not exist.
+	 *
+	 * @param name
+	 * 		name of sub directory
+	 * @return sub directory
+	 */
+	public static File getCacheDirectory(String name) {
+		File directory = new File(getCacheDirectory(), name);
+		directory.mkdirs();
+		return directory;
+	}
+}
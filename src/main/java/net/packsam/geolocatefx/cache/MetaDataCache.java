@@ -0,0 +1,474 @@
+package net.packsam.geolocatefx.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Persistent cache for the meta data of image files. Entries are keyed by the canonical file path and are only valid as long as size and modification date of the file
+ * did not change.
+ *
+ * <p>
+ * The cache file is an append-only log of binary records, the last record of a path wins. It will be compacted when loading if it contains too many outdated records.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class MetaDataCache {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(MetaDataCache.class.getName());
+
+	/**
+	 * Magic number at the start of the cache file.
+	 */
+	private final static int MAGIC = 0x47464D43;
+
+	/**
+	 * Version of the file format.
+	 */
+	private final static int VERSION = 1;
+
+	/**
+	 * Flag for a record containing a geolocation.
+	 */
+	private final static int FLAG_GEOLOCATION = 1;
+
+	/**
+	 * Flag for a record containing a creation date.
+	 */
+	private final static int FLAG_CREATION_DATE = 1 << 1;
+
+	/**
+	 * Flag for a record containing a video duration.
+	 */
+	private final static int FLAG_DURATION = 1 << 2;
+
+	/**
+	 * Flag for a record containing a video frame rate.
+	 */
+	private final static int FLAG_VIDEO_FRAME_RATE = 1 << 3;
+
+	/**
+	 * Minimum number of outdated records before the file will be compacted.
+	 */
+	private final static int MIN_OUTDATED_RECORDS_FOR_COMPACTION = 1000;
+
+	/**
+	 * Cache file.
+	 */
+	private final File file;
+
+	/**
+	 * Cached records by canonical path.
+	 */
+	private final Map<String, Record> records = new HashMap<>();
+
+	/**
+	 * Output stream for appending records.
+	 */
+	private DataOutputStream out;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param file
+	 * 		cache file
+	 */
+	public MetaDataCache(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Loads the cache file and opens it for appending new records. Errors are logged and result in an empty cache.
+	 */
+	public synchronized void open() {
+		int recordCount = 0;
+		boolean valid = false;
+		if (file.isFile()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+					valid = true;
+					while (hasMoreData(in)) {
+						Record record = readRecord(in);
+						records.put(record.path, record);
+						recordCount++;
+					}
+				}
+			} catch (EOFException e) {
+				// last record has been truncated, e.g. by a crash while writing, the complete records are kept and the file will be rewritten
+				valid = false;
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "Could not read meta data cache " + file.getAbsolutePath(), e);
+				records.clear();
+				valid = false;
+			}
+		}
+
+		try {
+			if (!valid || recordCount - records.size() >= Math.max(MIN_OUTDATED_RECORDS_FOR_COMPACTION, records.size())) {
+				compact();
+			}
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (IOException e) {
+			LOG.log(Level.WARNING, "Could not open meta data cache " + file.getAbsolutePath(), e);
+			out = null;
+		}
+	}
+
+	/**
+	 * Checks if the given stream contains more data without consuming it.
+	 *
+	 * @param in
+	 * 		input stream
+	 * @return <code>true</code> if there is at least one more byte
+	 * @throws IOException
+	 * 		could not read stream
+	 */
+	private static boolean hasMoreData(DataInputStream in) throws IOException {
+		in.mark(1);
+		boolean hasMoreData = in.read() >= 0;
+		in.reset();
+		return hasMoreData;
+	}
+
+	/**
+	 * Returns the cached meta data of the given file if it is still valid. The image file is accessed outside of the cache lock, so slow disks do not block other threads.
+	 *
+	 * @param imageFile
+	 * 		image file
+	 * @return cached meta data or <code>null</code> if there is no valid entry
+	 */
+	public Entry get(File imageFile) {
+		String key = getKey(imageFile);
+		Record record;
+		synchronized (this) {
+			record = records.get(key);
+		}
+		if (record == null || record.size != imageFile.length() || record.lastModified != imageFile.lastModified()) {
+			return null;
+		}
+		return record.entry;
+	}
+
+	/**
+	 * Stores the meta data of the given file. Size and modification date are read from the file before taking the cache lock.
+	 *
+	 * @param imageFile
+	 * 		image file
+	 * @param entry
+	 * 		meta data
+	 */
+	public void put(File imageFile, Entry entry) {
+		Record record = new Record(getKey(imageFile), imageFile.length(), imageFile.lastModified(), entry);
+		synchronized (this) {
+			records.put(record.path, record);
+
+			if (out != null) {
+				try {
+					writeRecord(out, record);
+				} catch (IOException e) {
+					LOG.log(Level.WARNING, "Could not write meta data cache " + file.getAbsolutePath(), e);
+					closeQuietly();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all pending records to disk.
+	 */
+	public synchronized void flush() {
+		if (out != null) {
+			try {
+				out.flush();
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "Could not write meta data cache " + file.getAbsolutePath(), e);
+				closeQuietly();
+			}
+		}
+	}
+
+	/**
+	 * Writes all pending records to disk and closes the cache file.
+	 */
+	public synchronized void close() {
+		flush();
+		closeQuietly();
+	}
+
+	/**
+	 * Closes the output stream without reporting errors.
+	 */
+	private void closeQuietly() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			out = null;
+		}
+	}
+
+	/**
+	 * Rewrites the cache file with the current records only.
+	 *
+	 * @throws IOException
+	 * 		could not write cache file
+	 */
+	private void compact() throws IOException {
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			tempOut.writeInt(MAGIC);
+			tempOut.writeInt(VERSION);
+			for (Record record : records.values()) {
+				writeRecord(tempOut, record);
+			}
+		}
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Returns the cache key of the given file.
+	 *
+	 * @param imageFile
+	 * 		image file
+	 * @return canonical path
+	 */
+	private static String getKey(File imageFile) {
+		try {
+			return imageFile.getCanonicalPath();
+		} catch (IOException e) {
+			return imageFile.getAbsolutePath();
+		}
+	}
+
+	/**
+	 * Reads a single record.
+	 *
+	 * @param in
+	 * 		input stream
+	 * @return record
+	 * @throws IOException
+	 * 		could not read record
+	 */
+	private static Record readRecord(DataInputStream in) throws IOException {
+		String path = in.readUTF();
+		long size = in.readLong();
+		long lastModified = in.readLong();
+		int flags = in.readUnsignedByte();
+
+		LatLong geolocation = null;
+		if ((flags & FLAG_GEOLOCATION) != 0) {
+			double latitude = in.readDouble();
+			double longitude = in.readDouble();
+			geolocation = new LatLong(latitude, longitude);
+		}
+		Date creationDate = (flags & FLAG_CREATION_DATE) != 0 ? new Date(in.readLong()) : null;
+		Double duration = (flags & FLAG_DURATION) != 0 ? in.readDouble() : null;
+		Double videoFrameRate = (flags & FLAG_VIDEO_FRAME_RATE) != 0 ? in.readDouble() : null;
+
+		return new Record(path, size, lastModified, new Entry(geolocation, creationDate, duration, videoFrameRate));
+	}
+
+	/**
+	 * Writes a single record.
+	 *
+	 * @param out
+	 * 		output stream
+	 * @param record
+	 * 		record
+	 * @throws IOException
+	 * 		could not write record
+	 */
+	private static void writeRecord(DataOutputStream out, Record record) throws IOException {
+		Entry entry = record.entry;
+		int flags = 0;
+		if (entry.geolocation != null) {
+			flags |= FLAG_GEOLOCATION;
+		}
+		if (entry.creationDate != null) {
+			flags |= FLAG_CREATION_DATE;
+		}
+		if (entry.duration != null) {
+			flags |= FLAG_DURATION;
+		}
+		if (entry.videoFrameRate != null) {
+			flags |= FLAG_VIDEO_FRAME_RATE;
+		}
+
+		out.writeUTF(record.path);
+		out.writeLong(record.size);
+		out.writeLong(record.lastModified);
+		out.writeByte(flags);
+		if (entry.geolocation != null) {
+			out.writeDouble(entry.geolocation.getLatitude());
+			out.writeDouble(entry.geolocation.getLongitude());
+		}
+		if (entry.creationDate != null) {
+			out.writeLong(entry.creationDate.getTime());
+		}
+		if (entry.duration != null) {
+			out.writeDouble(entry.duration);
+		}
+		if (entry.videoFrameRate != null) {
+			out.writeDouble(entry.videoFrameRate);
+		}
+	}
+
+	/**
+	 * Cached meta data of a single file.
+	 *
+	 * @author osterrath
+	 */
+	public static class Entry {
+		/**
+		 * Geolocation.
+		 */
+		private final LatLong geolocation;
+
+		/**
+		 * Creation date.
+		 */
+		private final Date creationDate;
+
+		/**
+		 * Video duration.
+		 */
+		private final Double duration;
+
+		/**
+		 * Video frame rate.
+		 */
+		private final Double videoFrameRate;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param geolocation
+		 * 		geolocation
+		 * @param creationDate
+		 * 		creation date
+		 * @param duration
+		 * 		video duration
+		 * @param videoFrameRate
+		 * 		video frame rate
+		 */
+		public Entry(LatLong geolocation, Date creationDate, Double duration, Double videoFrameRate) {
+			this.geolocation = geolocation;
+			this.creationDate = creationDate != null ? new Date(creationDate.getTime()) : null;
+			this.duration = duration;
+			this.videoFrameRate = videoFrameRate;
+		}
+
+		/**
+		 * Returns a copy of this entry with the given geolocation.
+		 *
+		 * @param geolocation
+		 * 		new geolocation
+		 * @return new entry
+		 */
+		public Entry withGeolocation(LatLong geolocation) {
+			return new Entry(geolocation, creationDate, duration, videoFrameRate);
+		}
+
+		/**
+		 * Returns the geolocation.
+		 *
+		 * @return geolocation
+		 */
+		public LatLong getGeolocation() {
+			return geolocation;
+		}
+
+		/**
+		 * Returns the creationDate.
+		 *
+		 * @return creationDate
+		 */
+		public Date getCreationDate() {
+			return creationDate != null ? new Date(creationDate.getTime()) : null;
+		}
+
+		/**
+		 * Returns the duration.
+		 *
+		 * @return duration
+		 */
+		public Double getDuration() {
+			return duration;
+		}
+
+		/**
+		 * Returns the videoFrameRate.
+		 *
+		 * @return videoFrameRate
+		 */
+		public Double getVideoFrameRate() {
+			return videoFrameRate;
+		}
+	}
+
+	/**
+	 * A single record of the cache file.
+	 *
+	 * @author osterrath
+	 */
+	private static class Record {
+		/**
+		 * Canonical file path.
+		 */
+		private final String path;
+
+		/**
+		 * File size.
+		 */
+		private final long size;
+
+		/**
+		 * File modification date.
+		 */
+		private final long lastModified;
+
+		/**
+		 * Cached meta data.
+		 */
+		private final Entry entry;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param path
+		 * 		canonical file path
+		 * @param size
+		 * 		file size
+		 * @param lastModified
+		 * 		file modification date
+		 * @param entry
+		 * 		cached meta data
+		 */
+		private Record(String path, long size, long lastModified, Entry entry) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.entry = entry;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package net.packsam.geolocatefx.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Central store for thumbnail images. Thumbnails are keyed by a hash of canonical path, size and modification date of the original file, so changed files automatically
+ * get a new thumbnail while the outdated one will be evicted eventually.
+ *
+ * <p>
+ * The files are spread over 256 sub directories named by the first two characters of the key. The total size is bounded by a byte budget, the least recently used
+ * thumbnails are removed by {@link #compact()} which should be called periodically in background. Thumbnails that are still shown can be pinned, they are skipped by the
+ * compaction.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class ThumbnailCache {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ThumbnailCache.class.getName());
+
+	/**
+	 * File extension of thumbnail files.
+	 */
+	private final static String THUMBNAIL_EXTENSION = ".jpg";
+
+	/**
+	 * File extension of thumbnails being created.
+	 */
+	private final static String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * Fraction of the byte budget that is kept after compaction, so compaction does not run again for every new thumbnail.
+	 */
+	private final static double LOW_WATER_MARK = 0.9;
+
+	/**
+	 * Age in ms after which left over temporary files will be deleted.
+	 */
+	private final static long TEMP_FILE_MAX_AGE = 60L * 60 * 1000;
+
+	/**
+	 * Hex digits for the key.
+	 */
+	private final static char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Cache directory.
+	 */
+	private final File directory;
+
+	/**
+	 * Maximum number of bytes of all thumbnails.
+	 */
+	private final long maxBytes;
+
+	/**
+	 * File sizes of the thumbnails by key, in access order.
+	 */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+	/**
+	 * Number of references by key of the pinned thumbnails.
+	 */
+	private final Map<String, Integer> pinnedKeys = new HashMap<>();
+
+	/**
+	 * Total number of bytes of all thumbnails.
+	 */
+	private long totalBytes;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param directory
+	 * 		cache directory
+	 * @param maxBytes
+	 * 		maximum number of bytes of all thumbnails
+	 */
+	public ThumbnailCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Scans the cache directory for existing thumbnails. The modification date of the thumbnail files is used as last access date.
+	 */
+	public void open() {
+		List<File> thumbnailFiles = new ArrayList<>();
+		long now = System.currentTimeMillis();
+
+		File[] shardDirectories = directory.listFiles(File::isDirectory);
+		if (shardDirectories != null) {
+			for (File shardDirectory : shardDirectories) {
+				File[] files = shardDirectory.listFiles(File::isFile);
+				if (files == null) {
+					continue;
+				}
+				for (File file : files) {
+					String name = file.getName();
+					if (name.endsWith(THUMBNAIL_EXTENSION)) {
+						thumbnailFiles.add(file);
+					} else if (name.endsWith(TEMP_EXTENSION) && now - file.lastModified() > TEMP_FILE_MAX_AGE) {
+						// left over from a crash
+						file.delete();
+					}
+				}
+			}
+		}
+
+		long[] lastModified = new long[thumbnailFiles.size()];
+		Integer[] order = new Integer[thumbnailFiles.size()];
+		for (int i = 0; i < order.length; i++) {
+			lastModified[i] = thumbnailFiles.get(i).lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> lastModified[i]));
+
+		synchronized (this) {
+			for (Integer i : order) {
+				File file = thumbnailFiles.get(i);
+				String key = getKey(file.getName());
+				if (!entries.containsKey(key)) {
+					long size = file.length();
+					entries.put(key, size);
+					totalBytes += size;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached thumbnail of the given image.
+	 *
+	 * @param imageFile
+	 * 		original image file
+	 * @return thumbnail file or <code>null</code> if there is no thumbnail for the current version of the image
+	 */
+	public File get(File imageFile) {
+		String key = getKey(imageFile);
+		File thumbnailFile = getThumbnailFile(key);
+
+		synchronized (this) {
+			if (!thumbnailFile.isFile()) {
+				Long size = entries.remove(key);
+				if (size != null) {
+					totalBytes -= size;
+				}
+				return null;
+			}
+			if (entries.get(key) == null) {
+				// created by another instance
+				long size = thumbnailFile.length();
+				entries.put(key, size);
+				totalBytes += size;
+			}
+		}
+
+		// persist access order for the next start
+		thumbnailFile.setLastModified(System.currentTimeMillis());
+		return thumbnailFile;
+	}
+
+	/**
+	 * Creates a temporary file for writing the thumbnail of the given image. It has to be passed to {@link #put(File, File)} once the thumbnail has been written.
+	 *
+	 * @param imageFile
+	 * 		original image file
+	 * @return new empty temporary file
+	 * @throws IOException
+	 * 		could not create file
+	 */
+	public File createTempFile(File imageFile) throws IOException {
+		String key = getKey(imageFile);
+		File shardDirectory = getShardDirectory(key);
+		shardDirectory.mkdirs();
+		return File.createTempFile(key, TEMP_EXTENSION, shardDirectory);
+	}
+
+	/**
+	 * Moves the written temporary file into the cache.
+	 *
+	 * @param imageFile
+	 * 		original image file
+	 * @param tempFile
+	 * 		temporary file containing the thumbnail
+	 * @return cached thumbnail file
+	 * @throws IOException
+	 * 		could not move file
+	 */
+	public File put(File imageFile, File tempFile) throws IOException {
+		String key = getKey(imageFile);
+		File thumbnailFile = getThumbnailFile(key);
+		Files.move(tempFile.toPath(), thumbnailFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		long size = thumbnailFile.length();
+		synchronized (this) {
+			Long oldSize = entries.put(key, size);
+			totalBytes += size - (oldSize != null ? oldSize : 0);
+		}
+		return thumbnailFile;
+	}
+
+	/**
+	 * Pins the given thumbnail, so it is not removed by the compaction until it has been unpinned as often as it has been pinned.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file returned by the cache
+	 */
+	public synchronized void pin(File thumbnailFile) {
+		pinnedKeys.merge(getKey(thumbnailFile.getName()), 1, Integer::sum);
+	}
+
+	/**
+	 * Releases a pin of the given thumbnail.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file returned by the cache
+	 */
+	public synchronized void unpin(File thumbnailFile) {
+		pinnedKeys.computeIfPresent(getKey(thumbnailFile.getName()), (key, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * Removes the least recently used thumbnails that are not pinned until the cache is below its byte budget.
+	 */
+	public void compact() {
+		List<String> evictedKeys = new ArrayList<>();
+		synchronized (this) {
+			if (totalBytes <= maxBytes) {
+				return;
+			}
+			long targetBytes = (long) (maxBytes * LOW_WATER_MARK);
+			Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+			while (totalBytes > targetBytes && iterator.hasNext()) {
+				Map.Entry<String, Long> entry = iterator.next();
+				if (pinnedKeys.containsKey(entry.getKey())) {
+					continue;
+				}
+				evictedKeys.add(entry.getKey());
+				totalBytes -= entry.getValue();
+				iterator.remove();
+			}
+		}
+
+		for (String key : evictedKeys) {
+			File thumbnailFile = getThumbnailFile(key);
+			if (!thumbnailFile.delete() && thumbnailFile.exists()) {
+				LOG.log(Level.FINE, "Could not delete thumbnail " + thumbnailFile.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * Returns the total number of bytes of all thumbnails.
+	 *
+	 * @return total number of bytes
+	 */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Returns the key of a thumbnail file name.
+	 *
+	 * @param thumbnailFileName
+	 * 		name of the thumbnail file
+	 * @return cache key
+	 */
+	private static String getKey(String thumbnailFileName) {
+		return thumbnailFileName.endsWith(THUMBNAIL_EXTENSION) ? thumbnailFileName.substring(0, thumbnailFileName.length() - THUMBNAIL_EXTENSION.length()) : thumbnailFileName;
+	}
+
+	/**
+	 * Returns the file for the thumbnail with the given key.
+	 *
+	 * @param key
+	 * 		cache key
+	 * @return thumbnail file
+	 */
+	private File getThumbnailFile(String key) {
+		return new File(getShardDirectory(key), key + THUMBNAIL_EXTENSION);
+	}
+
+	/**
+	 * Returns the sub directory for the thumbnail with the given key.
+	 *
+	 * @param key
+	 * 		cache key
+	 * @return sub directory
+	 */
+	private File getShardDirectory(String key) {
+		return new File(directory, key.substring(0, 2));
+	}
+
+	/**
+	 * Calculates the cache key of the given image file.
+	 *
+	 * @param imageFile
+	 * 		original image file
+	 * @return hex encoded hash of canonical path, size and modification date
+	 */
+	private static String getKey(File imageFile) {
+		String path;
+		try {
+			path = imageFile.getCanonicalPath();
+		} catch (IOException e) {
+			path = imageFile.getAbsolutePath();
+		}
+		String identity = path + '\0' + imageFile.length() + '\0' + imageFile.lastModified();
+
+		byte[] hash;
+		try {
+			hash = MessageDigest.getInstance("SHA-1").digest(identity.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-1
+			throw new IllegalStateException(e);
+		}
+
+		char[] key = new char[hash.length << 1];
+		for (int i = 0; i < hash.length; i++) {
+			key[i << 1] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+			key[(i << 1) + 1] = HEX_DIGITS[hash[i] & 0x0f];
+		}
+		return new String(key);
+	}
+}
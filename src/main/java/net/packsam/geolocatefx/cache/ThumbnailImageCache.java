@@ -0,0 +1,288 @@
+package net.packsam.geolocatefx.cache;
+
+import java.io.File;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.scene.image.Image;
+
+/**
+ * Shared cache of decoded thumbnail images, so scrolling through the image list does not decode the same thumbnail files again and again. Images are loaded by JavaFX in
+ * background at the requested width, so the FX thread never waits for decoding.
+ *
+ * <p>
+ * The decoded images are bounded by a byte budget of 4 bytes per pixel. Images that are still loading are accounted with a square of the requested width and re-accounted
+ * with their real size when loading has finished. Images that failed to load are not cached. The least recently used images above the budget are only softly referenced, so
+ * they can be reused until the garbage collector needs the memory.
+ * </p>
+ *
+ * <p>
+ * The cache is meant to be used from the FX thread, all methods are synchronized nevertheless.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class ThumbnailImageCache {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ThumbnailImageCache.class.getName());
+
+	/**
+	 * Maximum number of bytes of all strongly referenced images.
+	 */
+	private final long maxBytes;
+
+	/**
+	 * Width in px the images are decoded with.
+	 */
+	private final double requestedWidth;
+
+	/**
+	 * Strongly referenced images by thumbnail file, in access order.
+	 */
+	private final LinkedHashMap<File, Image> images = new LinkedHashMap<>(256, 0.75f, true);
+
+	/**
+	 * Accounted sizes of the strongly referenced images.
+	 */
+	private final Map<File, Long> imageBytes = new HashMap<>();
+
+	/**
+	 * Evicted images that have not been collected yet.
+	 */
+	private final Map<File, ImageReference> evictedImages = new HashMap<>();
+
+	/**
+	 * Queue of collected evicted images.
+	 */
+	private final ReferenceQueue<Image> collectedImages = new ReferenceQueue<>();
+
+	/**
+	 * Total number of accounted bytes of all strongly referenced images.
+	 */
+	private long totalBytes;
+
+	/**
+	 * Number of requests served from memory.
+	 */
+	private long hitCount;
+
+	/**
+	 * Number of requests that had to decode the thumbnail file.
+	 */
+	private long missCount;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param maxBytes
+	 * 		maximum number of bytes of all strongly referenced images
+	 * @param requestedWidth
+	 * 		width in px the images are decoded with
+	 */
+	public ThumbnailImageCache(long maxBytes, double requestedWidth) {
+		this.maxBytes = maxBytes;
+		this.requestedWidth = requestedWidth;
+	}
+
+	/**
+	 * Returns the decoded image of the given thumbnail file. New images are loaded in background, so the returned image may not be loaded completely yet, see
+	 * {@link Image#getProgress()}.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file
+	 * @return image
+	 */
+	public synchronized Image get(File thumbnailFile) {
+		removeCollectedImages();
+
+		Image image = images.get(thumbnailFile);
+		if (image != null && !image.isError()) {
+			hitCount++;
+			return image;
+		} else if (image != null) {
+			remove(thumbnailFile);
+		}
+
+		ImageReference reference = evictedImages.remove(thumbnailFile);
+		image = reference != null ? reference.get() : null;
+		if (image != null && !image.isError()) {
+			hitCount++;
+		} else {
+			missCount++;
+			image = new Image(thumbnailFile.toURI().toString(), requestedWidth, 0, true, true, true);
+			if (image.getProgress() < 1) {
+				observeLoading(thumbnailFile, image);
+			} else if (image.isError()) {
+				return image;
+			}
+		}
+
+		long bytes = getAccountedBytes(image);
+		images.put(thumbnailFile, image);
+		imageBytes.put(thumbnailFile, bytes);
+		totalBytes += bytes;
+		evict();
+
+		return image;
+	}
+
+	/**
+	 * Observes the given loading image, so it is re-accounted with its real size or removed if it could not be loaded.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file
+	 * @param image
+	 * 		loading image
+	 */
+	private void observeLoading(File thumbnailFile, Image image) {
+		InvalidationListener listener = new InvalidationListener() {
+			@Override
+			public void invalidated(Observable observable) {
+				if (image.getProgress() >= 1 || image.isError()) {
+					image.progressProperty().removeListener(this);
+					image.errorProperty().removeListener(this);
+					loadingFinished(thumbnailFile, image);
+				}
+			}
+		};
+		// failed images may not reach the full progress, so the error flag is observed as well
+		image.progressProperty().addListener(listener);
+		image.errorProperty().addListener(listener);
+	}
+
+	/**
+	 * Event handler when the given image has been loaded.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file
+	 * @param image
+	 * 		loaded image
+	 */
+	private synchronized void loadingFinished(File thumbnailFile, Image image) {
+		if (images.get(thumbnailFile) != image) {
+			// evicted or replaced in the meantime, only drop a failed evicted image
+			ImageReference reference = evictedImages.get(thumbnailFile);
+			if (image.isError() && reference != null && reference.get() == image) {
+				evictedImages.remove(thumbnailFile);
+			}
+			return;
+		}
+
+		if (image.isError()) {
+			remove(thumbnailFile);
+			return;
+		}
+
+		long bytes = getAccountedBytes(image);
+		totalBytes += bytes - imageBytes.put(thumbnailFile, bytes);
+		evict();
+	}
+
+	/**
+	 * Removes the strongly referenced image of the given thumbnail file.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file
+	 */
+	private void remove(File thumbnailFile) {
+		if (images.remove(thumbnailFile) != null) {
+			totalBytes -= imageBytes.remove(thumbnailFile);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes accounted for the given image.
+	 *
+	 * @param image
+	 * 		image
+	 * @return number of bytes
+	 */
+	private long getAccountedBytes(Image image) {
+		if (image.getProgress() >= 1 && !image.isError() && image.getWidth() > 0) {
+			return (long) image.getWidth() * (long) image.getHeight() * 4;
+		}
+		return (long) (requestedWidth * requestedWidth * 4);
+	}
+
+	/**
+	 * Moves the least recently used images to the soft references until the byte budget is kept. The most recent image is always kept.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<File, Image>> iterator = images.entrySet().iterator();
+		while (totalBytes > maxBytes && images.size() > 1 && iterator.hasNext()) {
+			Map.Entry<File, Image> entry = iterator.next();
+			iterator.remove();
+			totalBytes -= imageBytes.remove(entry.getKey());
+			evictedImages.put(entry.getKey(), new ImageReference(entry.getKey(), entry.getValue(), collectedImages));
+		}
+	}
+
+	/**
+	 * Removes the references of all collected images.
+	 */
+	private void removeCollectedImages() {
+		ImageReference reference;
+		while ((reference = (ImageReference) collectedImages.poll()) != null) {
+			evictedImages.remove(reference.thumbnailFile, reference);
+		}
+	}
+
+	/**
+	 * Returns a summary of the cache usage.
+	 *
+	 * @return statistics
+	 */
+	public synchronized String getStatistics() {
+		return String.format(
+				"thumbnail image cache: %d images (%.1f MiB), %d evicted, %d hits, %d misses",
+				images.size(),
+				totalBytes / 1024d / 1024d,
+				evictedImages.size(),
+				hitCount,
+				missCount
+		);
+	}
+
+	/**
+	 * Logs the statistics.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Soft reference to an evicted image that knows its thumbnail file.
+	 *
+	 * @author osterrath
+	 */
+	private static class ImageReference extends SoftReference<Image> {
+		/**
+		 * Thumbnail file.
+		 */
+		private final File thumbnailFile;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param thumbnailFile
+		 * 		thumbnail file
+		 * @param image
+		 * 		evicted image
+		 * @param queue
+		 * 		queue for collected images
+		 */
+		private ImageReference(File thumbnailFile, Image image, ReferenceQueue<Image> queue) {
+			super(image, queue);
+			this.thumbnailFile = thumbnailFile;
+		}
+	}
+}
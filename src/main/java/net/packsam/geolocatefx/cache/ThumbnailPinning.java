@@ -0,0 +1,105 @@
+package net.packsam.geolocatefx.cache;
+
+import java.io.File;
+
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Pins the thumbnails of all images in a list in the thumbnail cache, so the periodic compaction does not delete thumbnails that are still referenced by loaded images. A
+ * thumbnail is unpinned when its image is removed from the list or gets another thumbnail. Must be used on the FX thread.
+ *
+ * @author osterrath
+ */
+public class ThumbnailPinning {
+	/**
+	 * Thumbnail cache.
+	 */
+	private final ThumbnailCache thumbnailCache;
+
+	/**
+	 * Listener for the thumbnails, shared by all images.
+	 */
+	private final ChangeListener<File> thumbnailListener = (o, oldVal, newVal) -> {
+		unpin(oldVal);
+		pin(newVal);
+	};
+
+	/**
+	 * Ctor.
+	 *
+	 * @param images
+	 * 		images whose thumbnails are pinned
+	 * @param thumbnailCache
+	 * 		thumbnail cache
+	 */
+	public ThumbnailPinning(ObservableList<ImageModel> images, ThumbnailCache thumbnailCache) {
+		this.thumbnailCache = thumbnailCache;
+		images.forEach(this::observe);
+		images.addListener(this::imagesChanged);
+	}
+
+	/**
+	 * Event handler when the image list has been changed.
+	 *
+	 * @param change
+	 * 		list change
+	 */
+	private void imagesChanged(ListChangeListener.Change<? extends ImageModel> change) {
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				continue;
+			}
+			change.getRemoved().forEach(this::unobserve);
+			change.getAddedSubList().forEach(this::observe);
+		}
+	}
+
+	/**
+	 * Pins the thumbnail of the given image and observes its changes.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void observe(ImageModel imageModel) {
+		imageModel.thumbnailProperty().addListener(thumbnailListener);
+		pin(imageModel.getThumbnail());
+	}
+
+	/**
+	 * Stops observing the given image and unpins its thumbnail.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void unobserve(ImageModel imageModel) {
+		imageModel.thumbnailProperty().removeListener(thumbnailListener);
+		unpin(imageModel.getThumbnail());
+	}
+
+	/**
+	 * Pins the given thumbnail.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file, may be <code>null</code>
+	 */
+	private void pin(File thumbnailFile) {
+		if (thumbnailFile != null) {
+			thumbnailCache.pin(thumbnailFile);
+		}
+	}
+
+	/**
+	 * Unpins the given thumbnail.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file, may be <code>null</code>
+	 */
+	private void unpin(File thumbnailFile) {
+		if (thumbnailFile != null) {
+			thumbnailCache.unpin(thumbnailFile);
+		}
+	}
+}
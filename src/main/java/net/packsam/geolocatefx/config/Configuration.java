@@ -19,6 +19,36 @@ public class Configuration {
 	 */
 	private String convertPath;
 
+	/**
+	 * Number of exiftool processes kept running in background.
+	 */
+	private Integer exiftoolProcessCount;
+
+	/**
+	 * Number of threads reading meta data in parallel, also used for other exiftool and I/O bound tasks.
+	 */
+	private Integer metaDataParallelism;
+
+	/**
+	 * Number of threads for CPU bound tasks like creating thumbnails.
+	 */
+	private Integer thumbnailParallelism;
+
+	/**
+	 * Maximum size of the thumbnail cache in MiB.
+	 */
+	private Integer thumbnailCacheSize;
+
+	/**
+	 * Maximum size of the decoded thumbnail images kept in memory in MiB.
+	 */
+	private Integer thumbnailImageCacheSize;
+
+	/**
+	 * Comma separated glob patterns for the names of files and directories skipped when importing directories.
+	 */
+	private String importExcludePatterns;
+
 	/**
 	 * Path for last selected image.
 	 */
@@ -72,6 +102,120 @@ public class Configuration {
 		this.convertPath = convertPath;
 	}
 
+	/**
+	 * Returns the exiftoolProcessCount.
+	 *
+	 * @return exiftoolProcessCount
+	 */
+	public Integer getExiftoolProcessCount() {
+		return exiftoolProcessCount;
+	}
+
+	/**
+	 * Sets the exiftoolProcessCount.
+	 *
+	 * @param exiftoolProcessCount
+	 * 		new value for exiftoolProcessCount
+	 */
+	public void setExiftoolProcessCount(Integer exiftoolProcessCount) {
+		this.exiftoolProcessCount = exiftoolProcessCount;
+	}
+
+	/**
+	 * Returns the metaDataParallelism.
+	 *
+	 * @return metaDataParallelism
+	 */
+	public Integer getMetaDataParallelism() {
+		return metaDataParallelism;
+	}
+
+	/**
+	 * Sets the metaDataParallelism.
+	 *
+	 * @param metaDataParallelism
+	 * 		new value for metaDataParallelism
+	 */
+	public void setMetaDataParallelism(Integer metaDataParallelism) {
+		this.metaDataParallelism = metaDataParallelism;
+	}
+
+	/**
+	 * Returns the thumbnailParallelism.
+	 *
+	 * @return thumbnailParallelism
+	 */
+	public Integer getThumbnailParallelism() {
+		return thumbnailParallelism;
+	}
+
+	/**
+	 * Sets the thumbnailParallelism.
+	 *
+	 * @param thumbnailParallelism
+	 * 		new value for thumbnailParallelism
+	 */
+	public void setThumbnailParallelism(Integer thumbnailParallelism) {
+		this.thumbnailParallelism = thumbnailParallelism;
+	}
+
+	/**
+	 * Returns the thumbnailCacheSize.
+	 *
+	 * @return thumbnailCacheSize
+	 */
+	public Integer getThumbnailCacheSize() {
+		return thumbnailCacheSize;
+	}
+
+	/**
+	 * Sets the thumbnailCacheSize.
+	 *
+	 * @param thumbnailCacheSize
+	 * 		new value for thumbnailCacheSize
+	 */
+	public void setThumbnailCacheSize(Integer thumbnailCacheSize) {
+		this.thumbnailCacheSize = thumbnailCacheSize;
+	}
+
+	/**
+	 * Returns the thumbnailImageCacheSize.
+	 *
+	 * @return thumbnailImageCacheSize
+	 */
+	public Integer getThumbnailImageCacheSize() {
+		return thumbnailImageCacheSize;
+	}
+
+	/**
+	 * Sets the thumbnailImageCacheSize.
+	 *
+	 * @param thumbnailImageCacheSize
+	 * 		new value for thumbnailImageCacheSize
+	 */
+	public void setThumbnailImageCacheSize(Integer thumbnailImageCacheSize) {
+		this.thumbnailImageCacheSize = thumbnailImageCacheSize;
+	}
+
+	/**
+	 * Returns the importExcludePatterns.
+	 *
+	 * @return importExcludePatterns
+	 */
+	public String getImportExcludePatterns() {
+		return importExcludePatterns;
+	}
+
+	/**
+	 * Sets the importExcludePatterns.
+	 *
+	 * @param importExcludePatterns
+	 * 		new value for importExcludePatterns
+	 */
+	public void setImportExcludePatterns(String importExcludePatterns) {
+		this.importExcludePatterns = importExcludePatterns;
+	}
+
 	/**
 	 * Returns the lastImagePath.
 	 *
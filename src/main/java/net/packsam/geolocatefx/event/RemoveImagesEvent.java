@@ -0,0 +1,44 @@
+package net.packsam.geolocatefx.event;
+
+import java.util.List;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Event when the user removed some images from the image list.
+ *
+ * @author osterrath
+ */
+public class RemoveImagesEvent extends Event {
+	/**
+	 * Event type for removing images.
+	 */
+	private final static EventType<RemoveImagesEvent> REMOVE_IMAGES = new EventType<>("REMOVE IMAGES");
+
+	/**
+	 * Images to be removed.
+	 */
+	private final List<ImageModel> images;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param images
+	 * 		images to be removed
+	 */
+	public RemoveImagesEvent(List<ImageModel> images) {
+		super(REMOVE_IMAGES);
+		this.images = images;
+	}
+
+	/**
+	 * Returns the images.
+	 *
+	 * @return images
+	 */
+	public List<ImageModel> getImages() {
+		return images;
+	}
+}
@@ -0,0 +1,61 @@
+package net.packsam.geolocatefx.event;
+
+import java.util.List;
+
+import javafx.event.Event;
+import javafx.event.EventType;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Event when the images shown in the image list have been changed, e.g. by scrolling.
+ *
+ * @author osterrath
+ */
+public class VisibleImagesEvent extends Event {
+	/**
+	 * Event type for changed visible images.
+	 */
+	private final static EventType<VisibleImagesEvent> VISIBLE_IMAGES = new EventType<>("VISIBLE IMAGES");
+
+	/**
+	 * Images currently shown.
+	 */
+	private final List<ImageModel> visibleImages;
+
+	/**
+	 * Images that will probably be shown next, ordered by distance in scroll direction.
+	 */
+	private final List<ImageModel> prefetchImages;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param visibleImages
+	 * 		images currently shown
+	 * @param prefetchImages
+	 * 		images that will probably be shown next
+	 */
+	public VisibleImagesEvent(List<ImageModel> visibleImages, List<ImageModel> prefetchImages) {
+		super(VISIBLE_IMAGES);
+		this.visibleImages = visibleImages;
+		this.prefetchImages = prefetchImages;
+	}
+
+	/**
+	 * Returns the visibleImages.
+	 *
+	 * @return visibleImages
+	 */
+	public List<ImageModel> getVisibleImages() {
+		return visibleImages;
+	}
+
+	/**
+	 * Returns the prefetchImages.
+	 *
+	 * @return prefetchImages
+	 */
+	public List<ImageModel> getPrefetchImages() {
+		return prefetchImages;
+	}
+}
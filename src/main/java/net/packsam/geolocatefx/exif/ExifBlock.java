@@ -0,0 +1,219 @@
+package net.packsam.geolocatefx.exif;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Location of the TIFF structure containing the EXIF data inside of an image file. For JPEG files this is the payload of the APP1 "Exif" segment, for TIFF based files
+ * (TIFF, DNG and most RAW formats) this is the whole file.
+ *
+ * @author osterrath
+ */
+class ExifBlock {
+	/**
+	 * JPEG marker for start of image.
+	 */
+	private final static int JPEG_SOI = 0xFFD8;
+
+	/**
+	 * JPEG marker for the APP1 segment.
+	 */
+	private final static int JPEG_APP1 = 0xFFE1;
+
+	/**
+	 * JPEG marker for start of scan, no more meta data segments will follow.
+	 */
+	private final static int JPEG_SOS = 0xFFDA;
+
+	/**
+	 * JPEG marker for end of image.
+	 */
+	private final static int JPEG_EOI = 0xFFD9;
+
+	/**
+	 * Identifier at the start of the EXIF APP1 segment.
+	 */
+	private final static byte[] EXIF_IDENTIFIER = {'E', 'x', 'i', 'f', 0, 0};
+
+	/**
+	 * File position of the TIFF header.
+	 */
+	private final long offset;
+
+	/**
+	 * Length of the TIFF structure in bytes.
+	 */
+	private final long length;
+
+	/**
+	 * Flag if the TIFF structure is embedded in a JPEG file.
+	 */
+	private final boolean jpeg;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param offset
+	 * 		file position of the TIFF header
+	 * @param length
+	 * 		length of the TIFF structure in bytes
+	 * @param jpeg
+	 * 		flag if the TIFF structure is embedded in a JPEG file
+	 */
+	private ExifBlock(long offset, long length, boolean jpeg) {
+		this.offset = offset;
+		this.length = length;
+		this.jpeg = jpeg;
+	}
+
+	/**
+	 * Searches the TIFF structure in the given file.
+	 *
+	 * @param channel
+	 * 		file channel
+	 * @return location of the TIFF structure or <code>null</code> if the file format is not supported or there is no EXIF data
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	static ExifBlock locate(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size < 8) {
+			return null;
+		}
+
+		ByteBuffer header = read(channel, 0, 4);
+		int b0 = header.get(0) & 0xFF;
+		int b1 = header.get(1) & 0xFF;
+		int b2 = header.get(2) & 0xFF;
+		int b3 = header.get(3) & 0xFF;
+		if (b0 == 'I' && b1 == 'I' && b2 == 0x2A && b3 == 0x00 || b0 == 'M' && b1 == 'M' && b2 == 0x00 && b3 == 0x2A) {
+			// TIFF based file
+			return new ExifBlock(0, size, false);
+		}
+		if (((b0 << 8) | b1) == JPEG_SOI) {
+			return locateInJpeg(channel, size);
+		}
+		return null;
+	}
+
+	/**
+	 * Searches the APP1 "Exif" segment in the given JPEG file.
+	 *
+	 * @param channel
+	 * 		file channel
+	 * @param size
+	 * 		file size
+	 * @return location of the TIFF structure or <code>null</code> if there is no EXIF segment
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	private static ExifBlock locateInJpeg(FileChannel channel, long size) throws IOException {
+		long position = 2;
+		while (position + 4 <= size) {
+			ByteBuffer segmentHeader = read(channel, position, 4);
+			int marker = segmentHeader.getShort(0) & 0xFFFF;
+			if ((marker & 0xFF00) != 0xFF00 || marker == JPEG_SOS || marker == JPEG_EOI) {
+				return null;
+			}
+			if (marker == 0xFF01 || (marker >= 0xFFD0 && marker <= 0xFFD7)) {
+				// markers without payload
+				position += 2;
+				continue;
+			}
+
+			int segmentLength = segmentHeader.getShort(2) & 0xFFFF;
+			if (segmentLength < 2) {
+				return null;
+			}
+			if (marker == JPEG_APP1 && segmentLength >= 2 + EXIF_IDENTIFIER.length + 8 && position + 2 + segmentLength <= size) {
+				ByteBuffer identifier = read(channel, position + 4, EXIF_IDENTIFIER.length);
+				if (identifier.equals(ByteBuffer.wrap(EXIF_IDENTIFIER))) {
+					long tiffOffset = position + 4 + EXIF_IDENTIFIER.length;
+					return new ExifBlock(tiffOffset, segmentLength - 2 - EXIF_IDENTIFIER.length, true);
+				}
+			}
+			position += 2 + segmentLength;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a parser for the TIFF structure. EXIF segments of JPEG files are read at once (they are limited to 64 KiB), TIFF based files are read on demand.
+	 *
+	 * @param channel
+	 * 		file channel
+	 * @return TIFF parser
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	TiffParser createParser(FileChannel channel) throws IOException {
+		if (jpeg) {
+			ByteBuffer segment = read(channel, offset, (int) length);
+			return new TiffParser((position, count) -> {
+				if (position < 0 || position + count > segment.capacity()) {
+					throw new EOFException("Offset " + position + " outside of EXIF segment");
+				}
+				ByteBuffer slice = segment.duplicate();
+				slice.position((int) position);
+				slice.limit((int) position + count);
+				return slice.slice();
+			}, length);
+		} else {
+			return new TiffParser((position, count) -> read(channel, offset + position, count), length);
+		}
+	}
+
+	/**
+	 * Reads the given number of bytes from the given position.
+	 *
+	 * @param channel
+	 * 		file channel
+	 * @param position
+	 * 		file position
+	 * @param count
+	 * 		number of bytes
+	 * @return read bytes
+	 * @throws IOException
+	 * 		could not read all bytes
+	 */
+	static ByteBuffer read(FileChannel channel, long position, int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(count);
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Returns the file position of the TIFF header.
+	 *
+	 * @return offset
+	 */
+	long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the length of the TIFF structure.
+	 *
+	 * @return length
+	 */
+	long getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns if the TIFF structure is embedded in a JPEG file.
+	 *
+	 * @return <code>true</code> for JPEG files
+	 */
+	boolean isJpeg() {
+		return jpeg;
+	}
+}
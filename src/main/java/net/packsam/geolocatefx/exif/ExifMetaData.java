@@ -0,0 +1,84 @@
+package net.packsam.geolocatefx.exif;
+
+import java.util.Date;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Model class for the meta data read directly from the EXIF block of an image file.
+ *
+ * @author osterrath
+ */
+public class ExifMetaData {
+	/**
+	 * GPS geolocation.
+	 */
+	private LatLong geolocation;
+
+	/**
+	 * Original creation date (DateTimeOriginal).
+	 */
+	private Date creationDateOriginal;
+
+	/**
+	 * Creation date (CreateDate / DateTimeDigitized).
+	 */
+	private Date creationDate;
+
+	/**
+	 * Returns the geolocation.
+	 *
+	 * @return geolocation
+	 */
+	public LatLong getGeolocation() {
+		return geolocation;
+	}
+
+	/**
+	 * Sets the geolocation.
+	 *
+	 * @param geolocation
+	 * 		new value for geolocation
+	 */
+	public void setGeolocation(LatLong geolocation) {
+		this.geolocation = geolocation;
+	}
+
+	/**
+	 * Returns the creationDateOriginal.
+	 *
+	 * @return creationDateOriginal
+	 */
+	public Date getCreationDateOriginal() {
+		return creationDateOriginal;
+	}
+
+	/**
+	 * Sets the creationDateOriginal.
+	 *
+	 * @param creationDateOriginal
+	 * 		new value for creationDateOriginal
+	 */
+	public void setCreationDateOriginal(Date creationDateOriginal) {
+		this.creationDateOriginal = creationDateOriginal;
+	}
+
+	/**
+	 * Returns the creationDate.
+	 *
+	 * @return creationDate
+	 */
+	public Date getCreationDate() {
+		return creationDate;
+	}
+
+	/**
+	 * Sets the creationDate.
+	 *
+	 * @param creationDate
+	 * 		new value for creationDate
+	 */
+	public void setCreationDate(Date creationDate) {
+		this.creationDate = creationDate;
+	}
+}
@@ -0,0 +1,173 @@
+package net.packsam.geolocatefx.exif;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Map;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Reader for the GPS position and the creation dates from the EXIF data of JPEG and TIFF based files (TIFF, DNG, CR2, NEF, ARW, ...) without starting an external
+ * process.
+ *
+ * @author osterrath
+ */
+public class ExifReader {
+	/**
+	 * Formatter for parsing EXIF date time values.
+	 */
+	private final static DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+	/**
+	 * Maximum size of an embedded thumbnail that will be read.
+	 */
+	private final static int MAX_THUMBNAIL_LENGTH = 1024 * 1024;
+
+	/**
+	 * Reads the meta data of the given file.
+	 *
+	 * @param file
+	 * 		image file
+	 * @return meta data or <code>null</code> if the file format is not supported or the file contains no EXIF data
+	 * @throws IOException
+	 * 		could not read file or the EXIF structure is broken
+	 */
+	public ExifMetaData read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ExifBlock exifBlock = ExifBlock.locate(channel);
+			if (exifBlock == null) {
+				return null;
+			}
+
+			TiffParser parser = exifBlock.createParser(channel);
+			long ifd0Position = parser.readHeader();
+			if (ifd0Position < 0) {
+				return null;
+			}
+
+			ExifMetaData metaData = new ExifMetaData();
+			Map<Integer, TiffParser.IfdEntry> ifd0 = parser.readIfd(ifd0Position);
+
+			long exifPosition = parser.readPointer(ifd0.get(TiffParser.TAG_EXIF_IFD));
+			if (exifPosition > 0) {
+				Map<Integer, TiffParser.IfdEntry> exifIfd = parser.readIfd(exifPosition);
+				metaData.setCreationDateOriginal(parseDateTime(parser.readAscii(exifIfd.get(TiffParser.TAG_DATE_TIME_ORIGINAL))));
+				metaData.setCreationDate(parseDateTime(parser.readAscii(exifIfd.get(TiffParser.TAG_DATE_TIME_DIGITIZED))));
+			}
+
+			long gpsPosition = parser.readPointer(ifd0.get(TiffParser.TAG_GPS_IFD));
+			if (gpsPosition > 0) {
+				Map<Integer, TiffParser.IfdEntry> gpsIfd = parser.readIfd(gpsPosition);
+				Double latitude = toDegrees(
+						parser.readRationals(gpsIfd.get(TiffParser.TAG_GPS_LATITUDE)),
+						parser.readAscii(gpsIfd.get(TiffParser.TAG_GPS_LATITUDE_REF)),
+						"N", "S"
+				);
+				Double longitude = toDegrees(
+						parser.readRationals(gpsIfd.get(TiffParser.TAG_GPS_LONGITUDE)),
+						parser.readAscii(gpsIfd.get(TiffParser.TAG_GPS_LONGITUDE_REF)),
+						"E", "W"
+				);
+				if (latitude != null && longitude != null) {
+					metaData.setGeolocation(new LatLong(latitude, longitude));
+				}
+			}
+
+			return metaData;
+		}
+	}
+
+	/**
+	 * Reads the embedded JPEG thumbnail that is referenced by IFD1.
+	 *
+	 * @param file
+	 * 		image file
+	 * @return JPEG data of the thumbnail or <code>null</code> if the file contains no embedded thumbnail
+	 * @throws IOException
+	 * 		could not read file or the EXIF structure is broken
+	 */
+	public byte[] readThumbnail(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ExifBlock exifBlock = ExifBlock.locate(channel);
+			if (exifBlock == null) {
+				return null;
+			}
+
+			TiffParser parser = exifBlock.createParser(channel);
+			long ifd0Position = parser.readHeader();
+			if (ifd0Position < 0) {
+				return null;
+			}
+
+			long ifd1Position = parser.readNextIfdPosition(ifd0Position);
+			if (ifd1Position <= 0) {
+				return null;
+			}
+
+			Map<Integer, TiffParser.IfdEntry> ifd1 = parser.readIfd(ifd1Position);
+			long thumbnailPosition = parser.readPointer(ifd1.get(TiffParser.TAG_JPEG_INTERCHANGE_FORMAT));
+			long thumbnailLength = parser.readPointer(ifd1.get(TiffParser.TAG_JPEG_INTERCHANGE_FORMAT_LENGTH));
+			if (thumbnailPosition <= 0 || thumbnailLength <= 0 || thumbnailLength > MAX_THUMBNAIL_LENGTH) {
+				return null;
+			}
+
+			return parser.readBytes(thumbnailPosition, (int) thumbnailLength);
+		}
+	}
+
+	/**
+	 * Converts the given degrees, minutes and seconds to numeric degrees.
+	 *
+	 * @param dms
+	 * 		degrees, minutes and seconds
+	 * @param ref
+	 * 		direction reference
+	 * @param positiveDirection
+	 * 		reference for positive direction
+	 * @param negativeDirection
+	 * 		reference for negative direction
+	 * @return numeric degrees
+	 */
+	private Double toDegrees(double[] dms, String ref, String positiveDirection, String negativeDirection) {
+		if (dms == null || dms.length != 3 || ref == null) {
+			return null;
+		}
+
+		int sig;
+		if (ref.equalsIgnoreCase(positiveDirection)) {
+			sig = 1;
+		} else if (ref.equalsIgnoreCase(negativeDirection)) {
+			sig = -1;
+		} else {
+			return null;
+		}
+
+		return sig * (dms[0] + (dms[1] / 60) + (dms[2] / 3600));
+	}
+
+	/**
+	 * Parses the given EXIF date string.
+	 *
+	 * @param dateString
+	 * 		date string
+	 * @return date or <code>null</code> if the date is empty or invalid
+	 */
+	private Date parseDateTime(String dateString) {
+		if (dateString == null || dateString.length() < 19) {
+			return null;
+		}
+		try {
+			LocalDateTime dateTime = LocalDateTime.parse(dateString.substring(0, 19), DATE_TIME_FORMATTER);
+			return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package net.packsam.geolocatefx.exif;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Writer for the GPS position of JPEG files that patches the values of an existing GPS IFD in place. Only the few bytes of the GPS values are written, the rest of the
+ * file stays untouched.
+ *
+ * @author osterrath
+ */
+public class ExifWriter {
+	/**
+	 * Denominator for the seconds of a GPS coordinate.
+	 */
+	private final static long SECONDS_DENOMINATOR = 1_000_000L;
+
+	/**
+	 * Tries to write the given geolocation into the existing GPS IFD of the given file. The file modification date will be preserved.
+	 *
+	 * @param file
+	 * 		JPEG file
+	 * @param geolocation
+	 * 		new geolocation
+	 * @return <code>true</code> if the geolocation has been written, <code>false</code> if the file has no suitable GPS IFD and nothing has been changed
+	 * @throws IOException
+	 * 		could not read or write file
+	 */
+	public boolean writeGeolocation(File file, LatLong geolocation) throws IOException {
+		Path path = file.toPath();
+		FileTime lastModified = Files.getLastModifiedTime(path);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ExifBlock exifBlock = ExifBlock.locate(channel);
+			if (exifBlock == null || !exifBlock.isJpeg()) {
+				return false;
+			}
+
+			TiffParser parser = exifBlock.createParser(channel);
+			long ifd0Position = parser.readHeader();
+			if (ifd0Position < 0) {
+				return false;
+			}
+			long gpsPosition = parser.readPointer(parser.readIfd(ifd0Position).get(TiffParser.TAG_GPS_IFD));
+			if (gpsPosition <= 0) {
+				return false;
+			}
+
+			Map<Integer, TiffParser.IfdEntry> gpsIfd = parser.readIfd(gpsPosition);
+			TiffParser.IfdEntry latitudeRef = gpsIfd.get(TiffParser.TAG_GPS_LATITUDE_REF);
+			TiffParser.IfdEntry latitude = gpsIfd.get(TiffParser.TAG_GPS_LATITUDE);
+			TiffParser.IfdEntry longitudeRef = gpsIfd.get(TiffParser.TAG_GPS_LONGITUDE_REF);
+			TiffParser.IfdEntry longitude = gpsIfd.get(TiffParser.TAG_GPS_LONGITUDE);
+			if (!isReference(latitudeRef) || !isReference(longitudeRef) || parser.readRationals(latitude) == null || parser.readRationals(longitude) == null) {
+				return false;
+			}
+			if (latitude.getCount() != 3 || longitude.getCount() != 3) {
+				return false;
+			}
+
+			// everything is in place, patch values
+			long offset = exifBlock.getOffset();
+			write(channel, offset + latitude.getValuePosition(), encodeDegrees(geolocation.getLatitude(), parser));
+			write(channel, offset + longitude.getValuePosition(), encodeDegrees(geolocation.getLongitude(), parser));
+			write(channel, offset + latitudeRef.getValuePosition(), encodeReference(geolocation.getLatitude() >= 0 ? 'N' : 'S'));
+			write(channel, offset + longitudeRef.getValuePosition(), encodeReference(geolocation.getLongitude() >= 0 ? 'E' : 'W'));
+		}
+
+		Files.setLastModifiedTime(path, lastModified);
+		return true;
+	}
+
+	/**
+	 * Checks if the given entry is a GPS reference entry that can be patched in place.
+	 *
+	 * @param entry
+	 * 		IFD entry
+	 * @return <code>true</code> for an inline ASCII value with a single character
+	 */
+	private boolean isReference(TiffParser.IfdEntry entry) {
+		return entry != null && entry.getType() == TiffParser.TYPE_ASCII && entry.getCount() == 2;
+	}
+
+	/**
+	 * Encodes the given coordinate as three RATIONAL values for degrees, minutes and seconds.
+	 *
+	 * @param coordinate
+	 * 		coordinate
+	 * @param parser
+	 * 		parser containing the byte order
+	 * @return encoded value
+	 */
+	private ByteBuffer encodeDegrees(double coordinate, TiffParser parser) {
+		// calculate in integer arithmetic to prevent rounding up to 60 seconds
+		long total = Math.round(Math.abs(coordinate) * 3600 * SECONDS_DENOMINATOR);
+		long degrees = total / (3600 * SECONDS_DENOMINATOR);
+		long minutes = (total / (60 * SECONDS_DENOMINATOR)) % 60;
+		long seconds = total % (60 * SECONDS_DENOMINATOR);
+
+		ByteBuffer buffer = ByteBuffer.allocate(24).order(parser.getByteOrder());
+		buffer.putInt((int) degrees).putInt(1);
+		buffer.putInt((int) minutes).putInt(1);
+		buffer.putInt((int) seconds).putInt((int) SECONDS_DENOMINATOR);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Encodes the given direction reference as ASCII value.
+	 *
+	 * @param direction
+	 * 		direction reference
+	 * @return encoded value
+	 */
+	private ByteBuffer encodeReference(char direction) {
+		return ByteBuffer.wrap(new byte[]{(byte) direction, 0});
+	}
+
+	/**
+	 * Writes the given bytes at the given file position.
+	 *
+	 * @param channel
+	 * 		file channel
+	 * @param position
+	 * 		file position
+	 * @param buffer
+	 * 		bytes to write
+	 * @throws IOException
+	 * 		could not write
+	 */
+	private void write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+}
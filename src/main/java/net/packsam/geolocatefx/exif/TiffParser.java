@@ -0,0 +1,463 @@
+package net.packsam.geolocatefx.exif;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser for the IFD chain of a TIFF structure. All positions are relative to the TIFF header.
+ *
+ * @author osterrath
+ */
+class TiffParser {
+	/**
+	 * Tag of the EXIF IFD pointer.
+	 */
+	final static int TAG_EXIF_IFD = 0x8769;
+
+	/**
+	 * Tag of the GPS IFD pointer.
+	 */
+	final static int TAG_GPS_IFD = 0x8825;
+
+	/**
+	 * Tag of DateTimeOriginal in the EXIF IFD.
+	 */
+	final static int TAG_DATE_TIME_ORIGINAL = 0x9003;
+
+	/**
+	 * Tag of DateTimeDigitized (CreateDate) in the EXIF IFD.
+	 */
+	final static int TAG_DATE_TIME_DIGITIZED = 0x9004;
+
+	/**
+	 * Tag of GPSLatitudeRef in the GPS IFD.
+	 */
+	final static int TAG_GPS_LATITUDE_REF = 0x0001;
+
+	/**
+	 * Tag of GPSLatitude in the GPS IFD.
+	 */
+	final static int TAG_GPS_LATITUDE = 0x0002;
+
+	/**
+	 * Tag of GPSLongitudeRef in the GPS IFD.
+	 */
+	final static int TAG_GPS_LONGITUDE_REF = 0x0003;
+
+	/**
+	 * Tag of GPSLongitude in the GPS IFD.
+	 */
+	final static int TAG_GPS_LONGITUDE = 0x0004;
+
+	/**
+	 * Tag for the offset of the embedded JPEG thumbnail in IFD1.
+	 */
+	final static int TAG_JPEG_INTERCHANGE_FORMAT = 0x0201;
+
+	/**
+	 * Tag for the length of the embedded JPEG thumbnail in IFD1.
+	 */
+	final static int TAG_JPEG_INTERCHANGE_FORMAT_LENGTH = 0x0202;
+
+	/**
+	 * Field type ASCII.
+	 */
+	final static int TYPE_ASCII = 2;
+
+	/**
+	 * Field type LONG.
+	 */
+	final static int TYPE_LONG = 4;
+
+	/**
+	 * Field type RATIONAL.
+	 */
+	final static int TYPE_RATIONAL = 5;
+
+	/**
+	 * Field type IFD.
+	 */
+	final static int TYPE_IFD = 13;
+
+	/**
+	 * Maximum number of entries in a single IFD, protects against broken files.
+	 */
+	private final static int MAX_IFD_ENTRIES = 1024;
+
+	/**
+	 * Source for reading bytes.
+	 */
+	private final ByteSource source;
+
+	/**
+	 * Length of the TIFF structure.
+	 */
+	private final long length;
+
+	/**
+	 * Byte order of the TIFF structure.
+	 */
+	private ByteOrder byteOrder;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param source
+	 * 		source for reading bytes
+	 * @param length
+	 * 		length of the TIFF structure
+	 */
+	TiffParser(ByteSource source, long length) {
+		this.source = source;
+		this.length = length;
+	}
+
+	/**
+	 * Reads the TIFF header.
+	 *
+	 * @return position of IFD0 or <code>-1</code> if this is no valid TIFF header
+	 * @throws IOException
+	 * 		could not read header
+	 */
+	long readHeader() throws IOException {
+		ByteBuffer header = source.read(0, 8);
+		byte b0 = header.get(0);
+		byte b1 = header.get(1);
+		if (b0 == 'I' && b1 == 'I') {
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+		} else if (b0 == 'M' && b1 == 'M') {
+			byteOrder = ByteOrder.BIG_ENDIAN;
+		} else {
+			return -1;
+		}
+		header.order(byteOrder);
+		if (header.getShort(2) != 0x2A) {
+			return -1;
+		}
+		return header.getInt(4) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Reads all entries of the IFD at the given position.
+	 *
+	 * @param position
+	 * 		position of IFD
+	 * @return IFD entries by tag
+	 * @throws IOException
+	 * 		could not read IFD
+	 */
+	Map<Integer, IfdEntry> readIfd(long position) throws IOException {
+		if (position < 8 || position + 2 > length) {
+			throw new IOException("Invalid IFD offset " + position);
+		}
+		int entryCount = order(source.read(position, 2)).getShort(0) & 0xFFFF;
+		if (entryCount > MAX_IFD_ENTRIES) {
+			throw new IOException("Too many IFD entries: " + entryCount);
+		}
+
+		ByteBuffer entries = order(source.read(position + 2, entryCount * 12));
+		Map<Integer, IfdEntry> ifd = new HashMap<>();
+		for (int i = 0; i < entryCount; i++) {
+			int base = i * 12;
+			int tag = entries.getShort(base) & 0xFFFF;
+			int type = entries.getShort(base + 2) & 0xFFFF;
+			long count = entries.getInt(base + 4) & 0xFFFFFFFFL;
+			long entryPosition = position + 2 + base;
+
+			long size = count * getTypeSize(type);
+			long valuePosition = size <= 4 ? entryPosition + 8 : entries.getInt(base + 8) & 0xFFFFFFFFL;
+			ifd.putIfAbsent(tag, new IfdEntry(tag, type, count, entryPosition, valuePosition));
+		}
+		return ifd;
+	}
+
+	/**
+	 * Reads the position of the IFD following the IFD at the given position.
+	 *
+	 * @param position
+	 * 		position of IFD
+	 * @return position of next IFD or <code>0</code> if this is the last IFD
+	 * @throws IOException
+	 * 		could not read IFD
+	 */
+	long readNextIfdPosition(long position) throws IOException {
+		if (position < 8 || position + 2 > length) {
+			throw new IOException("Invalid IFD offset " + position);
+		}
+		int entryCount = order(source.read(position, 2)).getShort(0) & 0xFFFF;
+		long nextPosition = position + 2 + entryCount * 12L;
+		if (nextPosition + 4 > length) {
+			return 0;
+		}
+		return order(source.read(nextPosition, 4)).getInt(0) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Reads the given range of the TIFF structure.
+	 *
+	 * @param position
+	 * 		position relative to the TIFF header
+	 * @param count
+	 * 		number of bytes
+	 * @return bytes or <code>null</code> if the range lies outside of the TIFF structure
+	 * @throws IOException
+	 * 		could not read bytes
+	 */
+	byte[] readBytes(long position, int count) throws IOException {
+		if (position < 0 || count <= 0 || position + count > length) {
+			return null;
+		}
+		ByteBuffer buffer = source.read(position, count);
+		byte[] bytes = new byte[count];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads the offset stored in the given pointer entry.
+	 *
+	 * @param entry
+	 * 		IFD pointer entry
+	 * @return offset or <code>-1</code> if the entry is no valid pointer
+	 * @throws IOException
+	 * 		could not read value
+	 */
+	long readPointer(IfdEntry entry) throws IOException {
+		if (entry == null || (entry.getType() != TYPE_LONG && entry.getType() != TYPE_IFD) || entry.getCount() != 1) {
+			return -1;
+		}
+		return order(source.read(entry.getValuePosition(), 4)).getInt(0) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Reads the ASCII value of the given entry.
+	 *
+	 * @param entry
+	 * 		IFD entry
+	 * @return string value or <code>null</code> if the entry is no valid ASCII entry
+	 * @throws IOException
+	 * 		could not read value
+	 */
+	String readAscii(IfdEntry entry) throws IOException {
+		if (entry == null || entry.getType() != TYPE_ASCII || entry.getCount() == 0 || entry.getCount() > 256 || !isInside(entry)) {
+			return null;
+		}
+		ByteBuffer value = source.read(entry.getValuePosition(), (int) entry.getCount());
+		int end = 0;
+		while (end < value.limit() && value.get(end) != 0) {
+			end++;
+		}
+		byte[] bytes = new byte[end];
+		value.get(bytes);
+		return new String(bytes, StandardCharsets.US_ASCII).trim();
+	}
+
+	/**
+	 * Reads the RATIONAL values of the given entry.
+	 *
+	 * @param entry
+	 * 		IFD entry
+	 * @return values or <code>null</code> if the entry is no valid RATIONAL entry or a denominator is zero
+	 * @throws IOException
+	 * 		could not read value
+	 */
+	double[] readRationals(IfdEntry entry) throws IOException {
+		if (entry == null || entry.getType() != TYPE_RATIONAL || entry.getCount() == 0 || entry.getCount() > 16 || !isInside(entry)) {
+			return null;
+		}
+		int count = (int) entry.getCount();
+		ByteBuffer value = order(source.read(entry.getValuePosition(), count * 8));
+		double[] result = new double[count];
+		for (int i = 0; i < count; i++) {
+			long numerator = value.getInt(i * 8) & 0xFFFFFFFFL;
+			long denominator = value.getInt(i * 8 + 4) & 0xFFFFFFFFL;
+			if (denominator == 0) {
+				return null;
+			}
+			result[i] = (double) numerator / denominator;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the value of the given entry lies inside of the TIFF structure.
+	 *
+	 * @param entry
+	 * 		IFD entry
+	 * @return <code>true</code> if the value can be read
+	 */
+	private boolean isInside(IfdEntry entry) {
+		long size = entry.getCount() * getTypeSize(entry.getType());
+		return entry.getValuePosition() >= 0 && entry.getValuePosition() + size <= length;
+	}
+
+	/**
+	 * Sets the byte order of the TIFF structure to the given buffer.
+	 *
+	 * @param buffer
+	 * 		buffer
+	 * @return buffer
+	 */
+	private ByteBuffer order(ByteBuffer buffer) {
+		return buffer.order(byteOrder);
+	}
+
+	/**
+	 * Returns the size of a single value of the given field type.
+	 *
+	 * @param type
+	 * 		field type
+	 * @return size in bytes
+	 */
+	private static int getTypeSize(int type) {
+		switch (type) {
+			case 3: // SHORT
+			case 8: // SSHORT
+				return 2;
+			case 4: // LONG
+			case 9: // SLONG
+			case 11: // FLOAT
+			case 13: // IFD
+				return 4;
+			case 5: // RATIONAL
+			case 10: // SRATIONAL
+			case 12: // DOUBLE
+				return 8;
+			default: // BYTE, ASCII, SBYTE, UNDEFINED
+				return 1;
+		}
+	}
+
+	/**
+	 * Returns the byteOrder. Only valid after the header has been read.
+	 *
+	 * @return byteOrder
+	 */
+	ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	/**
+	 * Source for reading bytes of the TIFF structure.
+	 *
+	 * @author osterrath
+	 */
+	@FunctionalInterface
+	interface ByteSource {
+		/**
+		 * Reads the given number of bytes.
+		 *
+		 * @param position
+		 * 		position relative to the TIFF header
+		 * @param count
+		 * 		number of bytes
+		 * @return buffer containing exactly the requested bytes
+		 * @throws IOException
+		 * 		could not read bytes
+		 */
+		ByteBuffer read(long position, int count) throws IOException;
+	}
+
+	/**
+	 * A single entry of an IFD.
+	 *
+	 * @author osterrath
+	 */
+	static class IfdEntry {
+		/**
+		 * Tag.
+		 */
+		private final int tag;
+
+		/**
+		 * Field type.
+		 */
+		private final int type;
+
+		/**
+		 * Number of values.
+		 */
+		private final long count;
+
+		/**
+		 * Position of the entry itself.
+		 */
+		private final long entryPosition;
+
+		/**
+		 * Position of the value, either inside of the entry or the referenced offset.
+		 */
+		private final long valuePosition;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param tag
+		 * 		tag
+		 * @param type
+		 * 		field type
+		 * @param count
+		 * 		number of values
+		 * @param entryPosition
+		 * 		position of the entry itself
+		 * @param valuePosition
+		 * 		position of the value
+		 */
+		private IfdEntry(int tag, int type, long count, long entryPosition, long valuePosition) {
+			this.tag = tag;
+			this.type = type;
+			this.count = count;
+			this.entryPosition = entryPosition;
+			this.valuePosition = valuePosition;
+		}
+
+		/**
+		 * Returns the tag.
+		 *
+		 * @return tag
+		 */
+		int getTag() {
+			return tag;
+		}
+
+		/**
+		 * Returns the type.
+		 *
+		 * @return type
+		 */
+		int getType() {
+			return type;
+		}
+
+		/**
+		 * Returns the count.
+		 *
+		 * @return count
+		 */
+		long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the entryPosition.
+		 *
+		 * @return entryPosition
+		 */
+		long getEntryPosition() {
+			return entryPosition;
+		}
+
+		/**
+		 * Returns the valuePosition.
+		 *
+		 * @return valuePosition
+		 */
+		long getValuePosition() {
+			return valuePosition;
+		}
+	}
+}
@@ -0,0 +1,940 @@
+package net.packsam.geolocatefx.exiftool;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Pool of long running exiftool processes. Every process is started with <code>-stay_open True -@ -</code> and receives its arguments through STDIN. Each request is
+ * terminated with <code>-execute{N}</code>, so the end of its output can be detected by the <code>{readyN}</code> line. STDERR is read by an own thread per process, the
+ * request echoes the same marker to STDERR with <code>-echo4</code>, so the error output of every request can be told apart. Requests of the user are taken from the queue
+ * before all waiting background requests and do not wait for a free queue slot, so a dragged geolocation is not written after hundreds of queued meta data reads.
+ *
+ * @author osterrath
+ */
+public class ExiftoolPool {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ExiftoolPool.class.getName());
+
+	/**
+	 * Idle time in ms after which a worker checks its process.
+	 */
+	private final static long HEALTH_CHECK_INTERVAL = 30_000L;
+
+	/**
+	 * Time in ms to wait for a process to exit after it has been asked to.
+	 */
+	private final static long SHUTDOWN_TIMEOUT = 5_000L;
+
+	/**
+	 * Time in ms after which a request waiting for a free queue slot checks if the pool has been shut down.
+	 */
+	private final static long QUEUE_CHECK_INTERVAL = 1_000L;
+
+	/**
+	 * Marker for the end of the error stream.
+	 */
+	private final static String END_OF_STREAM = new String("end of stream");
+
+	/**
+	 * Prefix of error lines.
+	 */
+	private final static String ERROR_PREFIX = "Error";
+
+	/**
+	 * Prefix of warning lines.
+	 */
+	private final static String WARNING_PREFIX = "Warning";
+
+	/**
+	 * Supplier for the path to exiftool.
+	 */
+	private final Supplier<String> exiftoolPathSupplier;
+
+	/**
+	 * Queue of requests waiting for a free process, ordered by priority and submission order.
+	 */
+	private final BlockingQueue<Request> requestQueue = new PriorityBlockingQueue<>();
+
+	/**
+	 * Free slots of the request queue for background requests.
+	 */
+	private final Semaphore queueSlots;
+
+	/**
+	 * Worker threads, one for each process.
+	 */
+	private final List<Thread> workerThreads = new ArrayList<>();
+
+	/**
+	 * Counter for submitted requests, keeps the order of requests with the same priority.
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Counter for request IDs.
+	 */
+	private final AtomicInteger requestCounter = new AtomicInteger();
+
+	/**
+	 * Number of spawned processes.
+	 */
+	private final LongAdder spawnCount = new LongAdder();
+
+	/**
+	 * Total time in ns for spawning processes.
+	 */
+	private final LongAdder spawnTime = new LongAdder();
+
+	/**
+	 * Number of executed requests.
+	 */
+	private final LongAdder requestCount = new LongAdder();
+
+	/**
+	 * Total time in ns the requests waited in queue.
+	 */
+	private final LongAdder requestWaitTime = new LongAdder();
+
+	/**
+	 * Total time in ns for executing requests.
+	 */
+	private final LongAdder requestExecutionTime = new LongAdder();
+
+	/**
+	 * Maximum time in ns for executing a single request.
+	 */
+	private final AtomicLong maxRequestExecutionTime = new AtomicLong();
+
+	/**
+	 * Flag if the pool has been shut down.
+	 */
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param exiftoolPathSupplier
+	 * 		supplier for the path to exiftool, will be asked before each request so changed settings are used immediately
+	 * @param poolSize
+	 * 		number of exiftool processes
+	 * @param queueCapacity
+	 * 		maximum number of background requests waiting for a process
+	 */
+	public ExiftoolPool(Supplier<String> exiftoolPathSupplier, int poolSize, int queueCapacity) {
+		this.exiftoolPathSupplier = exiftoolPathSupplier;
+		queueSlots = new Semaphore(Math.max(1, queueCapacity));
+
+		for (int i = 0; i < Math.max(1, poolSize); i++) {
+			Thread thread = new Thread(new Worker(), "exiftool-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			workerThreads.add(thread);
+		}
+	}
+
+	/**
+	 * Executes exiftool with the given arguments as background request. Blocks while the request queue is full and until the request has been executed.
+	 *
+	 * @param arguments
+	 * 		exiftool arguments, one argument per entry
+	 * @param lineHandler
+	 * 		optional handler for every output line, will be called from the worker thread
+	 * @return error output of exiftool or <code>null</code> if there were no errors
+	 * @throws IOException
+	 * 		exiftool could not be started or terminated unexpectedly
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for the result
+	 * @see #execute(List, LineHandler, Priority)
+	 */
+	public String execute(List<String> arguments, LineHandler lineHandler) throws IOException, InterruptedException {
+		return execute(arguments, lineHandler, Priority.BACKGROUND);
+	}
+
+	/**
+	 * Executes exiftool with the given arguments. Background requests block while the request queue is full, all requests block until they have been executed.
+	 *
+	 * @param arguments
+	 * 		exiftool arguments, one argument per entry
+	 * @param lineHandler
+	 * 		optional handler for every output line, will be called from the worker thread
+	 * @param priority
+	 * 		priority of the request
+	 * @return error output of exiftool or <code>null</code> if there were no errors
+	 * @throws IOException
+	 * 		exiftool could not be started or terminated unexpectedly
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for the result; if a worker had already started the request, the method returns after the request has finished and
+	 * 		the line handler is not called anymore
+	 */
+	public String execute(List<String> arguments, LineHandler lineHandler, Priority priority) throws IOException, InterruptedException {
+		if (shutdown) {
+			throw new IOException("exiftool pool has been shut down");
+		}
+
+		Request request = new Request(arguments, lineHandler, priority, sequence.getAndIncrement());
+		if (request.usesQueueSlot()) {
+			while (!queueSlots.tryAcquire(QUEUE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if (shutdown) {
+					throw new IOException("exiftool pool has been shut down");
+				}
+			}
+		}
+		requestQueue.add(request);
+		if (shutdown) {
+			// shut down while queuing, the workers will not take the request anymore
+			removeRequest(request);
+			request.result.completeExceptionally(new IOException("exiftool pool has been shut down"));
+		}
+		try {
+			return request.result.get();
+		} catch (InterruptedException e) {
+			if (request.cancel()) {
+				// a worker is executing the request, wait for it so neither the process nor the line handler outlive the cancelled caller
+				awaitUninterruptibly(request.result);
+			} else {
+				removeRequest(request);
+				request.result.cancel(false);
+			}
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Removes the given request from the queue and frees its queue slot.
+	 *
+	 * @param request
+	 * 		request to remove
+	 */
+	private void removeRequest(Request request) {
+		if (requestQueue.remove(request) && request.usesQueueSlot()) {
+			queueSlots.release();
+		}
+	}
+
+	/**
+	 * Takes the next request from the queue and frees its queue slot.
+	 *
+	 * @param timeout
+	 * 		timeout in ms
+	 * @return request or <code>null</code> if the queue stayed empty
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting
+	 */
+	private Request takeRequest(long timeout) throws InterruptedException {
+		Request request = requestQueue.poll(timeout, TimeUnit.MILLISECONDS);
+		if (request != null && request.usesQueueSlot()) {
+			queueSlots.release();
+		}
+		return request;
+	}
+
+	/**
+	 * Waits for the given result without reacting to interrupts. The interrupt flag is restored afterwards.
+	 *
+	 * @param result
+	 * 		result to wait for
+	 */
+	private static void awaitUninterruptibly(CompletableFuture<String> result) {
+		boolean interrupted = false;
+		while (!result.isDone()) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			} catch (ExecutionException | CancellationException e) {
+				// done
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the path to the exiftool executable.
+	 *
+	 * @return exiftool path
+	 */
+	public String getExiftoolPath() {
+		String exiftoolPath = exiftoolPathSupplier.get();
+		return StringUtils.isNotEmpty(exiftoolPath) ? exiftoolPath : "exiftool";
+	}
+
+	/**
+	 * Stops all exiftool processes. Waiting requests will fail.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		workerThreads.forEach(Thread::interrupt);
+
+		Request request;
+		while ((request = requestQueue.poll()) != null) {
+			if (request.usesQueueSlot()) {
+				queueSlots.release();
+			}
+			request.result.completeExceptionally(new IOException("exiftool pool has been shut down"));
+		}
+
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Returns the number of requests waiting for a process.
+	 *
+	 * @return queue size
+	 */
+	public int getQueueSize() {
+		return requestQueue.size();
+	}
+
+	/**
+	 * Returns a summary of the spawn and request latencies.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		long spawns = spawnCount.sum();
+		long requests = requestCount.sum();
+		return String.format(
+				"exiftool pool: %d processes spawned (avg %.1f ms), %d requests (avg wait %.1f ms, avg execution %.1f ms, max execution %.1f ms)",
+				spawns,
+				average(spawnTime.sum(), spawns),
+				requests,
+				average(requestWaitTime.sum(), requests),
+				average(requestExecutionTime.sum(), requests),
+				maxRequestExecutionTime.get() / 1_000_000d
+		);
+	}
+
+	/**
+	 * Calculates the average in ms of the given total time in ns.
+	 *
+	 * @param totalNanos
+	 * 		total time in ns
+	 * @param count
+	 * 		number of measurements
+	 * @return average in ms
+	 */
+	private static double average(long totalNanos, long count) {
+		return count > 0 ? totalNanos / 1_000_000d / count : 0;
+	}
+
+	/**
+	 * Priorities of requests, the order defines the order in which waiting requests are executed.
+	 *
+	 * @author osterrath
+	 */
+	public enum Priority {
+		/**
+		 * Requests started by the user, e.g. writing a dragged geolocation. Executed before all waiting background requests.
+		 */
+		USER,
+
+		/**
+		 * Background requests, e.g. reading meta data.
+		 */
+		BACKGROUND
+	}
+
+	/**
+	 * Functional interface for handling the output of exiftool line by line.
+	 *
+	 * @author osterrath
+	 */
+	@FunctionalInterface
+	public interface LineHandler {
+		/**
+		 * Handles a single output line. The buffer will be reused for the next line, so implementations must not keep a reference to it.
+		 *
+		 * @param line
+		 * 		buffer containing the UTF-8 encoded output line without line separator
+		 * @param length
+		 * 		length of the line in the buffer
+		 */
+		void handleLine(byte[] line, int length);
+	}
+
+	/**
+	 * Reader for the output lines of a process that works directly on bytes and reuses its buffers.
+	 *
+	 * @author osterrath
+	 */
+	private static class LineReader {
+		/**
+		 * Input stream of the process.
+		 */
+		private final InputStream in;
+
+		/**
+		 * Buffer for reading from the stream.
+		 */
+		private final byte[] buffer = new byte[65536];
+
+		/**
+		 * Read position in buffer.
+		 */
+		private int position = 0;
+
+		/**
+		 * Number of valid bytes in buffer.
+		 */
+		private int limit = 0;
+
+		/**
+		 * Buffer for the current line.
+		 */
+		private byte[] line = new byte[256];
+
+		/**
+		 * Length of the current line.
+		 */
+		private int lineLength = 0;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param in
+		 * 		input stream of the process
+		 */
+		private LineReader(InputStream in) {
+			this.in = in;
+		}
+
+		/**
+		 * Reads the next line, blocks until a complete line is available.
+		 *
+		 * @return <code>false</code> if the stream has ended
+		 * @throws IOException
+		 * 		could not read from stream
+		 */
+		private boolean readLine() throws IOException {
+			lineLength = 0;
+			while (true) {
+				if (position == limit) {
+					int read = in.read(buffer);
+					if (read < 0) {
+						return lineLength > 0;
+					}
+					position = 0;
+					limit = read;
+				}
+
+				int start = position;
+				while (position < limit && buffer[position] != '\n') {
+					position++;
+				}
+				append(start, position - start);
+
+				if (position < limit) {
+					// skip line separator
+					position++;
+					if (lineLength > 0 && line[lineLength - 1] == '\r') {
+						lineLength--;
+					}
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Appends the given part of the read buffer to the current line.
+		 *
+		 * @param start
+		 * 		start position in read buffer
+		 * @param count
+		 * 		number of bytes
+		 */
+		private void append(int start, int count) {
+			if (lineLength + count > line.length) {
+				line = Arrays.copyOf(line, Math.max(line.length << 1, lineLength + count));
+			}
+			System.arraycopy(buffer, start, line, lineLength, count);
+			lineLength += count;
+		}
+
+		/**
+		 * Checks if the current line starts with the given bytes.
+		 *
+		 * @param prefix
+		 * 		prefix
+		 * @return <code>true</code> if the line starts with the prefix
+		 */
+		private boolean startsWith(byte[] prefix) {
+			if (lineLength < prefix.length) {
+				return false;
+			}
+			for (int i = 0; i < prefix.length; i++) {
+				if (line[i] != prefix[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks if the current line equals the given bytes.
+		 *
+		 * @param bytes
+		 * 		bytes to compare
+		 * @return <code>true</code> if the line is equal
+		 */
+		private boolean lineEquals(byte[] bytes) {
+			return lineLength == bytes.length && startsWith(bytes);
+		}
+
+		/**
+		 * Returns the current line as string.
+		 *
+		 * @return current line
+		 */
+		private String getLineAsString() {
+			return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * A single request for exiftool.
+	 *
+	 * @author osterrath
+	 */
+	private static class Request implements Comparable<Request> {
+		/**
+		 * Exiftool arguments.
+		 */
+		private final List<String> arguments;
+
+		/**
+		 * Output line handler.
+		 */
+		private final LineHandler lineHandler;
+
+		/**
+		 * Priority.
+		 */
+		private final Priority priority;
+
+		/**
+		 * Submission order.
+		 */
+		private final long sequenceNumber;
+
+		/**
+		 * Time stamp in ns when the request has been created.
+		 */
+		private final long created = System.nanoTime();
+
+		/**
+		 * Result containing the error output.
+		 */
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+
+		/**
+		 * Flag if a worker has started executing the request.
+		 */
+		private boolean started;
+
+		/**
+		 * Flag if the caller has been interrupted, the output is not handled anymore.
+		 */
+		private boolean cancelled;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param arguments
+		 * 		exiftool arguments
+		 * @param lineHandler
+		 * 		output line handler
+		 * @param priority
+		 * 		priority
+		 * @param sequenceNumber
+		 * 		submission order
+		 */
+		private Request(List<String> arguments, LineHandler lineHandler, Priority priority, long sequenceNumber) {
+			this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+			this.lineHandler = lineHandler;
+			this.priority = priority;
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		/**
+		 * Checks if the request occupies a slot of the request queue while waiting.
+		 *
+		 * @return <code>true</code> for background requests
+		 */
+		private boolean usesQueueSlot() {
+			return priority != Priority.USER;
+		}
+
+		/**
+		 * Orders by priority first, then by submission order.
+		 *
+		 * @param o
+		 * 		other request
+		 * @return comparison result
+		 */
+		@Override
+		public int compareTo(Request o) {
+			int result = priority.compareTo(o.priority);
+			return result != 0 ? result : Long.compare(sequenceNumber, o.sequenceNumber);
+		}
+
+		/**
+		 * Marks the request as started by a worker.
+		 *
+		 * @return <code>true</code> if the request should be executed, <code>false</code> if it has been cancelled or completed before
+		 */
+		private synchronized boolean start() {
+			if (cancelled || result.isDone()) {
+				return false;
+			}
+			started = true;
+			return true;
+		}
+
+		/**
+		 * Cancels the request. The line handler will not be called anymore once this method returns.
+		 *
+		 * @return <code>true</code> if a worker is already executing the request
+		 */
+		private synchronized boolean cancel() {
+			cancelled = true;
+			return started;
+		}
+
+		/**
+		 * Passes an output line to the line handler unless the request has been cancelled.
+		 *
+		 * @param line
+		 * 		buffer containing the line
+		 * @param length
+		 * 		length of the line
+		 */
+		private synchronized void handleLine(byte[] line, int length) {
+			if (!cancelled) {
+				lineHandler.handleLine(line, length);
+			}
+		}
+	}
+
+	/**
+	 * Worker that owns a single exiftool process and executes the queued requests.
+	 *
+	 * @author osterrath
+	 */
+	private class Worker implements Runnable {
+		/**
+		 * Running exiftool process.
+		 */
+		private Process process;
+
+		/**
+		 * Path of the running process.
+		 */
+		private String processPath;
+
+		/**
+		 * Writer for STDIN of the process.
+		 */
+		private BufferedWriter stdin;
+
+		/**
+		 * Reader for STDOUT of the process.
+		 */
+		private LineReader stdout;
+
+		/**
+		 * Lines of STDERR of the process, read by an own thread and terminated by {@link #END_OF_STREAM}.
+		 */
+		private BlockingQueue<String> stderr;
+
+		/**
+		 * Main loop of the worker thread.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (!shutdown) {
+					Request request;
+					try {
+						request = takeRequest(HEALTH_CHECK_INTERVAL);
+					} catch (InterruptedException e) {
+						break;
+					}
+
+					if (request == null) {
+						checkHealth();
+					} else if (request.start()) {
+						handleRequest(request);
+					}
+				}
+			} finally {
+				stopProcess();
+			}
+		}
+
+		/**
+		 * Executes the given request and completes its result.
+		 *
+		 * @param request
+		 * 		request to execute
+		 */
+		private void handleRequest(Request request) {
+			long started = System.nanoTime();
+			requestWaitTime.add(started - request.created);
+			try {
+				ensureProcess();
+				request.result.complete(send(request.arguments, request.lineHandler != null ? request::handleLine : null));
+			} catch (Exception e) {
+				// process is in an unknown state, start a new one for the next request
+				stopProcess();
+				request.result.completeExceptionally(e);
+			} finally {
+				// callers waiting for a cancelled request must never hang
+				request.result.completeExceptionally(new IOException("exiftool request aborted"));
+				long duration = System.nanoTime() - started;
+				requestCount.increment();
+				requestExecutionTime.add(duration);
+				maxRequestExecutionTime.accumulateAndGet(duration, Math::max);
+			}
+		}
+
+		/**
+		 * Checks if the idle process is still responding. Dead processes will be restarted with the next request.
+		 */
+		private void checkHealth() {
+			if (process == null) {
+				return;
+			}
+			try {
+				if (!process.isAlive()) {
+					throw new IOException("exiftool process died");
+				}
+				send(Collections.singletonList("-ver"), null);
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "exiftool health check failed", e);
+				stopProcess();
+			}
+		}
+
+		/**
+		 * Makes sure there is a running process for the current exiftool path.
+		 *
+		 * @throws IOException
+		 * 		process could not be started
+		 */
+		private void ensureProcess() throws IOException {
+			String exiftoolPath = getExiftoolPath();
+			if (process != null && (!process.isAlive() || !exiftoolPath.equals(processPath))) {
+				stopProcess();
+			}
+			if (process == null) {
+				startProcess(exiftoolPath);
+			}
+		}
+
+		/**
+		 * Starts a new exiftool process and waits until it is ready.
+		 *
+		 * @param exiftoolPath
+		 * 		path to exiftool
+		 * @throws IOException
+		 * 		process could not be started
+		 */
+		private void startProcess(String exiftoolPath) throws IOException {
+			long started = System.nanoTime();
+			ProcessBuilder processBuilder = new ProcessBuilder(
+					exiftoolPath,
+					"-stay_open", "True",
+					"-@", "-",
+					"-common_args",
+					"-charset", "filename=utf8"
+			);
+			process = processBuilder.start();
+			processPath = exiftoolPath;
+			stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+			stdout = new LineReader(process.getInputStream());
+			stderr = new LinkedBlockingQueue<>();
+			startErrorReader(process.getErrorStream(), stderr);
+
+			// perl needs some time to start, wait for the first answer
+			send(Collections.singletonList("-ver"), null);
+
+			long duration = System.nanoTime() - started;
+			spawnCount.increment();
+			spawnTime.add(duration);
+			LOG.fine(() -> String.format("spawned %s in %.1f ms", exiftoolPath, duration / 1_000_000d));
+		}
+
+		/**
+		 * Sends the given arguments to the running process and reads the output until the ready marker.
+		 *
+		 * @param arguments
+		 * 		exiftool arguments
+		 * @param lineHandler
+		 * 		optional output line handler
+		 * @return error output or <code>null</code> if there were no errors
+		 * @throws IOException
+		 * 		could not communicate with process
+		 */
+		private String send(List<String> arguments, LineHandler lineHandler) throws IOException {
+			int requestId = requestCounter.incrementAndGet();
+			String readyMarker = "{ready" + requestId + "}";
+			for (String argument : arguments) {
+				stdin.write(argument);
+				stdin.write('\n');
+			}
+			stdin.write("-echo4\n" + readyMarker + "\n");
+			stdin.write("-execute" + requestId + "\n");
+			stdin.flush();
+
+			byte[] readyMarkerBytes = readyMarker.getBytes(StandardCharsets.US_ASCII);
+			RuntimeException handlerException = null;
+			boolean ready = false;
+			while (!ready && stdout.readLine()) {
+				if (stdout.lineEquals(readyMarkerBytes)) {
+					ready = true;
+				} else if (lineHandler != null && handlerException == null) {
+					try {
+						lineHandler.handleLine(stdout.line, stdout.lineLength);
+					} catch (RuntimeException e) {
+						// keep on reading to stay in sync with the process output
+						handlerException = e;
+					}
+				}
+			}
+			if (!ready) {
+				throw new IOException("exiftool terminated unexpectedly");
+			}
+
+			String errorOutput = readErrorOutput(readyMarker);
+			if (handlerException != null) {
+				throw handlerException;
+			}
+			return errorOutput;
+		}
+
+		/**
+		 * Reads the error output of the current request from STDERR until the echoed ready marker.
+		 *
+		 * @param readyMarker
+		 * 		ready marker of the request
+		 * @return error output or <code>null</code> if there were no errors
+		 * @throws IOException
+		 * 		process terminated or thread got interrupted
+		 */
+		private String readErrorOutput(String readyMarker) throws IOException {
+			StringBuilder errorOutput = new StringBuilder();
+			boolean failed = false;
+			while (true) {
+				String line;
+				try {
+					line = stderr.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("interrupted while reading exiftool error output", e);
+				}
+
+				if (line == END_OF_STREAM) {
+					throw new IOException("exiftool terminated unexpectedly");
+				}
+				if (line.equals(readyMarker)) {
+					return failed ? errorOutput.toString() : null;
+				}
+				if (line.startsWith(ERROR_PREFIX)) {
+					failed = true;
+					errorOutput.append(line).append('\n');
+				} else if (line.startsWith(WARNING_PREFIX)) {
+					errorOutput.append(line).append('\n');
+				}
+			}
+		}
+
+		/**
+		 * Starts a thread reading the lines of the given error stream into the given queue. The stream has to be read continuously, otherwise the process blocks as soon as
+		 * its pipe buffer is full.
+		 *
+		 * @param errorStream
+		 * 		STDERR of the process
+		 * @param lines
+		 * 		queue for the read lines
+		 */
+		private void startErrorReader(InputStream errorStream, BlockingQueue<String> lines) {
+			Thread thread = new Thread(() -> {
+				LineReader reader = new LineReader(errorStream);
+				try {
+					while (reader.readLine()) {
+						lines.add(reader.getLineAsString());
+					}
+				} catch (IOException e) {
+					// process has been stopped
+				} finally {
+					lines.add(END_OF_STREAM);
+				}
+			}, Thread.currentThread().getName() + "-stderr");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Stops the running process.
+		 */
+		private void stopProcess() {
+			if (process == null) {
+				return;
+			}
+			try {
+				stdin.write("-stay_open\nFalse\n");
+				stdin.flush();
+				if (!process.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					process.destroyForcibly();
+				}
+			} catch (IOException e) {
+				process.destroyForcibly();
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			} finally {
+				process = null;
+				processPath = null;
+				stdin = null;
+				stdout = null;
+				stderr = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,567 @@
+package net.packsam.geolocatefx.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Spatial index over the geolocations of images. The index is a quadtree over latitude and longitude, the coordinates are kept in primitive arrays indexed by slot, the tree
+ * nodes only hold slot numbers. Adding, moving or removing an image only touches the nodes along one path, so the index can be kept up to date on every geolocation change.
+ *
+ * <p>
+ * Distances for nearest neighbour queries are equirectangular approximations at the latitude of the query point, which is good enough for ranking nearby images.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class GeoIndex {
+	/**
+	 * Maximum number of images in a leaf before it is split.
+	 */
+	private final static int LEAF_CAPACITY = 32;
+
+	/**
+	 * Maximum depth of the tree, leafs at this depth are never split (e.g. for many images at the very same position).
+	 */
+	private final static int MAX_DEPTH = 24;
+
+	/**
+	 * Latitudes by slot.
+	 */
+	private double[] latitudes = new double[256];
+
+	/**
+	 * Longitudes by slot.
+	 */
+	private double[] longitudes = new double[256];
+
+	/**
+	 * Images by slot, <code>null</code> for free slots.
+	 */
+	private ImageModel[] images = new ImageModel[256];
+
+	/**
+	 * Number of used slots including free slots in between.
+	 */
+	private int slotCount = 0;
+
+	/**
+	 * Free slots.
+	 */
+	private int[] freeSlots = new int[16];
+
+	/**
+	 * Number of free slots.
+	 */
+	private int freeSlotCount = 0;
+
+	/**
+	 * Slots of the indexed images.
+	 */
+	private final Map<ImageModel, Integer> slots = new HashMap<>();
+
+	/**
+	 * Root node covering the whole world.
+	 */
+	private final Node root = new Node(-90, -180, 90, 180, 0);
+
+	/**
+	 * Sets the position of the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param position
+	 * 		new position, <code>null</code> removes the image
+	 */
+	public synchronized void update(ImageModel imageModel, LatLong position) {
+		Integer slot = slots.get(imageModel);
+		if (slot != null) {
+			root.remove(slot);
+		}
+
+		if (position == null) {
+			if (slot != null) {
+				slots.remove(imageModel);
+				freeSlot(slot);
+			}
+			return;
+		}
+
+		if (slot == null) {
+			slot = allocateSlot();
+			slots.put(imageModel, slot);
+		}
+		latitudes[slot] = Math.min(Math.max(position.getLatitude(), -90), 90);
+		longitudes[slot] = normalizeLongitude(position.getLongitude());
+		images[slot] = imageModel;
+		root.insert(slot);
+	}
+
+	/**
+	 * Removes the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	public void remove(ImageModel imageModel) {
+		update(imageModel, null);
+	}
+
+	/**
+	 * Returns all images within the given bounds. If west is greater than east, the bounds cross the antimeridian.
+	 *
+	 * @param south
+	 * 		southern latitude
+	 * @param west
+	 * 		western longitude
+	 * @param north
+	 * 		northern latitude
+	 * @param east
+	 * 		eastern longitude
+	 * @return images within the bounds
+	 */
+	public synchronized List<ImageModel> findInBounds(double south, double west, double north, double east) {
+		List<ImageModel> result = new ArrayList<>();
+		if (east - west >= 360) {
+			root.findInBounds(south, -180, north, 180, result);
+			return result;
+		}
+
+		west = normalizeLongitude(west);
+		east = normalizeLongitude(east);
+		if (west <= east) {
+			root.findInBounds(south, west, north, east, result);
+		} else {
+			root.findInBounds(south, west, north, 180, result);
+			root.findInBounds(south, -180, north, east, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the images nearest to the given position.
+	 *
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @param count
+	 * 		maximum number of images
+	 * @return images ordered by distance, nearest first
+	 */
+	public synchronized List<ImageModel> findNearest(double latitude, double longitude, int count) {
+		List<ImageModel> result = new ArrayList<>(Math.max(0, Math.min(count, slots.size())));
+		if (count <= 0 || slots.isEmpty()) {
+			return result;
+		}
+
+		double longitudeScale = Math.cos(Math.toRadians(latitude));
+		double lon = normalizeLongitude(longitude);
+
+		// best first search, nodes are queued with the distance of their nearest possible point
+		PriorityQueue<Candidate> queue = new PriorityQueue<>();
+		queue.add(new Candidate(0, root, -1));
+		while (!queue.isEmpty() && result.size() < count) {
+			Candidate candidate = queue.poll();
+			if (candidate.node == null) {
+				result.add(images[candidate.slot]);
+			} else if (candidate.node.children != null) {
+				for (Node child : candidate.node.children) {
+					if (child.total > 0) {
+						queue.add(new Candidate(child.getDistance(latitude, lon, longitudeScale), child, -1));
+					}
+				}
+			} else {
+				for (int i = 0; i < candidate.node.count; i++) {
+					int slot = candidate.node.slots[i];
+					double distance = getDistance(latitude, lon, longitudeScale, latitudes[slot], longitudes[slot], longitudes[slot]);
+					queue.add(new Candidate(distance, null, slot));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of indexed images.
+	 *
+	 * @return number of images
+	 */
+	public synchronized int size() {
+		return slots.size();
+	}
+
+	/**
+	 * Allocates a slot for a new image.
+	 *
+	 * @return slot
+	 */
+	private int allocateSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		if (slotCount == latitudes.length) {
+			int capacity = latitudes.length * 2;
+			latitudes = Arrays.copyOf(latitudes, capacity);
+			longitudes = Arrays.copyOf(longitudes, capacity);
+			images = Arrays.copyOf(images, capacity);
+		}
+		return slotCount++;
+	}
+
+	/**
+	 * Frees the given slot.
+	 *
+	 * @param slot
+	 * 		slot
+	 */
+	private void freeSlot(int slot) {
+		images[slot] = null;
+		if (freeSlotCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	/**
+	 * Normalizes the given longitude to -180 (inclusive) to 180 (exclusive).
+	 *
+	 * @param longitude
+	 * 		longitude
+	 * @return normalized longitude
+	 */
+	private static double normalizeLongitude(double longitude) {
+		if (longitude >= -180 && longitude < 180) {
+			return longitude;
+		}
+		double normalized = ((longitude + 180) % 360 + 360) % 360 - 180;
+		return normalized < 180 ? normalized : -180;
+	}
+
+	/**
+	 * Calculates the approximate squared distance between a point and the nearest point of a latitude and longitude range.
+	 *
+	 * @param latitude
+	 * 		latitude of the point
+	 * @param longitude
+	 * 		normalized longitude of the point
+	 * @param longitudeScale
+	 * 		scale of longitude differences
+	 * @param latitude2
+	 * 		latitude of the nearest point of the range
+	 * @param west
+	 * 		western longitude of the range
+	 * @param east
+	 * 		eastern longitude of the range
+	 * @return squared distance in degrees
+	 */
+	private static double getDistance(double latitude, double longitude, double longitudeScale, double latitude2, double west, double east) {
+		double dLat = latitude - latitude2;
+		double dLon = 0;
+		if (longitude < west || longitude > east) {
+			dLon = Math.min(getLongitudeDifference(longitude, west), getLongitudeDifference(longitude, east)) * longitudeScale;
+		}
+		return dLat * dLat + dLon * dLon;
+	}
+
+	/**
+	 * Calculates the difference of two normalized longitudes, taking the shorter way around the world.
+	 *
+	 * @param longitude1
+	 * 		first longitude
+	 * @param longitude2
+	 * 		second longitude
+	 * @return difference in degrees
+	 */
+	private static double getLongitudeDifference(double longitude1, double longitude2) {
+		double difference = Math.abs(longitude1 - longitude2);
+		return Math.min(difference, 360 - difference);
+	}
+
+	/**
+	 * Node of the quadtree.
+	 *
+	 * @author osterrath
+	 */
+	private class Node {
+		/**
+		 * Southern latitude.
+		 */
+		private final double south;
+
+		/**
+		 * Western longitude.
+		 */
+		private final double west;
+
+		/**
+		 * Northern latitude.
+		 */
+		private final double north;
+
+		/**
+		 * Eastern longitude.
+		 */
+		private final double east;
+
+		/**
+		 * Depth in tree.
+		 */
+		private final int depth;
+
+		/**
+		 * Slots of a leaf, <code>null</code> for inner nodes.
+		 */
+		private int[] slots = new int[LEAF_CAPACITY];
+
+		/**
+		 * Number of slots of a leaf.
+		 */
+		private int count = 0;
+
+		/**
+		 * Child nodes (south west, south east, north west, north east), <code>null</code> for leafs.
+		 */
+		private Node[] children;
+
+		/**
+		 * Number of images in the subtree.
+		 */
+		private int total = 0;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param south
+		 * 		southern latitude
+		 * @param west
+		 * 		western longitude
+		 * @param north
+		 * 		northern latitude
+		 * @param east
+		 * 		eastern longitude
+		 * @param depth
+		 * 		depth in tree
+		 */
+		private Node(double south, double west, double north, double east, int depth) {
+			this.south = south;
+			this.west = west;
+			this.north = north;
+			this.east = east;
+			this.depth = depth;
+		}
+
+		/**
+		 * Inserts the given slot.
+		 *
+		 * @param slot
+		 * 		slot
+		 */
+		private void insert(int slot) {
+			total++;
+			if (children != null) {
+				getChild(slot).insert(slot);
+				return;
+			}
+
+			if (count == slots.length) {
+				if (depth < MAX_DEPTH) {
+					split();
+					getChild(slot).insert(slot);
+					return;
+				}
+				slots = Arrays.copyOf(slots, slots.length * 2);
+			}
+			slots[count++] = slot;
+		}
+
+		/**
+		 * Removes the given slot.
+		 *
+		 * @param slot
+		 * 		slot
+		 */
+		private void remove(int slot) {
+			total--;
+			if (children != null) {
+				getChild(slot).remove(slot);
+				if (total <= LEAF_CAPACITY / 2) {
+					merge();
+				}
+				return;
+			}
+
+			for (int i = 0; i < count; i++) {
+				if (slots[i] == slot) {
+					slots[i] = slots[--count];
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Converts the leaf into an inner node and moves its slots to the new children.
+		 */
+		private void split() {
+			double latitude = (south + north) / 2;
+			double longitude = (west + east) / 2;
+			children = new Node[] {
+					new Node(south, west, latitude, longitude, depth + 1),
+					new Node(south, longitude, latitude, east, depth + 1),
+					new Node(latitude, west, north, longitude, depth + 1),
+					new Node(latitude, longitude, north, east, depth + 1)
+			};
+			for (int i = 0; i < count; i++) {
+				getChild(slots[i]).insert(slots[i]);
+			}
+			slots = null;
+			count = 0;
+		}
+
+		/**
+		 * Converts the inner node back into a leaf with the slots of all children.
+		 */
+		private void merge() {
+			slots = new int[Math.max(LEAF_CAPACITY, total)];
+			count = 0;
+			collect(this);
+			children = null;
+		}
+
+		/**
+		 * Adds the slots of the given subtree to the slots of this leaf.
+		 *
+		 * @param node
+		 * 		subtree
+		 */
+		private void collect(Node node) {
+			if (node.children != null) {
+				for (Node child : node.children) {
+					collect(child);
+				}
+			} else if (node != this) {
+				System.arraycopy(node.slots, 0, slots, count, node.count);
+				count += node.count;
+			}
+		}
+
+		/**
+		 * Returns the child containing the given slot.
+		 *
+		 * @param slot
+		 * 		slot
+		 * @return child node
+		 */
+		private Node getChild(int slot) {
+			int index = (latitudes[slot] >= (south + north) / 2 ? 2 : 0) + (longitudes[slot] >= (west + east) / 2 ? 1 : 0);
+			return children[index];
+		}
+
+		/**
+		 * Adds all images within the given bounds to the result.
+		 *
+		 * @param south
+		 * 		southern latitude
+		 * @param west
+		 * 		western longitude
+		 * @param north
+		 * 		northern latitude
+		 * @param east
+		 * 		eastern longitude
+		 * @param result
+		 * 		result list
+		 */
+		private void findInBounds(double south, double west, double north, double east, List<ImageModel> result) {
+			if (total == 0 || south > this.north || north < this.south || west > this.east || east < this.west) {
+				return;
+			}
+
+			boolean contained = south <= this.south && north >= this.north && west <= this.west && east >= this.east;
+			if (children != null) {
+				for (Node child : children) {
+					child.findInBounds(south, west, north, east, result);
+				}
+				return;
+			}
+
+			for (int i = 0; i < count; i++) {
+				int slot = slots[i];
+				if (contained || (latitudes[slot] >= south && latitudes[slot] <= north && longitudes[slot] >= west && longitudes[slot] <= east)) {
+					result.add(images[slot]);
+				}
+			}
+		}
+
+		/**
+		 * Calculates the approximate squared distance between the given point and the nearest point of this node.
+		 *
+		 * @param latitude
+		 * 		latitude
+		 * @param longitude
+		 * 		normalized longitude
+		 * @param longitudeScale
+		 * 		scale of longitude differences
+		 * @return squared distance in degrees
+		 */
+		private double getDistance(double latitude, double longitude, double longitudeScale) {
+			double nearestLatitude = Math.min(Math.max(latitude, south), north);
+			return GeoIndex.getDistance(latitude, longitude, longitudeScale, nearestLatitude, west, east);
+		}
+	}
+
+	/**
+	 * Candidate of the nearest neighbour search, either a node or an image slot.
+	 *
+	 * @author osterrath
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		/**
+		 * Squared distance.
+		 */
+		private final double distance;
+
+		/**
+		 * Node or <code>null</code> for an image slot.
+		 */
+		private final Node node;
+
+		/**
+		 * Image slot.
+		 */
+		private final int slot;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param distance
+		 * 		squared distance
+		 * @param node
+		 * 		node or <code>null</code> for an image slot
+		 * @param slot
+		 * 		image slot
+		 */
+		private Candidate(double distance, Node node, int slot) {
+			this.distance = distance;
+			this.node = node;
+			this.slot = slot;
+		}
+
+		/**
+		 * Orders by distance.
+		 *
+		 * @param o
+		 * 		other candidate
+		 * @return comparison result
+		 */
+		@Override
+		public int compareTo(Candidate o) {
+			return Double.compare(distance, o.distance);
+		}
+	}
+}
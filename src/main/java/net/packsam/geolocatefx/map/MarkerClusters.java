@@ -0,0 +1,451 @@
+package net.packsam.geolocatefx.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Clusters of geotagged images for every map zoom level. The world is divided into a grid of square cells of a fixed size in screen pixels for every zoom level, all images
+ * in a cell form a cluster. Adding, moving or removing an image updates one cluster per zoom level, so the clusters never have to be recomputed from scratch.
+ *
+ * <p>
+ * The cell size in degrees halves with every zoom level, so every cell contains exactly the four cells of the next zoom level below it. Only the clusters of the highest zoom
+ * level keep their images, a cluster of a lower zoom level finds a new representative image in the clusters below it.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class MarkerClusters {
+	/**
+	 * Highest supported zoom level.
+	 */
+	public final static int MAX_ZOOM = 21;
+
+	/**
+	 * Size of a map tile in px at zoom level 0.
+	 */
+	private final static int TILE_SIZE = 256;
+
+	/**
+	 * Size of a grid cell in px.
+	 */
+	private final int gridSize;
+
+	/**
+	 * Clusters by cell key for every zoom level.
+	 */
+	private final List<Map<Long, Cluster>> clusters = new ArrayList<>();
+
+	/**
+	 * Positions of all clustered images.
+	 */
+	private final Map<ImageModel, LatLong> positions = new HashMap<>();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param gridSize
+	 * 		size of a grid cell in px
+	 */
+	public MarkerClusters(int gridSize) {
+		this.gridSize = Math.max(1, gridSize);
+		for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+			clusters.add(new HashMap<>());
+		}
+	}
+
+	/**
+	 * Sets the position of the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param position
+	 * 		new position, <code>null</code> removes the image
+	 */
+	public synchronized void update(ImageModel imageModel, LatLong position) {
+		LatLong oldPosition = position != null ? positions.put(imageModel, position) : positions.remove(imageModel);
+		if (oldPosition != null) {
+			for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+				removeFromCluster(zoom, imageModel, oldPosition);
+			}
+		}
+		if (position != null) {
+			for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+				addToCluster(zoom, imageModel, position);
+			}
+		}
+	}
+
+	/**
+	 * Removes the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	public void remove(ImageModel imageModel) {
+		update(imageModel, null);
+	}
+
+	/**
+	 * Returns the clusters of the given zoom level whose grid cells intersect the given bounds. Only the cells covering the bounds are looked up, or all clusters if there are
+	 * fewer clusters than cells. If west is greater than east, the bounds cross the antimeridian.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @param south
+	 * 		southern latitude
+	 * @param west
+	 * 		western longitude
+	 * @param north
+	 * 		northern latitude
+	 * @param east
+	 * 		eastern longitude
+	 * @return copy of the clusters
+	 */
+	public synchronized List<Cluster> getClusters(int zoom, double south, double west, double north, double east) {
+		int clampedZoom = clampZoom(zoom);
+		Map<Long, Cluster> zoomClusters = clusters.get(clampedZoom);
+		long lastCell = getCell(clampedZoom, Math.nextDown(1.0));
+
+		// ranges of cell columns, two ranges if the bounds cross the antimeridian
+		long[] columnRanges;
+		if (east - west >= 360) {
+			columnRanges = new long[] { 0, lastCell };
+		} else {
+			long westColumn = getCell(clampedZoom, getWorldX(normalizeLongitude(west)));
+			long eastColumn = getCell(clampedZoom, getWorldX(normalizeLongitude(east)));
+			columnRanges = westColumn <= eastColumn ? new long[] { westColumn, eastColumn } : new long[] { westColumn, lastCell, 0, eastColumn };
+		}
+		long firstRow = getCell(clampedZoom, getWorldY(Math.max(south, north)));
+		long lastRow = getCell(clampedZoom, getWorldY(Math.min(south, north)));
+
+		long cellCount = 0;
+		for (int i = 0; i < columnRanges.length; i += 2) {
+			cellCount += (columnRanges[i + 1] - columnRanges[i] + 1) * (lastRow - firstRow + 1);
+		}
+
+		List<Cluster> result = new ArrayList<>();
+		if (cellCount > zoomClusters.size()) {
+			for (Cluster cluster : zoomClusters.values()) {
+				long column = cluster.key >>> 32;
+				long row = cluster.key & 0xFFFFFFFFL;
+				if (row >= firstRow && row <= lastRow && isInRanges(column, columnRanges)) {
+					result.add(new Cluster(cluster));
+				}
+			}
+		} else {
+			for (int i = 0; i < columnRanges.length; i += 2) {
+				for (long column = columnRanges[i]; column <= columnRanges[i + 1]; column++) {
+					for (long row = firstRow; row <= lastRow; row++) {
+						Cluster cluster = zoomClusters.get(getKey(column, row));
+						if (cluster != null) {
+							result.add(new Cluster(cluster));
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an image of the given cluster.
+	 *
+	 * @param zoom
+	 * 		zoom level of the cluster
+	 * @param key
+	 * 		cluster key
+	 * @return image or <code>null</code> if the cluster does not exist anymore
+	 */
+	public synchronized ImageModel getImage(int zoom, long key) {
+		int clampedZoom = clampZoom(zoom);
+		Cluster cluster = clusters.get(clampedZoom).get(key);
+		if (cluster == null) {
+			return null;
+		}
+		if (cluster.image == null) {
+			// the representative has been removed, take one of the clusters below
+			if (clampedZoom == MAX_ZOOM) {
+				cluster.image = cluster.members.iterator().next();
+			} else {
+				long column = key >>> 32;
+				long row = key & 0xFFFFFFFFL;
+				for (int i = 0; i < 4 && cluster.image == null; i++) {
+					cluster.image = getImage(clampedZoom + 1, getKey(column * 2 + (i & 1), row * 2 + (i >> 1)));
+				}
+			}
+		}
+		return cluster.image;
+	}
+
+	/**
+	 * Returns the number of clustered images.
+	 *
+	 * @return number of images
+	 */
+	public synchronized int size() {
+		return positions.size();
+	}
+
+	/**
+	 * Adds the image to its cluster of the given zoom level.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @param imageModel
+	 * 		image model
+	 * @param position
+	 * 		image position
+	 */
+	private void addToCluster(int zoom, ImageModel imageModel, LatLong position) {
+		long key = getKey(zoom, position);
+		Cluster cluster = clusters.get(zoom).computeIfAbsent(key, Cluster::new);
+		if (zoom == MAX_ZOOM) {
+			if (cluster.members == null) {
+				cluster.members = new HashSet<>();
+			}
+			cluster.members.add(imageModel);
+		}
+		cluster.count++;
+		cluster.latitudeSum += position.getLatitude();
+		cluster.longitudeSum += position.getLongitude();
+		if (cluster.image == null) {
+			cluster.image = imageModel;
+		}
+	}
+
+	/**
+	 * Removes the image from its cluster of the given zoom level.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @param imageModel
+	 * 		image model
+	 * @param position
+	 * 		previous image position
+	 */
+	private void removeFromCluster(int zoom, ImageModel imageModel, LatLong position) {
+		long key = getKey(zoom, position);
+		Cluster cluster = clusters.get(zoom).get(key);
+		if (cluster == null) {
+			return;
+		}
+		if (cluster.members != null) {
+			cluster.members.remove(imageModel);
+		}
+		cluster.count--;
+		if (cluster.count <= 0) {
+			clusters.get(zoom).remove(key);
+			return;
+		}
+		cluster.latitudeSum -= position.getLatitude();
+		cluster.longitudeSum -= position.getLongitude();
+		if (cluster.image == imageModel) {
+			cluster.image = null;
+		}
+	}
+
+	/**
+	 * Calculates the key of the grid cell containing the given position.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @param position
+	 * 		position
+	 * @return cell key
+	 */
+	private long getKey(int zoom, LatLong position) {
+		return getKey(getCell(zoom, getWorldX(position.getLongitude())), getCell(zoom, getWorldY(position.getLatitude())));
+	}
+
+	/**
+	 * Calculates the key of the given grid cell.
+	 *
+	 * @param column
+	 * 		cell column
+	 * @param row
+	 * 		cell row
+	 * @return cell key
+	 */
+	private static long getKey(long column, long row) {
+		return (column << 32) | (row & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Calculates the column or row of the grid cell containing the given world coordinate.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @param worldCoordinate
+	 * 		x or y coordinate of the Mercator projection
+	 * @return cell column or row
+	 */
+	private long getCell(int zoom, double worldCoordinate) {
+		double worldSize = (double) TILE_SIZE * (1L << zoom);
+		return (long) Math.floor(worldCoordinate * worldSize / gridSize);
+	}
+
+	/**
+	 * Checks if the given column is within one of the ranges.
+	 *
+	 * @param column
+	 * 		cell column
+	 * @param columnRanges
+	 * 		pairs of first and last column
+	 * @return <code>true</code> if the column is within
+	 */
+	private static boolean isInRanges(long column, long[] columnRanges) {
+		for (int i = 0; i < columnRanges.length; i += 2) {
+			if (column >= columnRanges[i] && column <= columnRanges[i + 1]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Normalizes the given longitude to -180 (inclusive) to 180 (exclusive).
+	 *
+	 * @param longitude
+	 * 		longitude
+	 * @return normalized longitude
+	 */
+	private static double normalizeLongitude(double longitude) {
+		if (longitude >= -180 && longitude < 180) {
+			return longitude;
+		}
+		double normalized = ((longitude + 180) % 360 + 360) % 360 - 180;
+		return normalized < 180 ? normalized : -180;
+	}
+
+	/**
+	 * Converts the longitude to the x coordinate of the Mercator projection.
+	 *
+	 * @param longitude
+	 * 		longitude
+	 * @return x coordinate between 0 (inclusive) and 1 (exclusive)
+	 */
+	static double getWorldX(double longitude) {
+		double x = (longitude + 180) / 360;
+		return Math.min(Math.max(x, 0), Math.nextDown(1.0));
+	}
+
+	/**
+	 * Converts the latitude to the y coordinate of the Mercator projection.
+	 *
+	 * @param latitude
+	 * 		latitude
+	 * @return y coordinate between 0 (inclusive, north) and 1 (exclusive, south)
+	 */
+	static double getWorldY(double latitude) {
+		double sin = Math.sin(Math.toRadians(latitude));
+		sin = Math.min(Math.max(sin, -0.9999), 0.9999);
+		double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+		return Math.min(Math.max(y, 0), Math.nextDown(1.0));
+	}
+
+	/**
+	 * Limits the zoom level to the supported range.
+	 *
+	 * @param zoom
+	 * 		zoom level
+	 * @return supported zoom level
+	 */
+	private static int clampZoom(int zoom) {
+		return Math.min(Math.max(zoom, 0), MAX_ZOOM);
+	}
+
+	/**
+	 * Cluster of images in a grid cell.
+	 *
+	 * @author osterrath
+	 */
+	public static class Cluster {
+		/**
+		 * Key of the grid cell.
+		 */
+		private final long key;
+
+		/**
+		 * Number of images.
+		 */
+		private int count;
+
+		/**
+		 * Sum of all latitudes.
+		 */
+		private double latitudeSum;
+
+		/**
+		 * Sum of all longitudes.
+		 */
+		private double longitudeSum;
+
+		/**
+		 * Any image of the cluster, may be <code>null</code> if it has been removed.
+		 */
+		private ImageModel image;
+
+		/**
+		 * All images of a cluster of the highest zoom level, <code>null</code> for other zoom levels and copies.
+		 */
+		private Set<ImageModel> members;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param key
+		 * 		key of the grid cell
+		 */
+		private Cluster(long key) {
+			this.key = key;
+		}
+
+		/**
+		 * Copy ctor.
+		 *
+		 * @param cluster
+		 * 		cluster to copy
+		 */
+		private Cluster(Cluster cluster) {
+			key = cluster.key;
+			count = cluster.count;
+			latitudeSum = cluster.latitudeSum;
+			longitudeSum = cluster.longitudeSum;
+			image = cluster.image;
+		}
+
+		/**
+		 * Returns the key.
+		 *
+		 * @return key
+		 */
+		public long getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns the count.
+		 *
+		 * @return count
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the center of all images.
+		 *
+		 * @return center
+		 */
+		public LatLong getCenter() {
+			return new LatLong(latitudeSum / count, longitudeSum / count);
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package net.packsam.geolocatefx.map;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.lynden.gmapsfx.javascript.object.GoogleMap;
+
+import javafx.scene.web.WebEngine;
+import netscape.javascript.JSObject;
+
+/**
+ * Layer of map markers that are managed in JavaScript. Marker changes are collected and sent to the web view in a single script call per {@link #flush()}, so changing
+ * thousands of markers does not cross the Java/JavaScript bridge thousands of times. Clicks on all markers are reported by one bridge object.
+ *
+ * <p>
+ * The layer must be used from the FX thread.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class MarkerLayer {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(MarkerLayer.class.getName());
+
+	/**
+	 * Name of the JavaScript resource.
+	 */
+	private final static String SCRIPT_RESOURCE = "MarkerLayer.js";
+
+	/**
+	 * Global JavaScript variable of the map.
+	 */
+	private final static String MAP_VARIABLE = "geolocateFxMap";
+
+	/**
+	 * Global JavaScript variable of the bridge object.
+	 */
+	private final static String BRIDGE_VARIABLE = "geolocateFxMarkerBridge";
+
+	/**
+	 * Web engine of the map.
+	 */
+	private final WebEngine webEngine;
+
+	/**
+	 * Bridge object for clicks, must be referenced here, since the web engine only keeps a weak reference.
+	 */
+	private final Bridge bridge;
+
+	/**
+	 * Pending operations as JavaScript array elements.
+	 */
+	private final StringBuilder operations = new StringBuilder();
+
+	/**
+	 * Number of pending operations.
+	 */
+	private int operationCount = 0;
+
+	/**
+	 * Number of script calls.
+	 */
+	private long flushCount = 0;
+
+	/**
+	 * Total number of sent operations.
+	 */
+	private long sentOperationCount = 0;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param webEngine
+	 * 		web engine of the map
+	 * @param map
+	 * 		map to show the markers on
+	 * @param clickHandler
+	 * 		handler for clicked markers, gets the marker ID
+	 */
+	public MarkerLayer(WebEngine webEngine, GoogleMap map, LongConsumer clickHandler) {
+		this.webEngine = webEngine;
+		this.bridge = new Bridge(clickHandler);
+
+		webEngine.executeScript(loadScript());
+		JSObject window = (JSObject) webEngine.executeScript("window");
+		window.setMember(MAP_VARIABLE, map.getJSObject());
+		window.setMember(BRIDGE_VARIABLE, bridge);
+	}
+
+	/**
+	 * Loads the JavaScript part of the layer.
+	 *
+	 * @return script
+	 */
+	private static String loadScript() {
+		try (InputStream in = MarkerLayer.class.getResourceAsStream(SCRIPT_RESOURCE)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + SCRIPT_RESOURCE);
+			}
+			return IOUtils.toString(in, "UTF-8");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Adds a marker.
+	 *
+	 * @param id
+	 * 		marker ID
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @param label
+	 * 		label, may be <code>null</code>
+	 * @param title
+	 * 		title, may be <code>null</code>
+	 */
+	public void add(long id, double latitude, double longitude, String label, String title) {
+		appendMarker("a", id, latitude, longitude, label, title);
+	}
+
+	/**
+	 * Updates a marker.
+	 *
+	 * @param id
+	 * 		marker ID
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @param label
+	 * 		label, may be <code>null</code>
+	 * @param title
+	 * 		title, may be <code>null</code>
+	 */
+	public void update(long id, double latitude, double longitude, String label, String title) {
+		appendMarker("u", id, latitude, longitude, label, title);
+	}
+
+	/**
+	 * Removes a marker.
+	 *
+	 * @param id
+	 * 		marker ID
+	 */
+	public void remove(long id) {
+		startOperation("r");
+		operations.append(",\"").append(id).append("\"]");
+	}
+
+	/**
+	 * Removes all markers.
+	 */
+	public void clear() {
+		// operations before are obsolete
+		operations.setLength(0);
+		operationCount = 0;
+		startOperation("c");
+		operations.append(']');
+	}
+
+	/**
+	 * Sends all pending operations to the map in a single script call.
+	 */
+	public void flush() {
+		if (operationCount == 0) {
+			return;
+		}
+
+		String script = "geolocateFxMarkers.apply(" + MAP_VARIABLE + ",[" + operations + "])";
+		flushCount++;
+		sentOperationCount += operationCount;
+		operations.setLength(0);
+		operationCount = 0;
+
+		webEngine.executeScript(script);
+	}
+
+	/**
+	 * Appends an add or update operation.
+	 *
+	 * @param type
+	 * 		operation type
+	 * @param id
+	 * 		marker ID
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @param label
+	 * 		label, may be <code>null</code>
+	 * @param title
+	 * 		title, may be <code>null</code>
+	 */
+	private void appendMarker(String type, long id, double latitude, double longitude, String label, String title) {
+		startOperation(type);
+		operations.append(",\"").append(id).append("\",").append(latitude).append(',').append(longitude).append(',');
+		appendString(label);
+		operations.append(',');
+		appendString(title);
+		operations.append(']');
+	}
+
+	/**
+	 * Starts a new operation.
+	 *
+	 * @param type
+	 * 		operation type
+	 */
+	private void startOperation(String type) {
+		if (operationCount > 0) {
+			operations.append(',');
+		}
+		operations.append("[\"").append(type).append('"');
+		operationCount++;
+	}
+
+	/**
+	 * Appends the given string as JavaScript string literal.
+	 *
+	 * @param value
+	 * 		string, may be <code>null</code>
+	 */
+	private void appendString(String value) {
+		if (value == null) {
+			operations.append("null");
+			return;
+		}
+
+		operations.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					operations.append("\\\"");
+					break;
+				case '\\':
+					operations.append("\\\\");
+					break;
+				default:
+					if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+						operations.append(String.format("\\u%04x", (int) c));
+					} else {
+						operations.append(c);
+					}
+			}
+		}
+		operations.append('"');
+	}
+
+	/**
+	 * Returns a summary of the sent operations.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return String.format(
+				"marker layer: %d operations in %d script calls",
+				sentOperationCount,
+				flushCount
+		);
+	}
+
+	/**
+	 * Logs the statistics.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Bridge object that receives the marker clicks from JavaScript.
+	 *
+	 * @author osterrath
+	 */
+	public static class Bridge {
+		/**
+		 * Handler for clicked markers.
+		 */
+		private final LongConsumer clickHandler;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param clickHandler
+		 * 		handler for clicked markers
+		 */
+		private Bridge(LongConsumer clickHandler) {
+			this.clickHandler = clickHandler;
+		}
+
+		/**
+		 * Called by JavaScript when a marker has been clicked.
+		 *
+		 * @param id
+		 * 		marker ID
+		 */
+		public void markerClicked(String id) {
+			clickHandler.accept(Long.parseLong(id));
+		}
+	}
+}
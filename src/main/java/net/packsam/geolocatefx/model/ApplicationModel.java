@@ -2,7 +2,6 @@ package net.packsam.geolocatefx.model;
 
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleListProperty;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 /**
@@ -11,15 +10,33 @@ import javafx.collections.ObservableList;
  * @author osterrath
  */
 public class ApplicationModel {
+	/**
+	 * Selected images sorted by creation date.
+	 */
+	private final SortedImageList sortedImages = new SortedImageList();
+
+	/**
+	 * Index of the selected images by file path.
+	 */
+	private final ImageIndex imageIndex = new ImageIndex(sortedImages);
+
 	/**
 	 * Property for the selected images.
 	 */
-	private final ListProperty<ImageModel> selectedImages = new SimpleListProperty<>(FXCollections.observableArrayList());
+	private final ListProperty<ImageModel> selectedImages = new SimpleListProperty<>(sortedImages);
 
 	public ObservableList<ImageModel> getSelectedImages() {
 		return selectedImages.get();
 	}
 
+	public SortedImageList getSortedImages() {
+		return sortedImages;
+	}
+
+	public ImageIndex getImageIndex() {
+		return imageIndex;
+	}
+
 	public ListProperty<ImageModel> selectedImagesProperty() {
 		return selectedImages;
 	}
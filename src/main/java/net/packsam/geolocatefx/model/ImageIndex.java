@@ -0,0 +1,126 @@
+package net.packsam.geolocatefx.model;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Index of images by file path, kept in sync with an observable list of images. The keys are absolute, normalized paths, so different spellings of the same file are found
+ * without touching the file system. Lookups are thread safe, the index is updated on the thread changing the list.
+ *
+ * @author osterrath
+ */
+public class ImageIndex {
+	/**
+	 * Images by path.
+	 */
+	private final Map<Path, ImageModel> images = new ConcurrentHashMap<>();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param imageList
+	 * 		list of images to index
+	 */
+	public ImageIndex(ObservableList<ImageModel> imageList) {
+		imageList.forEach(this::add);
+		imageList.addListener(this::imageListChanged);
+	}
+
+	/**
+	 * Event handler when the image list has been changed.
+	 *
+	 * @param change
+	 * 		list change
+	 */
+	private void imageListChanged(ListChangeListener.Change<? extends ImageModel> change) {
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				continue;
+			}
+			change.getRemoved().forEach(this::remove);
+			change.getAddedSubList().forEach(this::add);
+		}
+	}
+
+	/**
+	 * Adds the given image to the index.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void add(ImageModel imageModel) {
+		Path key = getKey(imageModel.getImage());
+		if (key != null) {
+			images.put(key, imageModel);
+		}
+	}
+
+	/**
+	 * Removes the given image from the index.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void remove(ImageModel imageModel) {
+		Path key = getKey(imageModel.getImage());
+		if (key != null) {
+			images.remove(key, imageModel);
+		}
+	}
+
+	/**
+	 * Returns the image of the given file.
+	 *
+	 * @param file
+	 * 		file
+	 * @return image model or <code>null</code> if the file is not in the list
+	 */
+	public ImageModel get(File file) {
+		Path key = getKey(file);
+		return key != null ? images.get(key) : null;
+	}
+
+	/**
+	 * Checks if the given file is in the list.
+	 *
+	 * @param file
+	 * 		file
+	 * @return <code>true</code> if the file is in the list
+	 */
+	public boolean contains(File file) {
+		return get(file) != null;
+	}
+
+	/**
+	 * Returns the number of indexed images.
+	 *
+	 * @return number of images
+	 */
+	public int size() {
+		return images.size();
+	}
+
+	/**
+	 * Returns the key for the given file.
+	 *
+	 * @param file
+	 * 		file
+	 * @return absolute, normalized path or <code>null</code> if the file has no valid path
+	 */
+	public static Path getKey(File file) {
+		if (file == null) {
+			return null;
+		}
+		try {
+			return file.toPath().toAbsolutePath().normalize();
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+}
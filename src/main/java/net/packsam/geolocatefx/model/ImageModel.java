@@ -19,6 +19,11 @@ public class ImageModel {
 	 */
 	private final BooleanProperty fileInProgress = new SimpleBooleanProperty(false);
 
+	/**
+	 * Property for the flag if the last process using this file failed.
+	 */
+	private final BooleanProperty failed = new SimpleBooleanProperty(false);
+
 	/**
 	 * Property for the (raw) image file.
 	 */
@@ -61,6 +66,18 @@ public class ImageModel {
 		this.fileInProgress.set(fileInProgress);
 	}
 
+	public boolean isFailed() {
+		return failed.get();
+	}
+
+	public BooleanProperty failedProperty() {
+		return failed;
+	}
+
+	public void setFailed(boolean failed) {
+		this.failed.set(failed);
+	}
+
 	public File getImage() {
 		return image.get();
 	}
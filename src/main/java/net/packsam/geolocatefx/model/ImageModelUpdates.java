@@ -0,0 +1,420 @@
+package net.packsam.geolocatefx.model;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Pump for changes of image models made by background tasks. The changes are collected per image model and applied on the FX thread once per pulse, so a large batch does not
+ * flood the event queue with one runnable per image. Repeated changes of the same image model before it has been applied are merged, only the latest value of every property is
+ * set. Every pulse only applies changes until the time budget is spent, the remaining changes are applied in the following pulses.
+ *
+ * @author osterrath
+ */
+public class ImageModelUpdates {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ImageModelUpdates.class.getName());
+
+	/**
+	 * Time budget per pulse in ns.
+	 */
+	private final static long FRAME_BUDGET = TimeUnit.MILLISECONDS.toNanos(8);
+
+	/**
+	 * Pending changes by image model.
+	 */
+	private final Map<ImageModel, Delta> pendingDeltas = new IdentityHashMap<>();
+
+	/**
+	 * Image models with pending changes in the order of their first change, and runnables waiting for the changes queued before them.
+	 */
+	private final Deque<Object> pendingImageModels = new ArrayDeque<>();
+
+	/**
+	 * Timer applying the changes in every pulse while changes are pending.
+	 */
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			applyPending();
+		}
+	};
+
+	/**
+	 * Flag if the timer has been started.
+	 */
+	private boolean running;
+
+	/**
+	 * Number of submitted changes.
+	 */
+	private long submittedCount;
+
+	/**
+	 * Number of changes merged into a pending change.
+	 */
+	private long mergedCount;
+
+	/**
+	 * Number of applied image model changes.
+	 */
+	private long appliedTotal;
+
+	/**
+	 * Number of pulses with applied changes.
+	 */
+	private long frameCount;
+
+	/**
+	 * Longest time in ns spent applying changes in a single pulse.
+	 */
+	private long maxFrameTime;
+
+	/**
+	 * Sets the meta data of the given image model.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param geolocation
+	 * 		geolocation, may be <code>null</code>
+	 * @param creationDate
+	 * 		creation date, may be <code>null</code>
+	 * @param duration
+	 * 		video duration, may be <code>null</code>
+	 * @param videoFrameRate
+	 * 		video frame rate, may be <code>null</code>
+	 */
+	public void setMetaData(ImageModel imageModel, LatLong geolocation, Date creationDate, Double duration, Double videoFrameRate) {
+		synchronized (this) {
+			Delta delta = getDelta(imageModel);
+			delta.setGeolocation(geolocation);
+			delta.setCreationDate(creationDate);
+			delta.setDuration(duration);
+			delta.setVideoFrameRate(videoFrameRate);
+		}
+	}
+
+	/**
+	 * Sets the geolocation of the given image model.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param geolocation
+	 * 		geolocation, may be <code>null</code>
+	 */
+	public void setGeolocation(ImageModel imageModel, LatLong geolocation) {
+		synchronized (this) {
+			getDelta(imageModel).setGeolocation(geolocation);
+		}
+	}
+
+	/**
+	 * Sets the thumbnail of the given image model.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param thumbnail
+	 * 		thumbnail file, may be <code>null</code>
+	 */
+	public void setThumbnail(ImageModel imageModel, File thumbnail) {
+		synchronized (this) {
+			getDelta(imageModel).setThumbnail(thumbnail);
+		}
+	}
+
+	/**
+	 * Sets the failure flag of the given image model.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @param failed
+	 * 		flag if the last task of the image model has failed
+	 */
+	public void setFailed(ImageModel imageModel, boolean failed) {
+		synchronized (this) {
+			getDelta(imageModel).setFailed(failed);
+		}
+	}
+
+	/**
+	 * Runs the given runnable on the FX thread after all changes submitted before have been applied, e.g. for actions depending on the changed properties.
+	 *
+	 * @param runnable
+	 * 		runnable
+	 */
+	public void runAfterPending(Runnable runnable) {
+		synchronized (this) {
+			if (pendingImageModels.isEmpty()) {
+				Platform.runLater(runnable);
+				return;
+			}
+			pendingImageModels.add(runnable);
+		}
+	}
+
+	/**
+	 * Returns the pending change of the given image model, creates a new one and starts the timer if necessary. Must be called while holding the lock.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return pending change
+	 */
+	private Delta getDelta(ImageModel imageModel) {
+		submittedCount++;
+		Delta delta = pendingDeltas.get(imageModel);
+		if (delta != null) {
+			mergedCount++;
+			return delta;
+		}
+
+		delta = new Delta();
+		pendingDeltas.put(imageModel, delta);
+		pendingImageModels.add(imageModel);
+		if (!running) {
+			running = true;
+			Platform.runLater(timer::start);
+		}
+		return delta;
+	}
+
+	/**
+	 * Applies pending changes until the time budget of the pulse is spent. Stops the timer if no changes are left.
+	 */
+	private void applyPending() {
+		long start = System.nanoTime();
+		int appliedCount = 0;
+		boolean finished = false;
+		while (!finished && System.nanoTime() - start < FRAME_BUDGET) {
+			Object pending;
+			Delta delta;
+			synchronized (this) {
+				pending = pendingImageModels.poll();
+				delta = pending instanceof ImageModel ? pendingDeltas.remove(pending) : null;
+				if (pendingImageModels.isEmpty()) {
+					// new changes start the timer again
+					timer.stop();
+					running = false;
+					finished = true;
+				}
+			}
+			if (delta != null) {
+				delta.apply((ImageModel) pending);
+				appliedCount++;
+			} else if (pending instanceof Runnable) {
+				((Runnable) pending).run();
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		synchronized (this) {
+			if (appliedCount > 0) {
+				frameCount++;
+				appliedTotal += appliedCount;
+			}
+			maxFrameTime = Math.max(maxFrameTime, elapsed);
+		}
+	}
+
+	/**
+	 * Returns the number of image models with pending changes.
+	 *
+	 * @return number of image models
+	 */
+	public synchronized int getPendingCount() {
+		return pendingDeltas.size();
+	}
+
+	/**
+	 * Returns a summary of the applied changes.
+	 *
+	 * @return statistics
+	 */
+	public synchronized String getStatistics() {
+		return String.format(
+				"image model updates: %d submitted, %d merged, %d applied, %d pending, %d pulses, longest pulse %.1f ms",
+				submittedCount,
+				mergedCount,
+				appliedTotal,
+				pendingDeltas.size(),
+				frameCount,
+				maxFrameTime / 1e6
+		);
+	}
+
+	/**
+	 * Logs a summary of the applied changes.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Pending change of a single image model. Only the properties that have been set are applied.
+	 *
+	 * @author osterrath
+	 */
+	private static class Delta {
+		/**
+		 * Flag if the geolocation has been set.
+		 */
+		private boolean geolocationSet;
+
+		/**
+		 * New geolocation.
+		 */
+		private LatLong geolocation;
+
+		/**
+		 * Flag if the creation date has been set.
+		 */
+		private boolean creationDateSet;
+
+		/**
+		 * New creation date.
+		 */
+		private Date creationDate;
+
+		/**
+		 * Flag if the video duration has been set.
+		 */
+		private boolean durationSet;
+
+		/**
+		 * New video duration.
+		 */
+		private Double duration;
+
+		/**
+		 * Flag if the video frame rate has been set.
+		 */
+		private boolean videoFrameRateSet;
+
+		/**
+		 * New video frame rate.
+		 */
+		private Double videoFrameRate;
+
+		/**
+		 * Flag if the thumbnail has been set.
+		 */
+		private boolean thumbnailSet;
+
+		/**
+		 * New thumbnail file.
+		 */
+		private File thumbnail;
+
+		/**
+		 * Flag if the failure flag has been set.
+		 */
+		private boolean failedSet;
+
+		/**
+		 * New failure flag.
+		 */
+		private boolean failed;
+
+		/**
+		 * Sets the geolocation.
+		 *
+		 * @param geolocation
+		 * 		geolocation
+		 */
+		private void setGeolocation(LatLong geolocation) {
+			this.geolocation = geolocation;
+			this.geolocationSet = true;
+		}
+
+		/**
+		 * Sets the creation date.
+		 *
+		 * @param creationDate
+		 * 		creation date
+		 */
+		private void setCreationDate(Date creationDate) {
+			this.creationDate = creationDate;
+			this.creationDateSet = true;
+		}
+
+		/**
+		 * Sets the video duration.
+		 *
+		 * @param duration
+		 * 		video duration
+		 */
+		private void setDuration(Double duration) {
+			this.duration = duration;
+			this.durationSet = true;
+		}
+
+		/**
+		 * Sets the video frame rate.
+		 *
+		 * @param videoFrameRate
+		 * 		video frame rate
+		 */
+		private void setVideoFrameRate(Double videoFrameRate) {
+			this.videoFrameRate = videoFrameRate;
+			this.videoFrameRateSet = true;
+		}
+
+		/**
+		 * Sets the thumbnail file.
+		 *
+		 * @param thumbnail
+		 * 		thumbnail file
+		 */
+		private void setThumbnail(File thumbnail) {
+			this.thumbnail = thumbnail;
+			this.thumbnailSet = true;
+		}
+
+		/**
+		 * Sets the failure flag.
+		 *
+		 * @param failed
+		 * 		failure flag
+		 */
+		private void setFailed(boolean failed) {
+			this.failed = failed;
+			this.failedSet = true;
+		}
+
+		/**
+		 * Applies the set properties to the given image model.
+		 *
+		 * @param imageModel
+		 * 		image model
+		 */
+		private void apply(ImageModel imageModel) {
+			if (geolocationSet) {
+				imageModel.setGeolocation(geolocation);
+			}
+			if (creationDateSet) {
+				imageModel.setCreationDate(creationDate);
+			}
+			if (durationSet) {
+				imageModel.setDuration(duration);
+			}
+			if (videoFrameRateSet) {
+				imageModel.setVideoFrameRate(videoFrameRate);
+			}
+			if (thumbnailSet) {
+				imageModel.setThumbnail(thumbnail);
+			}
+			if (failedSet) {
+				imageModel.setFailed(failed);
+			}
+		}
+	}
+}
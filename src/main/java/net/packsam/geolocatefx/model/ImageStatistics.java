@@ -0,0 +1,290 @@
+package net.packsam.geolocatefx.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+import javafx.application.Platform;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Counters over a list of images. The counters are maintained by listeners on the image properties, so no change ever scans the whole list. Changes may come from any thread,
+ * the observable properties are updated on the FX thread at most once per pulse. The progress flag is flipped by the tasks while holding the monitor of the image, so its
+ * listener is added and removed under the same monitor; otherwise a flip between registering and counting would be counted twice.
+ *
+ * @author osterrath
+ */
+public class ImageStatistics {
+	/**
+	 * Number of images.
+	 */
+	private final AtomicInteger totalCounter = new AtomicInteger();
+
+	/**
+	 * Number of images in progress.
+	 */
+	private final AtomicInteger inProgressCounter = new AtomicInteger();
+
+	/**
+	 * Number of images with geolocation.
+	 */
+	private final AtomicInteger taggedCounter = new AtomicInteger();
+
+	/**
+	 * Number of images whose last task failed.
+	 */
+	private final AtomicInteger failedCounter = new AtomicInteger();
+
+	/**
+	 * Number of videos.
+	 */
+	private final AtomicInteger videoCounter = new AtomicInteger();
+
+	/**
+	 * Property for the number of images.
+	 */
+	private final IntegerProperty total = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of images in progress.
+	 */
+	private final IntegerProperty inProgress = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of pending operations.
+	 */
+	private final IntegerProperty queued = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of images with geolocation.
+	 */
+	private final IntegerProperty tagged = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of images without geolocation.
+	 */
+	private final IntegerProperty untagged = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of images whose last task failed.
+	 */
+	private final IntegerProperty failed = new SimpleIntegerProperty();
+
+	/**
+	 * Property for the number of videos.
+	 */
+	private final IntegerProperty videos = new SimpleIntegerProperty();
+
+	/**
+	 * Flag if the properties will be updated in the next pulse.
+	 */
+	private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+
+	/**
+	 * Predicate for videos.
+	 */
+	private final Predicate<ImageModel> videoPredicate;
+
+	/**
+	 * Supplier for the number of pending operations.
+	 */
+	private final IntSupplier queuedSupplier;
+
+	/**
+	 * Listener for the progress flags, shared by all images.
+	 */
+	private final ChangeListener<Boolean> inProgressListener = (o, oldVal, newVal) -> {
+		count(inProgressCounter, Boolean.TRUE.equals(oldVal), Boolean.TRUE.equals(newVal));
+	};
+
+	/**
+	 * Listener for the failure flags, shared by all images.
+	 */
+	private final ChangeListener<Boolean> failedListener = (o, oldVal, newVal) -> {
+		count(failedCounter, Boolean.TRUE.equals(oldVal), Boolean.TRUE.equals(newVal));
+	};
+
+	/**
+	 * Listener for the geolocations, shared by all images.
+	 */
+	private final ChangeListener<LatLong> geolocationListener = (o, oldVal, newVal) -> {
+		count(taggedCounter, oldVal != null, newVal != null);
+	};
+
+	/**
+	 * Ctor.
+	 *
+	 * @param images
+	 * 		images to count
+	 * @param videoPredicate
+	 * 		predicate for videos
+	 * @param queuedSupplier
+	 * 		supplier for the number of pending operations, must not scan the images
+	 */
+	public ImageStatistics(ObservableList<ImageModel> images, Predicate<ImageModel> videoPredicate, IntSupplier queuedSupplier) {
+		this.videoPredicate = videoPredicate;
+		this.queuedSupplier = queuedSupplier;
+		images.forEach(this::observe);
+		images.addListener(this::imagesChanged);
+	}
+
+	/**
+	 * Event handler when the image list has been changed.
+	 *
+	 * @param change
+	 * 		list change
+	 */
+	private void imagesChanged(ListChangeListener.Change<? extends ImageModel> change) {
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				continue;
+			}
+			change.getRemoved().forEach(this::unobserve);
+			change.getAddedSubList().forEach(this::observe);
+		}
+	}
+
+	/**
+	 * Counts the given image and observes its changes.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void observe(ImageModel imageModel) {
+		synchronized (imageModel) {
+			imageModel.fileInProgressProperty().addListener(inProgressListener);
+			count(inProgressCounter, false, imageModel.isFileInProgress());
+		}
+		imageModel.failedProperty().addListener(failedListener);
+		imageModel.geolocationProperty().addListener(geolocationListener);
+
+		totalCounter.incrementAndGet();
+		count(failedCounter, false, imageModel.isFailed());
+		count(taggedCounter, false, imageModel.getGeolocation() != null);
+		count(videoCounter, false, videoPredicate.test(imageModel));
+	}
+
+	/**
+	 * Stops observing the given image and removes it from the counters.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private void unobserve(ImageModel imageModel) {
+		synchronized (imageModel) {
+			imageModel.fileInProgressProperty().removeListener(inProgressListener);
+			count(inProgressCounter, imageModel.isFileInProgress(), false);
+		}
+		imageModel.failedProperty().removeListener(failedListener);
+		imageModel.geolocationProperty().removeListener(geolocationListener);
+
+		totalCounter.decrementAndGet();
+		count(failedCounter, imageModel.isFailed(), false);
+		count(taggedCounter, imageModel.getGeolocation() != null, false);
+		count(videoCounter, videoPredicate.test(imageModel), false);
+	}
+
+	/**
+	 * Updates the given counter by a state transition.
+	 *
+	 * @param counter
+	 * 		counter
+	 * @param oldState
+	 * 		old state
+	 * @param newState
+	 * 		new state
+	 */
+	private void count(AtomicInteger counter, boolean oldState, boolean newState) {
+		if (oldState != newState) {
+			counter.addAndGet(newState ? 1 : -1);
+		}
+		scheduleUpdate();
+	}
+
+	/**
+	 * Updates the properties in the next pulse, e.g. after the number of pending operations has been changed.
+	 */
+	public void scheduleUpdate() {
+		if (updateScheduled.compareAndSet(false, true)) {
+			Platform.runLater(this::update);
+		}
+	}
+
+	/**
+	 * Copies the counters to the properties.
+	 */
+	private void update() {
+		updateScheduled.set(false);
+		int totalCount = totalCounter.get();
+		int taggedCount = taggedCounter.get();
+		total.set(totalCount);
+		inProgress.set(inProgressCounter.get());
+		queued.set(queuedSupplier.getAsInt());
+		tagged.set(taggedCount);
+		untagged.set(totalCount - taggedCount);
+		failed.set(failedCounter.get());
+		videos.set(videoCounter.get());
+	}
+
+	public int getTotal() {
+		return total.get();
+	}
+
+	public ReadOnlyIntegerProperty totalProperty() {
+		return total;
+	}
+
+	public int getInProgress() {
+		return inProgress.get();
+	}
+
+	public ReadOnlyIntegerProperty inProgressProperty() {
+		return inProgress;
+	}
+
+	public int getQueued() {
+		return queued.get();
+	}
+
+	public ReadOnlyIntegerProperty queuedProperty() {
+		return queued;
+	}
+
+	public int getTagged() {
+		return tagged.get();
+	}
+
+	public ReadOnlyIntegerProperty taggedProperty() {
+		return tagged;
+	}
+
+	public int getUntagged() {
+		return untagged.get();
+	}
+
+	public ReadOnlyIntegerProperty untaggedProperty() {
+		return untagged;
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	public ReadOnlyIntegerProperty failedProperty() {
+		return failed;
+	}
+
+	public int getVideos() {
+		return videos.get();
+	}
+
+	public ReadOnlyIntegerProperty videosProperty() {
+		return videos;
+	}
+}
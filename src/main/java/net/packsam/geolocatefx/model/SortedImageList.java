@@ -0,0 +1,378 @@
+package net.packsam.geolocatefx.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * Observable list of images that is always sorted by creation date and file. New images are merged in at their position, images with a changed creation date are moved with a
+ * binary search, so only the affected range is reported as permutation instead of sorting the whole list.
+ *
+ * <p>
+ * The list remembers the creation date every image has been positioned with, so changed creation dates only take effect by calling {@link #reposition(Collection)}. The list
+ * must be used from the FX thread.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class SortedImageList extends ObservableListBase<ImageModel> {
+	/**
+	 * Maximum number of changed images that are moved one by one, more images are repositioned by sorting the whole list.
+	 */
+	private final static int MAX_SINGLE_MOVES = 32;
+
+	/**
+	 * Sorted images.
+	 */
+	private final List<ImageModel> elements = new ArrayList<>();
+
+	/**
+	 * Creation dates in ms the images have been positioned with.
+	 */
+	private final Map<ImageModel, Long> sortKeys = new IdentityHashMap<>();
+
+	/**
+	 * Comparator using the remembered creation dates.
+	 */
+	private final Comparator<ImageModel> comparator = (im1, im2) -> compare(sortKeys.get(im1), im1, sortKeys.get(im2), im2);
+
+	@Override
+	public ImageModel get(int index) {
+		return elements.get(index);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof ImageModel && sortKeys.containsKey(o);
+	}
+
+	@Override
+	public boolean add(ImageModel imageModel) {
+		return addAll(Collections.singletonList(imageModel));
+	}
+
+	/**
+	 * Adds the given images at their sorted positions. Images already in the list are ignored.
+	 *
+	 * @param imageModels
+	 * 		images to add
+	 * @return <code>true</code> if the list has been changed
+	 */
+	@Override
+	public boolean addAll(Collection<? extends ImageModel> imageModels) {
+		List<ImageModel> newImages = new ArrayList<>(imageModels.size());
+		for (ImageModel imageModel : imageModels) {
+			if (!sortKeys.containsKey(imageModel)) {
+				sortKeys.put(imageModel, getSortKey(imageModel));
+				newImages.add(imageModel);
+			}
+		}
+		if (newImages.isEmpty()) {
+			return false;
+		}
+		newImages.sort(comparator);
+
+		// merge both sorted lists
+		List<ImageModel> merged = new ArrayList<>(elements.size() + newImages.size());
+		int[] addedIndexes = new int[newImages.size()];
+		int oldIndex = 0;
+		int newIndex = 0;
+		while (oldIndex < elements.size() || newIndex < newImages.size()) {
+			if (newIndex < newImages.size() && (oldIndex >= elements.size() || comparator.compare(newImages.get(newIndex), elements.get(oldIndex)) < 0)) {
+				addedIndexes[newIndex] = merged.size();
+				merged.add(newImages.get(newIndex++));
+			} else {
+				merged.add(elements.get(oldIndex++));
+			}
+		}
+		elements.clear();
+		elements.addAll(merged);
+
+		// report consecutive new images as one addition
+		beginChange();
+		int from = addedIndexes[0];
+		for (int i = 1; i <= addedIndexes.length; i++) {
+			if (i == addedIndexes.length || addedIndexes[i] != addedIndexes[i - 1] + 1) {
+				nextAdd(from, addedIndexes[i - 1] + 1);
+				if (i < addedIndexes.length) {
+					from = addedIndexes[i];
+				}
+			}
+		}
+		endChange();
+		return true;
+	}
+
+	@Override
+	public ImageModel remove(int index) {
+		ImageModel imageModel = elements.remove(index);
+		sortKeys.remove(imageModel);
+
+		beginChange();
+		nextRemove(index, imageModel);
+		endChange();
+		return imageModel;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	/**
+	 * Removes the given images in a single pass.
+	 *
+	 * @param c
+	 * 		images to remove
+	 * @return <code>true</code> if the list has been changed
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		Set<Object> removedImages = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Object o : c) {
+			if (contains(o)) {
+				removedImages.add(o);
+			}
+		}
+		if (removedImages.isEmpty()) {
+			return false;
+		}
+
+		beginChange();
+		int index = 0;
+		for (int i = 0; i < elements.size(); i++) {
+			ImageModel imageModel = elements.get(i);
+			if (removedImages.contains(imageModel)) {
+				sortKeys.remove(imageModel);
+				nextRemove(index, imageModel);
+			} else {
+				elements.set(index++, imageModel);
+			}
+		}
+		elements.subList(index, elements.size()).clear();
+		endChange();
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		if (elements.isEmpty()) {
+			return;
+		}
+
+		List<ImageModel> removed = new ArrayList<>(elements);
+		elements.clear();
+		sortKeys.clear();
+
+		beginChange();
+		nextRemove(0, removed);
+		endChange();
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (!contains(o)) {
+			return -1;
+		}
+
+		ImageModel imageModel = (ImageModel) o;
+		int index = findIndex(imageModel, sortKeys.get(imageModel));
+		return index >= 0 ? index : elements.indexOf(imageModel);
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	/**
+	 * Moves the given images to the positions of their current creation dates. Images that are not part of the list are ignored.
+	 *
+	 * @param imageModels
+	 * 		images whose creation date may have been changed
+	 */
+	public void reposition(Collection<ImageModel> imageModels) {
+		List<ImageModel> changedImages = new ArrayList<>();
+		for (ImageModel imageModel : imageModels) {
+			Long sortKey = sortKeys.get(imageModel);
+			if (sortKey != null && sortKey != getSortKey(imageModel) && !changedImages.contains(imageModel)) {
+				changedImages.add(imageModel);
+			}
+			if (changedImages.size() > MAX_SINGLE_MOVES) {
+				break;
+			}
+		}
+
+		if (changedImages.size() > MAX_SINGLE_MOVES) {
+			repositionAll(imageModels);
+		} else {
+			changedImages.forEach(this::move);
+		}
+	}
+
+	/**
+	 * Moves a single image to the position of its current creation date and reports the shifted range as permutation.
+	 *
+	 * @param imageModel
+	 * 		image
+	 */
+	private void move(ImageModel imageModel) {
+		int oldIndex = findIndex(imageModel, sortKeys.get(imageModel));
+		if (oldIndex < 0) {
+			oldIndex = elements.indexOf(imageModel);
+		}
+		elements.remove(oldIndex);
+
+		long sortKey = getSortKey(imageModel);
+		sortKeys.put(imageModel, sortKey);
+		int newIndex = -findIndex(imageModel, sortKey) - 1;
+		elements.add(newIndex, imageModel);
+		if (oldIndex == newIndex) {
+			return;
+		}
+
+		int from = Math.min(oldIndex, newIndex);
+		int to = Math.max(oldIndex, newIndex) + 1;
+		int[] permutation = new int[to - from];
+		for (int i = from; i < to; i++) {
+			if (i == oldIndex) {
+				permutation[i - from] = newIndex;
+			} else {
+				permutation[i - from] = oldIndex < newIndex ? i - 1 : i + 1;
+			}
+		}
+
+		beginChange();
+		nextPermutation(from, to, permutation);
+		endChange();
+	}
+
+	/**
+	 * Updates the creation dates of the given images and sorts the whole list. The sort is nearly linear since the other images are still sorted. Only the range of moved
+	 * images is reported as permutation.
+	 *
+	 * @param imageModels
+	 * 		images whose creation date may have been changed
+	 */
+	private void repositionAll(Collection<ImageModel> imageModels) {
+		for (ImageModel imageModel : imageModels) {
+			if (sortKeys.containsKey(imageModel)) {
+				sortKeys.put(imageModel, getSortKey(imageModel));
+			}
+		}
+
+		List<ImageModel> oldElements = new ArrayList<>(elements);
+		elements.sort(comparator);
+
+		Map<ImageModel, Integer> newIndexes = new IdentityHashMap<>();
+		int from = -1;
+		int to = -1;
+		for (int i = 0; i < elements.size(); i++) {
+			if (elements.get(i) != oldElements.get(i)) {
+				if (from < 0) {
+					from = i;
+				}
+				to = i + 1;
+				newIndexes.put(elements.get(i), i);
+			}
+		}
+		if (from < 0) {
+			return;
+		}
+
+		int[] permutation = new int[to - from];
+		for (int i = from; i < to; i++) {
+			Integer newIndex = newIndexes.get(oldElements.get(i));
+			permutation[i - from] = newIndex != null ? newIndex : i;
+		}
+
+		beginChange();
+		nextPermutation(from, to, permutation);
+		endChange();
+	}
+
+	/**
+	 * Searches the given image by binary search.
+	 *
+	 * @param imageModel
+	 * 		image
+	 * @param sortKey
+	 * 		creation date in ms to search with
+	 * @return index of the image, or <code>-(insertion point) - 1</code> if the image is not at the expected position
+	 */
+	private int findIndex(ImageModel imageModel, long sortKey) {
+		File file = imageModel.getImage();
+		int low = 0;
+		int high = elements.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			ImageModel other = elements.get(mid);
+			if (compare(sortKeys.get(other), other, sortKey, imageModel) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		// images of the same file share the sort key
+		for (int i = low; i < elements.size(); i++) {
+			ImageModel other = elements.get(i);
+			if (other == imageModel) {
+				return i;
+			}
+			if (sortKeys.get(other) != sortKey || !file.equals(other.getImage())) {
+				break;
+			}
+		}
+		return -low - 1;
+	}
+
+	/**
+	 * Compares two images by creation date and file.
+	 *
+	 * @param sortKey1
+	 * 		creation date in ms of the first image
+	 * @param im1
+	 * 		first image
+	 * @param sortKey2
+	 * 		creation date in ms of the second image
+	 * @param im2
+	 * 		second image
+	 * @return comparison result
+	 */
+	private static int compare(long sortKey1, ImageModel im1, long sortKey2, ImageModel im2) {
+		int result = Long.compare(sortKey1, sortKey2);
+		return result != 0 ? result : im1.getImage().compareTo(im2.getImage());
+	}
+
+	/**
+	 * Returns the sort key of the current creation date.
+	 *
+	 * @param imageModel
+	 * 		image
+	 * @return creation date in ms
+	 */
+	private static long getSortKey(ImageModel imageModel) {
+		Date creationDate = imageModel.getCreationDate();
+		return creationDate != null ? creationDate.getTime() : Long.MIN_VALUE;
+	}
+}
@@ -0,0 +1,497 @@
+package net.packsam.geolocatefx.task;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.cache.ThumbnailCache;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+import net.packsam.geolocatefx.thumbnail.ThumbnailStrategies;
+
+/**
+ * Geotagging of a batch of images without user interface. The meta data is read, the geolocation of every image is determined and written, and the thumbnails are created
+ * optionally. Every step runs the same tasks as the application, but the tasks are executed directly on an own thread pool and their results are applied to the image models
+ * immediately, so the JavaFX toolkit is not needed.
+ *
+ * @author osterrath
+ */
+public class BatchGeotagging {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(BatchGeotagging.class.getName());
+
+	/**
+	 * Pool of exiftool processes.
+	 */
+	private final ExiftoolPool exiftoolPool;
+
+	/**
+	 * Persistent meta data cache, may be <code>null</code>.
+	 */
+	private final MetaDataCache metaDataCache;
+
+	/**
+	 * Number of tasks running in parallel.
+	 */
+	private final int parallelism;
+
+	/**
+	 * Function determining the geolocation of an image from its meta data, returns <code>null</code> if no geolocation is known.
+	 */
+	private final Function<ImageModel, LatLong> locator;
+
+	/**
+	 * Factory for the worker threads.
+	 */
+	private final ThreadFactory threadFactory;
+
+	/**
+	 * Flag if images that already have a geolocation are tagged again.
+	 */
+	private boolean overwrite;
+
+	/**
+	 * Flag if the geolocations are only determined but not written.
+	 */
+	private boolean dryRun;
+
+	/**
+	 * Handler for every image with a determined geolocation, may be <code>null</code>.
+	 */
+	private BiConsumer<ImageModel, LatLong> matchHandler;
+
+	/**
+	 * Path to Image Magick convert, only used for thumbnails.
+	 */
+	private String convertPath;
+
+	/**
+	 * Strategies for creating thumbnails, thumbnails are not created if <code>null</code>.
+	 */
+	private ThumbnailStrategies thumbnailStrategies;
+
+	/**
+	 * Central thumbnail store.
+	 */
+	private ThumbnailCache thumbnailCache;
+
+	/**
+	 * Maximum number of images per thumbnail task.
+	 */
+	private int thumbnailBatchSize = 32;
+
+	/**
+	 * Number of images in the batch.
+	 */
+	private int imageCount;
+
+	/**
+	 * Number of images whose meta data has been taken from the cache.
+	 */
+	private int cachedCount;
+
+	/**
+	 * Number of images whose meta data has been read.
+	 */
+	private final AtomicInteger readCount = new AtomicInteger();
+
+	/**
+	 * Number of images skipped because they already have a geolocation.
+	 */
+	private int alreadyTaggedCount;
+
+	/**
+	 * Number of images without a known geolocation.
+	 */
+	private int unmatchedCount;
+
+	/**
+	 * Number of images with a determined geolocation.
+	 */
+	private int matchedCount;
+
+	/**
+	 * Number of images whose geolocation has been written.
+	 */
+	private final AtomicInteger writtenCount = new AtomicInteger();
+
+	/**
+	 * Number of created or cached thumbnails.
+	 */
+	private final AtomicInteger thumbnailCount = new AtomicInteger();
+
+	/**
+	 * Number of failed tasks.
+	 */
+	private final AtomicInteger failedTaskCount = new AtomicInteger();
+
+	/**
+	 * Time in ns spent reading meta data.
+	 */
+	private long readTime;
+
+	/**
+	 * Time in ns spent writing geolocations.
+	 */
+	private long writeTime;
+
+	/**
+	 * Time in ns spent creating thumbnails.
+	 */
+	private long thumbnailTime;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache, may be <code>null</code>
+	 * @param parallelism
+	 * 		number of tasks running in parallel
+	 * @param locator
+	 * 		function determining the geolocation of an image from its meta data, returns <code>null</code> if no geolocation is known
+	 * @param threadFactory
+	 * 		factory for the worker threads
+	 */
+	public BatchGeotagging(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, int parallelism, Function<ImageModel, LatLong> locator, ThreadFactory threadFactory) {
+		this.exiftoolPool = exiftoolPool;
+		this.metaDataCache = metaDataCache;
+		this.parallelism = Math.max(1, parallelism);
+		this.locator = locator;
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Processes the given images and waits until all tasks are done.
+	 *
+	 * @param imageModels
+	 * 		images to tag
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	public void run(List<ImageModel> imageModels) throws InterruptedException {
+		imageCount = imageModels.size();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+		try {
+			long start = System.nanoTime();
+			readMetaData(executor, imageModels);
+			readTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			writeGeolocations(executor, imageModels);
+			writeTime = System.nanoTime() - start;
+
+			if (thumbnailStrategies != null) {
+				start = System.nanoTime();
+				createThumbnails(executor, imageModels);
+				thumbnailTime = System.nanoTime() - start;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the meta data of all images without valid cache entry.
+	 *
+	 * @param executor
+	 * 		executor for the tasks
+	 * @param imageModels
+	 * 		images
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	private void readMetaData(ExecutorService executor, List<ImageModel> imageModels) throws InterruptedException {
+		List<ImageModel> uncachedImageModels = new ArrayList<>();
+		for (ImageModel imageModel : imageModels) {
+			MetaDataCache.Entry entry = metaDataCache != null ? metaDataCache.get(imageModel.getImage()) : null;
+			if (entry != null) {
+				applyMetaData(imageModel, entry.getGeolocation(), entry.getCreationDate(), entry.getDuration(), entry.getVideoFrameRate());
+				cachedCount++;
+			} else {
+				uncachedImageModels.add(imageModel);
+			}
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (List<ImageModel> shard : MetaDataShards.split(uncachedImageModels, parallelism)) {
+			ReadMetaDataTask task = new ReadMetaDataTask(exiftoolPool, metaDataCache, shard, (im, geolocation, creationDate, duration, videoFrameRate) -> {
+				applyMetaData(im, geolocation, creationDate, duration, videoFrameRate);
+				readCount.incrementAndGet();
+			});
+			tasks.add(prepare(task, task::call));
+		}
+		execute(executor, tasks);
+	}
+
+	/**
+	 * Determines the geolocations of all images and writes them. The images are split into one shard per parallel task, every image keeps its own geolocation.
+	 *
+	 * @param executor
+	 * 		executor for the tasks
+	 * @param imageModels
+	 * 		images
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	private void writeGeolocations(ExecutorService executor, List<ImageModel> imageModels) throws InterruptedException {
+		Map<ImageModel, LatLong> geolocations = new LinkedHashMap<>();
+		for (ImageModel imageModel : imageModels) {
+			if (imageModel.getGeolocation() != null && !overwrite) {
+				alreadyTaggedCount++;
+				continue;
+			}
+
+			LatLong geolocation = locator.apply(imageModel);
+			if (geolocation == null) {
+				unmatchedCount++;
+				continue;
+			}
+
+			matchedCount++;
+			if (matchHandler != null) {
+				matchHandler.accept(imageModel, geolocation);
+			}
+			if (!dryRun) {
+				geolocations.put(imageModel, geolocation);
+			}
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (List<ImageModel> shard : MetaDataShards.split(new ArrayList<>(geolocations.keySet()), parallelism)) {
+			Map<ImageModel, LatLong> shardGeolocations = new LinkedHashMap<>();
+			shard.forEach(im -> shardGeolocations.put(im, geolocations.get(im)));
+			WriteGeolocationTask task = new WriteGeolocationTask(exiftoolPool, metaDataCache, shardGeolocations, (im, writtenGeolocation) -> {
+				im.setGeolocation(writtenGeolocation);
+				writtenCount.incrementAndGet();
+			});
+			tasks.add(prepare(task, task::call));
+		}
+		execute(executor, tasks);
+	}
+
+	/**
+	 * Creates the thumbnails of all images in the thumbnail cache.
+	 *
+	 * @param executor
+	 * 		executor for the tasks
+	 * @param imageModels
+	 * 		images
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	private void createThumbnails(ExecutorService executor, List<ImageModel> imageModels) throws InterruptedException {
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < imageModels.size(); i += thumbnailBatchSize) {
+			List<ImageModel> batch = imageModels.subList(i, Math.min(imageModels.size(), i + thumbnailBatchSize));
+			CreateThumbnailTask task = new CreateThumbnailTask(convertPath, thumbnailStrategies, thumbnailCache, batch, (im, thumbnailFile) -> {
+				im.setThumbnail(thumbnailFile);
+				thumbnailCount.incrementAndGet();
+			});
+			tasks.add(prepare(task, task::call));
+		}
+		execute(executor, tasks);
+	}
+
+	/**
+	 * Applies meta data to the given image.
+	 *
+	 * @param imageModel
+	 * 		image
+	 * @param geolocation
+	 * 		geolocation
+	 * @param creationDate
+	 * 		creation date
+	 * @param duration
+	 * 		video duration
+	 * @param videoFrameRate
+	 * 		video frame rate
+	 */
+	private static void applyMetaData(ImageModel imageModel, LatLong geolocation, Date creationDate, Double duration, Double videoFrameRate) {
+		imageModel.setGeolocation(geolocation);
+		imageModel.setCreationDate(creationDate);
+		imageModel.setDuration(duration);
+		imageModel.setVideoFrameRate(videoFrameRate);
+	}
+
+	/**
+	 * Prepares the given task for being executed directly. The tasks are called directly, running them as FX tasks would need the toolkit for their state changes. Errors are
+	 * logged, every failed task is counted once.
+	 *
+	 * @param task
+	 * 		task
+	 * @param call
+	 * 		call of the task
+	 * @return call counting failures
+	 */
+	private Callable<Void> prepare(ExternalProcessTask<?> task, Callable<Void> call) {
+		AtomicBoolean failed = new AtomicBoolean(false);
+		task.setErrorHandler((processName, exitCode, error, e) -> {
+			failed.set(true);
+			if (e != null) {
+				LOG.log(Level.WARNING, processName + " could not be started", e);
+			} else {
+				LOG.warning(processName + " exited with error code " + exitCode + (error != null ? ": " + error : ""));
+			}
+		});
+		return () -> {
+			try {
+				call.call();
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (Exception e) {
+				if (!failed.getAndSet(true)) {
+					LOG.log(Level.WARNING, "Task failed", e);
+				}
+			}
+			if (failed.get()) {
+				failedTaskCount.incrementAndGet();
+			}
+			return null;
+		};
+	}
+
+	/**
+	 * Executes the given tasks and waits until all of them are done.
+	 *
+	 * @param executor
+	 * 		executor for the tasks
+	 * @param tasks
+	 * 		prepared calls of the tasks
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	private void execute(ExecutorService executor, List<Callable<Void>> tasks) throws InterruptedException {
+		List<Future<Void>> futures = new ArrayList<>();
+		for (Callable<Void> task : tasks) {
+			futures.add(executor.submit(task));
+		}
+
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				// the thread got interrupted while executing the task
+				LOG.log(Level.FINE, "Task interrupted", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Returns a summary of the processed images and the throughput of every step.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return String.format(
+				"batch geotagging: %d images, meta data %d cached / %d read in %.1f s (%.1f files/s), %d already tagged, %d unmatched, %d matched, %d written in %.1f s (%.1f files/s), "
+						+ "%d thumbnails in %.1f s (%.1f files/s), %d failed tasks",
+				imageCount,
+				cachedCount,
+				readCount.get(),
+				readTime / 1e9,
+				getThroughput(imageCount, readTime),
+				alreadyTaggedCount,
+				unmatchedCount,
+				matchedCount,
+				writtenCount.get(),
+				writeTime / 1e9,
+				getThroughput(writtenCount.get(), writeTime),
+				thumbnailCount.get(),
+				thumbnailTime / 1e9,
+				getThroughput(thumbnailCount.get(), thumbnailTime),
+				failedTaskCount.get()
+		);
+	}
+
+	/**
+	 * Returns the number of failed tasks.
+	 *
+	 * @return number of failed tasks
+	 */
+	public int getFailedTaskCount() {
+		return failedTaskCount.get();
+	}
+
+	/**
+	 * Calculates the throughput of a step.
+	 *
+	 * @param count
+	 * 		number of processed files
+	 * @param time
+	 * 		time in ns
+	 * @return files per second
+	 */
+	private static double getThroughput(int count, long time) {
+		return time > 0 ? count / (time / (double) TimeUnit.SECONDS.toNanos(1)) : 0;
+	}
+
+	/**
+	 * Sets the flag if images that already have a geolocation are tagged again.
+	 *
+	 * @param overwrite
+	 * 		new value for overwrite
+	 */
+	public void setOverwrite(boolean overwrite) {
+		this.overwrite = overwrite;
+	}
+
+	/**
+	 * Sets the flag if the geolocations are only determined but not written.
+	 *
+	 * @param dryRun
+	 * 		new value for dryRun
+	 */
+	public void setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Sets the handler for every image with a determined geolocation.
+	 *
+	 * @param matchHandler
+	 * 		new value for matchHandler
+	 */
+	public void setMatchHandler(BiConsumer<ImageModel, LatLong> matchHandler) {
+		this.matchHandler = matchHandler;
+	}
+
+	/**
+	 * Enables creating the thumbnails in the thumbnail cache.
+	 *
+	 * @param convertPath
+	 * 		path to Image Magick convert
+	 * @param thumbnailStrategies
+	 * 		strategies for creating thumbnails by file type
+	 * @param thumbnailCache
+	 * 		central thumbnail store
+	 * @param thumbnailBatchSize
+	 * 		maximum number of images per thumbnail task
+	 */
+	public void setThumbnailCreation(String convertPath, ThumbnailStrategies thumbnailStrategies, ThumbnailCache thumbnailCache, int thumbnailBatchSize) {
+		this.convertPath = convertPath;
+		this.thumbnailStrategies = thumbnailStrategies;
+		this.thumbnailCache = thumbnailCache;
+		this.thumbnailBatchSize = Math.max(1, thumbnailBatchSize);
+	}
+}
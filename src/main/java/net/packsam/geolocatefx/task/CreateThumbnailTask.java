@@ -1,35 +1,47 @@
 package net.packsam.geolocatefx.task;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import javafx.application.Platform;
-import net.packsam.geolocatefx.Constants;
+import net.packsam.geolocatefx.cache.ThumbnailCache;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageModelUpdates;
+import net.packsam.geolocatefx.thumbnail.ThumbnailStrategies;
 
 /**
- * Task for creating the thumbnail for the given image file.
+ * Task for creating the thumbnails for the given image files.
  *
  * @author osterrath
  */
 public class CreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 
 	/**
-	 * Size parameter for convert -resize.
+	 * Path to Image Magick convert.
 	 */
-	private final static String RESIZE_DIMENSIONS_PARAM = "\"" + Constants.THUMBNAIL_WIDTH + "x" + (Constants.THUMBNAIL_WIDTH << 1) + ">\"";
+	private final String convertPath;
 
 	/**
-	 * Path to Image Magick convert.
+	 * Strategies for creating thumbnails by file type.
 	 */
-	private final String convertPath;
+	private final ThumbnailStrategies thumbnailStrategies;
+
+	/**
+	 * Central thumbnail store.
+	 */
+	private final ThumbnailCache thumbnailCache;
 
 	/**
-	 * Target image model.
+	 * Target image models.
 	 */
-	private final ImageModel imageModel;
+	private final Collection<ImageModel> imageModels;
 
 	/**
 	 * Callback when the thumbnail has been created.
@@ -41,11 +53,17 @@ public class CreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 	 *
 	 * @param convertPath
 	 * 		path to Image Magick convert
+	 * @param thumbnailStrategies
+	 * 		strategies for creating thumbnails by file type
+	 * @param thumbnailCache
+	 * 		central thumbnail store
 	 * @param imageModel
 	 * 		target image model
+	 * @param modelUpdates
+	 * 		pump for applying the thumbnail to the image model
 	 */
-	public CreateThumbnailTask(String convertPath, ImageModel imageModel) {
-		this(convertPath, imageModel, null);
+	public CreateThumbnailTask(String convertPath, ThumbnailStrategies thumbnailStrategies, ThumbnailCache thumbnailCache, ImageModel imageModel, ImageModelUpdates modelUpdates) {
+		this(convertPath, thumbnailStrategies, thumbnailCache, Collections.singletonList(imageModel), modelUpdates::setThumbnail);
 	}
 
 	/**
@@ -53,14 +71,38 @@ public class CreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 	 *
 	 * @param convertPath
 	 * 		path to Image Magick convert
-	 * @param imageModel
-	 * 		target image model
+	 * @param thumbnailStrategies
+	 * 		strategies for creating thumbnails by file type
+	 * @param thumbnailCache
+	 * 		central thumbnail store
+	 * @param imageModels
+	 * 		target image models
+	 * @param modelUpdates
+	 * 		pump for applying the thumbnails to the image models
+	 */
+	public CreateThumbnailTask(String convertPath, ThumbnailStrategies thumbnailStrategies, ThumbnailCache thumbnailCache, Collection<ImageModel> imageModels, ImageModelUpdates modelUpdates) {
+		this(convertPath, thumbnailStrategies, thumbnailCache, imageModels, modelUpdates::setThumbnail);
+	}
+
+	/**
+	 * Ctor.
+	 *
+	 * @param convertPath
+	 * 		path to Image Magick convert
+	 * @param thumbnailStrategies
+	 * 		strategies for creating thumbnails by file type
+	 * @param thumbnailCache
+	 * 		central thumbnail store
+	 * @param imageModels
+	 * 		target image models
 	 * @param callback
 	 * 		callback when the thumbnail has been created
 	 */
-	public CreateThumbnailTask(String convertPath, ImageModel imageModel, Callback callback) {
+	public CreateThumbnailTask(String convertPath, ThumbnailStrategies thumbnailStrategies, ThumbnailCache thumbnailCache, Collection<ImageModel> imageModels, Callback callback) {
 		this.convertPath = convertPath;
-		this.imageModel = imageModel;
+		this.thumbnailStrategies = thumbnailStrategies;
+		this.thumbnailCache = thumbnailCache;
+		this.imageModels = new ArrayList<>(imageModels);
 		this.callback = callback;
 	}
 
@@ -75,77 +117,53 @@ public class CreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 	 */
 	@Override
 	protected Void call() throws Exception {
-		lockImageModel(imageModel);
-		File imageFile = imageModel.getImage();
-		File thumbnailFile = getThumbnailFile(imageFile);
+		List<ImageModel> sortedImageModels = lockImageModels(imageModels);
+		Map<ImageModel, File> tempFiles = new LinkedHashMap<>();
 
 		try {
-			if (!(thumbnailFile.exists() && thumbnailFile.isFile() && thumbnailFile.canRead() && thumbnailFile.lastModified() >= imageFile.lastModified())) {
-				if (thumbnailFile.exists()) {
-					// thumb exists but seems to be too old
-					thumbnailFile.delete();
-				}
-
-				String filename = imageFile.getAbsolutePath();
-				if (imageModel.getDuration() != null && imageModel.getDuration() > 0 && imageModel.getVideoFrameRate() != null && imageModel.getVideoFrameRate() > 0) {
-					// this seems to be a video, use frame in the middle of video
-					int totalFrames = (int) (imageModel.getDuration() * imageModel.getVideoFrameRate());
-					filename += "[" + (totalFrames >> 1) + "]";
+			for (ImageModel imageModel : new ArrayList<>(sortedImageModels)) {
+				File thumbnailFile = thumbnailCache.get(imageModel.getImage());
+				if (thumbnailFile != null) {
+					saveThumbnail(sortedImageModels, imageModel, thumbnailFile);
+				} else {
+					// write to temporary file so the cache never contains incomplete thumbnails
+					tempFiles.put(imageModel, thumbnailCache.createTempFile(imageModel.getImage()));
 				}
+			}
 
-				// call convert
-				String convert = getProcessName();
-				ProcessBuilder processBuilder = new ProcessBuilder(
-						convert,
-						filename,
-						"-background", "white",
-						"-flatten",
-						"-thumbnail", RESIZE_DIMENSIONS_PARAM,
-						"-quality", "60%",
-						"jpg:" + thumbnailFile.getAbsolutePath()
-				);
-				Process process = startProcess(processBuilder);
-				int returnValue = waitForProcess(process);
-
-				if (returnValue != 0) {
-					return null;
-				}
+			if (tempFiles.isEmpty()) {
+				return null;
 			}
 
-			if (callback == null) {
-				Platform.runLater(() -> {
-					imageModel.setThumbnail(thumbnailFile);
-				});
-			} else {
-				callback.handleThumbnailFile(thumbnailFile);
+			Set<ImageModel> createdThumbnails = thumbnailStrategies.createThumbnails(tempFiles, (processBuilder, reportErrors) -> waitForProcess(startProcess(processBuilder), reportErrors));
+			for (ImageModel imageModel : createdThumbnails) {
+				File thumbnailFile = thumbnailCache.put(imageModel.getImage(), tempFiles.remove(imageModel));
+				saveThumbnail(sortedImageModels, imageModel, thumbnailFile);
 			}
 
 		} finally {
-			releaseImageModel(imageModel);
+			tempFiles.values().forEach(File::delete);
+			sortedImageModels.forEach(this::releaseImageModel);
 		}
 
 		return null;
-
 	}
 
 	/**
-	 * Returns the file for the thumbnail image.
+	 * Saves the thumbnail file to the given target image model.
 	 *
-	 * @param imageFile
-	 * 		raw image file
-	 * @return file for thumbnail
+	 * @param imageModels
+	 * 		list of image models to remove image model from
+	 * @param targetImageModel
+	 * 		image model to save data to
+	 * @param thumbnailFile
+	 * 		thumbnail file
 	 */
-	private File getThumbnailFile(File imageFile) {
-		File parent = imageFile.getParentFile();
-		String baseName = FilenameUtils.getBaseName(imageFile.getName());
+	private void saveThumbnail(List<ImageModel> imageModels, ImageModel targetImageModel, File thumbnailFile) {
+		callback.handleThumbnailFile(targetImageModel, thumbnailFile);
 
-		StringBuilder thumbname = new StringBuilder();
-		if (!StringUtils.startsWith(baseName, ".")) {
-			thumbname.append(".");
-		}
-		thumbname.append(baseName);
-		thumbname.append(".thumb");
-		return new File(parent, thumbname.toString());
+		releaseImageModel(targetImageModel);
+		imageModels.remove(targetImageModel);
 	}
 
 	/**
@@ -168,10 +186,12 @@ public class CreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 		/**
 		 * Saves the thumbnail file.
 		 *
+		 * @param targetImageModel
+		 * 		image model to save data to
 		 * @param thumbnailFile
 		 * 		created thumbnail file
 		 */
-		void handleThumbnailFile(File thumbnailFile);
+		void handleThumbnailFile(ImageModel targetImageModel, File thumbnailFile);
 	}
 
 }
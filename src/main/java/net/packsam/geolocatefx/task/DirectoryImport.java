@@ -0,0 +1,372 @@
+package net.packsam.geolocatefx.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Import of directory trees. Every directory is listed by an own fork/join task, so large trees are walked in parallel. The discovered files are handed over in bounded batches
+ * while the walk is still running, at most a few batches may wait for being applied before the walk pauses.
+ *
+ * <p>
+ * Files and directories whose name matches one of the exclude patterns are skipped, files are only imported if they match the include filter. Symbolic links to directories
+ * are not followed.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class DirectoryImport {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(DirectoryImport.class.getName());
+
+	/**
+	 * Maximum number of batches waiting for being applied.
+	 */
+	private final static int MAX_PENDING_BATCHES = 4;
+
+	/**
+	 * Pool for walking the directories.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Filter for the files to import.
+	 */
+	private final Predicate<File> includeFilter;
+
+	/**
+	 * Matchers for the names of skipped files and directories.
+	 */
+	private final List<PathMatcher> excludeMatchers;
+
+	/**
+	 * Maximum number of files per batch.
+	 */
+	private final int batchSize;
+
+	/**
+	 * Handler for the discovered files.
+	 */
+	private final BatchHandler batchHandler;
+
+	/**
+	 * Permits for batches waiting for being applied.
+	 */
+	private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+	/**
+	 * Files discovered but not handed over yet.
+	 */
+	private List<File> currentBatch = new ArrayList<>();
+
+	/**
+	 * Number of discovered files.
+	 */
+	private final AtomicLong fileCount = new AtomicLong();
+
+	/**
+	 * Number of listed directories.
+	 */
+	private final AtomicLong directoryCount = new AtomicLong();
+
+	/**
+	 * Number of files dropped because the walk got interrupted while handing them over.
+	 */
+	private final AtomicLong droppedFileCount = new AtomicLong();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param pool
+	 * 		pool for walking the directories
+	 * @param includeFilter
+	 * 		filter for the files to import
+	 * @param excludePatterns
+	 * 		comma separated glob patterns for the names of skipped files and directories, may be <code>null</code>
+	 * @param batchSize
+	 * 		maximum number of files per batch
+	 * @param batchHandler
+	 * 		handler for the discovered files
+	 */
+	public DirectoryImport(ForkJoinPool pool, Predicate<File> includeFilter, String excludePatterns, int batchSize, BatchHandler batchHandler) {
+		this.pool = pool;
+		this.includeFilter = includeFilter;
+		this.excludeMatchers = parseExcludePatterns(excludePatterns);
+		this.batchSize = Math.max(1, batchSize);
+		this.batchHandler = batchHandler;
+	}
+
+	/**
+	 * Creates the matchers for the given exclude patterns.
+	 *
+	 * @param excludePatterns
+	 * 		comma separated glob patterns, may be <code>null</code>
+	 * @return matchers
+	 */
+	private static List<PathMatcher> parseExcludePatterns(String excludePatterns) {
+		List<PathMatcher> matchers = new ArrayList<>();
+		for (String pattern : StringUtils.split(StringUtils.defaultString(excludePatterns), ',')) {
+			if (StringUtils.isNotBlank(pattern)) {
+				matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.trim()));
+			}
+		}
+		return matchers;
+	}
+
+	/**
+	 * Starts walking the given directories in background.
+	 *
+	 * @param directories
+	 * 		root directories
+	 */
+	public void start(Collection<File> directories) {
+		pool.execute(createWalk(directories));
+	}
+
+	/**
+	 * Walks the given directories and waits until all files have been handed over.
+	 *
+	 * @param directories
+	 * 		root directories
+	 */
+	public void walk(Collection<File> directories) {
+		pool.invoke(createWalk(directories));
+	}
+
+	/**
+	 * Creates the task walking the given directories.
+	 *
+	 * @param directories
+	 * 		root directories
+	 * @return task
+	 */
+	private RecursiveAction createWalk(Collection<File> directories) {
+		return new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(directories.stream()
+						.map(directory -> new ScanDirectory(directory.toPath()))
+						.collect(Collectors.toList()));
+				flush();
+				LOG.info(getStatistics());
+			}
+		};
+	}
+
+	/**
+	 * Adds a discovered file to the current batch and hands the batch over if it is full.
+	 *
+	 * @param file
+	 * 		discovered file
+	 */
+	private void addFile(File file) {
+		fileCount.incrementAndGet();
+		List<File> fullBatch = null;
+		synchronized (this) {
+			currentBatch.add(file);
+			if (currentBatch.size() >= batchSize) {
+				fullBatch = currentBatch;
+				currentBatch = new ArrayList<>();
+			}
+		}
+		if (fullBatch != null) {
+			handOver(fullBatch);
+		}
+	}
+
+	/**
+	 * Hands over the remaining files.
+	 */
+	private void flush() {
+		List<File> batch;
+		synchronized (this) {
+			batch = currentBatch;
+			currentBatch = new ArrayList<>();
+		}
+		if (!batch.isEmpty()) {
+			handOver(batch);
+		}
+	}
+
+	/**
+	 * Hands over the given batch, waits while too many batches have not been applied yet. The wait is managed by the pool, so it may start a compensating thread and
+	 * the walk does not starve while the workers are blocked.
+	 *
+	 * @param batch
+	 * 		batch of files
+	 */
+	private void handOver(List<File> batch) {
+		try {
+			ForkJoinPool.managedBlock(new PermitBlocker());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			droppedFileCount.addAndGet(batch.size());
+			LOG.warning("Directory import interrupted, dropped " + batch.size() + " files");
+			return;
+		}
+		batchHandler.handle(batch, pendingBatches::release);
+	}
+
+	/**
+	 * Checks if the given file or directory is skipped.
+	 *
+	 * @param path
+	 * 		path
+	 * @return <code>true</code> if the name matches an exclude pattern
+	 */
+	private boolean isExcluded(Path path) {
+		Path name = path.getFileName();
+		if (name == null) {
+			return false;
+		}
+		for (PathMatcher matcher : excludeMatchers) {
+			if (matcher.matches(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a summary of the walked directories.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return String.format(
+				"directory import: %d files in %d directories, %d dropped",
+				fileCount.get(),
+				directoryCount.get(),
+				droppedFileCount.get()
+		);
+	}
+
+	/**
+	 * Blocker acquiring a permit for a pending batch.
+	 *
+	 * @author osterrath
+	 */
+	private class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+		/**
+		 * Flag if the permit has been acquired.
+		 */
+		private boolean acquired;
+
+		/**
+		 * Acquires the permit, waits if necessary.
+		 *
+		 * @return <code>true</code>
+		 * @throws InterruptedException
+		 * 		thread got interrupted while waiting
+		 */
+		@Override
+		public boolean block() throws InterruptedException {
+			if (!acquired) {
+				pendingBatches.acquire();
+				acquired = true;
+			}
+			return true;
+		}
+
+		/**
+		 * Acquires the permit if it is available without waiting.
+		 *
+		 * @return <code>true</code> if the permit has been acquired
+		 */
+		@Override
+		public boolean isReleasable() {
+			if (!acquired) {
+				acquired = pendingBatches.tryAcquire();
+			}
+			return acquired;
+		}
+	}
+
+	/**
+	 * Handler for batches of discovered files.
+	 *
+	 * @author osterrath
+	 */
+	@FunctionalInterface
+	public interface BatchHandler {
+		/**
+		 * Handles a batch of discovered files. Called from the walking threads.
+		 *
+		 * @param files
+		 * 		discovered files
+		 * @param applied
+		 * 		must be run when the files have been applied, so the walk can go on
+		 */
+		void handle(List<File> files, Runnable applied);
+	}
+
+	/**
+	 * Task listing a single directory, forks a new task for every sub directory.
+	 *
+	 * @author osterrath
+	 */
+	private class ScanDirectory extends RecursiveAction {
+		/**
+		 * Directory to list.
+		 */
+		private final Path directory;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param directory
+		 * 		directory to list
+		 */
+		private ScanDirectory(Path directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		protected void compute() {
+			directoryCount.incrementAndGet();
+			List<ScanDirectory> subTasks = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+				for (Path path : stream) {
+					if (Thread.currentThread().isInterrupted()) {
+						// pool has been shut down
+						return;
+					}
+					if (isExcluded(path)) {
+						continue;
+					}
+					if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+						subTasks.add(new ScanDirectory(path));
+					} else {
+						File file = path.toFile();
+						if (includeFilter.test(file)) {
+							addFile(file);
+						}
+					}
+				}
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "Could not list directory " + directory, e);
+			}
+			invokeAll(subTasks);
+		}
+	}
+}
@@ -1,10 +1,15 @@
 package net.packsam.geolocatefx.task;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 
 import javafx.concurrent.Task;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
 
 /**
  * Class for tasks that execute external processes.
@@ -19,6 +24,16 @@ public abstract class ExternalProcessTask<V> extends Task<V> {
 	 */
 	private ErrorHandler errorHandler;
 
+	/**
+	 * Optional handler when the task has finished or has been cancelled.
+	 */
+	private Runnable doneHandler;
+
+	/**
+	 * Processes started by this task that did not exit yet.
+	 */
+	private final Set<Process> runningProcesses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
 	/**
 	 * Starts the process created by the given process builder.
 	 *
@@ -38,6 +53,13 @@ public abstract class ExternalProcessTask<V> extends Task<V> {
 			}
 			throw e;
 		}
+
+		runningProcesses.add(process);
+		if (isCancelled()) {
+			// cancelled while starting
+			runningProcesses.remove(process);
+			process.destroyForcibly();
+		}
 		return process;
 	}
 
@@ -53,9 +75,34 @@ public abstract class ExternalProcessTask<V> extends Task<V> {
 	 * 		could not read STDERR
 	 */
 	int waitForProcess(Process process) throws InterruptedException, IOException {
-		int exitCode = process.waitFor();
+		return waitForProcess(process, true);
+	}
+
+	/**
+	 * Waits for the given process to exit and handles the exit code and STDERR.
+	 *
+	 * @param process
+	 * 		process to wait for
+	 * @param reportErrors
+	 * 		<code>true</code> if a non-zero exit code should be reported to the error handler
+	 * @return exit code of process
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for process end
+	 * @throws IOException
+	 * 		could not read STDERR
+	 */
+	int waitForProcess(Process process, boolean reportErrors) throws InterruptedException, IOException {
+		int exitCode;
+		try {
+			exitCode = process.waitFor();
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			throw e;
+		} finally {
+			runningProcesses.remove(process);
+		}
 
-		if (exitCode != 0) {
+		if (exitCode != 0 && reportErrors && !isCancelled()) {
 			if (errorHandler != null) {
 				String error = IOUtils.toString(process.getErrorStream(), "UTF-8");
 				errorHandler.handleError(getProcessName(), exitCode, error, null);
@@ -65,6 +112,78 @@ public abstract class ExternalProcessTask<V> extends Task<V> {
 		return exitCode;
 	}
 
+	/**
+	 * Executes exiftool in the given pool and handles the error output.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param arguments
+	 * 		exiftool arguments
+	 * @param lineHandler
+	 * 		optional handler for the output lines
+	 * @return <code>true</code> if exiftool did not report any errors
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for exiftool
+	 * @throws IOException
+	 * 		exiftool could not be started
+	 */
+	boolean executeExiftool(ExiftoolPool exiftoolPool, List<String> arguments, ExiftoolPool.LineHandler lineHandler) throws InterruptedException, IOException {
+		String error;
+		try {
+			error = exiftoolPool.execute(arguments, lineHandler, getExiftoolPriority());
+		} catch (IOException e) {
+			if (errorHandler != null) {
+				errorHandler.handleError(getProcessName(), -1, null, e);
+			}
+			throw e;
+		}
+
+		if (error != null) {
+			if (errorHandler != null) {
+				errorHandler.handleError(getProcessName(), 1, error, null);
+			}
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the priority of the exiftool requests of this task.
+	 *
+	 * @return priority, background by default
+	 */
+	ExiftoolPool.Priority getExiftoolPriority() {
+		return ExiftoolPool.Priority.BACKGROUND;
+	}
+
+	/**
+	 * Cancels the task and kills all external processes it started.
+	 *
+	 * @param mayInterruptIfRunning
+	 * 		flag if the running task should be interrupted
+	 * @return <code>false</code> if the task could not be cancelled, typically because it has already completed
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if (cancelled && mayInterruptIfRunning) {
+			runningProcesses.forEach(Process::destroyForcibly);
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Calls the done handler after the task has finished or has been cancelled.
+	 */
+	@Override
+	protected void done() {
+		super.done();
+		if (doneHandler != null) {
+			doneHandler.run();
+		}
+	}
+
 	/**
 	 * Returns the process name that is being executed.
 	 *
@@ -91,6 +210,25 @@ public abstract class ExternalProcessTask<V> extends Task<V> {
 		this.errorHandler = errorHandler;
 	}
 
+	/**
+	 * Returns the doneHandler.
+	 *
+	 * @return doneHandler
+	 */
+	public Runnable getDoneHandler() {
+		return doneHandler;
+	}
+
+	/**
+	 * Sets the doneHandler.
+	 *
+	 * @param doneHandler
+	 * 		new value for doneHandler
+	 */
+	public void setDoneHandler(Runnable doneHandler) {
+		this.doneHandler = doneHandler;
+	}
+
 	/**
 	 * Functional interface for the error handler of a task.
 	 *
@@ -0,0 +1,340 @@
+package net.packsam.geolocatefx.task;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import net.packsam.geolocatefx.model.ImageIndex;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Watcher for changes of loaded images on disk. The parent directories of all images in the list are registered at a watch service, a directory is unregistered when its last
+ * image has been removed. Events are debounced per file, a file is reported once no further event has arrived for the configured delay. Images that are in progress are
+ * reported after their task has released them, so writes of the application itself are not reported while they are still running.
+ *
+ * <p>
+ * Only files that are part of the list are reported. If the watch service has lost events of a directory, all images of this directory are reported, the handler has to check
+ * which of them have really been changed.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class ImageWatcher {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ImageWatcher.class.getName());
+
+	/**
+	 * Index for finding the images of changed files.
+	 */
+	private final ImageIndex imageIndex;
+
+	/**
+	 * Delay in ms without further events before a changed file is reported.
+	 */
+	private final long delay;
+
+	/**
+	 * Handler for changed images, called on the watching thread.
+	 */
+	private final Consumer<List<ImageModel>> changeHandler;
+
+	/**
+	 * Watch service.
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * Thread polling the watch service.
+	 */
+	private final Thread thread;
+
+	/**
+	 * Watched files by directory.
+	 */
+	private final Map<Path, Set<Path>> watchedFiles = new HashMap<>();
+
+	/**
+	 * Watch keys by directory.
+	 */
+	private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+
+	/**
+	 * Changed files by time in ns when they will be reported, only used by the watching thread.
+	 */
+	private final Map<Path, Long> pendingFiles = new LinkedHashMap<>();
+
+	/**
+	 * Number of received events.
+	 */
+	private long eventCount;
+
+	/**
+	 * Number of reported files.
+	 */
+	private long reportedCount;
+
+	/**
+	 * Number of lost event notifications.
+	 */
+	private long overflowCount;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param imageList
+	 * 		list of images to watch
+	 * @param imageIndex
+	 * 		index of the image list
+	 * @param delay
+	 * 		delay in ms without further events before a changed file is reported
+	 * @param threadFactory
+	 * 		factory for the watching thread
+	 * @param changeHandler
+	 * 		handler for changed images, called on the watching thread
+	 * @throws IOException
+	 * 		watch service could not be created
+	 */
+	public ImageWatcher(ObservableList<ImageModel> imageList, ImageIndex imageIndex, long delay, ThreadFactory threadFactory, Consumer<List<ImageModel>> changeHandler) throws IOException {
+		this.imageIndex = imageIndex;
+		this.delay = delay;
+		this.changeHandler = changeHandler;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.thread = threadFactory.newThread(this::run);
+
+		imageList.forEach(this::watch);
+		imageList.addListener(this::imageListChanged);
+	}
+
+	/**
+	 * Starts watching in background.
+	 */
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Stops watching and releases the watch service.
+	 */
+	public void close() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			LOG.log(Level.WARNING, "Could not close watch service", e);
+		}
+	}
+
+	/**
+	 * Event handler when the image list has been changed.
+	 *
+	 * @param change
+	 * 		list change
+	 */
+	private void imageListChanged(ListChangeListener.Change<? extends ImageModel> change) {
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				continue;
+			}
+			change.getRemoved().forEach(this::unwatch);
+			change.getAddedSubList().forEach(this::watch);
+		}
+	}
+
+	/**
+	 * Watches the directory of the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private synchronized void watch(ImageModel imageModel) {
+		Path file = ImageIndex.getKey(imageModel.getImage());
+		Path directory = file != null ? file.getParent() : null;
+		if (directory == null) {
+			return;
+		}
+
+		Set<Path> files = watchedFiles.get(directory);
+		if (files == null) {
+			try {
+				watchKeys.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+			} catch (IOException | ClosedWatchServiceException e) {
+				LOG.log(Level.WARNING, "Could not watch directory " + directory, e);
+			}
+			files = new HashSet<>();
+			watchedFiles.put(directory, files);
+		}
+		files.add(file);
+	}
+
+	/**
+	 * Stops watching the given image, the directory is unregistered if no other image is left in it.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 */
+	private synchronized void unwatch(ImageModel imageModel) {
+		Path file = ImageIndex.getKey(imageModel.getImage());
+		Path directory = file != null ? file.getParent() : null;
+		Set<Path> files = directory != null ? watchedFiles.get(directory) : null;
+		if (files == null) {
+			return;
+		}
+
+		files.remove(file);
+		if (files.isEmpty()) {
+			watchedFiles.remove(directory);
+			WatchKey watchKey = watchKeys.remove(directory);
+			if (watchKey != null) {
+				watchKey.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Polls the watch service until it is closed.
+	 */
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey watchKey = pendingFiles.isEmpty() ? watchService.take() : watchService.poll(getWaitTime(), TimeUnit.NANOSECONDS);
+				if (watchKey != null) {
+					handleEvents(watchKey);
+				}
+				reportChangedFiles();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// watcher has been closed
+		}
+	}
+
+	/**
+	 * Handles all events of the given key and resets the key.
+	 *
+	 * @param watchKey
+	 * 		signalled watch key
+	 */
+	private void handleEvents(WatchKey watchKey) {
+		Path directory = (Path) watchKey.watchable();
+		long reportTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		for (WatchEvent<?> event : watchKey.pollEvents()) {
+			List<Path> files = new ArrayList<>();
+			synchronized (this) {
+				eventCount++;
+				Set<Path> directoryFiles = watchedFiles.get(directory);
+				if (directoryFiles == null) {
+					continue;
+				}
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					// events have been lost, all images of the directory may have been changed
+					overflowCount++;
+					files.addAll(directoryFiles);
+				} else {
+					Path file = directory.resolve((Path) event.context());
+					if (directoryFiles.contains(file)) {
+						files.add(file);
+					}
+				}
+			}
+			for (Path file : files) {
+				// restart the delay, the file is still being written
+				pendingFiles.remove(file);
+				pendingFiles.put(file, reportTime);
+			}
+		}
+		watchKey.reset();
+	}
+
+	/**
+	 * Returns the time until the next changed file is reported.
+	 *
+	 * @return time in ns
+	 */
+	private long getWaitTime() {
+		long now = System.nanoTime();
+		long nextReportTime = pendingFiles.values().iterator().next();
+		return Math.max(0, nextReportTime - now);
+	}
+
+	/**
+	 * Reports all changed files whose delay has passed. Images that are in progress are delayed again.
+	 */
+	private void reportChangedFiles() {
+		long now = System.nanoTime();
+		List<ImageModel> changedImages = new ArrayList<>();
+		List<Path> busyFiles = new ArrayList<>();
+		for (Iterator<Map.Entry<Path, Long>> iterator = pendingFiles.entrySet().iterator(); iterator.hasNext(); ) {
+			Map.Entry<Path, Long> entry = iterator.next();
+			if (entry.getValue() - now > 0) {
+				// entries are ordered by report time
+				break;
+			}
+			iterator.remove();
+
+			ImageModel imageModel = imageIndex.get(entry.getKey().toFile());
+			if (imageModel == null) {
+				// image has been removed in the meantime
+				continue;
+			}
+			if (imageModel.isFileInProgress()) {
+				busyFiles.add(entry.getKey());
+			} else {
+				changedImages.add(imageModel);
+			}
+		}
+
+		long reportTime = now + TimeUnit.MILLISECONDS.toNanos(delay);
+		busyFiles.forEach(file -> pendingFiles.put(file, reportTime));
+
+		if (!changedImages.isEmpty()) {
+			synchronized (this) {
+				reportedCount += changedImages.size();
+			}
+			changeHandler.accept(changedImages);
+		}
+	}
+
+	/**
+	 * Returns a summary of the watched directories and reported files.
+	 *
+	 * @return statistics
+	 */
+	public synchronized String getStatistics() {
+		return String.format(
+				"image watcher: %d directories, %d events, %d overflows, %d reported files",
+				watchKeys.size(),
+				eventCount,
+				overflowCount,
+				reportedCount
+		);
+	}
+
+	/**
+	 * Logs a summary of the watched directories and reported files.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+}
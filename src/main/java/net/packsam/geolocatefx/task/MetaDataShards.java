@@ -0,0 +1,85 @@
+package net.packsam.geolocatefx.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Splits a list of images into shards for reading the meta data in parallel. The shard size adapts to the number of files and their total size, so large drops are
+ * spread over all threads while small drops are not split into many tiny exiftool requests.
+ *
+ * @author osterrath
+ */
+public class MetaDataShards {
+	/**
+	 * Number of shards per thread, more shards balance the load better when some files are slower than others.
+	 */
+	private final static int SHARDS_PER_THREAD = 4;
+
+	/**
+	 * Minimum number of files per shard.
+	 */
+	private final static int MIN_FILES_PER_SHARD = 8;
+
+	/**
+	 * Maximum number of files per shard.
+	 */
+	private final static int MAX_FILES_PER_SHARD = 256;
+
+	/**
+	 * Minimum number of bytes per shard.
+	 */
+	private final static long MIN_BYTES_PER_SHARD = 64L * 1024 * 1024;
+
+	/**
+	 * Private ctor.
+	 */
+	private MetaDataShards() {
+	}
+
+	/**
+	 * Splits the given image models into shards. The sizes of all files are read from the file system, so it must not be called on the FX thread.
+	 *
+	 * @param imageModels
+	 * 		image models to split
+	 * @param parallelism
+	 * 		number of threads that will read the shards
+	 * @return list of shards
+	 */
+	public static List<List<ImageModel>> split(List<ImageModel> imageModels, int parallelism) {
+		List<List<ImageModel>> shards = new ArrayList<>();
+		if (imageModels.isEmpty()) {
+			return shards;
+		}
+
+		long[] fileSizes = new long[imageModels.size()];
+		long totalBytes = 0;
+		for (int i = 0; i < fileSizes.length; i++) {
+			fileSizes[i] = imageModels.get(i).getImage().length();
+			totalBytes += fileSizes[i];
+		}
+
+		int targetShardCount = Math.max(1, parallelism) * SHARDS_PER_THREAD;
+		int filesPerShard = (imageModels.size() + targetShardCount - 1) / targetShardCount;
+		filesPerShard = Math.max(MIN_FILES_PER_SHARD, Math.min(MAX_FILES_PER_SHARD, filesPerShard));
+		long bytesPerShard = Math.max(MIN_BYTES_PER_SHARD, totalBytes / targetShardCount);
+
+		List<ImageModel> shard = new ArrayList<>();
+		long shardBytes = 0;
+		for (int i = 0; i < fileSizes.length; i++) {
+			shard.add(imageModels.get(i));
+			shardBytes += fileSizes[i];
+			if (shard.size() >= filesPerShard || shardBytes >= bytesPerShard) {
+				shards.add(shard);
+				shard = new ArrayList<>();
+				shardBytes = 0;
+			}
+		}
+		if (!shard.isEmpty()) {
+			shards.add(shard);
+		}
+
+		return shards;
+	}
+}
@@ -2,8 +2,12 @@ package net.packsam.geolocatefx.task;
 
 import java.util.Collections;
 
-import javafx.application.Platform;
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.cache.ThumbnailCache;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageModelUpdates;
+import net.packsam.geolocatefx.thumbnail.ThumbnailStrategies;
 
 /**
  * Task that combines {@link ReadMetaDataTask} and {@link CreateThumbnailTask} into a single thread.
@@ -12,34 +16,66 @@ import net.packsam.geolocatefx.model.ImageModel;
  */
 public class ReadMetaDataAndCreateThumbnailTask extends SynchronizedImageModelTask<Void> {
 	/**
-	 * Path to exiftool.
+	 * Pool of exiftool processes.
 	 */
-	private final String exiftoolPath;
+	private final ExiftoolPool exiftoolPool;
+
+	/**
+	 * Persistent meta data cache.
+	 */
+	private final MetaDataCache metaDataCache;
 
 	/**
 	 * Path to Image Magick convert.
 	 */
 	private final String convertPath;
 
+	/**
+	 * Strategies for creating thumbnails by file type.
+	 */
+	private final ThumbnailStrategies thumbnailStrategies;
+
+	/**
+	 * Central thumbnail store.
+	 */
+	private final ThumbnailCache thumbnailCache;
+
 	/**
 	 * Target image model.
 	 */
 	private final ImageModel imageModel;
 
+	/**
+	 * Pump for applying the read data to the target image model.
+	 */
+	private final ImageModelUpdates modelUpdates;
+
 	/**
 	 * Ctor.
 	 *
-	 * @param exiftoolPath
-	 * 		path to exiftool
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
 	 * @param convertPath
 	 * 		path to Image Magick convert
+	 * @param thumbnailStrategies
+	 * 		strategies for creating thumbnails by file type
+	 * @param thumbnailCache
+	 * 		central thumbnail store
 	 * @param imageModel
 	 * 		target image model
+	 * @param modelUpdates
+	 * 		pump for applying the read data to the target image model
 	 */
-	public ReadMetaDataAndCreateThumbnailTask(String exiftoolPath, String convertPath, ImageModel imageModel) {
-		this.exiftoolPath = exiftoolPath;
+	public ReadMetaDataAndCreateThumbnailTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, String convertPath, ThumbnailStrategies thumbnailStrategies, ThumbnailCache thumbnailCache, ImageModel imageModel, ImageModelUpdates modelUpdates) {
+		this.exiftoolPool = exiftoolPool;
+		this.metaDataCache = metaDataCache;
 		this.convertPath = convertPath;
+		this.thumbnailStrategies = thumbnailStrategies;
+		this.thumbnailCache = thumbnailCache;
 		this.imageModel = imageModel;
+		this.modelUpdates = modelUpdates;
 	}
 
 	/**
@@ -55,35 +91,28 @@ public class ReadMetaDataAndCreateThumbnailTask extends SynchronizedImageModelTa
 	protected Void call() throws Exception {
 		lockImageModel(imageModel);
 
-		// create cloned image model
-		ImageModel dummy = new ImageModel();
-		dummy.setImage(this.imageModel.getImage());
-
-		// read meta data
-		ReadMetaDataTask task1 = new ReadMetaDataTask(exiftoolPath, Collections.singletonList(dummy), (im, geolocation, creationDate, duration, videoFrameRate) -> {
-			dummy.setGeolocation(geolocation);
-			dummy.setCreationDate(creationDate);
-			dummy.setDuration(duration);
-			dummy.setVideoFrameRate(videoFrameRate);
-		});
-		task1.setErrorHandler(getErrorHandler());
-		task1.call();
-
-		// create thumbnail
-		CreateThumbnailTask task2 = new CreateThumbnailTask(convertPath, dummy, dummy::setThumbnail);
-		task2.setErrorHandler(getErrorHandler());
-		task2.call();
+		try {
+			// create cloned image model
+			ImageModel dummy = new ImageModel();
+			dummy.setImage(this.imageModel.getImage());
 
-		// copy all data to original image model
-		Platform.runLater(() -> {
-			imageModel.setGeolocation(dummy.getGeolocation());
-			imageModel.setCreationDate(dummy.getCreationDate());
-			imageModel.setDuration(dummy.getDuration());
-			imageModel.setVideoFrameRate(dummy.getVideoFrameRate());
-			imageModel.setThumbnail(dummy.getThumbnail());
-		});
+			// read meta data, the data of both steps is applied to the original image model and merged if it arrives within the same pulse
+			ReadMetaDataTask task1 = new ReadMetaDataTask(exiftoolPool, metaDataCache, Collections.singletonList(dummy), (im, geolocation, creationDate, duration, videoFrameRate) -> {
+				modelUpdates.setMetaData(imageModel, geolocation, creationDate, duration, videoFrameRate);
+			});
+			task1.setErrorHandler(getErrorHandler());
+			task1.call();
+			if (isCancelled()) {
+				return null;
+			}
 
-		releaseImageModel(imageModel);
+			// create thumbnail, convert gets killed when cancelling interrupts this thread
+			CreateThumbnailTask task2 = new CreateThumbnailTask(convertPath, thumbnailStrategies, thumbnailCache, Collections.singletonList(dummy), (im, thumbnailFile) -> modelUpdates.setThumbnail(imageModel, thumbnailFile));
+			task2.setErrorHandler(getErrorHandler());
+			task2.call();
+		} finally {
+			releaseImageModel(imageModel);
+		}
 		return null;
 	}
 
@@ -1,14 +1,13 @@
 package net.packsam.geolocatefx.task;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -16,15 +15,16 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.StringUtils;
-
-import javafx.application.Platform;
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.exif.ExifMetaData;
+import net.packsam.geolocatefx.exif.ExifReader;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageModelUpdates;
 import net.packsam.geolocatefx.model.LatLong;
 
 /**
@@ -33,66 +33,87 @@ import net.packsam.geolocatefx.model.LatLong;
  * @author osterrath
  */
 public class ReadMetaDataTask extends SynchronizedImageModelTask<Void> {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ReadMetaDataTask.class.getName());
 
 	/**
-	 * Pattern for the current file.
+	 * Tags to read in table mode, one column per tag. The file path columns are the last ones as only they may contain tabs.
 	 */
-	private final static Pattern CURRENT_FILE_PATTERN = Pattern.compile("^========\\s+(.+)$");
+	private final static List<String> TAGS = Arrays.asList(
+			"-Composite:GPSLatitude",
+			"-Composite:GPSLongitude",
+			"-DateTimeOriginal",
+			"-CreateDate",
+			"-Duration",
+			"-VideoFrameRate",
+			"-Directory",
+			"-FileName"
+	);
 
 	/**
-	 * Pattern for searching latitude.
+	 * Column of the signed numeric latitude.
 	 */
-	private final static Pattern LATITUDE_PATTERN = Pattern.compile("^GPSLatitude:\\s+(.+)$");
+	private final static int COLUMN_LATITUDE = 0;
 
 	/**
-	 * Pattern for searching longitude.
+	 * Column of the signed numeric longitude.
 	 */
-	private final static Pattern LONGITUDE_PATTERN = Pattern.compile("^GPSLongitude:\\s+(.+)$");
+	private final static int COLUMN_LONGITUDE = 1;
 
 	/**
-	 * Pattern for searching the original creation date.
+	 * Column of the original creation date.
 	 */
-	private final static Pattern CREATION_DATE_ORIGINAL_PATTERN = Pattern.compile("^DateTimeOriginal:\\s+(.+)$");
+	private final static int COLUMN_CREATION_DATE_ORIGINAL = 2;
 
 	/**
-	 * Pattern for searching the creation date.
+	 * Column of the creation date.
 	 */
-	private final static Pattern CREATION_DATE_PATTERN = Pattern.compile("^CreateDate:\\s+(.+)$");
+	private final static int COLUMN_CREATION_DATE = 3;
 
 	/**
-	 * Pattern for searching the video duration.
+	 * Column of the video duration in seconds.
 	 */
-	private final static Pattern DURATION_PATTERN_1 = Pattern.compile("^Duration:\\s+(.+) s$");
+	private final static int COLUMN_DURATION = 4;
 
 	/**
-	 * Pattern for searching the video duration.
+	 * Column of the video frame rate.
 	 */
-	private final static Pattern DURATION_PATTERN_2 = Pattern.compile("^Duration:\\s+(.+)$");
+	private final static int COLUMN_VIDEO_FRAME_RATE = 5;
 
 	/**
-	 * Pattern for searching the video frame rate.
+	 * Column of the directory, followed by the file name column.
 	 */
-	private final static Pattern VIDEO_FRAME_RATE_PATTERN = Pattern.compile("^VideoFrameRate:\\s+(.+)$");
+	private final static int COLUMN_DIRECTORY = 6;
 
 	/**
-	 * Pattern for parsing degrees.
+	 * Maximum number of significant digits that can be parsed exactly.
 	 */
-	private final static Pattern DEGREES_PATTERN = Pattern.compile("^(\\d+)\\s+deg\\s+(\\d+)'\\s+(\\d+\\.\\d+)\"\\s+(.)");
+	private final static int MAX_SIGNIFICANT_DIGITS = 15;
 
 	/**
-	 * Date format for parsing date time.
+	 * Powers of ten that are exactly representable as double.
 	 */
-	private final static DateFormat DF = new SimpleDateFormat("yyyy:MM:dd HH:mm:ss");
+	private final static double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
 
 	/**
-	 * Pattern for parsing a time.
+	 * Reader for the EXIF data of JPEG and TIFF based files.
 	 */
-	private final static Pattern TIME_PATTERN = Pattern.compile("^(\\d+):(\\d+):(\\d+(\\.\\d+)?)");
+	private final static ExifReader EXIF_READER = new ExifReader();
 
 	/**
-	 * Path to exiftool.
+	 * Pool of exiftool processes.
 	 */
-	private final String exiftoolPath;
+	private final ExiftoolPool exiftoolPool;
+
+	/**
+	 * Persistent meta data cache.
+	 */
+	private final MetaDataCache metaDataCache;
 
 	/**
 	 * Target image model.
@@ -107,27 +128,34 @@ public class ReadMetaDataTask extends SynchronizedImageModelTask<Void> {
 	/**
 	 * Ctor.
 	 *
-	 * @param exiftoolPath
-	 * 		path to exiftool
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
 	 * @param imageModels
 	 * 		target image models
+	 * @param modelUpdates
+	 * 		pump for applying the meta data to the image models
 	 */
-	public ReadMetaDataTask(String exiftoolPath, Collection<ImageModel> imageModels) {
-		this(exiftoolPath, imageModels, null);
+	public ReadMetaDataTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, Collection<ImageModel> imageModels, ImageModelUpdates modelUpdates) {
+		this(exiftoolPool, metaDataCache, imageModels, modelUpdates::setMetaData);
 	}
 
 	/**
 	 * Ctor.
 	 *
-	 * @param exiftoolPath
-	 * 		path to exiftool
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
 	 * @param imageModels
 	 * 		target image models
 	 * @param callback
 	 * 		callback for saving parsed data
 	 */
-	public ReadMetaDataTask(String exiftoolPath, Collection<ImageModel> imageModels, Callback callback) {
-		this.exiftoolPath = exiftoolPath;
+	public ReadMetaDataTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, Collection<ImageModel> imageModels, Callback callback) {
+		this.exiftoolPool = exiftoolPool;
+		this.metaDataCache = metaDataCache;
 		this.imageModels = new ArrayList<>(imageModels);
 		this.callback = callback;
 	}
@@ -145,132 +173,72 @@ public class ReadMetaDataTask extends SynchronizedImageModelTask<Void> {
 	protected Void call() throws Exception {
 		List<ImageModel> sortedImageModels = lockImageModels(imageModels);
 
-		File tempFile = null;
 		try {
+			// read EXIF data of JPEG and TIFF based files directly, only the remaining files need exiftool
+			readExifMetaData(sortedImageModels);
+			if (sortedImageModels.isEmpty()) {
+				return null;
+			}
 
 			// create map for fast lookup of image models
 			Map<String, ImageModel> imageModelMap = sortedImageModels.stream().collect(Collectors.toMap(im -> im.getImage().getAbsolutePath(), Function.identity(), (o1, o2) -> o1));
 
-			// create temp files as input for exiftool
-			List<String> inputFiles = sortedImageModels.stream()
+			// create arguments, numeric values in table form
+			List<String> arguments = new ArrayList<>(Arrays.asList("-T", "-n"));
+			arguments.addAll(TAGS);
+			sortedImageModels.stream()
 					.map(ImageModel::getImage)
 					.map(File::getAbsolutePath)
-					.collect(Collectors.toList());
-
-			tempFile = File.createTempFile("GeolocateFX_exiftool", ".txt");
-			FileUtils.writeLines(tempFile, inputFiles);
-
-			// create command line
-			String exiftool = getProcessName();
-			List<String> commandLine = new ArrayList<>(Arrays.asList(
-					exiftool,
-					"-S",
-					"-gpslatitude",
-					"-gpslongitude",
-					"-alldates",
-					"-duration",
-					"-videoframerate",
-					"-@",
-					tempFile.getAbsolutePath()
-			));
-
-			ImageModel currentImageModel = null;
-			if (sortedImageModels.size() == 1) {
-				currentImageModel = sortedImageModels.get(0);
-			}
+					.forEach(arguments::add);
 
-			// call exiftool
-			ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
-			Process process = startProcess(processBuilder);
-
-			// parse output
-			Double latitude = null;
-			Double longitude = null;
-			Date creationDateOriginal = null;
-			Date creationDate = null;
-			Double duration = null;
-			Double videoFrameRate = null;
-			try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line;
-				while ((line = br.readLine()) != null || process.isAlive()) {
-					if (line == null) {
-						// process is still running but no more output yet -> wait shortly
-						Thread.sleep(100);
-						continue;
-					}
-					Matcher m;
-					if ((m = CURRENT_FILE_PATTERN.matcher(line)).matches()) {
-						// next file starts
-						saveMetaData(
-								sortedImageModels,
-								currentImageModel,
-								latitude,
-								longitude,
-								creationDate,
-								creationDateOriginal,
-								duration,
-								videoFrameRate
-						);
-						String fileName = m.group(1);
-						fileName = fileName.replaceAll("/", Matcher.quoteReplacement(File.separator));
-						currentImageModel = imageModelMap.get(fileName);
-						latitude = null;
-						longitude = null;
-						creationDateOriginal = null;
-						creationDate = null;
-						duration = null;
-						videoFrameRate = null;
-					} else if ((m = LATITUDE_PATTERN.matcher(line)).matches()) {
-						// parse latitude
-						latitude = parseDegrees(m.group(1), "N", "S");
-					} else if ((m = LONGITUDE_PATTERN.matcher(line)).matches()) {
-						// parse longitude
-						longitude = parseDegrees(m.group(1), "E", "W");
-					} else if ((m = CREATION_DATE_ORIGINAL_PATTERN.matcher(line)).matches()) {
-						// parse original creation date
-						creationDateOriginal = parseDateTime(m.group(1));
-					} else if ((m = CREATION_DATE_PATTERN.matcher(line)).matches()) {
-						// parse creation date
-						creationDate = parseDateTime(m.group(1));
-					} else if ((m = DURATION_PATTERN_1.matcher(line)).matches()) {
-						// parse duration
-						duration = parseDouble(m.group(1));
-					} else if ((m = DURATION_PATTERN_2.matcher(line)).matches()) {
-						// parse duration
-						duration = parseTime(m.group(1));
-					} else if ((m = VIDEO_FRAME_RATE_PATTERN.matcher(line)).matches()) {
-						// parse video frame rate
-						videoFrameRate = parseDouble(m.group(1));
-					}
-				}
-
-				// finally save all data of last image
-				saveMetaData(
-						sortedImageModels,
-						currentImageModel,
-						latitude,
-						longitude,
-						creationDate,
-						creationDateOriginal,
-						duration,
-						videoFrameRate
-				);
-			}
+			OutputParser parser = new OutputParser(sortedImageModels, imageModelMap);
 
-			waitForProcess(process);
+			// call exiftool and parse output
+			executeExiftool(exiftoolPool, arguments, parser);
 
 		} finally {
 			// release all images that have not been handled (should be none!)
 			sortedImageModels.forEach(this::releaseImageModel);
-
-			if (tempFile != null) {
-				tempFile.delete();
-			}
 		}
 
 		return null;
 	}
 
+	/**
+	 * Reads the meta data of all supported files without exiftool and saves it to the image models.
+	 *
+	 * @param imageModels
+	 * 		list of image models, all handled image models will be removed
+	 */
+	private void readExifMetaData(List<ImageModel> imageModels) {
+		for (ImageModel imageModel : new ArrayList<>(imageModels)) {
+			ExifMetaData metaData;
+			try {
+				metaData = EXIF_READER.read(imageModel.getImage());
+			} catch (IOException e) {
+				// unusual file structure, let exiftool handle this file
+				continue;
+			}
+
+			// dates may also be stored in XMP or maker notes, exiftool knows better in this case
+			if (metaData == null || (metaData.getCreationDateOriginal() == null && metaData.getCreationDate() == null)) {
+				continue;
+			}
+
+			LatLong geolocation = metaData.getGeolocation();
+			saveMetaData(
+					imageModels,
+					imageModel,
+					geolocation != null ? geolocation.getLatitude() : null,
+					geolocation != null ? geolocation.getLongitude() : null,
+					metaData.getCreationDate(),
+					metaData.getCreationDateOriginal(),
+					null,
+					null
+			);
+		}
+	}
+
 	/**
 	 * Saves the parsed meta data to the given target image model
 	 *
@@ -308,121 +276,165 @@ public class ReadMetaDataTask extends SynchronizedImageModelTask<Void> {
 		}
 		Date finalCreationDate = creationDateOriginal != null ? creationDateOriginal : (creationDate != null ? creationDate : fileCreationDate);
 
-		if (callback == null) {
-			Platform.runLater(() -> {
-				targetImageModel.setGeolocation(geolocation);
-				targetImageModel.setCreationDate(finalCreationDate);
-				targetImageModel.setDuration(duration);
-				targetImageModel.setVideoFrameRate(videoFrameRate);
-			});
-		} else {
-			callback.handleMetaData(targetImageModel, geolocation, finalCreationDate, duration, videoFrameRate);
+		if (metaDataCache != null) {
+			metaDataCache.put(targetImageModel.getImage(), new MetaDataCache.Entry(geolocation, finalCreationDate, duration, videoFrameRate));
 		}
 
+		callback.handleMetaData(targetImageModel, geolocation, finalCreationDate, duration, videoFrameRate);
+
 		releaseImageModel(targetImageModel);
 		imageModels.remove(targetImageModel);
 	}
 
 	/**
-	 * Tries to parse the given degrees string.
+	 * Parses the numeric value in the given part of the buffer.
 	 *
-	 * @param degrees
-	 * 		degrees string
-	 * @param positiveDirection
-	 * 		suffix for positive direction
-	 * @param negativeDirection
-	 * 		suffix for negative direction
-	 * @return parsed numeric degrees
+	 * @param bytes
+	 * 		buffer
+	 * @param start
+	 * 		start position
+	 * @param end
+	 * 		end position (exclusive)
+	 * @return parsed number or <code>null</code> if there is no valid number
 	 */
-	private Double parseDegrees(String degrees, String positiveDirection, String negativeDirection) {
-		try {
-			Matcher m = DEGREES_PATTERN.matcher(degrees);
-			if (!m.matches()) {
-				return null;
-			}
+	static Double parseNumber(byte[] bytes, int start, int end) {
+		if (isEmptyValue(bytes, start, end)) {
+			return null;
+		}
 
-			String degreesS = m.group(1);
-			String minutesS = m.group(2);
-			String secondsS = m.group(3);
-			String suffix = m.group(4);
+		int i = start;
+		boolean negative = bytes[i] == '-';
+		if (negative || bytes[i] == '+') {
+			i++;
+		}
 
-			int sig;
-			if (StringUtils.equalsIgnoreCase(suffix, positiveDirection)) {
-				sig = 1;
-			} else if (StringUtils.equalsIgnoreCase(suffix, negativeDirection)) {
-				sig = -1;
+		long mantissa = 0;
+		int significantDigits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		boolean hasDigits = false;
+		for (; i < end; i++) {
+			byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				hasDigits = true;
+				if (significantDigits < MAX_SIGNIFICANT_DIGITS) {
+					mantissa = mantissa * 10 + (b - '0');
+					if (mantissa != 0) {
+						significantDigits++;
+					}
+					if (fraction) {
+						scale++;
+					}
+				} else if (!fraction) {
+					scale--;
+				}
+			} else if (b == '.' && !fraction) {
+				fraction = true;
 			} else {
-				return null;
+				// exponent or something unexpected, use the slow path
+				return parseDouble(bytes, start, end);
 			}
+		}
 
-			double degreesD = Integer.parseInt(degreesS, 10);
-			double minutesD = Integer.parseInt(minutesS, 10);
-			double secondsD = Double.parseDouble(secondsS);
-
-			return sig * (degreesD + (minutesD / 60) + (secondsD / 3600));
-		} catch (NumberFormatException e) {
-			return null;
+		if (!hasDigits || scale >= POWERS_OF_TEN.length || -scale >= POWERS_OF_TEN.length) {
+			return parseDouble(bytes, start, end);
 		}
+
+		double value = scale >= 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa * POWERS_OF_TEN[-scale];
+		return negative ? -value : value;
 	}
 
 	/**
-	 * Tries to parse the given time string.
+	 * Parses the EXIF date (<code>yyyy:MM:dd HH:mm:ss</code>) in the given part of the buffer. Trailing sub seconds or time zones will be ignored.
 	 *
-	 * @param time
-	 * 		time string
-	 * @return parsed time in seconds
+	 * @param bytes
+	 * 		buffer
+	 * @param start
+	 * 		start position
+	 * @param end
+	 * 		end position (exclusive)
+	 * @return parsed date or <code>null</code> if there is no valid date
 	 */
-	private Double parseTime(String time) {
-		try {
-			Matcher m = TIME_PATTERN.matcher(time);
-			if (!m.matches()) {
-				return null;
-			}
-
-			String hoursS = m.group(1);
-			String minutesS = m.group(2);
-			String secondsS = m.group(3);
+	static Date parseDateTime(byte[] bytes, int start, int end) {
+		if (end - start < 19 || bytes[start + 4] != ':' || bytes[start + 7] != ':' || bytes[start + 10] != ' ' || bytes[start + 13] != ':' || bytes[start + 16] != ':') {
+			return null;
+		}
 
-			double hoursD = Integer.parseInt(hoursS, 10);
-			double minutesD = Integer.parseInt(minutesS, 10);
-			double secondsD = Double.parseDouble(secondsS);
+		int year = parseDigits(bytes, start, 4);
+		int month = parseDigits(bytes, start + 5, 2);
+		int day = parseDigits(bytes, start + 8, 2);
+		int hour = parseDigits(bytes, start + 11, 2);
+		int minute = parseDigits(bytes, start + 14, 2);
+		int second = parseDigits(bytes, start + 17, 2);
+		if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+			return null;
+		}
 
-			return secondsD + minutesD * 60 + hoursD * 3600;
-		} catch (NumberFormatException e) {
+		try {
+			LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+			return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+		} catch (DateTimeException e) {
 			return null;
 		}
 	}
 
 	/**
-	 * Parses the given EXIF date string.
+	 * Parses the given number of decimal digits.
 	 *
-	 * @param dateString
-	 * 		date string
-	 * @return date
+	 * @param bytes
+	 * 		buffer
+	 * @param start
+	 * 		start position
+	 * @param count
+	 * 		number of digits
+	 * @return parsed value or <code>-1</code> if there is a non digit character
 	 */
-	private Date parseDateTime(String dateString) {
-		try {
-			return DF.parse(dateString);
-		} catch (ParseException e) {
-			return null;
+	private static int parseDigits(byte[] bytes, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			byte b = bytes[i];
+			if (b < '0' || b > '9') {
+				return -1;
+			}
+			value = value * 10 + (b - '0');
 		}
+		return value;
 	}
 
 	/**
-	 * Parses the given double value.
+	 * Parses the given double value with the JDK parser.
 	 *
-	 * @param val
-	 * 		double value string
+	 * @param bytes
+	 * 		buffer
+	 * @param start
+	 * 		start position
+	 * @param end
+	 * 		end position (exclusive)
 	 * @return parsed double
 	 */
-	private Double parseDouble(String val) {
+	private static Double parseDouble(byte[] bytes, int start, int end) {
 		try {
-			return Double.parseDouble(val);
+			return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
 		} catch (NumberFormatException e) {
 			return null;
 		}
 	}
 
+	/**
+	 * Checks if the given part of the buffer is an empty value. Exiftool prints "-" for missing tags in table mode.
+	 *
+	 * @param bytes
+	 * 		buffer
+	 * @param start
+	 * 		start position
+	 * @param end
+	 * 		end position (exclusive)
+	 * @return <code>true</code> if the value is missing
+	 */
+	private static boolean isEmptyValue(byte[] bytes, int start, int end) {
+		return start >= end || (end - start == 1 && bytes[start] == '-');
+	}
+
 	/**
 	 * Returns the process name that is being executed.
 	 *
@@ -430,7 +442,121 @@ public class ReadMetaDataTask extends SynchronizedImageModelTask<Void> {
 	 */
 	@Override
 	String getProcessName() {
-		return StringUtils.isNotEmpty(exiftoolPath) ? exiftoolPath : "exiftool";
+		return exiftoolPool.getExiftoolPath();
+	}
+
+	/**
+	 * Parser for the table output of exiftool. Every line contains the tab separated values of a single file, so the meta data is saved as soon as the line has been read.
+	 *
+	 * @author osterrath
+	 */
+	private class OutputParser implements ExiftoolPool.LineHandler {
+		/**
+		 * Image models that have not been handled yet.
+		 */
+		private final List<ImageModel> imageModels;
+
+		/**
+		 * Image models by absolute file path.
+		 */
+		private final Map<String, ImageModel> imageModelMap;
+
+		/**
+		 * Start positions of the value columns of the current line.
+		 */
+		private final int[] columnStarts = new int[COLUMN_DIRECTORY];
+
+		/**
+		 * End positions of the value columns of the current line.
+		 */
+		private final int[] columnEnds = new int[COLUMN_DIRECTORY];
+
+		/**
+		 * Ctor.
+		 *
+		 * @param imageModels
+		 * 		image models that have not been handled yet
+		 * @param imageModelMap
+		 * 		image models by absolute file path
+		 */
+		private OutputParser(List<ImageModel> imageModels, Map<String, ImageModel> imageModelMap) {
+			this.imageModels = imageModels;
+			this.imageModelMap = imageModelMap;
+		}
+
+		/**
+		 * Handles a single output line.
+		 *
+		 * @param line
+		 * 		buffer containing the output line
+		 * @param length
+		 * 		length of the line
+		 */
+		@Override
+		public void handleLine(byte[] line, int length) {
+			// split the value columns, the file path columns take the rest of the line
+			int column = 0;
+			int start = 0;
+			for (int i = 0; i < length && column < COLUMN_DIRECTORY; i++) {
+				if (line[i] == '\t') {
+					columnStarts[column] = start;
+					columnEnds[column] = i;
+					column++;
+					start = i + 1;
+				}
+			}
+			if (column != COLUMN_DIRECTORY) {
+				if (LOG.isLoggable(Level.FINE)) {
+					LOG.fine("Skipped exiftool output line: " + new String(line, 0, length, StandardCharsets.UTF_8));
+				}
+				return;
+			}
+
+			ImageModel imageModel = findImageModel(line, start, length);
+			if (imageModel == null) {
+				LOG.warning("Could not match exiftool output row to an image: " + new String(line, 0, length, StandardCharsets.UTF_8));
+				return;
+			}
+
+			saveMetaData(
+					imageModels,
+					imageModel,
+					parseNumber(line, columnStarts[COLUMN_LATITUDE], columnEnds[COLUMN_LATITUDE]),
+					parseNumber(line, columnStarts[COLUMN_LONGITUDE], columnEnds[COLUMN_LONGITUDE]),
+					parseDateTime(line, columnStarts[COLUMN_CREATION_DATE], columnEnds[COLUMN_CREATION_DATE]),
+					parseDateTime(line, columnStarts[COLUMN_CREATION_DATE_ORIGINAL], columnEnds[COLUMN_CREATION_DATE_ORIGINAL]),
+					parseNumber(line, columnStarts[COLUMN_DURATION], columnEnds[COLUMN_DURATION]),
+					parseNumber(line, columnStarts[COLUMN_VIDEO_FRAME_RATE], columnEnds[COLUMN_VIDEO_FRAME_RATE])
+			);
+		}
+
+		/**
+		 * Finds the image model for the file of the current line. Directory and file name may both contain tabs, so every tab of the path columns is tried as separator,
+		 * starting with the first one.
+		 *
+		 * @param line
+		 * 		buffer containing the output line
+		 * @param pathStart
+		 * 		start position of the directory column
+		 * @param length
+		 * 		length of the line
+		 * @return image model or <code>null</code> if the file is unknown
+		 */
+		private ImageModel findImageModel(byte[] line, int pathStart, int length) {
+			ImageModel imageModel = null;
+			for (int i = pathStart; i < length && imageModel == null; i++) {
+				if (line[i] == '\t') {
+					String directory = new String(line, pathStart, i - pathStart, StandardCharsets.UTF_8);
+					String fileName = new String(line, i + 1, length - i - 1, StandardCharsets.UTF_8);
+					imageModel = imageModelMap.get((directory + "/" + fileName).replace('/', File.separatorChar));
+				}
+			}
+			if (imageModel == null && imageModels.size() == 1) {
+				// path has been normalized differently by exiftool, but there is only one candidate left
+				imageModel = imageModels.get(0);
+			}
+			return imageModel;
+		}
 	}
 
 	/**
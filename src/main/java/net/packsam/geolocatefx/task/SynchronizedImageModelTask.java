@@ -1,5 +1,6 @@
 package net.packsam.geolocatefx.task;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -25,7 +26,7 @@ public abstract class SynchronizedImageModelTask<V> extends ExternalProcessTask<
 	 */
 	void lockImageModel(ImageModel imageModel) throws InterruptedException {
 		synchronized (imageModel) {
-			if (imageModel.isFileInProgress()) {
+			while (imageModel.isFileInProgress()) {
 				imageModel.wait();
 			}
 			imageModel.setFileInProgress(true);
@@ -46,8 +47,16 @@ public abstract class SynchronizedImageModelTask<V> extends ExternalProcessTask<
 		List<ImageModel> sortedImageModels = imageModels.stream()
 				.sorted(Comparator.comparing(ImageModel::getImage))
 				.collect(Collectors.toList());
-		for (ImageModel imageModel : sortedImageModels) {
-			lockImageModel(imageModel);
+		List<ImageModel> lockedImageModels = new ArrayList<>();
+		try {
+			for (ImageModel imageModel : sortedImageModels) {
+				lockImageModel(imageModel);
+				lockedImageModels.add(imageModel);
+			}
+		} catch (InterruptedException e) {
+			// task has been cancelled while waiting, do not keep the already locked image models
+			lockedImageModels.forEach(this::releaseImageModel);
+			throw e;
 		}
 
 		return sortedImageModels;
@@ -62,7 +71,7 @@ public abstract class SynchronizedImageModelTask<V> extends ExternalProcessTask<
 	void releaseImageModel(ImageModel imageModel) {
 		synchronized (imageModel) {
 			imageModel.setFileInProgress(false);
-			imageModel.notify();
+			imageModel.notifyAll();
 		}
 	}
 }
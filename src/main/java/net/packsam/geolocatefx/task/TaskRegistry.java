@@ -0,0 +1,207 @@
+package net.packsam.geolocatefx.task;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Registry of the queued and running tasks by file and operation. A file is only handled by one task per operation, so duplicate requests are merged into the existing
+ * task. When images are removed, their tasks can be cancelled.
+ *
+ * @author osterrath
+ */
+public class TaskRegistry {
+	/**
+	 * Registered tasks by file and operation.
+	 */
+	private final Map<Key, ExternalProcessTask<?>> tasks = new HashMap<>();
+
+	/**
+	 * Registered keys of every task.
+	 */
+	private final Map<ExternalProcessTask<?>, Set<Key>> taskKeys = new IdentityHashMap<>();
+
+	/**
+	 * Creates and registers a task for all given images that are not handled by another task of the same operation yet. The task will be unregistered automatically when it
+	 * is done.
+	 *
+	 * @param operation
+	 * 		operation of the task
+	 * @param imageModels
+	 * 		image models to handle
+	 * @param taskFactory
+	 * 		factory for creating the task for the remaining images
+	 * @param <T>
+	 * 		task type
+	 * @return new task or <code>null</code> if all images are already handled
+	 */
+	public <T extends ExternalProcessTask<?>> T register(Operation operation, Collection<ImageModel> imageModels, Function<List<ImageModel>, T> taskFactory) {
+		return register(EnumSet.of(operation), imageModels, taskFactory);
+	}
+
+	/**
+	 * Creates and registers a task performing several operations for all given images that are not handled by another task of any of these operations yet. The task will be
+	 * unregistered automatically when it is done.
+	 *
+	 * @param operations
+	 * 		operations of the task
+	 * @param imageModels
+	 * 		image models to handle
+	 * @param taskFactory
+	 * 		factory for creating the task for the remaining images
+	 * @param <T>
+	 * 		task type
+	 * @return new task or <code>null</code> if all images are already handled
+	 */
+	public synchronized <T extends ExternalProcessTask<?>> T register(Set<Operation> operations, Collection<ImageModel> imageModels, Function<List<ImageModel>, T> taskFactory) {
+		List<ImageModel> newImageModels = new ArrayList<>();
+		Set<Key> keys = new HashSet<>();
+		for (ImageModel imageModel : imageModels) {
+			List<Key> imageKeys = new ArrayList<>();
+			for (Operation operation : operations) {
+				imageKeys.add(new Key(imageModel.getImage(), operation));
+			}
+			if (imageKeys.stream().noneMatch(tasks::containsKey) && keys.addAll(imageKeys)) {
+				newImageModels.add(imageModel);
+			}
+		}
+		if (newImageModels.isEmpty()) {
+			return null;
+		}
+
+		T task = taskFactory.apply(newImageModels);
+		keys.forEach(key -> tasks.put(key, task));
+		taskKeys.put(task, keys);
+		task.setDoneHandler(() -> unregister(task));
+		return task;
+	}
+
+	/**
+	 * Cancels all tasks of the given images. Tasks that also handle other images keep running for them, but the removed images are unregistered.
+	 *
+	 * @param imageModels
+	 * 		removed image models
+	 * @return number of cancelled tasks
+	 */
+	public int cancel(Collection<ImageModel> imageModels) {
+		List<ExternalProcessTask<?>> cancelledTasks = new ArrayList<>();
+		synchronized (this) {
+			for (ImageModel imageModel : imageModels) {
+				for (Operation operation : Operation.values()) {
+					Key key = new Key(imageModel.getImage(), operation);
+					ExternalProcessTask<?> task = tasks.remove(key);
+					if (task == null) {
+						continue;
+					}
+
+					Set<Key> keys = taskKeys.get(task);
+					keys.remove(key);
+					if (keys.isEmpty()) {
+						taskKeys.remove(task);
+						cancelledTasks.add(task);
+					}
+				}
+			}
+		}
+
+		cancelledTasks.forEach(task -> task.cancel(true));
+		return cancelledTasks.size();
+	}
+
+	/**
+	 * Returns the number of registered operations, i.e. one for each file and operation of the queued and running tasks.
+	 *
+	 * @return number of pending operations
+	 */
+	public synchronized int getPendingCount() {
+		return tasks.size();
+	}
+
+	/**
+	 * Removes the given task from the registry.
+	 *
+	 * @param task
+	 * 		finished or cancelled task
+	 */
+	private synchronized void unregister(ExternalProcessTask<?> task) {
+		Set<Key> keys = taskKeys.remove(task);
+		if (keys != null) {
+			keys.forEach(key -> tasks.remove(key, task));
+		}
+	}
+
+	/**
+	 * Operations that are registered.
+	 *
+	 * @author osterrath
+	 */
+	public enum Operation {
+		/**
+		 * Reading the meta data.
+		 */
+		META_DATA,
+
+		/**
+		 * Creating the thumbnail.
+		 */
+		THUMBNAIL
+	}
+
+	/**
+	 * Registry key of file and operation.
+	 *
+	 * @author osterrath
+	 */
+	private static class Key {
+		/**
+		 * File.
+		 */
+		private final File file;
+
+		/**
+		 * Operation.
+		 */
+		private final Operation operation;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param file
+		 * 		file
+		 * @param operation
+		 * 		operation
+		 */
+		private Key(File file, Operation operation) {
+			this.file = file;
+			this.operation = operation;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return file.equals(key.file) && operation == key.operation;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(file, operation);
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package net.packsam.geolocatefx.task;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Scheduler for background tasks with separate thread pools per workload class. Tasks waiting for exiftool or disk I/O run in the I/O pool, tasks bound by the CPU (convert,
+ * in-process thumbnails) run in the CPU pool, so a slow thumbnail does not hold back meta data reads and vice versa. User-initiated tasks share the I/O pool but are taken
+ * from the queue before all waiting background tasks.
+ *
+ * @author osterrath
+ */
+public class TaskScheduler {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(TaskScheduler.class.getName());
+
+	/**
+	 * Thread pool for I/O and process bound tasks.
+	 */
+	private final ThreadPoolExecutor ioExecutor;
+
+	/**
+	 * Thread pool for CPU bound tasks.
+	 */
+	private final ThreadPoolExecutor cpuExecutor;
+
+	/**
+	 * Statistics for every lane.
+	 */
+	private final Map<Lane, LaneStatistics> statistics = new EnumMap<>(Lane.class);
+
+	/**
+	 * Counter for submitted tasks, keeps the order of tasks within a lane.
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param ioParallelism
+	 * 		number of threads for I/O bound tasks
+	 * @param cpuParallelism
+	 * 		number of threads for CPU bound tasks
+	 * @param ioThreadFactory
+	 * 		thread factory for the I/O pool
+	 * @param cpuThreadFactory
+	 * 		thread factory for the CPU pool
+	 */
+	public TaskScheduler(int ioParallelism, int cpuParallelism, ThreadFactory ioThreadFactory, ThreadFactory cpuThreadFactory) {
+		ioExecutor = createExecutor(ioParallelism, ioThreadFactory);
+		cpuExecutor = createExecutor(cpuParallelism, cpuThreadFactory);
+		for (Lane lane : Lane.values()) {
+			statistics.put(lane, new LaneStatistics());
+		}
+	}
+
+	/**
+	 * Creates a fixed size thread pool that takes the queued tasks by lane priority.
+	 *
+	 * @param parallelism
+	 * 		number of threads
+	 * @param threadFactory
+	 * 		thread factory
+	 * @return thread pool
+	 */
+	private static ThreadPoolExecutor createExecutor(int parallelism, ThreadFactory threadFactory) {
+		int threads = Math.max(1, parallelism);
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), threadFactory);
+	}
+
+	/**
+	 * Submits the given task to the pool of the given lane.
+	 *
+	 * @param task
+	 * 		task to execute
+	 * @param lane
+	 * 		lane of the task
+	 */
+	public void submit(Runnable task, Lane lane) {
+		LaneStatistics laneStatistics = statistics.get(lane);
+		laneStatistics.queueSize.incrementAndGet();
+		try {
+			(lane.io ? ioExecutor : cpuExecutor).execute(new QueuedTask(task, lane, sequence.getAndIncrement()));
+		} catch (RuntimeException e) {
+			laneStatistics.queueSize.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Removes all cancelled tasks from the queues, so they do not show up in the queue sizes anymore.
+	 */
+	public void purge() {
+		ioExecutor.getQueue().removeIf(this::removeIfCancelled);
+		cpuExecutor.getQueue().removeIf(this::removeIfCancelled);
+	}
+
+	/**
+	 * Checks if the given queued task has been cancelled and updates the lane statistics if so.
+	 *
+	 * @param runnable
+	 * 		queued task
+	 * @return <code>true</code> if the task has been cancelled
+	 */
+	private boolean removeIfCancelled(Runnable runnable) {
+		QueuedTask queuedTask = (QueuedTask) runnable;
+		if (!(queuedTask.task instanceof Future) || !((Future<?>) queuedTask.task).isCancelled()) {
+			return false;
+		}
+		statistics.get(queuedTask.lane).queueSize.decrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Stops all running tasks and drops the queued ones.
+	 */
+	public void shutdownNow() {
+		ioExecutor.shutdownNow();
+		cpuExecutor.shutdownNow();
+	}
+
+	/**
+	 * Returns the number of tasks waiting in the given lane.
+	 *
+	 * @param lane
+	 * 		lane
+	 * @return queue size
+	 */
+	public int getQueueSize(Lane lane) {
+		return statistics.get(lane).queueSize.get();
+	}
+
+	/**
+	 * Returns the average time in ms the started tasks of the given lane waited in queue.
+	 *
+	 * @param lane
+	 * 		lane
+	 * @return average wait time in ms
+	 */
+	public double getAverageWaitTime(Lane lane) {
+		LaneStatistics laneStatistics = statistics.get(lane);
+		long started = laneStatistics.startCount.sum();
+		return started > 0 ? laneStatistics.waitTime.sum() / 1_000_000d / started : 0;
+	}
+
+	/**
+	 * Returns a summary of queue sizes and wait times of all lanes.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return statistics.entrySet().stream()
+				.map(e -> String.format(
+						"%s: %d queued, %d started (avg wait %.1f ms, max wait %.1f ms)",
+						e.getKey().name().toLowerCase(),
+						e.getValue().queueSize.get(),
+						e.getValue().startCount.sum(),
+						getAverageWaitTime(e.getKey()),
+						e.getValue().maxWaitTime.get() / 1_000_000d
+				))
+				.collect(Collectors.joining(", ", "task lanes: ", ""));
+	}
+
+	/**
+	 * Logs the statistics.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Lanes for tasks, the order defines the priority within a pool.
+	 *
+	 * @author osterrath
+	 */
+	public enum Lane {
+		/**
+		 * Tasks started by the user, e.g. writing a dragged geolocation. Run in the I/O pool before all queued background tasks.
+		 */
+		USER(true),
+
+		/**
+		 * Background tasks waiting for exiftool or disk I/O.
+		 */
+		IO(true),
+
+		/**
+		 * Background tasks bound by the CPU, e.g. creating thumbnails.
+		 */
+		CPU(false);
+
+		/**
+		 * Flag if the lane runs in the I/O pool.
+		 */
+		private final boolean io;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param io
+		 * 		flag if the lane runs in the I/O pool
+		 */
+		Lane(boolean io) {
+			this.io = io;
+		}
+	}
+
+	/**
+	 * Queue and wait time statistics of a lane.
+	 *
+	 * @author osterrath
+	 */
+	private static class LaneStatistics {
+		/**
+		 * Number of waiting tasks.
+		 */
+		private final AtomicInteger queueSize = new AtomicInteger();
+
+		/**
+		 * Number of started tasks.
+		 */
+		private final LongAdder startCount = new LongAdder();
+
+		/**
+		 * Total time in ns the started tasks waited in queue.
+		 */
+		private final LongAdder waitTime = new LongAdder();
+
+		/**
+		 * Maximum time in ns a single task waited in queue.
+		 */
+		private final AtomicLong maxWaitTime = new AtomicLong();
+	}
+
+	/**
+	 * Wrapper for a queued task that orders tasks by lane and submission order.
+	 *
+	 * @author osterrath
+	 */
+	private class QueuedTask implements Runnable, Comparable<QueuedTask> {
+		/**
+		 * Task to execute.
+		 */
+		private final Runnable task;
+
+		/**
+		 * Lane of the task.
+		 */
+		private final Lane lane;
+
+		/**
+		 * Submission order.
+		 */
+		private final long sequenceNumber;
+
+		/**
+		 * Time in ns the task has been queued.
+		 */
+		private final long queueTime = System.nanoTime();
+
+		/**
+		 * Ctor.
+		 *
+		 * @param task
+		 * 		task to execute
+		 * @param lane
+		 * 		lane of the task
+		 * @param sequenceNumber
+		 * 		submission order
+		 */
+		private QueuedTask(Runnable task, Lane lane, long sequenceNumber) {
+			this.task = task;
+			this.lane = lane;
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		/**
+		 * Records the wait time and runs the task.
+		 */
+		@Override
+		public void run() {
+			long waited = System.nanoTime() - queueTime;
+			LaneStatistics laneStatistics = statistics.get(lane);
+			laneStatistics.queueSize.decrementAndGet();
+			laneStatistics.startCount.increment();
+			laneStatistics.waitTime.add(waited);
+			laneStatistics.maxWaitTime.accumulateAndGet(waited, Math::max);
+
+			task.run();
+		}
+
+		/**
+		 * Orders by lane first, then by submission order.
+		 *
+		 * @param o
+		 * 		other task
+		 * @return comparison result
+		 */
+		@Override
+		public int compareTo(QueuedTask o) {
+			int result = lane.compareTo(o.lane);
+			return result != 0 ? result : Long.compare(sequenceNumber, o.sequenceNumber);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package net.packsam.geolocatefx.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.thumbnail.JpegThumbnailer;
+
+/**
+ * Scheduler for the thumbnail tasks that follows the images shown in the image list. Images waiting for a thumbnail are kept here and only a few tasks are submitted to the
+ * CPU pool at once. Every time a task finishes, the next images are taken in this order: visible images, images in scroll direction, all other images in the order they
+ * have been added. So images that scrolled far away simply fall back to background priority.
+ *
+ * @author osterrath
+ */
+public class ThumbnailScheduler {
+	/**
+	 * Scheduler running the thumbnail tasks.
+	 */
+	private final TaskScheduler taskScheduler;
+
+	/**
+	 * Factory for creating a thumbnail task for some images, may return <code>null</code> if all images are handled by other tasks.
+	 */
+	private final Function<List<ImageModel>, ExternalProcessTask<?>> taskFactory;
+
+	/**
+	 * Maximum number of tasks submitted at once.
+	 */
+	private final int maxTasksInProgress;
+
+	/**
+	 * Maximum number of images per task for formats that need external processes.
+	 */
+	private final int batchSize;
+
+	/**
+	 * Images waiting for a thumbnail in the order they have been added.
+	 */
+	private final Set<ImageModel> pendingImages = new LinkedHashSet<>();
+
+	/**
+	 * Visible images followed by the prefetch images.
+	 */
+	private List<ImageModel> priorityImages = Collections.emptyList();
+
+	/**
+	 * Number of submitted tasks that have not finished yet.
+	 */
+	private int tasksInProgress = 0;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param taskScheduler
+	 * 		scheduler running the thumbnail tasks
+	 * @param taskFactory
+	 * 		factory for creating a thumbnail task for some images, may return <code>null</code> if all images are handled by other tasks
+	 * @param maxTasksInProgress
+	 * 		maximum number of tasks submitted at once
+	 * @param batchSize
+	 * 		maximum number of images per task for formats that need external processes
+	 */
+	public ThumbnailScheduler(TaskScheduler taskScheduler, Function<List<ImageModel>, ExternalProcessTask<?>> taskFactory, int maxTasksInProgress, int batchSize) {
+		this.taskScheduler = taskScheduler;
+		this.taskFactory = taskFactory;
+		this.maxTasksInProgress = Math.max(1, maxTasksInProgress);
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Adds the given images to the images waiting for a thumbnail.
+	 *
+	 * @param imageModels
+	 * 		image models
+	 */
+	public synchronized void add(Collection<ImageModel> imageModels) {
+		pendingImages.addAll(imageModels);
+		submitTasks();
+	}
+
+	/**
+	 * Sets the images currently shown in the image list. Their thumbnails are created first, followed by the prefetch images.
+	 *
+	 * @param visibleImages
+	 * 		images currently shown
+	 * @param prefetchImages
+	 * 		images that will probably be shown next, ordered by distance
+	 */
+	public synchronized void setVisibleImages(List<ImageModel> visibleImages, List<ImageModel> prefetchImages) {
+		List<ImageModel> images = new ArrayList<>(visibleImages.size() + prefetchImages.size());
+		images.addAll(visibleImages);
+		images.addAll(prefetchImages);
+		priorityImages = images;
+		submitTasks();
+	}
+
+	/**
+	 * Removes the given images from the images waiting for a thumbnail.
+	 *
+	 * @param imageModels
+	 * 		image models
+	 */
+	public synchronized void remove(Collection<ImageModel> imageModels) {
+		pendingImages.removeAll(imageModels);
+	}
+
+	/**
+	 * Returns the number of images waiting for a thumbnail task.
+	 *
+	 * @return number of pending images
+	 */
+	public synchronized int getPendingCount() {
+		return pendingImages.size();
+	}
+
+	/**
+	 * Submits new tasks until the maximum number of tasks is reached or no image is left.
+	 */
+	private void submitTasks() {
+		while (tasksInProgress < maxTasksInProgress && !pendingImages.isEmpty()) {
+			ExternalProcessTask<?> task = taskFactory.apply(takeNextImages());
+			if (task == null) {
+				continue;
+			}
+			tasksInProgress++;
+
+			// the task itself is queued, so it can be purged when cancelled; the done handler also runs on cancellation
+			Runnable doneHandler = task.getDoneHandler();
+			task.setDoneHandler(() -> {
+				if (doneHandler != null) {
+					doneHandler.run();
+				}
+				taskFinished();
+			});
+			try {
+				taskScheduler.submit(task, TaskScheduler.Lane.CPU);
+			} catch (RuntimeException e) {
+				tasksInProgress--;
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Event handler when a submitted task has finished.
+	 */
+	private synchronized void taskFinished() {
+		tasksInProgress--;
+		submitTasks();
+	}
+
+	/**
+	 * Takes the images for the next task from the pending images. JPEG files are created in-process one by one, all other files are batched with the next non-JPEG files, so
+	 * a single external process can handle many of them.
+	 *
+	 * @return images for the next task
+	 */
+	private List<ImageModel> takeNextImages() {
+		List<ImageModel> images = new ArrayList<>();
+		Iterator<ImageModel> candidates = new CandidateIterator();
+		ImageModel first = candidates.next();
+		images.add(first);
+
+		if (!JpegThumbnailer.isSupported(first.getImage())) {
+			// look a bit further for other files of the batch, but do not scan all pending JPEG files
+			int scanned = 0;
+			while (images.size() < batchSize && scanned < batchSize * 4 && candidates.hasNext()) {
+				ImageModel candidate = candidates.next();
+				scanned++;
+				if (!JpegThumbnailer.isSupported(candidate.getImage()) && !images.contains(candidate)) {
+					images.add(candidate);
+				}
+			}
+		}
+
+		pendingImages.removeAll(images);
+		return images;
+	}
+
+	/**
+	 * Iterator over the pending images, first the pending priority images, then all pending images in the order they have been added. Priority images may be returned twice.
+	 *
+	 * @author osterrath
+	 */
+	private class CandidateIterator implements Iterator<ImageModel> {
+		/**
+		 * Iterator over the priority images.
+		 */
+		private final Iterator<ImageModel> priorityIterator = priorityImages.iterator();
+
+		/**
+		 * Iterator over the pending images.
+		 */
+		private final Iterator<ImageModel> pendingIterator = pendingImages.iterator();
+
+		/**
+		 * Next pending priority image.
+		 */
+		private ImageModel nextPriorityImage = findNextPriorityImage();
+
+		/**
+		 * Finds the next priority image that is still pending.
+		 *
+		 * @return next priority image or <code>null</code>
+		 */
+		private ImageModel findNextPriorityImage() {
+			while (priorityIterator.hasNext()) {
+				ImageModel imageModel = priorityIterator.next();
+				if (pendingImages.contains(imageModel)) {
+					return imageModel;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextPriorityImage != null || pendingIterator.hasNext();
+		}
+
+		@Override
+		public ImageModel next() {
+			if (nextPriorityImage != null) {
+				ImageModel imageModel = nextPriorityImage;
+				nextPriorityImage = findNextPriorityImage();
+				return imageModel;
+			}
+			return pendingIterator.next();
+		}
+	}
+}
@@ -1,55 +1,117 @@
 package net.packsam.geolocatefx.task;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.StringUtils;
-
-import javafx.application.Platform;
+import net.packsam.geolocatefx.cache.MetaDataCache;
+import net.packsam.geolocatefx.exif.ExifWriter;
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageModelUpdates;
 import net.packsam.geolocatefx.model.LatLong;
 
 /**
- * Task for writing the geolocation to the given image files.
+ * Task for writing the geolocation to the given image files. Every image may get its own geolocation, e.g. when the images are matched against a track. Files whose GPS data
+ * cannot be patched in place are rewritten by a single exiftool call, which imports the geolocations from a CSV file if they differ.
  *
  * @author osterrath
  */
 public class WriteGeolocationTask extends SynchronizedImageModelTask<Void> {
 
 	/**
-	 * Path to exiftool.
+	 * Writer for patching existing GPS data of JPEG files in place.
+	 */
+	private final static ExifWriter EXIF_WRITER = new ExifWriter();
+
+	/**
+	 * Pool of exiftool processes.
+	 */
+	private final ExiftoolPool exiftoolPool;
+
+	/**
+	 * Persistent meta data cache.
 	 */
-	private final String exiftoolPath;
+	private final MetaDataCache metaDataCache;
 
 	/**
-	 * Geolocation to set.
+	 * Geolocations to set by target image model.
 	 */
-	private final LatLong geolocation;
+	private final Map<ImageModel, LatLong> geolocations;
 
 	/**
-	 * Target image models.
+	 * Callback when the geolocation has been written.
 	 */
-	private final Collection<ImageModel> imageModels;
+	private final Callback callback;
 
 	/**
 	 * Ctor.
 	 *
-	 * @param exiftoolPath
-	 * 		path to exiftool
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
 	 * @param geolocation
 	 * 		geolocation to set
 	 * @param imageModels
 	 * 		target image models
+	 * @param modelUpdates
+	 * 		pump for applying the written geolocation to the image models
 	 */
-	public WriteGeolocationTask(String exiftoolPath, LatLong geolocation, Collection<ImageModel> imageModels) {
-		this.exiftoolPath = exiftoolPath;
-		this.geolocation = geolocation;
-		this.imageModels = new ArrayList<>(imageModels);
+	public WriteGeolocationTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, LatLong geolocation, Collection<ImageModel> imageModels, ImageModelUpdates modelUpdates) {
+		this(exiftoolPool, metaDataCache, geolocation, imageModels, modelUpdates::setGeolocation);
+	}
+
+	/**
+	 * Ctor.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
+	 * @param geolocation
+	 * 		geolocation to set
+	 * @param imageModels
+	 * 		target image models
+	 * @param callback
+	 * 		callback when the geolocation has been written
+	 */
+	public WriteGeolocationTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, LatLong geolocation, Collection<ImageModel> imageModels, Callback callback) {
+		this.exiftoolPool = exiftoolPool;
+		this.metaDataCache = metaDataCache;
+		this.geolocations = new LinkedHashMap<>();
+		this.callback = callback;
+		imageModels.forEach(im -> geolocations.put(im, geolocation));
+	}
+
+	/**
+	 * Ctor.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param metaDataCache
+	 * 		persistent meta data cache
+	 * @param geolocations
+	 * 		geolocations to set by target image model
+	 * @param callback
+	 * 		callback when the geolocation has been written
+	 */
+	public WriteGeolocationTask(ExiftoolPool exiftoolPool, MetaDataCache metaDataCache, Map<ImageModel, LatLong> geolocations, Callback callback) {
+		this.exiftoolPool = exiftoolPool;
+		this.metaDataCache = metaDataCache;
+		this.geolocations = new LinkedHashMap<>(geolocations);
+		this.callback = callback;
 	}
 
 	/**
@@ -63,54 +125,212 @@ public class WriteGeolocationTask extends SynchronizedImageModelTask<Void> {
 	 */
 	@Override
 	protected Void call() throws Exception {
-		List<ImageModel> sortedImageModels = lockImageModels(imageModels);
+		List<ImageModel> sortedImageModels = lockImageModels(geolocations.keySet());
+
+		// remember cached meta data before the files are changed
+		Map<ImageModel, MetaDataCache.Entry> cacheEntries = new HashMap<>();
+		if (metaDataCache != null) {
+			for (ImageModel imageModel : sortedImageModels) {
+				MetaDataCache.Entry entry = metaDataCache.get(imageModel.getImage());
+				if (entry != null) {
+					cacheEntries.put(imageModel, entry);
+				}
+			}
+		}
 
-		File tempFile = null;
 		try {
-			// create temp files as input for exiftool
-			List<String> inputFiles = sortedImageModels.stream()
-					.map(ImageModel::getImage)
-					.map(File::getAbsolutePath)
-					.collect(Collectors.toList());
-
-			tempFile = File.createTempFile("GeolocateFX_exiftool", ".txt");
-			FileUtils.writeLines(tempFile, inputFiles);
-
-			// create command line
-			String exiftool = getProcessName();
-			List<String> commandLine = new ArrayList<>(Arrays.asList(
-					exiftool,
-					"-P",
-					"-overwrite_original",
-					"-q",
-					"-gpslatitude=" + Math.abs(geolocation.getLatitude()),
-					"-gpslatituderef=" + (geolocation.getLatitude() >= 0 ? "N" : "S"),
-					"-gpslongitude=" + Math.abs(geolocation.getLongitude()),
-					"-gpslongituderef=" + (geolocation.getLongitude() >= 0 ? "E" : "W"),
-					"-@",
-					tempFile.getAbsolutePath()
-			));
-
-			// call exiftool
-			ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
-			Process process = startProcess(processBuilder);
-			int returnValue = waitForProcess(process);
-
-			if (returnValue == 0) {
-				Platform.runLater(() -> {
-					imageModels.forEach(im -> im.setGeolocation(geolocation));
-				});
+			// patch existing GPS data in place, only the remaining files have to be rewritten by exiftool
+			List<ImageModel> remainingImageModels = new ArrayList<>();
+			List<ImageModel> writtenImageModels = new ArrayList<>();
+			for (ImageModel imageModel : sortedImageModels) {
+				if (writeInPlace(imageModel)) {
+					writtenImageModels.add(imageModel);
+				} else {
+					remainingImageModels.add(imageModel);
+				}
+			}
+
+			if (!writtenImageModels.isEmpty()) {
+				updateCache(writtenImageModels, cacheEntries);
+				writtenImageModels.forEach(im -> callback.handleGeolocation(im, geolocations.get(im)));
+			}
+
+			if (remainingImageModels.isEmpty()) {
+				return null;
+			}
+
+			boolean successful;
+			if (hasCommonGeolocation(remainingImageModels)) {
+				LatLong geolocation = geolocations.get(remainingImageModels.get(0));
+				successful = executeExiftool(exiftoolPool, createArguments(remainingImageModels,
+						"-gpslatitude=" + formatCoordinate(geolocation.getLatitude()),
+						"-gpslatituderef=" + getLatitudeRef(geolocation),
+						"-gpslongitude=" + formatCoordinate(geolocation.getLongitude()),
+						"-gpslongituderef=" + getLongitudeRef(geolocation)
+				), null);
+			} else {
+				// exiftool sets the same tag values for all files of a call, so different geolocations are imported from a CSV file
+				Path csvFile = writeCsvFile(remainingImageModels);
+				try {
+					successful = executeExiftool(exiftoolPool, createArguments(remainingImageModels, "-csv=" + csvFile.toAbsolutePath()), null);
+				} finally {
+					Files.deleteIfExists(csvFile);
+				}
+			}
+
+			if (successful) {
+				updateCache(remainingImageModels, cacheEntries);
+				remainingImageModels.forEach(im -> callback.handleGeolocation(im, geolocations.get(im)));
 			}
 
 		} finally {
 			sortedImageModels.forEach(this::releaseImageModel);
+		}
+
+		return null;
+	}
 
-			if (tempFile != null) {
-				tempFile.delete();
+	/**
+	 * Updates the cached meta data of the given written images. Images without a valid cache entry before writing are skipped as their other meta data is unknown.
+	 *
+	 * @param writtenImageModels
+	 * 		written image models
+	 * @param cacheEntries
+	 * 		cache entries before writing
+	 */
+	private void updateCache(List<ImageModel> writtenImageModels, Map<ImageModel, MetaDataCache.Entry> cacheEntries) {
+		for (ImageModel imageModel : writtenImageModels) {
+			MetaDataCache.Entry entry = cacheEntries.get(imageModel);
+			if (entry != null) {
+				metaDataCache.put(imageModel.getImage(), entry.withGeolocation(geolocations.get(imageModel)));
 			}
 		}
+	}
 
-		return null;
+	/**
+	 * Checks if all given images get the same geolocation.
+	 *
+	 * @param targetImageModels
+	 * 		image models, not empty
+	 * @return <code>true</code> if all geolocations are equal
+	 */
+	private boolean hasCommonGeolocation(List<ImageModel> targetImageModels) {
+		LatLong first = geolocations.get(targetImageModels.get(0));
+		return targetImageModels.stream()
+				.map(geolocations::get)
+				.allMatch(geolocation -> geolocation.getLatitude() == first.getLatitude() && geolocation.getLongitude() == first.getLongitude());
+	}
+
+	/**
+	 * Creates the exiftool arguments for rewriting the given images.
+	 *
+	 * @param targetImageModels
+	 * 		image models
+	 * @param tagArguments
+	 * 		arguments setting the tags
+	 * @return arguments
+	 */
+	private static List<String> createArguments(List<ImageModel> targetImageModels, String... tagArguments) {
+		List<String> arguments = new ArrayList<>(Arrays.asList(
+				"-P",
+				"-overwrite_original",
+				"-q"
+		));
+		arguments.addAll(Arrays.asList(tagArguments));
+		targetImageModels.stream()
+				.map(ImageModel::getImage)
+				.map(File::getAbsolutePath)
+				.forEach(arguments::add);
+		return arguments;
+	}
+
+	/**
+	 * Writes the geolocations of the given images to a temporary CSV file in the import format of exiftool.
+	 *
+	 * @param targetImageModels
+	 * 		image models
+	 * @return CSV file, must be deleted by the caller
+	 * @throws IOException
+	 * 		file could not be written
+	 */
+	private Path writeCsvFile(List<ImageModel> targetImageModels) throws IOException {
+		Path csvFile = Files.createTempFile("geolocatefx", ".csv");
+		try (Writer writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+			writer.write("SourceFile,GPSLatitude,GPSLatitudeRef,GPSLongitude,GPSLongitudeRef\n");
+			for (ImageModel imageModel : targetImageModels) {
+				LatLong geolocation = geolocations.get(imageModel);
+				writer.write(quoteCsv(imageModel.getImage().getAbsolutePath()));
+				writer.write("," + formatCoordinate(geolocation.getLatitude()) + "," + getLatitudeRef(geolocation));
+				writer.write("," + formatCoordinate(geolocation.getLongitude()) + "," + getLongitudeRef(geolocation) + "\n");
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(csvFile);
+			throw e;
+		}
+		return csvFile;
+	}
+
+	/**
+	 * Quotes a CSV value if it contains separators, quotes or line breaks.
+	 *
+	 * @param value
+	 * 		value
+	 * @return quoted value
+	 */
+	static String quoteCsv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Formats the absolute value of a coordinate without exponent, which exiftool would not parse.
+	 *
+	 * @param coordinate
+	 * 		latitude or longitude
+	 * @return formatted value
+	 */
+	static String formatCoordinate(double coordinate) {
+		return BigDecimal.valueOf(Math.abs(coordinate)).toPlainString();
+	}
+
+	/**
+	 * Returns the latitude reference of the given geolocation.
+	 *
+	 * @param geolocation
+	 * 		geolocation
+	 * @return <code>N</code> or <code>S</code>
+	 */
+	private static String getLatitudeRef(LatLong geolocation) {
+		return geolocation.getLatitude() >= 0 ? "N" : "S";
+	}
+
+	/**
+	 * Returns the longitude reference of the given geolocation.
+	 *
+	 * @param geolocation
+	 * 		geolocation
+	 * @return <code>E</code> or <code>W</code>
+	 */
+	private static String getLongitudeRef(LatLong geolocation) {
+		return geolocation.getLongitude() >= 0 ? "E" : "W";
+	}
+
+	/**
+	 * Tries to patch the geolocation of the given image in place.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> if the geolocation has been written
+	 */
+	private boolean writeInPlace(ImageModel imageModel) {
+		try {
+			return EXIF_WRITER.writeGeolocation(imageModel.getImage(), geolocations.get(imageModel));
+		} catch (IOException e) {
+			// let exiftool rewrite the file
+			return false;
+		}
 	}
 
 	/**
@@ -120,6 +340,34 @@ public class WriteGeolocationTask extends SynchronizedImageModelTask<Void> {
 	 */
 	@Override
 	String getProcessName() {
-		return StringUtils.isNotEmpty(exiftoolPath) ? exiftoolPath : "exiftool";
+		return exiftoolPool.getExiftoolPath();
+	}
+
+	/**
+	 * Writes are started by the user, so they pass the waiting meta data reads.
+	 *
+	 * @return user priority
+	 */
+	@Override
+	ExiftoolPool.Priority getExiftoolPriority() {
+		return ExiftoolPool.Priority.USER;
+	}
+
+	/**
+	 * Functional interface for the callback when the geolocation has been written.
+	 *
+	 * @author osterrath
+	 */
+	@FunctionalInterface
+	public interface Callback {
+		/**
+		 * Saves the written geolocation.
+		 *
+		 * @param targetImageModel
+		 * 		image model to save data to
+		 * @param geolocation
+		 * 		written geolocation
+		 */
+		void handleGeolocation(ImageModel targetImageModel, LatLong geolocation);
 	}
 }
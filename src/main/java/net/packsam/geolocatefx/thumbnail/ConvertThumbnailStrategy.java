@@ -0,0 +1,337 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import net.packsam.geolocatefx.Constants;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Strategy that creates thumbnails with Image Magick convert. An optional frame selector picks a single frame or layer of the source file, so convert does not have
+ * to read all of them. Several images are converted by a single process to save the startup time of Image Magick.
+ *
+ * @author osterrath
+ */
+public class ConvertThumbnailStrategy implements ThumbnailStrategy {
+	/**
+	 * Size parameter for convert -resize.
+	 */
+	private final static String RESIZE_DIMENSIONS_PARAM = "\"" + Constants.THUMBNAIL_WIDTH + "x" + (Constants.THUMBNAIL_WIDTH << 1) + ">\"";
+
+	/**
+	 * Number of images in the first batch before any durations have been measured.
+	 */
+	private final static int INITIAL_BATCH_SIZE = 4;
+
+	/**
+	 * Maximum number of images per convert process.
+	 */
+	private final static int MAX_BATCH_SIZE = 32;
+
+	/**
+	 * Targeted duration of a single convert process in ns. Longer batches save less startup time relatively and delay the thumbnails of the first files.
+	 */
+	private final static double TARGET_BATCH_DURATION = 2_000_000_000d;
+
+	/**
+	 * Weight of a new measurement for the average duration per file.
+	 */
+	private final static double SMOOTHING_FACTOR = 0.2;
+
+	/**
+	 * Maximum length of the convert command line, Windows limits command lines to 32767 characters.
+	 */
+	private final static int MAX_COMMAND_LENGTH = 30000;
+
+	/**
+	 * Length of the fixed arguments per file in a batch command line.
+	 */
+	private final static int COMMAND_LENGTH_PER_FILE = 64;
+
+	/**
+	 * Name of the strategy.
+	 */
+	private final String name;
+
+	/**
+	 * Supplier for the path to Image Magick convert.
+	 */
+	private final Supplier<String> convertPathSupplier;
+
+	/**
+	 * Selector for the frame of the source file, e.g. <code>[0]</code>. May return <code>null</code> for the complete file.
+	 */
+	private final Function<ImageModel, String> frameSelector;
+
+	/**
+	 * Supported file extensions in lower case, empty for all files.
+	 */
+	private final Set<String> extensions;
+
+	/**
+	 * Moving average of the convert duration per file in ns, <code>0</code> if nothing has been measured yet.
+	 */
+	private double averageFileDuration;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param name
+	 * 		name of the strategy
+	 * @param convertPathSupplier
+	 * 		supplier for the path to Image Magick convert
+	 * @param frameSelector
+	 * 		optional selector for the frame of the source file
+	 * @param extensions
+	 * 		supported file extensions, none for all files
+	 */
+	public ConvertThumbnailStrategy(String name, Supplier<String> convertPathSupplier, Function<ImageModel, String> frameSelector, String... extensions) {
+		this.name = name;
+		this.convertPathSupplier = convertPathSupplier;
+		this.frameSelector = frameSelector;
+		this.extensions = new HashSet<>(Arrays.asList(extensions));
+	}
+
+	/**
+	 * Returns the name of the strategy for statistics.
+	 *
+	 * @return name
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Checks if this strategy can handle the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> if the file extension is supported
+	 */
+	@Override
+	public boolean isSupported(ImageModel imageModel) {
+		if (extensions.isEmpty()) {
+			return true;
+		}
+		String extension = StringUtils.lowerCase(FilenameUtils.getExtension(imageModel.getImage().getName()));
+		return extensions.contains(extension);
+	}
+
+	/**
+	 * Checks if images this strategy could not handle are passed to the next supporting strategy. Convert is the last strategy, a file it could not convert would fail again.
+	 *
+	 * @return <code>false</code>
+	 */
+	@Override
+	public boolean isFallbackAllowed() {
+		return false;
+	}
+
+	/**
+	 * Creates the thumbnails of the given images. Multiple images are sent through a single convert process, the batch size adapts to the measured time per file.
+	 *
+	 * @param thumbnailFiles
+	 * 		target files for the thumbnails by image model
+	 * @param processRunner
+	 * 		runner for external processes
+	 * @return image models whose thumbnail has been written
+	 * @throws IOException
+	 * 		convert could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for convert
+	 */
+	@Override
+	public Set<ImageModel> createThumbnails(Map<ImageModel, File> thumbnailFiles, ProcessRunner processRunner) throws IOException, InterruptedException {
+		Set<ImageModel> createdThumbnails = new HashSet<>();
+		List<Map.Entry<ImageModel, File>> entries = new ArrayList<>(thumbnailFiles.entrySet());
+
+		int index = 0;
+		while (index < entries.size()) {
+			List<Map.Entry<ImageModel, File>> batch = nextBatch(entries, index);
+			index += batch.size();
+
+			if (batch.size() > 1) {
+				// remove partial output of previous strategies, the written files are detected by their size
+				for (Map.Entry<ImageModel, File> entry : batch) {
+					Files.write(entry.getValue().toPath(), new byte[0]);
+				}
+
+				long start = System.nanoTime();
+				boolean successful = convertBatch(batch, processRunner);
+				if (successful) {
+					recordDuration(System.nanoTime() - start, batch.size());
+				}
+				for (Map.Entry<ImageModel, File> entry : batch) {
+					if (entry.getValue().length() > 0) {
+						createdThumbnails.add(entry.getKey());
+					}
+				}
+			}
+
+			// single files and failed files of a batch are converted one by one, so errors are reported for the broken file only
+			for (Map.Entry<ImageModel, File> entry : batch) {
+				if (createdThumbnails.contains(entry.getKey())) {
+					continue;
+				}
+				long start = System.nanoTime();
+				if (convertSingle(entry, processRunner)) {
+					recordDuration(System.nanoTime() - start, 1);
+					createdThumbnails.add(entry.getKey());
+				}
+			}
+		}
+		return createdThumbnails;
+	}
+
+	/**
+	 * Returns the next batch starting at the given index. The batch size is limited by the adaptive batch size and the command line length.
+	 *
+	 * @param entries
+	 * 		all entries
+	 * @param index
+	 * 		start index
+	 * @return next batch
+	 */
+	private List<Map.Entry<ImageModel, File>> nextBatch(List<Map.Entry<ImageModel, File>> entries, int index) {
+		int batchSize = getBatchSize();
+		int commandLength = 0;
+		int end = index;
+		while (end < entries.size() && end - index < batchSize) {
+			Map.Entry<ImageModel, File> entry = entries.get(end);
+			commandLength += getSource(entry.getKey()).length() + entry.getValue().getAbsolutePath().length() + COMMAND_LENGTH_PER_FILE;
+			if (end > index && commandLength > MAX_COMMAND_LENGTH) {
+				break;
+			}
+			end++;
+		}
+		return entries.subList(index, end);
+	}
+
+	/**
+	 * Converts a single image.
+	 *
+	 * @param entry
+	 * 		image model and target file
+	 * @param processRunner
+	 * 		runner for external processes
+	 * @return <code>true</code> if the thumbnail has been written
+	 * @throws IOException
+	 * 		convert could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for convert
+	 */
+	private boolean convertSingle(Map.Entry<ImageModel, File> entry, ProcessRunner processRunner) throws IOException, InterruptedException {
+		ProcessBuilder processBuilder = new ProcessBuilder(
+				getConvertPath(),
+				getSource(entry.getKey()),
+				"-background", "white",
+				"-flatten",
+				"-thumbnail", RESIZE_DIMENSIONS_PARAM,
+				"-quality", "60%",
+				"jpg:" + entry.getValue().getAbsolutePath()
+		);
+		return processRunner.run(processBuilder) == 0;
+	}
+
+	/**
+	 * Converts all images of the given batch in a single convert process. Every image is processed in its own parenthesized image sequence and written with
+	 * <code>-write</code>. Errors are not reported, the caller checks which thumbnails have been written.
+	 *
+	 * @param batch
+	 * 		image models and target files
+	 * @param processRunner
+	 * 		runner for external processes
+	 * @return <code>true</code> if convert exited successfully
+	 * @throws IOException
+	 * 		convert could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for convert
+	 */
+	private boolean convertBatch(List<Map.Entry<ImageModel, File>> batch, ProcessRunner processRunner) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>(Arrays.asList(
+				getConvertPath(),
+				"-background", "white",
+				"-quality", "60%"
+		));
+		for (Map.Entry<ImageModel, File> entry : batch) {
+			command.addAll(Arrays.asList(
+					"(",
+					getSource(entry.getKey()),
+					"-flatten",
+					"-thumbnail", RESIZE_DIMENSIONS_PARAM,
+					"-write", "jpg:" + entry.getValue().getAbsolutePath(),
+					")"
+			));
+		}
+		command.add("null:");
+
+		File nullFile = new File(SystemUtils.IS_OS_WINDOWS ? "NUL" : "/dev/null");
+		ProcessBuilder processBuilder = new ProcessBuilder(command)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(nullFile))
+				.redirectError(ProcessBuilder.Redirect.appendTo(nullFile));
+		return processRunner.run(processBuilder, false) == 0;
+	}
+
+	/**
+	 * Returns the number of images for the next convert process, so a single process takes about {@link #TARGET_BATCH_DURATION}.
+	 *
+	 * @return batch size
+	 */
+	private synchronized int getBatchSize() {
+		if (averageFileDuration <= 0) {
+			return INITIAL_BATCH_SIZE;
+		}
+		long batchSize = Math.round(TARGET_BATCH_DURATION / averageFileDuration);
+		return (int) Math.max(1, Math.min(MAX_BATCH_SIZE, batchSize));
+	}
+
+	/**
+	 * Records the measured duration of a convert process.
+	 *
+	 * @param duration
+	 * 		duration in ns
+	 * @param fileCount
+	 * 		number of converted files
+	 */
+	private synchronized void recordDuration(long duration, int fileCount) {
+		double fileDuration = (double) duration / fileCount;
+		averageFileDuration = averageFileDuration <= 0 ? fileDuration : averageFileDuration + SMOOTHING_FACTOR * (fileDuration - averageFileDuration);
+	}
+
+	/**
+	 * Returns the source argument for convert.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return file path with optional frame selection
+	 */
+	private String getSource(ImageModel imageModel) {
+		String source = imageModel.getImage().getAbsolutePath();
+		String frame = frameSelector != null ? frameSelector.apply(imageModel) : null;
+		return frame != null ? source + frame : source;
+	}
+
+	/**
+	 * Returns the path to Image Magick convert.
+	 *
+	 * @return convert path
+	 */
+	private String getConvertPath() {
+		String convertPath = convertPathSupplier.get();
+		return StringUtils.isNotEmpty(convertPath) ? convertPath : "convert";
+	}
+}
@@ -0,0 +1,78 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Strategy for JPEG files, the thumbnails are created in-process by {@link JpegThumbnailer}.
+ *
+ * @author osterrath
+ */
+public class JpegThumbnailStrategy implements ThumbnailStrategy {
+	/**
+	 * Thumbnailer for JPEG files.
+	 */
+	private final JpegThumbnailer jpegThumbnailer = new JpegThumbnailer();
+
+	/**
+	 * Returns the name of the strategy for statistics.
+	 *
+	 * @return name
+	 */
+	@Override
+	public String getName() {
+		return "jpeg";
+	}
+
+	/**
+	 * Checks if this strategy can handle the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> for JPEG files
+	 */
+	@Override
+	public boolean isSupported(ImageModel imageModel) {
+		return JpegThumbnailer.isSupported(imageModel.getImage());
+	}
+
+	/**
+	 * Checks if images this strategy could not handle are passed to the next supporting strategy. JPEG files the in-process reader cannot decode are
+	 * converted by an external program.
+	 *
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean isFallbackAllowed() {
+		return true;
+	}
+
+	/**
+	 * Creates the thumbnails of the given images.
+	 *
+	 * @param thumbnailFiles
+	 * 		target files for the thumbnails by image model
+	 * @param processRunner
+	 * 		runner for external processes (unused)
+	 * @return image models whose thumbnail has been written
+	 */
+	@Override
+	public Set<ImageModel> createThumbnails(Map<ImageModel, File> thumbnailFiles, ProcessRunner processRunner) {
+		Set<ImageModel> createdThumbnails = new HashSet<>();
+		thumbnailFiles.forEach((imageModel, thumbnailFile) -> {
+			try {
+				if (jpegThumbnailer.createThumbnail(imageModel.getImage(), thumbnailFile)) {
+					createdThumbnails.add(imageModel);
+				}
+			} catch (IOException e) {
+				// let the next strategy handle this file
+			}
+		});
+		return createdThumbnails;
+	}
+}
@@ -0,0 +1,276 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import net.packsam.geolocatefx.Constants;
+import net.packsam.geolocatefx.exif.ExifReader;
+
+/**
+ * Creates thumbnails of JPEG files without starting an external process. The embedded EXIF thumbnail is used if it is large enough, otherwise the image is decoded with
+ * source subsampling, so only a fraction of the pixels has to be kept in memory and scaled.
+ *
+ * <p>
+ * The result matches the output of <code>convert -thumbnail WxH&gt; -quality 60%</code>: the image is only scaled down and flattened onto a white background.
+ * </p>
+ *
+ * @author osterrath
+ */
+public class JpegThumbnailer {
+	/**
+	 * Maximum width of a thumbnail.
+	 */
+	private final static int MAX_WIDTH = Constants.THUMBNAIL_WIDTH;
+
+	/**
+	 * Maximum height of a thumbnail.
+	 */
+	private final static int MAX_HEIGHT = Constants.THUMBNAIL_WIDTH << 1;
+
+	/**
+	 * JPEG quality of the thumbnail.
+	 */
+	private final static float QUALITY = 0.6f;
+
+	/**
+	 * Maximum difference of the aspect ratios of embedded thumbnail and image. Many cameras store letterboxed thumbnails that cannot be used.
+	 */
+	private final static double MAX_ASPECT_RATIO_DIFFERENCE = 0.02;
+
+	/**
+	 * Reader for the embedded EXIF thumbnail.
+	 */
+	private final static ExifReader EXIF_READER = new ExifReader();
+
+	/**
+	 * Checks if the given file can be handled by this thumbnailer.
+	 *
+	 * @param file
+	 * 		image file
+	 * @return <code>true</code> for JPEG files
+	 */
+	public static boolean isSupported(File file) {
+		String extension = FilenameUtils.getExtension(file.getName());
+		return StringUtils.equalsAnyIgnoreCase(extension, "jpg", "jpeg");
+	}
+
+	/**
+	 * Creates the thumbnail of the given JPEG file.
+	 *
+	 * @param imageFile
+	 * 		JPEG file
+	 * @param thumbnailFile
+	 * 		target file for the thumbnail
+	 * @return <code>true</code> if the thumbnail has been written, <code>false</code> if the image cannot be decoded (e.g. CMYK JPEGs)
+	 * @throws IOException
+	 * 		could not read image or write thumbnail
+	 */
+	public boolean createThumbnail(File imageFile, File thumbnailFile) throws IOException {
+		BufferedImage image;
+		try (ImageInputStream in = ImageIO.createImageInputStream(imageFile)) {
+			ImageReader reader = getReader(in);
+			if (reader == null) {
+				return false;
+			}
+
+			try {
+				reader.setInput(in, true, true);
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+
+				image = readEmbeddedThumbnail(imageFile, width, height);
+				if (image == null) {
+					image = readSubsampled(reader, width, height);
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				// unsupported color space or broken file, let the external process try its luck
+				return false;
+			} finally {
+				reader.dispose();
+			}
+		}
+
+		writeJpeg(scale(image), thumbnailFile);
+		return true;
+	}
+
+	/**
+	 * Reads the embedded EXIF thumbnail if it is large enough and has the aspect ratio of the image.
+	 *
+	 * @param imageFile
+	 * 		JPEG file
+	 * @param width
+	 * 		image width
+	 * @param height
+	 * 		image height
+	 * @return thumbnail or <code>null</code> if it cannot be used
+	 */
+	private BufferedImage readEmbeddedThumbnail(File imageFile, int width, int height) {
+		try {
+			byte[] thumbnailData = EXIF_READER.readThumbnail(imageFile);
+			if (thumbnailData == null) {
+				return null;
+			}
+
+			BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(thumbnailData));
+			if (thumbnail == null) {
+				return null;
+			}
+
+			int[] targetSize = getTargetSize(width, height);
+			double imageAspectRatio = (double) width / height;
+			double thumbnailAspectRatio = (double) thumbnail.getWidth() / thumbnail.getHeight();
+			if (thumbnail.getWidth() < targetSize[0] || thumbnail.getHeight() < targetSize[1] || Math.abs(imageAspectRatio / thumbnailAspectRatio - 1) > MAX_ASPECT_RATIO_DIFFERENCE) {
+				return null;
+			}
+			return thumbnail;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes the image with source subsampling. The subsampled image is still at least twice the thumbnail size, so the final scaling can average the pixels.
+	 *
+	 * @param reader
+	 * 		image reader
+	 * @param width
+	 * 		image width
+	 * @param height
+	 * 		image height
+	 * @return decoded image
+	 * @throws IOException
+	 * 		could not decode image
+	 */
+	private BufferedImage readSubsampled(ImageReader reader, int width, int height) throws IOException {
+		int[] targetSize = getTargetSize(width, height);
+		int subsampling = Math.max(1, Math.min(width / (targetSize[0] << 1), height / (targetSize[1] << 1)));
+
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		return reader.read(0, param);
+	}
+
+	/**
+	 * Scales the given image down to the thumbnail size and flattens it onto a white background. The image is halved in multiple steps for a smooth result.
+	 *
+	 * @param image
+	 * 		image
+	 * @return thumbnail image
+	 */
+	private BufferedImage scale(BufferedImage image) {
+		int[] targetSize = getTargetSize(image.getWidth(), image.getHeight());
+		BufferedImage current = image;
+		int width = image.getWidth();
+		int height = image.getHeight();
+		do {
+			width = Math.max(targetSize[0], width >> 1);
+			height = Math.max(targetSize[1], height >> 1);
+			current = draw(current, width, height);
+		} while (width > targetSize[0] || height > targetSize[1]);
+		return current;
+	}
+
+	/**
+	 * Draws the given image with the given size onto a white RGB image.
+	 *
+	 * @param image
+	 * 		image
+	 * @param width
+	 * 		target width
+	 * @param height
+	 * 		target height
+	 * @return new image
+	 */
+	private BufferedImage draw(BufferedImage image, int width, int height) {
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = result.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			g.dispose();
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the given image as JPEG file.
+	 *
+	 * @param image
+	 * 		image
+	 * @param file
+	 * 		target file
+	 * @throws IOException
+	 * 		could not write file
+	 */
+	private void writeJpeg(BufferedImage image, File file) throws IOException {
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+		if (!writers.hasNext()) {
+			throw new IOException("No JPEG writer available");
+		}
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(QUALITY);
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	/**
+	 * Returns the JPEG reader for the given stream.
+	 *
+	 * @param in
+	 * 		image input stream
+	 * @return reader or <code>null</code> if the stream contains no supported image
+	 */
+	private ImageReader getReader(ImageInputStream in) {
+		if (in == null) {
+			return null;
+		}
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+		return readers.hasNext() ? readers.next() : null;
+	}
+
+	/**
+	 * Calculates the thumbnail size for the given image size. Images are only scaled down, never up.
+	 *
+	 * @param width
+	 * 		image width
+	 * @param height
+	 * 		image height
+	 * @return width and height of the thumbnail
+	 */
+	private static int[] getTargetSize(int width, int height) {
+		double scale = Math.min(1.0, Math.min((double) MAX_WIDTH / width, (double) MAX_HEIGHT / height));
+		return new int[]{
+				Math.max(1, (int) Math.round(width * scale)),
+				Math.max(1, (int) Math.round(height * scale))
+		};
+	}
+}
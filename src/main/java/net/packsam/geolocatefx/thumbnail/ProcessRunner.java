@@ -0,0 +1,41 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.IOException;
+
+/**
+ * Functional interface for running external processes, so errors are reported by the calling task.
+ *
+ * @author osterrath
+ */
+@FunctionalInterface
+public interface ProcessRunner {
+	/**
+	 * Starts the process created by the given process builder and waits for it to exit.
+	 *
+	 * @param processBuilder
+	 * 		process builder
+	 * @return exit code of process
+	 * @throws IOException
+	 * 		process could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for process end
+	 */
+	default int run(ProcessBuilder processBuilder) throws IOException, InterruptedException {
+		return run(processBuilder, true);
+	}
+
+	/**
+	 * Starts the process created by the given process builder and waits for it to exit.
+	 *
+	 * @param processBuilder
+	 * 		process builder
+	 * @param reportErrors
+	 * 		<code>true</code> if a failed process should be reported to the error handler of the task
+	 * @return exit code of process
+	 * @throws IOException
+	 * 		process could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for process end
+	 */
+	int run(ProcessBuilder processBuilder, boolean reportErrors) throws IOException, InterruptedException;
+}
@@ -0,0 +1,233 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Strategy for RAW files that uses the JPEG preview embedded by the camera instead of demosaicing the RAW data. The previews of all files are extracted with a single
+ * exiftool call per preview tag and scaled by {@link JpegThumbnailer}.
+ *
+ * @author osterrath
+ */
+public class RawPreviewThumbnailStrategy implements ThumbnailStrategy {
+	/**
+	 * Preview tags in order of preference, the smaller preview is faster to decode.
+	 */
+	private final static List<String> PREVIEW_TAGS = Arrays.asList("PreviewImage", "JpgFromRaw");
+
+	/**
+	 * Supported file extensions.
+	 */
+	private final static Set<String> EXTENSIONS = new HashSet<>(Arrays.asList("dng", "raw", "cr2", "cr3", "nef", "nrw", "arw", "srf", "sr2", "srw"));
+
+	/**
+	 * Pool of exiftool processes.
+	 */
+	private final ExiftoolPool exiftoolPool;
+
+	/**
+	 * Thumbnailer for the extracted previews.
+	 */
+	private final JpegThumbnailer jpegThumbnailer = new JpegThumbnailer();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 */
+	public RawPreviewThumbnailStrategy(ExiftoolPool exiftoolPool) {
+		this.exiftoolPool = exiftoolPool;
+	}
+
+	/**
+	 * Returns the name of the strategy for statistics.
+	 *
+	 * @return name
+	 */
+	@Override
+	public String getName() {
+		return "raw-preview";
+	}
+
+	/**
+	 * Checks if this strategy can handle the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> for RAW files
+	 */
+	@Override
+	public boolean isSupported(ImageModel imageModel) {
+		String extension = StringUtils.lowerCase(FilenameUtils.getExtension(imageModel.getImage().getName()));
+		return EXTENSIONS.contains(extension);
+	}
+
+	/**
+	 * Checks if images this strategy could not handle are passed to the next supporting strategy. RAW files without embedded preview are converted by an external program.
+	 *
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean isFallbackAllowed() {
+		return true;
+	}
+
+	/**
+	 * Creates the thumbnails of the given images from their embedded previews.
+	 *
+	 * @param thumbnailFiles
+	 * 		target files for the thumbnails by image model
+	 * @param processRunner
+	 * 		runner for external processes (unused, exiftool runs in the pool)
+	 * @return image models whose thumbnail has been written
+	 * @throws IOException
+	 * 		could not create temporary directory
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for exiftool
+	 */
+	@Override
+	public Set<ImageModel> createThumbnails(Map<ImageModel, File> thumbnailFiles, ProcessRunner processRunner) throws IOException, InterruptedException {
+		Set<ImageModel> createdThumbnails = new HashSet<>();
+		Map<ImageModel, File> remainingThumbnailFiles = new LinkedHashMap<>(thumbnailFiles);
+
+		File previewDirectory = Files.createTempDirectory("geolocatefx-preview").toFile();
+		try {
+			for (String previewTag : PREVIEW_TAGS) {
+				List<List<ImageModel>> batches = splitByFileName(remainingThumbnailFiles.keySet());
+				for (int i = 0; i < batches.size(); i++) {
+					List<ImageModel> batch = batches.get(i);
+					File tagDirectory = new File(previewDirectory, previewTag + "-" + i);
+					if (!extractPreviews(previewTag, batch, tagDirectory)) {
+						continue;
+					}
+
+					for (ImageModel imageModel : batch) {
+						File previewFile = getPreviewFile(tagDirectory, imageModel);
+						if (previewFile.length() > 0 && createThumbnail(previewFile, remainingThumbnailFiles.get(imageModel))) {
+							createdThumbnails.add(imageModel);
+						}
+					}
+				}
+				remainingThumbnailFiles.keySet().removeAll(createdThumbnails);
+				if (remainingThumbnailFiles.isEmpty()) {
+					break;
+				}
+			}
+		} finally {
+			FileUtils.deleteQuietly(previewDirectory);
+		}
+
+		return createdThumbnails;
+	}
+
+	/**
+	 * Extracts the given preview tag of all images into the given directory with a single exiftool call.
+	 *
+	 * @param previewTag
+	 * 		preview tag
+	 * @param imageModels
+	 * 		image models with distinct file names
+	 * @param directory
+	 * 		target directory
+	 * @return <code>true</code> if exiftool could be called
+	 * @throws InterruptedException
+	 * 		thread got interrupted while waiting for exiftool
+	 */
+	private boolean extractPreviews(String previewTag, List<ImageModel> imageModels, File directory) throws InterruptedException {
+		if (!directory.mkdirs()) {
+			return false;
+		}
+
+		// write binary values to files instead of STDOUT, files without preview are skipped silently
+		List<String> arguments = new ArrayList<>(Arrays.asList(
+				"-q", "-q",
+				"-b",
+				"-" + previewTag,
+				"-w", directory.getAbsolutePath() + File.separator + "%f_%e.jpg"
+		));
+		imageModels.stream()
+				.map(im -> im.getImage().getAbsolutePath())
+				.forEach(arguments::add);
+
+		try {
+			exiftoolPool.execute(arguments, null);
+			return true;
+		} catch (IOException e) {
+			// exiftool not available, let the next strategy handle the files
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the thumbnail from the extracted preview.
+	 *
+	 * @param previewFile
+	 * 		extracted JPEG preview
+	 * @param thumbnailFile
+	 * 		target file for the thumbnail
+	 * @return <code>true</code> if the thumbnail has been written
+	 */
+	private boolean createThumbnail(File previewFile, File thumbnailFile) {
+		try {
+			return jpegThumbnailer.createThumbnail(previewFile, thumbnailFile);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the file that exiftool writes the preview of the given image to.
+	 *
+	 * @param directory
+	 * 		target directory of exiftool
+	 * @param imageModel
+	 * 		image model
+	 * @return preview file
+	 */
+	private File getPreviewFile(File directory, ImageModel imageModel) {
+		String fileName = imageModel.getImage().getName();
+		return new File(directory, FilenameUtils.getBaseName(fileName) + "_" + FilenameUtils.getExtension(fileName) + ".jpg");
+	}
+
+	/**
+	 * Splits the given image models into batches with distinct file names, so the extracted previews cannot overwrite each other.
+	 *
+	 * @param imageModels
+	 * 		image models
+	 * @return batches
+	 */
+	private List<List<ImageModel>> splitByFileName(Set<ImageModel> imageModels) {
+		List<List<ImageModel>> batches = new ArrayList<>();
+		List<Set<String>> batchFileNames = new ArrayList<>();
+		for (ImageModel imageModel : imageModels) {
+			String fileName = imageModel.getImage().getName().toLowerCase();
+			int batch = 0;
+			while (batch < batches.size() && batchFileNames.get(batch).contains(fileName)) {
+				batch++;
+			}
+			if (batch == batches.size()) {
+				batches.add(new ArrayList<>());
+				batchFileNames.add(new HashSet<>());
+			}
+			batches.get(batch).add(imageModel);
+			batchFileNames.get(batch).add(fileName);
+		}
+		return batches;
+	}
+}
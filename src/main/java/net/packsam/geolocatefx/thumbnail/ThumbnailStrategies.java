@@ -0,0 +1,216 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import net.packsam.geolocatefx.exiftool.ExiftoolPool;
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Registry of thumbnail strategies. Every image is passed to the supported strategies in order until one of them has created the thumbnail or a strategy without fallback
+ * has failed. The time spent in every strategy is recorded.
+ *
+ * @author osterrath
+ */
+public class ThumbnailStrategies {
+	/**
+	 * Logger.
+	 */
+	private final static Logger LOG = Logger.getLogger(ThumbnailStrategies.class.getName());
+
+	/**
+	 * Strategies in order of preference.
+	 */
+	private final List<ThumbnailStrategy> strategies;
+
+	/**
+	 * Statistics by strategy.
+	 */
+	private final Map<ThumbnailStrategy, Statistics> statistics = new LinkedHashMap<>();
+
+	/**
+	 * Ctor.
+	 *
+	 * @param strategies
+	 * 		strategies in order of preference
+	 */
+	public ThumbnailStrategies(List<ThumbnailStrategy> strategies) {
+		this.strategies = new ArrayList<>(strategies);
+		strategies.forEach(s -> statistics.put(s, new Statistics()));
+	}
+
+	/**
+	 * Creates the default strategies: JPEG in-process, embedded previews of RAW files, the composite layer of PSD files, the first page of TIFF files, the middle frame
+	 * of videos and convert for everything else.
+	 *
+	 * @param exiftoolPool
+	 * 		pool of exiftool processes
+	 * @param convertPathSupplier
+	 * 		supplier for the path to Image Magick convert
+	 * @return strategy registry
+	 */
+	public static ThumbnailStrategies createDefault(ExiftoolPool exiftoolPool, Supplier<String> convertPathSupplier) {
+		return new ThumbnailStrategies(Arrays.asList(
+				new JpegThumbnailStrategy(),
+				new RawPreviewThumbnailStrategy(exiftoolPool),
+				new ConvertThumbnailStrategy("psd", convertPathSupplier, im -> "[0]", "psd"),
+				new ConvertThumbnailStrategy("tiff", convertPathSupplier, im -> "[0]", "tif", "tiff"),
+				new ConvertThumbnailStrategy("video", convertPathSupplier, ThumbnailStrategies::selectMiddleFrame, "mp4", "mov", "m2ts", "avi"),
+				new ConvertThumbnailStrategy("convert", convertPathSupplier, null)
+		));
+	}
+
+	/**
+	 * Creates the thumbnails of the given images.
+	 *
+	 * @param thumbnailFiles
+	 * 		target files for the thumbnails by image model
+	 * @param processRunner
+	 * 		runner for external processes
+	 * @return image models whose thumbnail has been written
+	 * @throws IOException
+	 * 		external process could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	public Set<ImageModel> createThumbnails(Map<ImageModel, File> thumbnailFiles, ProcessRunner processRunner) throws IOException, InterruptedException {
+		Set<ImageModel> createdThumbnails = new HashSet<>();
+		Map<ImageModel, File> remainingThumbnailFiles = new LinkedHashMap<>(thumbnailFiles);
+
+		for (ThumbnailStrategy strategy : strategies) {
+			Map<ImageModel, File> supportedThumbnailFiles = remainingThumbnailFiles.entrySet().stream()
+					.filter(e -> strategy.isSupported(e.getKey()))
+					.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (f1, f2) -> f1, LinkedHashMap::new));
+			if (supportedThumbnailFiles.isEmpty()) {
+				continue;
+			}
+
+			Statistics strategyStatistics = statistics.get(strategy);
+			ProcessRunner countingProcessRunner = (processBuilder, reportErrors) -> {
+				strategyStatistics.processes.increment();
+				return processRunner.run(processBuilder, reportErrors);
+			};
+
+			Set<ImageModel> strategyThumbnails = new HashSet<>();
+			long start = System.nanoTime();
+			try {
+				strategyThumbnails = strategy.createThumbnails(supportedThumbnailFiles, countingProcessRunner);
+			} finally {
+				strategyStatistics.record(supportedThumbnailFiles.size(), strategyThumbnails.size(), System.nanoTime() - start);
+			}
+
+			createdThumbnails.addAll(strategyThumbnails);
+			remainingThumbnailFiles.keySet().removeAll(strategy.isFallbackAllowed() ? strategyThumbnails : supportedThumbnailFiles.keySet());
+			if (remainingThumbnailFiles.isEmpty()) {
+				break;
+			}
+		}
+
+		return createdThumbnails;
+	}
+
+	/**
+	 * Returns a summary of the time spent in every strategy.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return statistics.entrySet().stream()
+				.map(e -> e.getKey().getName() + ": " + e.getValue())
+				.collect(Collectors.joining(", ", "thumbnail strategies: ", ""));
+	}
+
+	/**
+	 * Logs the statistics.
+	 */
+	public void logStatistics() {
+		LOG.info(getStatistics());
+	}
+
+	/**
+	 * Selects the frame in the middle of a video.
+	 *
+	 * @param imageModel
+	 * 		image model with duration and frame rate
+	 * @return frame selection or <code>null</code> if the video length is unknown
+	 */
+	private static String selectMiddleFrame(ImageModel imageModel) {
+		if (imageModel.getDuration() != null && imageModel.getDuration() > 0 && imageModel.getVideoFrameRate() != null && imageModel.getVideoFrameRate() > 0) {
+			int totalFrames = (int) (imageModel.getDuration() * imageModel.getVideoFrameRate());
+			return "[" + (totalFrames >> 1) + "]";
+		}
+		return null;
+	}
+
+	/**
+	 * Statistics of a single strategy.
+	 *
+	 * @author osterrath
+	 */
+	private static class Statistics {
+		/**
+		 * Number of files passed to the strategy.
+		 */
+		private final LongAdder attemptedFiles = new LongAdder();
+
+		/**
+		 * Number of thumbnails created by the strategy.
+		 */
+		private final LongAdder createdThumbnails = new LongAdder();
+
+		/**
+		 * Total time spent in the strategy in ns.
+		 */
+		private final LongAdder time = new LongAdder();
+
+		/**
+		 * Number of external processes started by the strategy.
+		 */
+		private final LongAdder processes = new LongAdder();
+
+		/**
+		 * Records a single call of the strategy.
+		 *
+		 * @param attempted
+		 * 		number of files passed to the strategy
+		 * @param created
+		 * 		number of thumbnails created
+		 * @param duration
+		 * 		duration in ns
+		 */
+		private void record(int attempted, int created, long duration) {
+			attemptedFiles.add(attempted);
+			createdThumbnails.add(created);
+			time.add(duration);
+		}
+
+		/**
+		 * Returns a string representation of the statistics.
+		 *
+		 * @return string representation
+		 */
+		@Override
+		public String toString() {
+			long attempted = attemptedFiles.sum();
+			long totalTime = time.sum();
+			return String.format(
+					"%d/%d created in %d processes (avg %.1f ms per file)",
+					createdThumbnails.sum(),
+					attempted,
+					processes.sum(),
+					attempted > 0 ? totalTime / 1_000_000d / attempted : 0
+			);
+		}
+	}
+}
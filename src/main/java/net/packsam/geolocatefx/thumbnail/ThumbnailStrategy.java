@@ -0,0 +1,54 @@
+package net.packsam.geolocatefx.thumbnail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Strategy for creating thumbnails of a specific file type.
+ *
+ * @author osterrath
+ */
+public interface ThumbnailStrategy {
+	/**
+	 * Returns the name of the strategy for statistics.
+	 *
+	 * @return name
+	 */
+	String getName();
+
+	/**
+	 * Checks if this strategy can handle the given image.
+	 *
+	 * @param imageModel
+	 * 		image model
+	 * @return <code>true</code> if the strategy should be tried for the image
+	 */
+	boolean isSupported(ImageModel imageModel);
+
+	/**
+	 * Checks if images this strategy could not handle are passed to the next supporting strategy. Strategies running the same external program as the last strategy must
+	 * not pass them on, otherwise the program would fail twice for the same file.
+	 *
+	 * @return <code>true</code> if failed images are tried with the next strategy
+	 */
+	boolean isFallbackAllowed();
+
+	/**
+	 * Creates the thumbnails of the given images. Images that cannot be handled are left out of the result and will be passed to the next strategy if fallbacks are allowed.
+	 *
+	 * @param thumbnailFiles
+	 * 		target files for the thumbnails by image model
+	 * @param processRunner
+	 * 		runner for external processes
+	 * @return image models whose thumbnail has been written
+	 * @throws IOException
+	 * 		external process could not be started
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	Set<ImageModel> createThumbnails(Map<ImageModel, File> thumbnailFiles, ProcessRunner processRunner) throws IOException, InterruptedException;
+}
@@ -0,0 +1,247 @@
+package net.packsam.geolocatefx.track;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Recorded track of a GPX file. All track points with a timestamp are kept in chronological order, positions between two points are interpolated linearly.
+ *
+ * @author osterrath
+ */
+public class GpxTrack {
+	/**
+	 * Timestamps of the track points in ms.
+	 */
+	private final long[] times;
+
+	/**
+	 * Latitudes of the track points.
+	 */
+	private final double[] latitudes;
+
+	/**
+	 * Longitudes of the track points.
+	 */
+	private final double[] longitudes;
+
+	/**
+	 * Ctor.
+	 *
+	 * @param times
+	 * 		timestamps of the track points in ms, in ascending order
+	 * @param latitudes
+	 * 		latitudes of the track points
+	 * @param longitudes
+	 * 		longitudes of the track points
+	 */
+	private GpxTrack(long[] times, double[] latitudes, double[] longitudes) {
+		this.times = times;
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+	}
+
+	/**
+	 * Reads the track points of the given GPX file.
+	 *
+	 * @param file
+	 * 		GPX file
+	 * @return track
+	 * @throws IOException
+	 * 		file could not be read or is no valid GPX file
+	 */
+	public static GpxTrack read(File file) throws IOException {
+		long[] times = new long[1024];
+		double[] latitudes = new double[1024];
+		double[] longitudes = new double[1024];
+		int count = 0;
+
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				Double latitude = null;
+				Double longitude = null;
+				Long time = null;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						String name = reader.getLocalName();
+						if ("trkpt".equals(name)) {
+							latitude = parseDouble(reader.getAttributeValue(null, "lat"));
+							longitude = parseDouble(reader.getAttributeValue(null, "lon"));
+							time = null;
+						} else if ("time".equals(name) && latitude != null) {
+							time = parseTime(reader.getElementText());
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT && "trkpt".equals(reader.getLocalName())) {
+						if (latitude != null && longitude != null && time != null) {
+							if (count == times.length) {
+								times = Arrays.copyOf(times, count * 2);
+								latitudes = Arrays.copyOf(latitudes, count * 2);
+								longitudes = Arrays.copyOf(longitudes, count * 2);
+							}
+							times[count] = time;
+							latitudes[count] = latitude;
+							longitudes[count] = longitude;
+							count++;
+						}
+						latitude = null;
+						longitude = null;
+						time = null;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse GPX file " + file, e);
+		}
+
+		// multiple tracks or segments may overlap, sort all points by time
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		long[] unsortedTimes = times;
+		Arrays.sort(order, (i1, i2) -> Long.compare(unsortedTimes[i1], unsortedTimes[i2]));
+
+		long[] sortedTimes = new long[count];
+		double[] sortedLatitudes = new double[count];
+		double[] sortedLongitudes = new double[count];
+		for (int i = 0; i < count; i++) {
+			sortedTimes[i] = times[order[i]];
+			sortedLatitudes[i] = latitudes[order[i]];
+			sortedLongitudes[i] = longitudes[order[i]];
+		}
+		return new GpxTrack(sortedTimes, sortedLatitudes, sortedLongitudes);
+	}
+
+	/**
+	 * Parses a coordinate.
+	 *
+	 * @param value
+	 * 		attribute value, may be <code>null</code>
+	 * @return coordinate or <code>null</code> if the value is no number
+	 */
+	private static Double parseDouble(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Double.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parses a GPX timestamp. Timestamps without time zone are UTC.
+	 *
+	 * @param value
+	 * 		element text
+	 * @return timestamp in ms or <code>null</code> if the value is no valid timestamp
+	 */
+	private static Long parseTime(String value) {
+		String text = value.trim();
+		try {
+			return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			try {
+				return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC).toEpochMilli();
+			} catch (DateTimeParseException e2) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the position at the given time. Between two track points the position is interpolated, as long as both points are not further away from the time than the
+	 * maximum gap. Before the first and after the last track point, the nearest point is used if it is within the maximum gap.
+	 *
+	 * @param time
+	 * 		time
+	 * @param maxGap
+	 * 		maximum time difference in ms to a track point
+	 * @return position or <code>null</code> if the track has no points near the time
+	 */
+	public LatLong getPosition(Date time, long maxGap) {
+		if (time == null || times.length == 0) {
+			return null;
+		}
+
+		long t = time.getTime();
+		int index = Arrays.binarySearch(times, t);
+		if (index >= 0) {
+			return new LatLong(latitudes[index], longitudes[index]);
+		}
+
+		int next = -index - 1;
+		int previous = next - 1;
+		boolean previousValid = previous >= 0 && t - times[previous] <= maxGap;
+		boolean nextValid = next < times.length && times[next] - t <= maxGap;
+		if (previousValid && nextValid) {
+			double fraction = (double) (t - times[previous]) / (times[next] - times[previous]);
+			return new LatLong(
+					latitudes[previous] + (latitudes[next] - latitudes[previous]) * fraction,
+					interpolateLongitude(longitudes[previous], longitudes[next], fraction)
+			);
+		} else if (previousValid && next == times.length) {
+			return new LatLong(latitudes[previous], longitudes[previous]);
+		} else if (nextValid && previous < 0) {
+			return new LatLong(latitudes[next], longitudes[next]);
+		}
+		return null;
+	}
+
+	/**
+	 * Interpolates between two longitudes along the shorter way, so tracks crossing the antimeridian are not interpolated around the world.
+	 *
+	 * @param from
+	 * 		first longitude
+	 * @param to
+	 * 		second longitude
+	 * @param fraction
+	 * 		fraction between both longitudes
+	 * @return interpolated longitude
+	 */
+	private static double interpolateLongitude(double from, double to, double fraction) {
+		double delta = to - from;
+		if (delta > 180) {
+			delta -= 360;
+		} else if (delta < -180) {
+			delta += 360;
+		}
+		double longitude = from + delta * fraction;
+		if (longitude > 180) {
+			longitude -= 360;
+		} else if (longitude < -180) {
+			longitude += 360;
+		}
+		return longitude;
+	}
+
+	/**
+	 * Returns the number of track points.
+	 *
+	 * @return number of track points
+	 */
+	public int size() {
+		return times.length;
+	}
+}
@@ -2,35 +2,34 @@ package net.packsam.geolocatefx.ui;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.lynden.gmapsfx.GoogleMapView;
 import com.lynden.gmapsfx.MapComponentInitializedListener;
-import com.lynden.gmapsfx.javascript.event.UIEventType;
 import com.lynden.gmapsfx.javascript.object.GoogleMap;
 import com.lynden.gmapsfx.javascript.object.LatLong;
+import com.lynden.gmapsfx.javascript.object.LatLongBounds;
 import com.lynden.gmapsfx.javascript.object.MapOptions;
 import com.lynden.gmapsfx.javascript.object.MapTypeIdEnum;
-import com.lynden.gmapsfx.javascript.object.Marker;
-import com.lynden.gmapsfx.javascript.object.MarkerOptions;
 
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.ListProperty;
-import javafx.beans.property.LongProperty;
 import javafx.beans.property.SimpleListProperty;
-import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -38,19 +37,30 @@ import javafx.fxml.Initializable;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.image.Image;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.DataFormat;
 import javafx.scene.input.DragEvent;
 import javafx.scene.input.Dragboard;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
+import net.packsam.geolocatefx.cache.ThumbnailImageCache;
 import net.packsam.geolocatefx.event.DroppedFilesEvent;
+import net.packsam.geolocatefx.event.RemoveImagesEvent;
 import net.packsam.geolocatefx.event.SetGeolocationEvent;
+import net.packsam.geolocatefx.event.VisibleImagesEvent;
+import net.packsam.geolocatefx.map.GeoIndex;
+import net.packsam.geolocatefx.map.MarkerClusters;
+import net.packsam.geolocatefx.map.MarkerLayer;
 import net.packsam.geolocatefx.model.DragDropDataFormat;
 import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.ImageStatistics;
+import net.packsam.geolocatefx.task.TaskScheduler;
 
 /**
  * Class for the main application layout.
@@ -58,6 +68,21 @@ import net.packsam.geolocatefx.model.ImageModel;
  * @author osterrath
  */
 public class ApplicationLayout implements Initializable, MapComponentInitializedListener {
+	/**
+	 * Size of the grid cells for clustering markers in px.
+	 */
+	private final static int CLUSTER_GRID_SIZE = 60;
+
+	/**
+	 * Number of zoom levels to zoom in when clicking a cluster.
+	 */
+	private final static int CLUSTER_ZOOM_STEP = 2;
+
+	/**
+	 * Part of the map view size added to every side of the map view for showing markers, so small moves do not change the markers.
+	 */
+	private final static double MARKER_VIEWPORT_MARGIN = 0.5;
+
 	/**
 	 * Event handler when a geolocation has been set.
 	 */
@@ -68,6 +93,11 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	 */
 	private EventHandler<ActionEvent> onOpenImages;
 
+	/**
+	 * Event handler when the "Open folder" button has been clicked.
+	 */
+	private EventHandler<ActionEvent> onOpenFolder;
+
 	/**
 	 * Event handler when the "Settings" button has been clicked.
 	 */
@@ -78,15 +108,25 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	 */
 	private EventHandler<DroppedFilesEvent> onFilesDropped;
 
+	/**
+	 * Event handler when the images shown in the image list have been changed.
+	 */
+	private EventHandler<VisibleImagesEvent> onVisibleImagesChanged;
+
+	/**
+	 * Event handler when the user removed images from the image list.
+	 */
+	private EventHandler<RemoveImagesEvent> onRemoveImages;
+
 	/**
 	 * Property for the list of images.
 	 */
 	private final ListProperty<ImageModel> images = new SimpleListProperty<>(FXCollections.observableArrayList());
 
 	/**
-	 * Prooperty for the number of background tasks in queue.
+	 * Images shown in the image list, either all images or the images in the map view.
 	 */
-	private final LongProperty backgroundTaskCount = new SimpleLongProperty();
+	private final FilteredList<ImageModel> listedImages = new FilteredList<>(images);
 
 	/**
 	 * Map for the change listener of the image models.
@@ -94,9 +134,39 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	private final Map<ImageModel, ChangeListener<net.packsam.geolocatefx.model.LatLong>> changeListenerMap = Collections.synchronizedMap(new HashMap<>());
 
 	/**
-	 * Map for the markers of the image models.
+	 * Spatial index of the geotagged images.
+	 */
+	private final GeoIndex geoIndex = new GeoIndex();
+
+	/**
+	 * Images in the map view used by the current image list filter, <code>null</code> if the list is not filtered.
+	 */
+	private Set<ImageModel> viewportImages;
+
+	/**
+	 * Clusters of the geotagged images for all zoom levels.
 	 */
-	private final Map<ImageModel, Marker> markerMap = Collections.synchronizedMap(new HashMap<>());
+	private final MarkerClusters markerClusters = new MarkerClusters(CLUSTER_GRID_SIZE);
+
+	/**
+	 * Layer showing the cluster markers, the cluster keys are used as marker IDs.
+	 */
+	private MarkerLayer markerLayer;
+
+	/**
+	 * Displayed clusters by cluster key.
+	 */
+	private Map<Long, MarkerClusters.Cluster> displayedClusters = new HashMap<>();
+
+	/**
+	 * Zoom level of the displayed clusters.
+	 */
+	private int displayedZoom = -1;
+
+	/**
+	 * Flag if the markers and the image list filter will be refreshed in the next pulse.
+	 */
+	private boolean mapRefreshScheduled = false;
 
 	/**
 	 * Root pane.
@@ -117,7 +187,13 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	private BorderPane mapContainer;
 
 	/**
-	 * Label for the size of the background tasks.
+	 * Button for showing only the images in the map view.
+	 */
+	@FXML
+	private ToggleButton viewportFilterButton;
+
+	/**
+	 * Label for the image statistics and the background tasks.
 	 */
 	@FXML
 	private Label backgroundTaskCountLabel;
@@ -161,17 +237,44 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		dragView = new Image(this.getClass().getResource("target.png").toExternalForm());
 
 		// initialize image lists
-		imageList.itemsProperty().bind(images);
+		imageList.setItems(listedImages);
 
 		// monitor changes on images
 		images.addListener(this::imageListChanged);
 
-		backgroundTaskCount.addListener(this::backgroundTaskCountChanged);
-
 		// disable all for now
 		rootPane.setDisable(true);
 	}
 
+	/**
+	 * Shows the given image statistics and the queues of the task lanes in the tool bar.
+	 *
+	 * @param imageStatistics
+	 * 		image statistics
+	 * @param taskScheduler
+	 * 		task scheduler
+	 */
+	public void setImageStatistics(ImageStatistics imageStatistics, TaskScheduler taskScheduler) {
+		InvalidationListener listener = o -> imageStatisticsChanged(imageStatistics, taskScheduler);
+		imageStatistics.totalProperty().addListener(listener);
+		imageStatistics.inProgressProperty().addListener(listener);
+		imageStatistics.queuedProperty().addListener(listener);
+		imageStatistics.taggedProperty().addListener(listener);
+		imageStatistics.failedProperty().addListener(listener);
+		imageStatistics.videosProperty().addListener(listener);
+		imageStatisticsChanged(imageStatistics, taskScheduler);
+	}
+
+	/**
+	 * Sets the shared cache of decoded thumbnail images for the image list.
+	 *
+	 * @param thumbnailImageCache
+	 * 		shared cache of decoded thumbnail images
+	 */
+	public void setThumbnailImageCache(ThumbnailImageCache thumbnailImageCache) {
+		imageList.setThumbnailImageCache(thumbnailImageCache);
+	}
+
 	/**
 	 * Initializes the map view with the given Google Maps API key.
 	 *
@@ -213,6 +316,10 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 				.streetViewControl(false)
 				.zoomControl(true);
 		map = mapView.createMap(mapOptions);
+		markerLayer = new MarkerLayer(mapView.getWebview().getEngine(), map, this::clusterClicked);
+		map.zoomProperty().addListener(o -> scheduleMapRefresh());
+		map.boundsProperty().addListener(o -> scheduleMapRefresh());
+		scheduleMapRefresh();
 
 		// enable all
 		rootPane.setDisable(false);
@@ -394,6 +501,50 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		}
 	}
 
+	/**
+	 * Event handler when the user pressed a key in the image list. Removes the selected images on DELETE or BACK_SPACE.
+	 *
+	 * @param keyEvent
+	 * 		key event
+	 */
+	@FXML
+	private void keyPressedOnImageList(KeyEvent keyEvent) {
+		if (keyEvent.getCode() != KeyCode.DELETE && keyEvent.getCode() != KeyCode.BACK_SPACE) {
+			return;
+		}
+
+		List<ImageModel> selectedImages = new ArrayList<>(imageList.getSelectionModel().getSelectedItems());
+		if (!selectedImages.isEmpty() && onRemoveImages != null) {
+			imageList.getSelectionModel().clearSelection();
+			onRemoveImages.handle(new RemoveImagesEvent(selectedImages));
+		}
+		keyEvent.consume();
+	}
+
+	/**
+	 * Event handler when the user toggled the filter for images in the map view.
+	 *
+	 * @param actionEvent
+	 * 		action event
+	 */
+	@FXML
+	private void viewportFilterChanged(ActionEvent actionEvent) {
+		refreshViewportFilter();
+	}
+
+	/**
+	 * Event handler when the images shown in the image list have been changed.
+	 *
+	 * @param visibleImagesEvent
+	 * 		event
+	 */
+	@FXML
+	private void visibleImagesChanged(VisibleImagesEvent visibleImagesEvent) {
+		if (onVisibleImagesChanged != null) {
+			onVisibleImagesChanged.handle(visibleImagesEvent);
+		}
+	}
+
 	/**
 	 * Event handler when the image list has been changed.
 	 *
@@ -414,28 +565,38 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	}
 
 	/**
-	 * Event handler when the number of background tasks have been changed.
+	 * Event handler when the image statistics have been changed.
 	 *
-	 * @param observableValue
-	 * 		observable value
-	 * @param oldVal
-	 * 		old value
-	 * @param newVal
-	 * 		new value
+	 * @param imageStatistics
+	 * 		image statistics
+	 * @param taskScheduler
+	 * 		task scheduler
 	 */
-	private void backgroundTaskCountChanged(ObservableValue<? extends Number> observableValue, Number oldVal, Number newVal) {
-		if (Objects.equals(oldVal, newVal)) {
+	private void imageStatisticsChanged(ImageStatistics imageStatistics, TaskScheduler taskScheduler) {
+		if (imageStatistics.getTotal() <= 0) {
+			backgroundTaskCountLabel.setVisible(false);
 			return;
 		}
 
-		Platform.runLater(() -> {
-			if (newVal == null || newVal.longValue() <= 0L) {
-				backgroundTaskCountLabel.setVisible(false);
-			} else {
-				backgroundTaskCountLabel.setVisible(true);
-				backgroundTaskCountLabel.setText(newVal + " files in progress");
+		StringBuilder text = new StringBuilder();
+		text.append(imageStatistics.getTagged()).append(" of ").append(imageStatistics.getTotal()).append(" files tagged");
+		if (imageStatistics.getVideos() > 0) {
+			text.append(", ").append(imageStatistics.getVideos()).append(" videos");
+		}
+		if (imageStatistics.getFailed() > 0) {
+			text.append(", ").append(imageStatistics.getFailed()).append(" failed");
+		}
+		if (imageStatistics.getInProgress() > 0 || imageStatistics.getQueued() > 0) {
+			text.append(" | ").append(imageStatistics.getInProgress()).append(" files in progress, ").append(imageStatistics.getQueued()).append(" pending");
+			String separator = " | queued: ";
+			for (TaskScheduler.Lane lane : TaskScheduler.Lane.values()) {
+				text.append(separator).append(lane.name().toLowerCase()).append(' ').append(taskScheduler.getQueueSize(lane))
+						.append(String.format(" (avg wait %.0f ms)", taskScheduler.getAverageWaitTime(lane)));
+				separator = ", ";
 			}
-		});
+		}
+		backgroundTaskCountLabel.setText(text.toString());
+		backgroundTaskCountLabel.setVisible(true);
 	}
 
 	/**
@@ -453,30 +614,9 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 				return;
 			}
 
-			synchronized (markerMap) {
-				Marker marker = markerMap.get(imageModel);
-
-				if (newVal == null) {
-					if (marker != null) {
-						map.removeMarker(marker);
-						markerMap.remove(imageModel);
-					}
-				} else {
-					LatLong latLong = new LatLong(newVal.getLatitude(), newVal.getLongitude());
-					if (marker == null) {
-						MarkerOptions markerOptions = new MarkerOptions();
-						markerOptions.title(imageModel.getImage().getAbsolutePath());
-						marker = new Marker(markerOptions);
-						marker.setPosition(latLong);
-						markerMap.put(imageModel, marker);
-						map.addMarker(marker);
-						map.addUIEventHandler(marker, UIEventType.click, jsObject -> markerClicked(imageModel));
-					} else {
-						marker.setPosition(latLong);
-					}
-				}
-			}
-
+			geoIndex.update(imageModel, newVal);
+			markerClusters.update(imageModel, newVal);
+			scheduleMapRefresh();
 		};
 		imageModel.geolocationProperty().addListener(latLongChangeListener);
 		latLongChangeListener.changed(imageModel.geolocationProperty(), null, imageModel.getGeolocation());
@@ -486,18 +626,6 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		}
 	}
 
-	/**
-	 * Event handler when the user clicked a map marker.
-	 *
-	 * @param imageModel
-	 * 		image model for map marker
-	 */
-	private void markerClicked(ImageModel imageModel) {
-		imageList.getSelectionModel().clearSelection();
-		imageList.getSelectionModel().select(imageModel);
-		imageList.scrollTo(imageModel);
-	}
-
 	/**
 	 * Removes the observation of the image model.
 	 *
@@ -506,11 +634,201 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 	 */
 	private void unobserveImageChanges(ImageModel imageModel) {
 		synchronized (changeListenerMap) {
-			ChangeListener<net.packsam.geolocatefx.model.LatLong> latLongChangeListener = changeListenerMap.get(imageModel);
+			ChangeListener<net.packsam.geolocatefx.model.LatLong> latLongChangeListener = changeListenerMap.remove(imageModel);
 			if (latLongChangeListener != null) {
 				imageModel.geolocationProperty().removeListener(latLongChangeListener);
 			}
 		}
+
+		geoIndex.remove(imageModel);
+		markerClusters.remove(imageModel);
+		scheduleMapRefresh();
+	}
+
+	/**
+	 * Refreshes the markers and the image list filter in the next pulse, so many changes at once result in a single refresh.
+	 */
+	private void scheduleMapRefresh() {
+		if (mapRefreshScheduled) {
+			return;
+		}
+		mapRefreshScheduled = true;
+		Platform.runLater(() -> {
+			mapRefreshScheduled = false;
+			refreshMarkers();
+			refreshViewportFilter();
+		});
+	}
+
+	/**
+	 * Shows only the images in the map view in the image list if the filter is active.
+	 */
+	private void refreshViewportFilter() {
+		if (!viewportFilterButton.isSelected()) {
+			if (viewportImages != null) {
+				viewportImages = null;
+				listedImages.setPredicate(null);
+			}
+			return;
+		}
+
+		LatLongBounds bounds = map != null ? map.getBounds() : null;
+		if (bounds == null) {
+			return;
+		}
+		LatLong southWest = bounds.getSouthWest();
+		LatLong northEast = bounds.getNorthEast();
+		List<ImageModel> foundImages = geoIndex.findInBounds(southWest.getLatitude(), southWest.getLongitude(), northEast.getLatitude(), northEast.getLongitude());
+		if (viewportImages != null && viewportImages.size() == foundImages.size() && viewportImages.containsAll(foundImages)) {
+			// filtering the whole list again would not change it
+			return;
+		}
+		Set<ImageModel> newViewportImages = new HashSet<>(foundImages);
+		viewportImages = newViewportImages;
+		listedImages.setPredicate(newViewportImages::contains);
+	}
+
+	/**
+	 * Shows the clusters of the current zoom level on the map. Only changed clusters are updated, all changes are sent to the map at once.
+	 */
+	private void refreshMarkers() {
+		if (markerLayer == null) {
+			return;
+		}
+
+		int zoom = map.getZoom();
+		if (zoom != displayedZoom) {
+			// the clusters of another zoom level have other keys
+			markerLayer.clear();
+			displayedClusters.clear();
+			displayedZoom = zoom;
+		}
+
+		// only show the clusters around the map view
+		LatLongBounds bounds = map.getBounds();
+		List<MarkerClusters.Cluster> visibleClusters;
+		if (bounds != null) {
+			LatLong southWest = bounds.getSouthWest();
+			LatLong northEast = bounds.getNorthEast();
+			double latitudeMargin = (northEast.getLatitude() - southWest.getLatitude()) * MARKER_VIEWPORT_MARGIN;
+			double width = northEast.getLongitude() - southWest.getLongitude();
+			if (width < 0) {
+				// crosses the antimeridian
+				width += 360;
+			}
+			double longitudeMargin = width * MARKER_VIEWPORT_MARGIN;
+			double west = southWest.getLongitude() - longitudeMargin;
+			double east = width + 2 * longitudeMargin >= 360 ? west + 360 : northEast.getLongitude() + longitudeMargin;
+			visibleClusters = markerClusters.getClusters(zoom, southWest.getLatitude() - latitudeMargin, west, northEast.getLatitude() + latitudeMargin, east);
+		} else {
+			visibleClusters = markerClusters.getClusters(zoom, -90, -180, 90, 180);
+		}
+		Map<Long, MarkerClusters.Cluster> clusters = new HashMap<>();
+		for (MarkerClusters.Cluster cluster : visibleClusters) {
+			clusters.put(cluster.getKey(), cluster);
+		}
+
+		// remove vanished clusters
+		for (Long key : displayedClusters.keySet()) {
+			if (!clusters.containsKey(key)) {
+				markerLayer.remove(key);
+			}
+		}
+
+		// add new and update changed clusters
+		for (MarkerClusters.Cluster cluster : clusters.values()) {
+			MarkerClusters.Cluster displayedCluster = displayedClusters.get(cluster.getKey());
+			if (displayedCluster == null) {
+				showCluster(zoom, cluster, false);
+			} else if (displayedCluster.getCount() != cluster.getCount() || !sameCenter(displayedCluster, cluster)) {
+				showCluster(zoom, cluster, true);
+			}
+		}
+
+		displayedClusters = clusters;
+		markerLayer.flush();
+	}
+
+	/**
+	 * Checks if both clusters have the same center.
+	 *
+	 * @param cluster1
+	 * 		first cluster
+	 * @param cluster2
+	 * 		second cluster
+	 * @return <code>true</code> if the centers are equal
+	 */
+	private static boolean sameCenter(MarkerClusters.Cluster cluster1, MarkerClusters.Cluster cluster2) {
+		net.packsam.geolocatefx.model.LatLong center1 = cluster1.getCenter();
+		net.packsam.geolocatefx.model.LatLong center2 = cluster2.getCenter();
+		return center1.getLatitude() == center2.getLatitude() && center1.getLongitude() == center2.getLongitude();
+	}
+
+	/**
+	 * Adds or updates the marker of the given cluster. Clusters of more than one image are labeled with the number of images.
+	 *
+	 * @param zoom
+	 * 		zoom level of the cluster
+	 * @param cluster
+	 * 		cluster
+	 * @param update
+	 * 		<code>true</code> if the marker is already shown
+	 */
+	private void showCluster(int zoom, MarkerClusters.Cluster cluster, boolean update) {
+		net.packsam.geolocatefx.model.LatLong center = cluster.getCenter();
+		String label = null;
+		String title = null;
+		if (cluster.getCount() > 1) {
+			label = String.valueOf(cluster.getCount());
+			title = cluster.getCount() + " images";
+		} else {
+			ImageModel imageModel = markerClusters.getImage(zoom, cluster.getKey());
+			if (imageModel != null) {
+				title = imageModel.getImage().getAbsolutePath();
+			}
+		}
+
+		if (update) {
+			markerLayer.update(cluster.getKey(), center.getLatitude(), center.getLongitude(), label, title);
+		} else {
+			markerLayer.add(cluster.getKey(), center.getLatitude(), center.getLongitude(), label, title);
+		}
+	}
+
+	/**
+	 * Event handler when the user clicked a cluster marker. Selects the image of a single image cluster, zooms into larger clusters.
+	 *
+	 * @param key
+	 * 		cluster key
+	 */
+	private void clusterClicked(long key) {
+		MarkerClusters.Cluster cluster = displayedClusters.get(key);
+		if (cluster == null) {
+			return;
+		}
+
+		if (cluster.getCount() == 1) {
+			ImageModel imageModel = markerClusters.getImage(displayedZoom, key);
+			if (imageModel != null) {
+				markerClicked(imageModel);
+			}
+		} else {
+			net.packsam.geolocatefx.model.LatLong center = cluster.getCenter();
+			map.setCenter(new LatLong(center.getLatitude(), center.getLongitude()));
+			map.setZoom(Math.min(displayedZoom + CLUSTER_ZOOM_STEP, MarkerClusters.MAX_ZOOM));
+		}
+	}
+
+	/**
+	 * Event handler when the user clicked a map marker.
+	 *
+	 * @param imageModel
+	 * 		image model for map marker
+	 */
+	private void markerClicked(ImageModel imageModel) {
+		imageList.getSelectionModel().clearSelection();
+		imageList.getSelectionModel().select(imageModel);
+		imageList.scrollTo(imageModel);
 	}
 
 	/**
@@ -526,6 +844,19 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		}
 	}
 
+	/**
+	 * Event handler when the user clicked the "Open folder" button.
+	 *
+	 * @param actionEvent
+	 * 		action event
+	 */
+	@FXML
+	private void openFolder(ActionEvent actionEvent) {
+		if (onOpenFolder != null) {
+			onOpenFolder.handle(actionEvent);
+		}
+	}
+
 	/**
 	 * Event handler when the user clicked the "Open images" button.
 	 *
@@ -539,6 +870,15 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		}
 	}
 
+	/**
+	 * Logs the statistics of the map markers.
+	 */
+	public void logStatistics() {
+		if (markerLayer != null) {
+			markerLayer.logStatistics();
+		}
+	}
+
 	/**
 	 * Returns the current map position.
 	 *
@@ -604,6 +944,25 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		this.onOpenImages = onOpenImages;
 	}
 
+	/**
+	 * Returns the onOpenFolder.
+	 *
+	 * @return onOpenFolder
+	 */
+	public EventHandler<ActionEvent> getOnOpenFolder() {
+		return onOpenFolder;
+	}
+
+	/**
+	 * Sets the onOpenFolder.
+	 *
+	 * @param onOpenFolder
+	 * 		new value for onOpenFolder
+	 */
+	public void setOnOpenFolder(EventHandler<ActionEvent> onOpenFolder) {
+		this.onOpenFolder = onOpenFolder;
+	}
+
 	/**
 	 * Returns the onOpenSettings.
 	 *
@@ -642,6 +1001,44 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		this.onFilesDropped = onFilesDropped;
 	}
 
+	/**
+	 * Returns the onVisibleImagesChanged.
+	 *
+	 * @return onVisibleImagesChanged
+	 */
+	public EventHandler<VisibleImagesEvent> getOnVisibleImagesChanged() {
+		return onVisibleImagesChanged;
+	}
+
+	/**
+	 * Sets the onVisibleImagesChanged.
+	 *
+	 * @param onVisibleImagesChanged
+	 * 		new value for onVisibleImagesChanged
+	 */
+	public void setOnVisibleImagesChanged(EventHandler<VisibleImagesEvent> onVisibleImagesChanged) {
+		this.onVisibleImagesChanged = onVisibleImagesChanged;
+	}
+
+	/**
+	 * Returns the onRemoveImages.
+	 *
+	 * @return onRemoveImages
+	 */
+	public EventHandler<RemoveImagesEvent> getOnRemoveImages() {
+		return onRemoveImages;
+	}
+
+	/**
+	 * Sets the onRemoveImages.
+	 *
+	 * @param onRemoveImages
+	 * 		new value for onRemoveImages
+	 */
+	public void setOnRemoveImages(EventHandler<RemoveImagesEvent> onRemoveImages) {
+		this.onRemoveImages = onRemoveImages;
+	}
+
 	public ObservableList<ImageModel> getImages() {
 		return images.get();
 	}
@@ -654,15 +1051,4 @@ public class ApplicationLayout implements Initializable, MapComponentInitialized
 		this.images.set(images);
 	}
 
-	public long getBackgroundTaskCount() {
-		return backgroundTaskCount.get();
-	}
-
-	public LongProperty backgroundTaskCountProperty() {
-		return backgroundTaskCount;
-	}
-
-	public void setBackgroundTaskCount(long backgroundTaskCount) {
-		this.backgroundTaskCount.set(backgroundTaskCount);
-	}
 }
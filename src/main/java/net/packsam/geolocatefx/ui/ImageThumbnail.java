@@ -1,7 +1,6 @@
 package net.packsam.geolocatefx.ui;
 
 import java.io.File;
-import java.net.MalformedURLException;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.List;
@@ -11,6 +10,11 @@ import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -24,13 +28,16 @@ import javafx.scene.layout.AnchorPane;
 import javafx.scene.transform.Rotate;
 import javafx.util.Duration;
 import net.packsam.geolocatefx.Constants;
+import net.packsam.geolocatefx.cache.ThumbnailImageCache;
 import net.packsam.geolocatefx.event.SetGeolocationEvent;
 import net.packsam.geolocatefx.model.DragDropDataFormat;
 import net.packsam.geolocatefx.model.ImageModel;
 import net.packsam.geolocatefx.model.LatLong;
 
 /**
- * Class for a draggable image thumbnail.
+ * Class for a draggable image thumbnail. A thumbnail is reused by its list cell and can be bound to another image model, all listeners of the previous image model are
+ * removed then. The listeners and the spinner are only kept while the thumbnail is part of a scene, so thumbnails of cells discarded by the list do not keep observing their
+ * image model.
  *
  * @author osterrath
  */
@@ -51,9 +58,63 @@ public class ImageThumbnail extends AnchorPane {
 	private final static DateFormat DF = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT);
 
 	/**
-	 * Image model.
+	 * Rotation angle of all visible spinners.
 	 */
-	private final ImageModel imageModel;
+	private final static DoubleProperty SPINNER_ANGLE = new SimpleDoubleProperty(0);
+
+	/**
+	 * Single animation for all spinners, only runs while a spinner is visible.
+	 */
+	private final static Timeline SPINNER_ANIMATION = new Timeline(new KeyFrame(Duration.seconds(1), new KeyValue(SPINNER_ANGLE, 360)));
+
+	/**
+	 * Number of visible spinners.
+	 */
+	private static int visibleSpinnerCount = 0;
+
+	static {
+		SPINNER_ANIMATION.setCycleCount(Animation.INDEFINITE);
+	}
+
+	/**
+	 * Bound image model.
+	 */
+	private ImageModel imageModel;
+
+	/**
+	 * Shared cache of decoded thumbnail images.
+	 */
+	private final ThumbnailImageCache imageCache;
+
+	/**
+	 * Thumbnail image that is being decoded in background.
+	 */
+	private Image loadingImage;
+
+	/**
+	 * Listener for the progress of the loading image.
+	 */
+	private final InvalidationListener loadingImageListener = this::loadingImageChanged;
+
+	/**
+	 * Listener for the image file and creation date.
+	 */
+	private final InvalidationListener tooltipListener = o -> updateTooltip();
+
+	/**
+	 * Listener for the thumbnail file.
+	 */
+	private final ChangeListener<File> thumbnailListener = this::updateImage;
+
+	/**
+	 * Listener for the geolocation.
+	 */
+	private final ChangeListener<LatLong> geolocationListener = this::updateGeolocation;
+
+	/**
+	 * Listener for the "file in progress" flag, may be called from background threads.
+	 */
+	private final InvalidationListener fileInProgressListener = o -> Platform.runLater(this::updateLoader);
 
 	/**
 	 * Thumbnail image view.
@@ -66,9 +127,19 @@ public class ImageThumbnail extends AnchorPane {
 	private final ImageView loader;
 
 	/**
-	 * Loader animation timeline.
+	 * Loader rotation, bound to the shared spinner angle while visible.
+	 */
+	private final Rotate loaderRotation;
+
+	/**
+	 * Flag if the loader is visible.
 	 */
-	private final Timeline loaderAnimation;
+	private boolean loaderVisible = false;
+
+	/**
+	 * Flag if the listeners are added to the image model, only while the thumbnail is part of a scene.
+	 */
+	private boolean observing = false;
 
 	/**
 	 * Tooltip.
@@ -81,14 +152,14 @@ public class ImageThumbnail extends AnchorPane {
 	private EventHandler<SetGeolocationEvent> onGeolocationSet;
 
 	/**
-	 * Creates a new view that represents an IMG element.
+	 * Creates a new view that represents an IMG element, the image model is set by {@link #setImageModel(ImageModel)}.
 	 *
-	 * @param imageModel
-	 * 		image model
+	 * @param imageCache
+	 * 		shared cache of decoded thumbnail images, may be <code>null</code>
 	 */
-	public ImageThumbnail(ImageModel imageModel) {
+	public ImageThumbnail(ThumbnailImageCache imageCache) {
 		super();
-		this.imageModel = imageModel;
+		this.imageCache = imageCache;
 
 		imageView = new ImageView(NO_IMAGE);
 		imageView.setPreserveRatio(true);
@@ -103,31 +174,91 @@ public class ImageThumbnail extends AnchorPane {
 		AnchorPane.setBottomAnchor(loader, 0.0);
 		AnchorPane.setRightAnchor(loader, 0.0);
 
-		Rotate rotation = new Rotate(0, SPINNER.getWidth() / 2, SPINNER.getHeight() / 2);
-		loader.getTransforms().add(rotation);
-		loaderAnimation = new Timeline();
-		loaderAnimation.getKeyFrames().add(new KeyFrame(
-				Duration.seconds(1),
-				new KeyValue(
-						rotation.angleProperty(),
-						360
-				)
-		));
-		loaderAnimation.setCycleCount(Animation.INDEFINITE);
+		loaderRotation = new Rotate(0, SPINNER.getWidth() / 2, SPINNER.getHeight() / 2);
+		loader.getTransforms().add(loaderRotation);
 		loader.setVisible(false);
 
 		tooltip = new Tooltip();
 		Tooltip.install(imageView, tooltip);
 
-		imageModel.imageProperty().addListener(o -> updateTooltip());
-		imageModel.creationDateProperty().addListener(o -> updateTooltip());
-		imageModel.thumbnailProperty().addListener(this::updateImage);
-		imageModel.geolocationProperty().addListener(this::updateGeolocation);
-		imageModel.fileInProgressProperty().addListener(this::updateFileInProgress);
+		sceneProperty().addListener((o, oldVal, newVal) -> {
+			if (newVal != null) {
+				observe();
+			} else {
+				unobserve();
+			}
+		});
+	}
+
+	/**
+	 * Binds the thumbnail to the given image model. All listeners are removed from the previous image model.
+	 *
+	 * @param imageModel
+	 * 		new image model, may be <code>null</code> to release the current one
+	 */
+	public void setImageModel(ImageModel imageModel) {
+		if (this.imageModel == imageModel) {
+			return;
+		}
+
+		boolean inScene = getScene() != null;
+		unobserve();
+		this.imageModel = imageModel;
+		if (inScene) {
+			observe();
+		} else {
+			// shown once the thumbnail is added to a scene
+			showImage(null);
+		}
+	}
+
+	/**
+	 * Adds the listeners to the current image model and shows its state.
+	 */
+	private void observe() {
+		if (observing) {
+			return;
+		}
+		observing = true;
+
+		if (imageModel != null) {
+			imageModel.imageProperty().addListener(tooltipListener);
+			imageModel.creationDateProperty().addListener(tooltipListener);
+			imageModel.thumbnailProperty().addListener(thumbnailListener);
+			imageModel.geolocationProperty().addListener(geolocationListener);
+			// the progress flag is flipped by the tasks under the monitor of the image
+			synchronized (imageModel) {
+				imageModel.fileInProgressProperty().addListener(fileInProgressListener);
+			}
+		}
+
 		updateTooltip();
-		updateImage(imageModel.thumbnailProperty(), null, imageModel.getThumbnail());
-		updateGeolocation(imageModel.geolocationProperty(), null, imageModel.getGeolocation());
-		updateFileInProgress(imageModel.fileInProgressProperty(), false, imageModel.isFileInProgress());
+		showImage(imageModel != null && imageModel.getThumbnail() != null ? loadImage(imageModel.getThumbnail()) : null);
+		imageView.setOpacity(imageModel != null && imageModel.getGeolocation() != null ? 0.2 : 1.0);
+		updateLoader();
+	}
+
+	/**
+	 * Removes the listeners from the current image model and releases the spinner and the loading image.
+	 */
+	private void unobserve() {
+		if (!observing) {
+			return;
+		}
+		observing = false;
+
+		if (imageModel != null) {
+			imageModel.imageProperty().removeListener(tooltipListener);
+			imageModel.creationDateProperty().removeListener(tooltipListener);
+			imageModel.thumbnailProperty().removeListener(thumbnailListener);
+			imageModel.geolocationProperty().removeListener(geolocationListener);
+			synchronized (imageModel) {
+				imageModel.fileInProgressProperty().removeListener(fileInProgressListener);
+			}
+		}
+
+		hideLoader();
+		showImage(null);
 	}
 
 	/**
@@ -140,7 +271,7 @@ public class ImageThumbnail extends AnchorPane {
 	private void dragOverImage(DragEvent dragEvent) {
 		Dragboard db = dragEvent.getDragboard();
 		List<File> images = (List<File>) db.getContent(DragDropDataFormat.ADD);
-		if (images != null && !images.isEmpty() && imageModel.getGeolocation() != null) {
+		if (images != null && !images.isEmpty() && imageModel != null && imageModel.getGeolocation() != null) {
 			if (images.size() > 1 || !images.get(0).equals(imageModel.getImage())) {
 				dragEvent.acceptTransferModes(TransferMode.MOVE);
 			}
@@ -158,7 +289,7 @@ public class ImageThumbnail extends AnchorPane {
 		Dragboard db = dragEvent.getDragboard();
 		List<File> images = (List<File>) db.getContent(DragDropDataFormat.ADD);
 
-		if (onGeolocationSet != null) {
+		if (onGeolocationSet != null && imageModel != null) {
 			onGeolocationSet.handle(new SetGeolocationEvent(images, imageModel.getGeolocation()));
 		}
 		dragEvent.setDropCompleted(true);
@@ -168,8 +299,8 @@ public class ImageThumbnail extends AnchorPane {
 	 * Event handler when the tooltip info have been changed
 	 */
 	private void updateTooltip() {
-		File image = imageModel.getImage();
-		Date creationDate = imageModel.getCreationDate();
+		File image = imageModel != null ? imageModel.getImage() : null;
+		Date creationDate = imageModel != null ? imageModel.getCreationDate() : null;
 
 		StringBuilder sb = new StringBuilder();
 		if (image != null) {
@@ -206,14 +337,57 @@ public class ImageThumbnail extends AnchorPane {
 		if (oldVal == newVal) {
 			return;
 		}
-		if (newVal != null) {
-			try {
-				imageView.setImage(new Image(newVal.toURI().toURL().toExternalForm()));
-			} catch (MalformedURLException e) {
-				imageView.setImage(NO_IMAGE);
-			}
+		showImage(newVal != null ? loadImage(newVal) : null);
+	}
+
+	/**
+	 * Loads the given thumbnail file in background.
+	 *
+	 * @param thumbnailFile
+	 * 		thumbnail file
+	 * @return image, may still be loading
+	 */
+	private Image loadImage(File thumbnailFile) {
+		if (imageCache != null) {
+			return imageCache.get(thumbnailFile);
+		}
+		return new Image(thumbnailFile.toURI().toString(), Constants.THUMBNAIL_WIDTH, 0, true, true, true);
+	}
+
+	/**
+	 * Shows the given image or the placeholder until the image has been loaded.
+	 *
+	 * @param image
+	 * 		image to show, may be <code>null</code>
+	 */
+	private void showImage(Image image) {
+		if (loadingImage != null) {
+			loadingImage.progressProperty().removeListener(loadingImageListener);
+			loadingImage.errorProperty().removeListener(loadingImageListener);
+			loadingImage = null;
+		}
+
+		if (image == null || image.isError()) {
+			imageView.setImage(NO_IMAGE);
+		} else if (image.getProgress() >= 1) {
+			imageView.setImage(image);
 		} else {
 			imageView.setImage(NO_IMAGE);
+			loadingImage = image;
+			image.progressProperty().addListener(loadingImageListener);
+			image.errorProperty().addListener(loadingImageListener);
+		}
+	}
+
+	/**
+	 * Event handler when the progress or error state of the loading image has been changed.
+	 *
+	 * @param observable
+	 * 		observable
+	 */
+	private void loadingImageChanged(Observable observable) {
+		if (loadingImage != null && (loadingImage.getProgress() >= 1 || loadingImage.isError())) {
+			showImage(loadingImage);
 		}
 	}
 
@@ -239,24 +413,13 @@ public class ImageThumbnail extends AnchorPane {
 	}
 
 	/**
-	 * Event handler when the "file in progress" flag has been changed.
-	 *
-	 * @param property
-	 * 		observable property
-	 * @param oldVal
-	 * 		old value
-	 * @param newVal
-	 * 		new value
+	 * Shows or hides the loader animation depending on the "file in progress" flag of the current image model. The loader is never shown while the listeners are removed.
 	 */
-	private void updateFileInProgress(ObservableValue<? extends Boolean> property, boolean oldVal, boolean newVal) {
-		if (oldVal == newVal) {
-			return;
-		}
-
-		if (newVal) {
-			Platform.runLater(this::showLoader);
+	private void updateLoader() {
+		if (observing && imageModel != null && imageModel.isFileInProgress()) {
+			showLoader();
 		} else {
-			Platform.runLater(this::hideLoader);
+			hideLoader();
 		}
 	}
 
@@ -264,16 +427,30 @@ public class ImageThumbnail extends AnchorPane {
 	 * Shows the loader animation.
 	 */
 	private void showLoader() {
+		if (loaderVisible) {
+			return;
+		}
+		loaderVisible = true;
 		loader.setVisible(true);
-		loaderAnimation.play();
+		loaderRotation.angleProperty().bind(SPINNER_ANGLE);
+		if (visibleSpinnerCount++ == 0) {
+			SPINNER_ANIMATION.play();
+		}
 	}
 
 	/**
 	 * Hides the loader animation.
 	 */
 	private void hideLoader() {
+		if (!loaderVisible) {
+			return;
+		}
+		loaderVisible = false;
 		loader.setVisible(false);
-		loaderAnimation.pause();
+		loaderRotation.angleProperty().unbind();
+		if (--visibleSpinnerCount == 0) {
+			SPINNER_ANIMATION.pause();
+		}
 	}
 
 	/**
@@ -1,11 +1,21 @@
 package net.packsam.geolocatefx.ui;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.input.MouseEvent;
+import net.packsam.geolocatefx.cache.ThumbnailImageCache;
 import net.packsam.geolocatefx.event.SetGeolocationEvent;
+import net.packsam.geolocatefx.event.VisibleImagesEvent;
 import net.packsam.geolocatefx.model.ImageModel;
 
 /**
@@ -14,6 +24,11 @@ import net.packsam.geolocatefx.model.ImageModel;
  * @author osterrath
  */
 public class ImageThumbnailList extends ListView<ImageModel> {
+	/**
+	 * Number of pages in scroll direction that will be reported as prefetch images.
+	 */
+	private final static int PREFETCH_PAGES = 2;
+
 	/**
 	 * Event handler when the user clicked on an image.
 	 */
@@ -29,33 +44,146 @@ public class ImageThumbnailList extends ListView<ImageModel> {
 	 */
 	private EventHandler<SetGeolocationEvent> onGeolocationSet;
 
+	/**
+	 * Event handler when the visible images have been changed.
+	 */
+	private EventHandler<VisibleImagesEvent> onVisibleImagesChanged;
+
+	/**
+	 * Shared cache of decoded thumbnail images.
+	 */
+	private ThumbnailImageCache thumbnailImageCache;
+
+	/**
+	 * Cells created by the cell factory, weakly referenced so cells discarded by the list view can be collected.
+	 */
+	private final Set<ListCell<ImageModel>> cells = Collections.newSetFromMap(new WeakHashMap<>());
+
+	/**
+	 * Flag if the visible range will be updated in the next pulse.
+	 */
+	private boolean visibleRangeUpdateScheduled = false;
+
+	/**
+	 * First visible index of the last reported range.
+	 */
+	private int firstVisibleIndex = -1;
+
+	/**
+	 * Last visible index of the last reported range.
+	 */
+	private int lastVisibleIndex = -1;
+
+	/**
+	 * Flag if the user scrolled up last.
+	 */
+	private boolean scrollingUp = false;
+
 	/**
 	 * Ctor.
 	 */
 	public ImageThumbnailList() {
 		super();
-		setCellFactory(p -> new ListCell<ImageModel>() {
-			@Override
-			protected void updateItem(ImageModel item, boolean empty) {
-				super.updateItem(item, empty);
-				if (empty) {
-					setGraphic(null);
-				} else {
-					setGraphic(createImage(item));
+		setCellFactory(p -> {
+			ListCell<ImageModel> cell = new ListCell<ImageModel>() {
+				/**
+				 * Thumbnail node of this cell, rebound to every new item.
+				 */
+				private ImageThumbnail imageThumbnail;
+
+				@Override
+				protected void updateItem(ImageModel item, boolean empty) {
+					super.updateItem(item, empty);
+					if (empty || item == null) {
+						if (imageThumbnail != null) {
+							imageThumbnail.setImageModel(null);
+						}
+						setGraphic(null);
+					} else {
+						if (imageThumbnail == null) {
+							imageThumbnail = createImage();
+						}
+						imageThumbnail.setImageModel(item);
+						setGraphic(imageThumbnail);
+					}
+					scheduleVisibleRangeUpdate();
 				}
-			}
+			};
+			cells.add(cell);
+			return cell;
 		});
 		getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 	}
 
 	/**
-	 * Creates a new image to the image container.
+	 * Updates the visible range after the current pulse, so all cells have been laid out and multiple cell updates are handled at once.
+	 */
+	private void scheduleVisibleRangeUpdate() {
+		if (visibleRangeUpdateScheduled) {
+			return;
+		}
+		visibleRangeUpdateScheduled = true;
+		Platform.runLater(this::updateVisibleRange);
+	}
+
+	/**
+	 * Determines the range of images shown by the cells and reports it together with the next images in scroll direction.
+	 */
+	private void updateVisibleRange() {
+		visibleRangeUpdateScheduled = false;
+
+		ObservableList<ImageModel> items = getItems();
+		int itemCount = items != null ? items.size() : 0;
+		int first = Integer.MAX_VALUE;
+		int last = -1;
+		for (ListCell<ImageModel> cell : cells) {
+			int index = cell.getIndex();
+			if (cell.isVisible() && !cell.isEmpty() && index >= 0 && index < itemCount) {
+				first = Math.min(first, index);
+				last = Math.max(last, index);
+			}
+		}
+		if (last < 0) {
+			first = -1;
+		}
+		if (first == firstVisibleIndex && last == lastVisibleIndex) {
+			return;
+		}
+
+		if (first >= 0 && firstVisibleIndex >= 0 && first != firstVisibleIndex) {
+			scrollingUp = first < firstVisibleIndex;
+		}
+		firstVisibleIndex = first;
+		lastVisibleIndex = last;
+
+		if (onVisibleImagesChanged == null) {
+			return;
+		}
+
+		List<ImageModel> visibleImages = new ArrayList<>();
+		List<ImageModel> prefetchImages = new ArrayList<>();
+		if (last >= 0) {
+			visibleImages.addAll(items.subList(first, last + 1));
+
+			int prefetchCount = visibleImages.size() * PREFETCH_PAGES;
+			if (scrollingUp) {
+				for (int i = first - 1; i >= Math.max(0, first - prefetchCount); i--) {
+					prefetchImages.add(items.get(i));
+				}
+			} else {
+				prefetchImages.addAll(items.subList(last + 1, Math.min(itemCount, last + 1 + prefetchCount)));
+			}
+		}
+		onVisibleImagesChanged.handle(new VisibleImagesEvent(visibleImages, prefetchImages));
+	}
+
+	/**
+	 * Creates a new image for a list cell.
 	 *
-	 * @param imageModel
-	 * 		image model for image
+	 * @return image thumbnail without image model
 	 */
-	private ImageThumbnail createImage(ImageModel imageModel) {
-		ImageThumbnail imageThumbnail = new ImageThumbnail(imageModel);
+	private ImageThumbnail createImage() {
+		ImageThumbnail imageThumbnail = new ImageThumbnail(thumbnailImageCache);
 		imageThumbnail.setOnMouseClicked(this::clickedOnImage);
 		imageThumbnail.setOnDragDetected(this::dragDetectedOnImage);
 		imageThumbnail.setOnGeolocationSet(this::geolocationSetForImages);
@@ -154,4 +282,42 @@ public class ImageThumbnailList extends ListView<ImageModel> {
 	public void setOnGeolocationSet(EventHandler<SetGeolocationEvent> onGeolocationSet) {
 		this.onGeolocationSet = onGeolocationSet;
 	}
+
+	/**
+	 * Returns the thumbnailImageCache.
+	 *
+	 * @return thumbnailImageCache
+	 */
+	public ThumbnailImageCache getThumbnailImageCache() {
+		return thumbnailImageCache;
+	}
+
+	/**
+	 * Sets the thumbnailImageCache.
+	 *
+	 * @param thumbnailImageCache
+	 * 		new value for thumbnailImageCache
+	 */
+	public void setThumbnailImageCache(ThumbnailImageCache thumbnailImageCache) {
+		this.thumbnailImageCache = thumbnailImageCache;
+	}
+
+	/**
+	 * Returns the onVisibleImagesChanged.
+	 *
+	 * @return onVisibleImagesChanged
+	 */
+	public EventHandler<VisibleImagesEvent> getOnVisibleImagesChanged() {
+		return onVisibleImagesChanged;
+	}
+
+	/**
+	 * Sets the onVisibleImagesChanged.
+	 *
+	 * @param onVisibleImagesChanged
+	 * 		new value for onVisibleImagesChanged
+	 */
+	public void setOnVisibleImagesChanged(EventHandler<VisibleImagesEvent> onVisibleImagesChanged) {
+		this.onVisibleImagesChanged = onVisibleImagesChanged;
+	}
 }
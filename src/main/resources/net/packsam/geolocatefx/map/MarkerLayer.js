@@ -0,0 +1,86 @@
+/*
+ * Marker layer of GeolocateFX. Applies batches of marker operations sent by the Java side in a single call and reports clicks on
+ * markers to the Java bridge object "geolocateFxMarkerBridge".
+ *
+ * Operations are arrays:
+ *   ["a", id, latitude, longitude, label, title]   add marker
+ *   ["u", id, latitude, longitude, label, title]   update marker
+ *   ["r", id]                                      remove marker
+ *   ["c"]                                          remove all markers
+ */
+var geolocateFxMarkers = (function () {
+	var markers = {};
+
+	function markerClicked() {
+		geolocateFxMarkerBridge.markerClicked(this.geolocateFxId);
+	}
+
+	function options(op) {
+		return {
+			position: new google.maps.LatLng(op[2], op[3]),
+			label: op[4],
+			title: op[5]
+		};
+	}
+
+	function add(map, op) {
+		var marker = markers[op[1]];
+		if (marker) {
+			marker.setOptions(options(op));
+			return;
+		}
+		marker = new google.maps.Marker(options(op));
+		marker.geolocateFxId = op[1];
+		marker.addListener("click", markerClicked);
+		marker.setMap(map);
+		markers[op[1]] = marker;
+	}
+
+	function update(map, op) {
+		var marker = markers[op[1]];
+		if (marker) {
+			marker.setOptions(options(op));
+		} else {
+			add(map, op);
+		}
+	}
+
+	function remove(id) {
+		var marker = markers[id];
+		if (marker) {
+			google.maps.event.clearInstanceListeners(marker);
+			marker.setMap(null);
+			delete markers[id];
+		}
+	}
+
+	function clear() {
+		for (var id in markers) {
+			if (markers.hasOwnProperty(id)) {
+				remove(id);
+			}
+		}
+	}
+
+	return {
+		apply: function (map, ops) {
+			for (var i = 0; i < ops.length; i++) {
+				var op = ops[i];
+				switch (op[0]) {
+					case "a":
+						add(map, op);
+						break;
+					case "u":
+						update(map, op);
+						break;
+					case "r":
+						remove(op[1]);
+						break;
+					case "c":
+						clear();
+						break;
+				}
+			}
+		}
+	};
+})();
@@ -0,0 +1,75 @@
+package net.packsam.geolocatefx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for the argument parsing of {@link HeadlessGeolocateFx}. Only invalid arguments are tested, as valid ones start the batch with the user's configuration.
+ *
+ * @author osterrath
+ */
+public class HeadlessGeolocateFxTest {
+	/**
+	 * Exit code for invalid arguments.
+	 */
+	private final static int EXIT_USAGE = 2;
+
+	/**
+	 * Requires exactly one of coordinate and track.
+	 */
+	@Test
+	public void requiresSingleLocator() {
+		assertUsage("Either --coordinate or --track is required", "photos");
+		assertUsage("Either --coordinate or --track is required", "--coordinate", "48.1,11.5", "--track", "track.gpx", "photos");
+	}
+
+	/**
+	 * Requires at least one file.
+	 */
+	@Test
+	public void requiresFiles() {
+		assertUsage("No files given", "--coordinate", "48.1,11.5", "--overwrite");
+	}
+
+	/**
+	 * Rejects invalid coordinates.
+	 */
+	@Test
+	public void rejectsInvalidCoordinates() {
+		assertUsage("Invalid coordinate 48.1", "--coordinate", "48.1", "photos");
+		assertUsage("Invalid coordinate 91,11.5", "--coordinate", "91,11.5", "photos");
+		assertUsage("Invalid coordinate north,east", "--coordinate", "north,east", "photos");
+	}
+
+	/**
+	 * Rejects invalid and missing option values.
+	 */
+	@Test
+	public void rejectsInvalidOptions() {
+		assertUsage("Invalid value for --max-gap: 5m", "--track", "track.gpx", "--max-gap", "5m", "photos");
+		assertUsage("Missing value for --parallelism", "--coordinate", "48.1,11.5", "photos", "--parallelism");
+		assertUsage("Unknown option --verbose", "--coordinate", "48.1,11.5", "--verbose", "photos");
+	}
+
+	/**
+	 * Runs the batch mode and checks that it exits with the usage exit code and the given message.
+	 *
+	 * @param message
+	 * 		expected start of the error message
+	 * @param args
+	 * 		command line args
+	 */
+	private void assertUsage(String message, String... args) {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		HeadlessGeolocateFx headlessGeolocateFx = new HeadlessGeolocateFx(new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+		assertEquals(EXIT_USAGE, headlessGeolocateFx.run(args));
+		String output = new String(err.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(output, output.startsWith(message));
+	}
+}
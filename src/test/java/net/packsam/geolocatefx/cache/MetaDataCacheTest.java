@@ -0,0 +1,205 @@
+package net.packsam.geolocatefx.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Tests for {@link MetaDataCache}.
+ *
+ * @author osterrath
+ */
+public class MetaDataCacheTest {
+	/**
+	 * Temporary directory for the cache and image files.
+	 */
+	private File directory;
+
+	/**
+	 * Cache file.
+	 */
+	private File cacheFile;
+
+	/**
+	 * Creates the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not create directory
+	 */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("metadata").toFile();
+		cacheFile = new File(directory, "metadata.bin");
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not delete directory
+	 */
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	/**
+	 * Reads the stored entries after reopening, the last entry of a file wins.
+	 *
+	 * @throws IOException
+	 * 		could not create image files
+	 */
+	@Test
+	public void readsStoredEntries() throws IOException {
+		File image = createImage("image.jpg");
+		File video = createImage("video.mp4");
+		MetaDataCache cache = open();
+		cache.put(image, new MetaDataCache.Entry(null, null, null, null));
+		cache.put(image, new MetaDataCache.Entry(new LatLong(48.1, 11.5), new Date(1000L), null, null));
+		cache.put(video, new MetaDataCache.Entry(null, null, 12.5, 29.97));
+		cache.close();
+
+		cache = open();
+		MetaDataCache.Entry entry = cache.get(image);
+		assertNotNull(entry);
+		assertEquals(48.1, entry.getGeolocation().getLatitude(), 0);
+		assertEquals(11.5, entry.getGeolocation().getLongitude(), 0);
+		assertEquals(new Date(1000L), entry.getCreationDate());
+		assertNull(entry.getDuration());
+
+		entry = cache.get(video);
+		assertNotNull(entry);
+		assertNull(entry.getGeolocation());
+		assertNull(entry.getCreationDate());
+		assertEquals(12.5, entry.getDuration(), 0);
+		assertEquals(29.97, entry.getVideoFrameRate(), 0);
+		assertNull(cache.get(new File(directory, "unknown.jpg")));
+		cache.close();
+	}
+
+	/**
+	 * Keeps the complete records of a truncated file and appends new records after them.
+	 *
+	 * @throws IOException
+	 * 		could not create or truncate files
+	 */
+	@Test
+	public void keepsCompleteRecordsOfTruncatedFile() throws IOException {
+		File first = createImage("first.jpg");
+		File second = createImage("second.jpg");
+		MetaDataCache cache = open();
+		cache.put(first, new MetaDataCache.Entry(new LatLong(1, 2), null, null, null));
+		cache.put(second, new MetaDataCache.Entry(new LatLong(3, 4), null, null, null));
+		cache.close();
+		try (RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw")) {
+			raf.setLength(raf.length() - 4);
+		}
+
+		cache = open();
+		assertNotNull(cache.get(first));
+		assertNull(cache.get(second));
+		cache.put(second, new MetaDataCache.Entry(new LatLong(5, 6), null, null, null));
+		cache.close();
+
+		cache = open();
+		assertEquals(1, cache.get(first).getGeolocation().getLatitude(), 0);
+		assertEquals(5, cache.get(second).getGeolocation().getLatitude(), 0);
+		cache.close();
+	}
+
+	/**
+	 * Rewrites the file with the current records only when it contains too many outdated records.
+	 *
+	 * @throws IOException
+	 * 		could not create image file
+	 */
+	@Test
+	public void compactsOutdatedRecordsOnOpen() throws IOException {
+		File image = createImage("image.jpg");
+		MetaDataCache cache = open();
+		for (int i = 0; i <= 1000; i++) {
+			cache.put(image, new MetaDataCache.Entry(new LatLong(i % 90, 0), null, null, null));
+		}
+		cache.close();
+		long uncompactedLength = cacheFile.length();
+
+		cache = open();
+		cache.close();
+		long compactedLength = cacheFile.length();
+		assertTrue(compactedLength < uncompactedLength);
+		assertEquals(uncompactedLength / 1001, compactedLength - 8);
+
+		cache = open();
+		assertEquals(1000 % 90, cache.get(image).getGeolocation().getLatitude(), 0);
+		cache.close();
+		assertEquals(compactedLength, cacheFile.length());
+	}
+
+	/**
+	 * Ignores entries when size or modification date of the file have been changed.
+	 *
+	 * @throws IOException
+	 * 		could not create or change image files
+	 */
+	@Test
+	public void ignoresStaleEntries() throws IOException {
+		File resized = createImage("resized.jpg");
+		File touched = createImage("touched.jpg");
+		MetaDataCache cache = open();
+		cache.put(resized, new MetaDataCache.Entry(new LatLong(1, 2), null, null, null));
+		cache.put(touched, new MetaDataCache.Entry(new LatLong(1, 2), null, null, null));
+		assertNotNull(cache.get(resized));
+		assertNotNull(cache.get(touched));
+
+		long lastModified = resized.lastModified();
+		Files.write(resized.toPath(), new byte[] { 1 }, StandardOpenOption.APPEND);
+		resized.setLastModified(lastModified);
+		touched.setLastModified(touched.lastModified() - 10_000L);
+
+		assertNull(cache.get(resized));
+		assertNull(cache.get(touched));
+		cache.close();
+	}
+
+	/**
+	 * Opens the cache file.
+	 *
+	 * @return opened cache
+	 */
+	private MetaDataCache open() {
+		MetaDataCache cache = new MetaDataCache(cacheFile);
+		cache.open();
+		return cache;
+	}
+
+	/**
+	 * Creates an image file with some content.
+	 *
+	 * @param name
+	 * 		file name
+	 * @return image file
+	 * @throws IOException
+	 * 		could not create file
+	 */
+	private File createImage(String name) throws IOException {
+		File image = new File(directory, name);
+		Files.write(image.toPath(), name.getBytes(StandardCharsets.UTF_8));
+		return image;
+	}
+}
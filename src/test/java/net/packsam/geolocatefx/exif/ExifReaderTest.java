@@ -0,0 +1,166 @@
+package net.packsam.geolocatefx.exif;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExifReader}.
+ *
+ * @author osterrath
+ */
+public class ExifReaderTest {
+	/**
+	 * Temporary directory for the test files.
+	 */
+	private File directory;
+
+	/**
+	 * Creates the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not create directory
+	 */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("exif").toFile();
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not delete directory
+	 */
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	/**
+	 * Reads creation date and GPS position from the APP1 segment of a JPEG file.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void readsJpeg() throws IOException {
+		File file = write("image.jpg", ExifTestFiles.createJpeg(ExifTestFiles.createTiff(ByteOrder.BIG_ENDIAN, "2019:07:14 18:30:05", 48.137154, 11.576124)));
+
+		ExifMetaData metaData = new ExifReader().read(file);
+
+		assertNotNull(metaData);
+		assertEquals(toDate(2019, 7, 14, 18, 30, 5), metaData.getCreationDateOriginal());
+		assertNull(metaData.getCreationDate());
+		assertEquals(48.137154, metaData.getGeolocation().getLatitude(), 1e-6);
+		assertEquals(11.576124, metaData.getGeolocation().getLongitude(), 1e-6);
+	}
+
+	/**
+	 * Reads the TIFF structure of a little endian TIFF based file with southern and western coordinates.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void readsLittleEndianTiff() throws IOException {
+		File file = write("image.dng", ExifTestFiles.createTiff(ByteOrder.LITTLE_ENDIAN, "2020:01:02 03:04:05", -33.856784, -70.650391));
+
+		ExifMetaData metaData = new ExifReader().read(file);
+
+		assertNotNull(metaData);
+		assertEquals(toDate(2020, 1, 2, 3, 4, 5), metaData.getCreationDateOriginal());
+		assertEquals(-33.856784, metaData.getGeolocation().getLatitude(), 1e-6);
+		assertEquals(-70.650391, metaData.getGeolocation().getLongitude(), 1e-6);
+	}
+
+	/**
+	 * Returns <code>null</code> for unsupported file formats.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void ignoresUnsupportedFormat() throws IOException {
+		File file = write("image.png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+
+		assertNull(new ExifReader().read(file));
+	}
+
+	/**
+	 * Returns <code>null</code> for JPEG files without EXIF segment.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void ignoresJpegWithoutExif() throws IOException {
+		File file = write("image.jpg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xD9});
+
+		assertNull(new ExifReader().read(file));
+	}
+
+	/**
+	 * Returns no thumbnail if the file has no IFD1.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void readsNoThumbnailWithoutIfd1() throws IOException {
+		File file = write("image.jpg", ExifTestFiles.createJpeg(ExifTestFiles.createTiff(ByteOrder.BIG_ENDIAN, "2019:07:14 18:30:05", 1, 2)));
+
+		assertNull(new ExifReader().readThumbnail(file));
+	}
+
+	/**
+	 * Writes a test file.
+	 *
+	 * @param name
+	 * 		file name
+	 * @param content
+	 * 		file content
+	 * @return file
+	 * @throws IOException
+	 * 		could not write file
+	 */
+	private File write(String name, byte[] content) throws IOException {
+		File file = new File(directory, name);
+		Files.write(file.toPath(), content);
+		return file;
+	}
+
+	/**
+	 * Creates a date in the default time zone.
+	 *
+	 * @param year
+	 * 		year
+	 * @param month
+	 * 		month
+	 * @param day
+	 * 		day
+	 * @param hour
+	 * 		hour
+	 * @param minute
+	 * 		minute
+	 * @param second
+	 * 		second
+	 * @return date
+	 */
+	private static Date toDate(int year, int month, int day, int hour, int minute, int second) {
+		return Date.from(LocalDateTime.of(year, month, day, hour, minute, second).atZone(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,196 @@
+package net.packsam.geolocatefx.exif;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builder for minimal JPEG and TIFF files with EXIF creation date and GPS position.
+ *
+ * @author osterrath
+ */
+class ExifTestFiles {
+	/**
+	 * Position of IFD0 in the TIFF structure.
+	 */
+	private final static int IFD0_POSITION = 8;
+
+	/**
+	 * Position of the EXIF IFD in the TIFF structure.
+	 */
+	private final static int EXIF_IFD_POSITION = IFD0_POSITION + 2 + 2 * 12 + 4;
+
+	/**
+	 * Position of the creation date in the TIFF structure.
+	 */
+	private final static int DATE_POSITION = EXIF_IFD_POSITION + 2 + 12 + 4;
+
+	/**
+	 * Position of the GPS IFD in the TIFF structure.
+	 */
+	private final static int GPS_IFD_POSITION = DATE_POSITION + 20;
+
+	/**
+	 * Position of the latitude value in the TIFF structure.
+	 */
+	private final static int LATITUDE_POSITION = GPS_IFD_POSITION + 2 + 4 * 12 + 4;
+
+	/**
+	 * Position of the longitude value in the TIFF structure.
+	 */
+	private final static int LONGITUDE_POSITION = LATITUDE_POSITION + 24;
+
+	/**
+	 * Length of the TIFF structure.
+	 */
+	private final static int TIFF_LENGTH = LONGITUDE_POSITION + 24;
+
+	/**
+	 * Private ctor.
+	 */
+	private ExifTestFiles() {
+	}
+
+	/**
+	 * Creates a TIFF structure with IFD0, EXIF IFD and GPS IFD.
+	 *
+	 * @param byteOrder
+	 * 		byte order
+	 * @param creationDate
+	 * 		creation date in EXIF format
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @return TIFF structure
+	 */
+	static byte[] createTiff(ByteOrder byteOrder, String creationDate, double latitude, double longitude) {
+		ByteBuffer tiff = ByteBuffer.allocate(TIFF_LENGTH).order(byteOrder);
+		tiff.put(byteOrder == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+		tiff.put(byteOrder == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+		tiff.putShort((short) 0x2A);
+		tiff.putInt(IFD0_POSITION);
+
+		tiff.position(IFD0_POSITION);
+		tiff.putShort((short) 2);
+		putEntry(tiff, TiffParser.TAG_EXIF_IFD, TiffParser.TYPE_LONG, 1, EXIF_IFD_POSITION);
+		putEntry(tiff, TiffParser.TAG_GPS_IFD, TiffParser.TYPE_LONG, 1, GPS_IFD_POSITION);
+		tiff.putInt(0);
+
+		tiff.position(EXIF_IFD_POSITION);
+		tiff.putShort((short) 1);
+		putEntry(tiff, TiffParser.TAG_DATE_TIME_ORIGINAL, TiffParser.TYPE_ASCII, 20, DATE_POSITION);
+		tiff.putInt(0);
+		tiff.position(DATE_POSITION);
+		tiff.put(creationDate.getBytes(StandardCharsets.US_ASCII));
+
+		tiff.position(GPS_IFD_POSITION);
+		tiff.putShort((short) 4);
+		putReference(tiff, TiffParser.TAG_GPS_LATITUDE_REF, latitude >= 0 ? 'N' : 'S');
+		putEntry(tiff, TiffParser.TAG_GPS_LATITUDE, TiffParser.TYPE_RATIONAL, 3, LATITUDE_POSITION);
+		putReference(tiff, TiffParser.TAG_GPS_LONGITUDE_REF, longitude >= 0 ? 'E' : 'W');
+		putEntry(tiff, TiffParser.TAG_GPS_LONGITUDE, TiffParser.TYPE_RATIONAL, 3, LONGITUDE_POSITION);
+		tiff.putInt(0);
+		tiff.position(LATITUDE_POSITION);
+		putDegrees(tiff, latitude);
+		putDegrees(tiff, longitude);
+
+		return tiff.array();
+	}
+
+	/**
+	 * Creates a JPEG file with the given TIFF structure in its APP1 segment.
+	 *
+	 * @param tiff
+	 * 		TIFF structure
+	 * @return JPEG file
+	 */
+	static byte[] createJpeg(byte[] tiff) {
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		jpeg.write(0xFF);
+		jpeg.write(0xD8);
+
+		// APP0 before the EXIF segment, as written by many cameras
+		jpeg.write(0xFF);
+		jpeg.write(0xE0);
+		jpeg.write(0);
+		jpeg.write(4);
+		jpeg.write(0);
+		jpeg.write(0);
+
+		int segmentLength = 2 + 6 + tiff.length;
+		jpeg.write(0xFF);
+		jpeg.write(0xE1);
+		jpeg.write(segmentLength >> 8);
+		jpeg.write(segmentLength & 0xFF);
+		jpeg.write('E');
+		jpeg.write('x');
+		jpeg.write('i');
+		jpeg.write('f');
+		jpeg.write(0);
+		jpeg.write(0);
+		jpeg.write(tiff, 0, tiff.length);
+
+		jpeg.write(0xFF);
+		jpeg.write(0xDA);
+		jpeg.write(0xFF);
+		jpeg.write(0xD9);
+		return jpeg.toByteArray();
+	}
+
+	/**
+	 * Writes an IFD entry.
+	 *
+	 * @param tiff
+	 * 		TIFF structure
+	 * @param tag
+	 * 		tag
+	 * @param type
+	 * 		type
+	 * @param count
+	 * 		number of values
+	 * @param value
+	 * 		value or offset
+	 */
+	private static void putEntry(ByteBuffer tiff, int tag, int type, int count, int value) {
+		tiff.putShort((short) tag);
+		tiff.putShort((short) type);
+		tiff.putInt(count);
+		tiff.putInt(value);
+	}
+
+	/**
+	 * Writes an IFD entry with an inline GPS reference.
+	 *
+	 * @param tiff
+	 * 		TIFF structure
+	 * @param tag
+	 * 		tag
+	 * @param direction
+	 * 		direction reference
+	 */
+	private static void putReference(ByteBuffer tiff, int tag, char direction) {
+		tiff.putShort((short) tag);
+		tiff.putShort((short) TiffParser.TYPE_ASCII);
+		tiff.putInt(2);
+		tiff.put((byte) direction);
+		tiff.put((byte) 0);
+		tiff.putShort((short) 0);
+	}
+
+	/**
+	 * Writes a coordinate as degrees, minutes and seconds.
+	 *
+	 * @param tiff
+	 * 		TIFF structure
+	 * @param coordinate
+	 * 		coordinate
+	 */
+	private static void putDegrees(ByteBuffer tiff, double coordinate) {
+		long total = Math.round(Math.abs(coordinate) * 3600 * 1000);
+		tiff.putInt((int) (total / 3_600_000)).putInt(1);
+		tiff.putInt((int) (total / 60_000 % 60)).putInt(1);
+		tiff.putInt((int) (total % 60_000)).putInt(1000);
+	}
+}
@@ -0,0 +1,137 @@
+package net.packsam.geolocatefx.exif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Tests for {@link ExifWriter}.
+ *
+ * @author osterrath
+ */
+public class ExifWriterTest {
+	/**
+	 * Temporary directory for the test files.
+	 */
+	private File directory;
+
+	/**
+	 * Creates the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not create directory
+	 */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("exif").toFile();
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws IOException
+	 * 		could not delete directory
+	 */
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	/**
+	 * Patches the existing GPS IFD of a JPEG file and keeps its modification date.
+	 *
+	 * @throws IOException
+	 * 		could not read or write file
+	 */
+	@Test
+	public void patchesGeolocation() throws IOException {
+		File file = write("image.jpg", ExifTestFiles.createJpeg(ExifTestFiles.createTiff(ByteOrder.LITTLE_ENDIAN, "2019:07:14 18:30:05", 48.137154, 11.576124)));
+		FileTime lastModified = FileTime.fromMillis(1_500_000_000_000L);
+		Files.setLastModifiedTime(file.toPath(), lastModified);
+
+		assertTrue(new ExifWriter().writeGeolocation(file, new LatLong(-22.951916, -43.210487)));
+
+		ExifMetaData metaData = new ExifReader().read(file);
+		assertEquals(-22.951916, metaData.getGeolocation().getLatitude(), 1e-6);
+		assertEquals(-43.210487, metaData.getGeolocation().getLongitude(), 1e-6);
+		assertEquals(lastModified, Files.getLastModifiedTime(file.toPath()));
+	}
+
+	/**
+	 * Keeps the seconds below 60 when they would be rounded up.
+	 *
+	 * @throws IOException
+	 * 		could not read or write file
+	 */
+	@Test
+	public void carriesRoundedSeconds() throws IOException {
+		File file = write("image.jpg", ExifTestFiles.createJpeg(ExifTestFiles.createTiff(ByteOrder.BIG_ENDIAN, "2019:07:14 18:30:05", 1, 1)));
+
+		assertTrue(new ExifWriter().writeGeolocation(file, new LatLong(10.99999999999, 20)));
+
+		ExifMetaData metaData = new ExifReader().read(file);
+		assertEquals(11, metaData.getGeolocation().getLatitude(), 1e-9);
+		assertEquals(20, metaData.getGeolocation().getLongitude(), 1e-9);
+	}
+
+	/**
+	 * Leaves TIFF based files untouched, they are written by exiftool.
+	 *
+	 * @throws IOException
+	 * 		could not read or write file
+	 */
+	@Test
+	public void skipsTiff() throws IOException {
+		byte[] content = ExifTestFiles.createTiff(ByteOrder.BIG_ENDIAN, "2019:07:14 18:30:05", 1, 2);
+		File file = write("image.tif", content);
+
+		assertFalse(new ExifWriter().writeGeolocation(file, new LatLong(3, 4)));
+		assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+	}
+
+	/**
+	 * Leaves JPEG files without EXIF segment untouched.
+	 *
+	 * @throws IOException
+	 * 		could not read or write file
+	 */
+	@Test
+	public void skipsJpegWithoutExif() throws IOException {
+		byte[] content = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xD9};
+		File file = write("image.jpg", content);
+
+		assertFalse(new ExifWriter().writeGeolocation(file, new LatLong(3, 4)));
+		assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+	}
+
+	/**
+	 * Writes a test file.
+	 *
+	 * @param name
+	 * 		file name
+	 * @param content
+	 * 		file content
+	 * @return file
+	 * @throws IOException
+	 * 		could not write file
+	 */
+	private File write(String name, byte[] content) throws IOException {
+		File file = new File(directory, name);
+		Files.write(file.toPath(), content);
+		return file;
+	}
+}
@@ -0,0 +1,174 @@
+package net.packsam.geolocatefx.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Tests for {@link GeoIndex}.
+ *
+ * @author osterrath
+ */
+public class GeoIndexTest {
+	/**
+	 * Finds the same images as a linear scan, also after moving and removing images.
+	 */
+	@Test
+	public void findsImagesInBounds() {
+		GeoIndex index = new GeoIndex();
+		Random random = new Random(1);
+		List<ImageModel> imageModels = new ArrayList<>();
+		List<LatLong> positions = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			ImageModel imageModel = createImageModel(i);
+			LatLong position = new LatLong(random.nextDouble() * 20 + 40, random.nextDouble() * 20);
+			imageModels.add(imageModel);
+			positions.add(position);
+			index.update(imageModel, position);
+		}
+		for (int i = 0; i < 500; i++) {
+			LatLong position = new LatLong(random.nextDouble() * 20 + 40, random.nextDouble() * 20);
+			positions.set(i, position);
+			index.update(imageModels.get(i), position);
+		}
+		for (int i = 500; i < 800; i++) {
+			positions.set(i, null);
+			index.remove(imageModels.get(i));
+		}
+
+		assertEquals(1700, index.size());
+		for (int i = 0; i < 50; i++) {
+			double south = random.nextDouble() * 20 + 40;
+			double west = random.nextDouble() * 20;
+			double north = south + random.nextDouble() * 5;
+			double east = west + random.nextDouble() * 5;
+
+			Set<ImageModel> expected = new HashSet<>();
+			for (int j = 0; j < imageModels.size(); j++) {
+				LatLong position = positions.get(j);
+				if (position != null && position.getLatitude() >= south && position.getLatitude() <= north && position.getLongitude() >= west && position.getLongitude() <= east) {
+					expected.add(imageModels.get(j));
+				}
+			}
+			assertEquals(expected, new HashSet<>(index.findInBounds(south, west, north, east)));
+		}
+	}
+
+	/**
+	 * Splits bounds crossing the antimeridian.
+	 */
+	@Test
+	public void findsImagesAcrossAntimeridian() {
+		GeoIndex index = new GeoIndex();
+		ImageModel fiji = createImageModel(1);
+		ImageModel samoa = createImageModel(2);
+		ImageModel greenwich = createImageModel(3);
+		index.update(fiji, new LatLong(-17.7, 178.1));
+		index.update(samoa, new LatLong(-13.8, -171.8));
+		index.update(greenwich, new LatLong(51.5, 0));
+
+		Set<ImageModel> result = new HashSet<>(index.findInBounds(-30, 170, 0, -160));
+		assertEquals(2, result.size());
+		assertTrue(result.contains(fiji));
+		assertTrue(result.contains(samoa));
+
+		assertEquals(3, index.findInBounds(-90, -180, 90, 180).size());
+	}
+
+	/**
+	 * Finds the same nearest images in the same order as a linear scan, also across the antimeridian.
+	 */
+	@Test
+	public void findsNearestImages() {
+		GeoIndex index = new GeoIndex();
+		Random random = new Random(2);
+		List<ImageModel> imageModels = new ArrayList<>();
+		List<LatLong> positions = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			ImageModel imageModel = createImageModel(i);
+			LatLong position = new LatLong(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+			imageModels.add(imageModel);
+			positions.add(position);
+			index.update(imageModel, position);
+		}
+
+		for (int i = 0; i < 50; i++) {
+			double latitude = random.nextDouble() * 160 - 80;
+			double longitude = i < 10 ? 179.5 + random.nextDouble() : random.nextDouble() * 360 - 180;
+			int count = random.nextInt(20) + 1;
+
+			List<Integer> expected = new ArrayList<>();
+			for (int j = 0; j < imageModels.size(); j++) {
+				expected.add(j);
+			}
+			expected.sort(Comparator.comparingDouble(j -> getDistance(latitude, longitude, positions.get(j))));
+			List<ImageModel> expectedImages = new ArrayList<>();
+			expected.subList(0, count).forEach(j -> expectedImages.add(imageModels.get(j)));
+			assertEquals(expectedImages, index.findNearest(latitude, longitude, count));
+		}
+
+		assertEquals(2000, index.findNearest(0, 0, 5000).size());
+		assertTrue(index.findNearest(0, 0, 0).isEmpty());
+	}
+
+	/**
+	 * Orders the nearest images by the shorter way around the world.
+	 */
+	@Test
+	public void findsNearestImagesAcrossAntimeridian() {
+		GeoIndex index = new GeoIndex();
+		ImageModel fiji = createImageModel(1);
+		ImageModel samoa = createImageModel(2);
+		ImageModel greenwich = createImageModel(3);
+		index.update(fiji, new LatLong(-17.7, 178.1));
+		index.update(samoa, new LatLong(-13.8, -171.8));
+		index.update(greenwich, new LatLong(51.5, 0));
+
+		assertEquals(Arrays.asList(fiji, samoa, greenwich), index.findNearest(-15, 179.9, 3));
+		assertEquals(Arrays.asList(samoa, fiji), index.findNearest(-14, -175, 2));
+	}
+
+	/**
+	 * Calculates the squared equirectangular distance like the index, scaled at the latitude of the query point.
+	 *
+	 * @param latitude
+	 * 		latitude of the query point
+	 * @param longitude
+	 * 		longitude of the query point
+	 * @param position
+	 * 		position of an image
+	 * @return squared distance in degrees
+	 */
+	private static double getDistance(double latitude, double longitude, LatLong position) {
+		double dLat = latitude - position.getLatitude();
+		double dLon = Math.abs(longitude - position.getLongitude()) % 360;
+		dLon = Math.min(dLon, 360 - dLon) * Math.cos(Math.toRadians(latitude));
+		return dLat * dLat + dLon * dLon;
+	}
+
+	/**
+	 * Creates an image model.
+	 *
+	 * @param number
+	 * 		number for the file name
+	 * @return image model
+	 */
+	private static ImageModel createImageModel(int number) {
+		ImageModel imageModel = new ImageModel();
+		imageModel.setImage(new File("image" + number + ".jpg"));
+		return imageModel;
+	}
+}
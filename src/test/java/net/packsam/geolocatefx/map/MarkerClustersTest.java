@@ -0,0 +1,145 @@
+package net.packsam.geolocatefx.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.ImageModel;
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Tests for {@link MarkerClusters}.
+ *
+ * @author osterrath
+ */
+public class MarkerClustersTest {
+	/**
+	 * Counts every image exactly once on every zoom level.
+	 */
+	@Test
+	public void countsAllImages() {
+		MarkerClusters markerClusters = new MarkerClusters(60);
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			markerClusters.update(createImageModel(i), new LatLong(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180));
+		}
+
+		assertEquals(1000, markerClusters.size());
+		for (int zoom = 0; zoom <= MarkerClusters.MAX_ZOOM; zoom++) {
+			assertEquals(1000, countImages(markerClusters.getClusters(zoom, -90, -180, 90, 180)));
+		}
+	}
+
+	/**
+	 * Merges near images into a single cluster on low zoom levels and separates them on high zoom levels.
+	 */
+	@Test
+	public void clustersNearImages() {
+		MarkerClusters markerClusters = new MarkerClusters(60);
+		markerClusters.update(createImageModel(1), new LatLong(48.1371, 11.5754));
+		markerClusters.update(createImageModel(2), new LatLong(48.1372, 11.5755));
+
+		List<MarkerClusters.Cluster> clusters = markerClusters.getClusters(5, -90, -180, 90, 180);
+		assertEquals(1, clusters.size());
+		assertEquals(2, clusters.get(0).getCount());
+		assertEquals(48.13715, clusters.get(0).getCenter().getLatitude(), 1e-9);
+		assertEquals(11.57545, clusters.get(0).getCenter().getLongitude(), 1e-9);
+
+		assertEquals(2, markerClusters.getClusters(MarkerClusters.MAX_ZOOM, -90, -180, 90, 180).size());
+	}
+
+	/**
+	 * Returns only the clusters within the bounds, also across the antimeridian.
+	 */
+	@Test
+	public void findsClustersInBounds() {
+		MarkerClusters markerClusters = new MarkerClusters(60);
+		markerClusters.update(createImageModel(1), new LatLong(-17.7, 178.1));
+		markerClusters.update(createImageModel(2), new LatLong(-13.8, -171.8));
+		markerClusters.update(createImageModel(3), new LatLong(51.5, 0));
+
+		for (int zoom = 2; zoom <= MarkerClusters.MAX_ZOOM; zoom += 4) {
+			assertEquals(2, countImages(markerClusters.getClusters(zoom, -30, 170, 0, -160)));
+			assertEquals(1, countImages(markerClusters.getClusters(zoom, 40, -10, 60, 10)));
+		}
+	}
+
+	/**
+	 * Moves images between clusters and removes empty clusters.
+	 */
+	@Test
+	public void updatesClusters() {
+		MarkerClusters markerClusters = new MarkerClusters(60);
+		ImageModel imageModel = createImageModel(1);
+		markerClusters.update(imageModel, new LatLong(48.1, 11.5));
+		markerClusters.update(imageModel, new LatLong(-33.9, 151.2));
+
+		assertEquals(0, markerClusters.getClusters(10, 40, 0, 60, 20).size());
+		assertEquals(1, countImages(markerClusters.getClusters(10, -40, 140, -30, 160)));
+
+		markerClusters.remove(imageModel);
+		assertEquals(0, markerClusters.size());
+		assertEquals(0, markerClusters.getClusters(0, -90, -180, 90, 180).size());
+	}
+
+	/**
+	 * Replaces a removed representative by another image of the cluster on every zoom level.
+	 */
+	@Test
+	public void replacesRemovedRepresentative() {
+		MarkerClusters markerClusters = new MarkerClusters(60);
+		ImageModel first = createImageModel(1);
+		ImageModel second = createImageModel(2);
+		markerClusters.update(first, new LatLong(48.13710, 11.57540));
+		markerClusters.update(second, new LatLong(48.13710, 11.57540));
+		for (int zoom = 0; zoom <= MarkerClusters.MAX_ZOOM; zoom++) {
+			long key = markerClusters.getClusters(zoom, -90, -180, 90, 180).get(0).getKey();
+			assertSame(first, markerClusters.getImage(zoom, key));
+		}
+
+		markerClusters.remove(first);
+
+		for (int zoom = 0; zoom <= MarkerClusters.MAX_ZOOM; zoom++) {
+			List<MarkerClusters.Cluster> clusters = markerClusters.getClusters(zoom, -90, -180, 90, 180);
+			assertEquals(1, clusters.size());
+			assertSame(second, markerClusters.getImage(zoom, clusters.get(0).getKey()));
+		}
+		assertNull(markerClusters.getImage(0, -1));
+	}
+
+	/**
+	 * Sums the image counts of the given clusters.
+	 *
+	 * @param clusters
+	 * 		clusters
+	 * @return number of images
+	 */
+	private static int countImages(List<MarkerClusters.Cluster> clusters) {
+		int count = 0;
+		for (MarkerClusters.Cluster cluster : clusters) {
+			assertTrue(cluster.getCount() > 0);
+			count += cluster.getCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Creates an image model.
+	 *
+	 * @param number
+	 * 		number for the file name
+	 * @return image model
+	 */
+	private static ImageModel createImageModel(int number) {
+		ImageModel imageModel = new ImageModel();
+		imageModel.setImage(new File("image" + number + ".jpg"));
+		return imageModel;
+	}
+}
@@ -0,0 +1,206 @@
+package net.packsam.geolocatefx.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javafx.collections.ListChangeListener;
+
+/**
+ * Tests for {@link SortedImageList}. The reported changes are replayed on a copy of the list, so wrong permutations or ranges are detected.
+ *
+ * @author osterrath
+ */
+public class SortedImageListTest {
+	/**
+	 * Expected order of the images.
+	 */
+	private final static Comparator<ImageModel> ORDER = Comparator
+			.comparing((ImageModel im) -> im.getCreationDate() != null ? im.getCreationDate().getTime() : Long.MIN_VALUE)
+			.thenComparing(ImageModel::getImage);
+
+	/**
+	 * Tested list.
+	 */
+	private SortedImageList list;
+
+	/**
+	 * Copy of the list built from the reported changes.
+	 */
+	private List<ImageModel> replayed;
+
+	/**
+	 * Creates the list and replays its changes.
+	 */
+	@Before
+	public void setUp() {
+		list = new SortedImageList();
+		replayed = new ArrayList<>();
+		list.addListener(this::replay);
+	}
+
+	/**
+	 * Sorts added images by creation date and file, images without creation date first.
+	 */
+	@Test
+	public void sortsAddedImages() {
+		ImageModel b = createImageModel("b.jpg", 2000L);
+		ImageModel a = createImageModel("a.jpg", 2000L);
+		ImageModel c = createImageModel("c.jpg", 1000L);
+		ImageModel d = createImageModel("d.jpg", null);
+
+		list.add(b);
+		list.addAll(Arrays.asList(a, c, d));
+
+		assertEquals(Arrays.asList(d, c, a, b), list);
+		assertEquals(list, replayed);
+		assertTrue(list.contains(a));
+		assertEquals(2, list.indexOf(a));
+	}
+
+	/**
+	 * Moves single images with changed creation dates and reports permutations.
+	 */
+	@Test
+	public void movesChangedImages() {
+		List<ImageModel> imageModels = createImageModels(100, new Random(1));
+		list.addAll(imageModels);
+
+		Random random = new Random(2);
+		for (int i = 0; i < 20; i++) {
+			ImageModel imageModel = imageModels.get(random.nextInt(imageModels.size()));
+			imageModel.setCreationDate(new Date(random.nextInt(1000)));
+			list.reposition(Arrays.asList(imageModel));
+
+			assertSorted();
+			assertEquals(list, replayed);
+		}
+	}
+
+	/**
+	 * Sorts the whole list when many images have been changed.
+	 */
+	@Test
+	public void repositionsManyImages() {
+		List<ImageModel> imageModels = createImageModels(200, new Random(3));
+		list.addAll(imageModels);
+
+		Random random = new Random(4);
+		imageModels.forEach(im -> im.setCreationDate(new Date(random.nextInt(1000))));
+		list.reposition(imageModels);
+
+		assertSorted();
+		assertEquals(list, replayed);
+	}
+
+	/**
+	 * Keeps the position until the list is told about a changed creation date.
+	 */
+	@Test
+	public void keepsPositionUntilRepositioned() {
+		ImageModel a = createImageModel("a.jpg", 1000L);
+		ImageModel b = createImageModel("b.jpg", 2000L);
+		list.addAll(Arrays.asList(a, b));
+
+		a.setCreationDate(new Date(3000L));
+		assertEquals(Arrays.asList(a, b), list);
+		assertTrue(list.remove(a));
+		assertFalse(list.contains(a));
+
+		list.add(a);
+		assertEquals(Arrays.asList(b, a), list);
+		assertEquals(list, replayed);
+	}
+
+	/**
+	 * Removes images and reports the removed ranges.
+	 */
+	@Test
+	public void removesImages() {
+		List<ImageModel> imageModels = createImageModels(50, new Random(5));
+		list.addAll(imageModels);
+
+		list.removeAll(imageModels.subList(10, 30));
+		assertEquals(30, list.size());
+		assertSorted();
+		assertEquals(list, replayed);
+
+		list.clear();
+		assertTrue(list.isEmpty());
+		assertEquals(list, replayed);
+	}
+
+	/**
+	 * Checks that the list is sorted.
+	 */
+	private void assertSorted() {
+		List<ImageModel> sorted = new ArrayList<>(list);
+		sorted.sort(ORDER);
+		assertEquals(sorted, list);
+	}
+
+	/**
+	 * Applies the given change to the replayed copy.
+	 *
+	 * @param change
+	 * 		list change
+	 */
+	private void replay(ListChangeListener.Change<? extends ImageModel> change) {
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				List<ImageModel> permuted = new ArrayList<>(replayed);
+				for (int i = change.getFrom(); i < change.getTo(); i++) {
+					permuted.set(change.getPermutation(i), replayed.get(i));
+				}
+				replayed = permuted;
+			} else {
+				replayed.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+				replayed.addAll(change.getFrom(), change.getAddedSubList());
+			}
+		}
+	}
+
+	/**
+	 * Creates images with random creation dates.
+	 *
+	 * @param count
+	 * 		number of images
+	 * @param random
+	 * 		random generator
+	 * @return images
+	 */
+	private static List<ImageModel> createImageModels(int count, Random random) {
+		List<ImageModel> imageModels = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			imageModels.add(createImageModel("image" + i + ".jpg", (long) random.nextInt(1000)));
+		}
+		return imageModels;
+	}
+
+	/**
+	 * Creates an image model.
+	 *
+	 * @param fileName
+	 * 		file name
+	 * @param creationDate
+	 * 		creation date in ms, may be <code>null</code>
+	 * @return image model
+	 */
+	private static ImageModel createImageModel(String fileName, Long creationDate) {
+		ImageModel imageModel = new ImageModel();
+		imageModel.setImage(new File(fileName));
+		imageModel.setCreationDate(creationDate != null ? new Date(creationDate) : null);
+		return imageModel;
+	}
+}
@@ -0,0 +1,161 @@
+package net.packsam.geolocatefx.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DirectoryImport}.
+ *
+ * @author osterrath
+ */
+public class DirectoryImportTest {
+	/**
+	 * Root directory of the test tree.
+	 */
+	private File directory;
+
+	/**
+	 * Pool for walking the tree.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates the test tree and the pool.
+	 *
+	 * @throws IOException
+	 * 		could not create tree
+	 */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("import").toFile();
+		pool = new ForkJoinPool(2);
+		for (int i = 0; i < 10; i++) {
+			touch("a/image" + i + ".jpg");
+			touch("a/b/image" + i + ".jpg");
+		}
+		touch("a/notes.txt");
+		touch("a/@eaDir/image0.jpg");
+		touch(".thumbnails/image0.jpg");
+		touch("a/b/._image0.jpg");
+	}
+
+	/**
+	 * Deletes the test tree and shuts down the pool.
+	 *
+	 * @throws IOException
+	 * 		could not delete tree
+	 */
+	@After
+	public void tearDown() throws IOException {
+		pool.shutdownNow();
+		FileUtils.deleteDirectory(directory);
+	}
+
+	/**
+	 * Hands over all included files in batches of the given size.
+	 */
+	@Test
+	public void importsIncludedFiles() {
+		List<List<File>> batches = new ArrayList<>();
+		DirectoryImport directoryImport = new DirectoryImport(pool, f -> f.getName().endsWith(".jpg"), null, 3, (files, applied) -> {
+			synchronized (batches) {
+				batches.add(files);
+			}
+			applied.run();
+		});
+
+		directoryImport.walk(Collections.singletonList(directory));
+
+		Set<String> fileNames = new HashSet<>();
+		for (List<File> batch : batches) {
+			assertTrue(batch.size() <= 3);
+			batch.forEach(f -> fileNames.add(directory.toPath().relativize(f.toPath()).toString().replace(File.separatorChar, '/')));
+		}
+		assertEquals(23, fileNames.size());
+		assertTrue(fileNames.contains("a/@eaDir/image0.jpg"));
+		assertTrue(fileNames.contains(".thumbnails/image0.jpg"));
+	}
+
+	/**
+	 * Skips files and directories matching the exclude patterns.
+	 */
+	@Test
+	public void skipsExcludedFiles() {
+		Set<File> files = Collections.synchronizedSet(new HashSet<>());
+		DirectoryImport directoryImport = new DirectoryImport(pool, f -> f.getName().endsWith(".jpg"), " @eaDir, .*,", 5, (batch, applied) -> {
+			files.addAll(batch);
+			applied.run();
+		});
+
+		directoryImport.walk(Collections.singletonList(directory));
+
+		assertEquals(20, files.size());
+		for (File file : files) {
+			assertTrue(file.getName().startsWith("image"));
+			assertTrue(file.getParentFile().getName().equals("a") || file.getParentFile().getName().equals("b"));
+		}
+	}
+
+	/**
+	 * Waits for applied batches when the handler applies them later.
+	 *
+	 * @throws InterruptedException
+	 * 		thread got interrupted
+	 */
+	@Test
+	public void waitsForAppliedBatches() throws InterruptedException {
+		List<Runnable> pending = new ArrayList<>();
+		Set<File> files = new HashSet<>();
+		DirectoryImport directoryImport = new DirectoryImport(pool, f -> true, null, 1, (batch, applied) -> {
+			synchronized (pending) {
+				files.addAll(batch);
+				pending.add(applied);
+				pending.notifyAll();
+			}
+		});
+
+		directoryImport.start(Collections.singletonList(directory));
+
+		// apply the batches one by one like the FX thread
+		long deadline = System.currentTimeMillis() + 10_000L;
+		synchronized (pending) {
+			while (files.size() < 24 && System.currentTimeMillis() < deadline) {
+				if (pending.isEmpty()) {
+					pending.wait(100);
+				} else {
+					pending.remove(0).run();
+				}
+			}
+			assertEquals(24, files.size());
+		}
+	}
+
+	/**
+	 * Creates an empty file in the test tree.
+	 *
+	 * @param path
+	 * 		relative path
+	 * @throws IOException
+	 * 		could not create file
+	 */
+	private void touch(String path) throws IOException {
+		File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), new byte[0]);
+	}
+}
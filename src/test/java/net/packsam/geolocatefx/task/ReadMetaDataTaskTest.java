@@ -0,0 +1,111 @@
+package net.packsam.geolocatefx.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * Tests for the value parsers of the exiftool table output in {@link ReadMetaDataTask}.
+ *
+ * @author osterrath
+ */
+public class ReadMetaDataTaskTest {
+	/**
+	 * Parses plain decimal numbers.
+	 */
+	@Test
+	public void parsesNumbers() {
+		assertEquals(48.137154, parseNumber("48.137154"), 0);
+		assertEquals(-70.650391, parseNumber("-70.650391"), 0);
+		assertEquals(12, parseNumber("+12"), 0);
+		assertEquals(0.5, parseNumber(".5"), 0);
+		assertEquals(29.97, parseNumber("29.97"), 0);
+	}
+
+	/**
+	 * Falls back to the JDK parser for exponents and very long numbers.
+	 */
+	@Test
+	public void parsesSpecialNumbers() {
+		assertEquals(1.5e-7, parseNumber("1.5e-7"), 0);
+		assertEquals(123456789012345678901234.0, parseNumber("123456789012345678901234"), 1e9);
+		assertEquals(0.1234567890123456789, parseNumber("0.1234567890123456789"), 1e-15);
+	}
+
+	/**
+	 * Returns <code>null</code> for missing and invalid numbers.
+	 */
+	@Test
+	public void rejectsInvalidNumbers() {
+		assertNull(parseNumber("-"));
+		assertNull(parseNumber(""));
+		assertNull(parseNumber("+"));
+		assertNull(parseNumber("12 s"));
+	}
+
+	/**
+	 * Parses a number inside a larger buffer.
+	 */
+	@Test
+	public void parsesNumberInBuffer() {
+		byte[] line = "1.25\t-3.5\t-".getBytes(StandardCharsets.US_ASCII);
+
+		assertEquals(1.25, ReadMetaDataTask.parseNumber(line, 0, 4), 0);
+		assertEquals(-3.5, ReadMetaDataTask.parseNumber(line, 5, 9), 0);
+		assertNull(ReadMetaDataTask.parseNumber(line, 10, 11));
+	}
+
+	/**
+	 * Parses EXIF dates and ignores sub seconds and time zones.
+	 */
+	@Test
+	public void parsesDates() {
+		Date expected = Date.from(LocalDateTime.of(2019, 7, 14, 18, 30, 5).atZone(ZoneId.systemDefault()).toInstant());
+
+		assertEquals(expected, parseDateTime("2019:07:14 18:30:05"));
+		assertEquals(expected, parseDateTime("2019:07:14 18:30:05.123"));
+		assertEquals(expected, parseDateTime("2019:07:14 18:30:05+02:00"));
+	}
+
+	/**
+	 * Returns <code>null</code> for missing and invalid dates.
+	 */
+	@Test
+	public void rejectsInvalidDates() {
+		assertNull(parseDateTime("-"));
+		assertNull(parseDateTime("0000:00:00 00:00:00"));
+		assertNull(parseDateTime("2019-07-14 18:30:05"));
+		assertNull(parseDateTime("2019:07:14"));
+		assertNull(parseDateTime("2019:13:14 18:30:05"));
+	}
+
+	/**
+	 * Parses the given text as number.
+	 *
+	 * @param text
+	 * 		text
+	 * @return number
+	 */
+	private static Double parseNumber(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		return ReadMetaDataTask.parseNumber(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Parses the given text as date.
+	 *
+	 * @param text
+	 * 		text
+	 * @return date
+	 */
+	private static Date parseDateTime(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		return ReadMetaDataTask.parseDateTime(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,173 @@
+package net.packsam.geolocatefx.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.ImageModel;
+
+/**
+ * Tests for {@link TaskRegistry}. The tasks are never run, finishing a task is simulated by calling its done handler.
+ *
+ * @author osterrath
+ */
+public class TaskRegistryTest {
+	/**
+	 * Merges requests for files that are already handled by a task of the same operation.
+	 */
+	@Test
+	public void mergesDuplicateRequests() {
+		TaskRegistry taskRegistry = new TaskRegistry();
+		ImageModel a = createImageModel("a");
+		ImageModel b = createImageModel("b");
+		ImageModel c = createImageModel("c");
+
+		TestTask first = taskRegistry.register(TaskRegistry.Operation.META_DATA, Arrays.asList(a, b, a), TestTask::new);
+		assertEquals(Arrays.asList(a, b), first.imageModels);
+
+		TestTask second = taskRegistry.register(TaskRegistry.Operation.META_DATA, Arrays.asList(b, c), TestTask::new);
+		assertEquals(Collections.singletonList(c), second.imageModels);
+
+		assertNull(taskRegistry.register(TaskRegistry.Operation.META_DATA, Arrays.asList(a, c), TestTask::new));
+		assertNotNull(taskRegistry.register(TaskRegistry.Operation.THUMBNAIL, Collections.singletonList(a), TestTask::new));
+		assertNull(taskRegistry.register(EnumSet.allOf(TaskRegistry.Operation.class), Collections.singletonList(a), TestTask::new));
+		assertEquals(4, taskRegistry.getPendingCount());
+	}
+
+	/**
+	 * Counts one pending operation per file and operation of a combined task.
+	 */
+	@Test
+	public void registersCombinedOperations() {
+		TaskRegistry taskRegistry = new TaskRegistry();
+		ImageModel a = createImageModel("a");
+
+		TestTask task = taskRegistry.register(EnumSet.allOf(TaskRegistry.Operation.class), Collections.singletonList(a), TestTask::new);
+		assertNotNull(task);
+		assertEquals(2, taskRegistry.getPendingCount());
+		assertNull(taskRegistry.register(TaskRegistry.Operation.THUMBNAIL, Collections.singletonList(a), TestTask::new));
+
+		task.getDoneHandler().run();
+		assertEquals(0, taskRegistry.getPendingCount());
+		assertNotNull(taskRegistry.register(TaskRegistry.Operation.THUMBNAIL, Collections.singletonList(a), TestTask::new));
+	}
+
+	/**
+	 * Cancels a task only when all of its images have been removed.
+	 */
+	@Test
+	public void cancelsTasksWithoutRemainingImages() {
+		TaskRegistry taskRegistry = new TaskRegistry();
+		ImageModel a = createImageModel("a");
+		ImageModel b = createImageModel("b");
+		ImageModel c = createImageModel("c");
+		TestTask shared = taskRegistry.register(TaskRegistry.Operation.META_DATA, Arrays.asList(a, b), TestTask::new);
+		TestTask combined = taskRegistry.register(EnumSet.allOf(TaskRegistry.Operation.class), Collections.singletonList(c), TestTask::new);
+
+		assertEquals(0, taskRegistry.cancel(Collections.singletonList(a)));
+		assertFalse(shared.cancelled);
+		assertEquals(3, taskRegistry.getPendingCount());
+
+		assertEquals(2, taskRegistry.cancel(Arrays.asList(b, c)));
+		assertTrue(shared.cancelled);
+		assertEquals(1, combined.cancelCount);
+		assertEquals(0, taskRegistry.getPendingCount());
+	}
+
+	/**
+	 * Keeps the task registered for a removed and re-added image when the cancelled task finishes later.
+	 */
+	@Test
+	public void keepsNewTaskWhenCancelledTaskFinishes() {
+		TaskRegistry taskRegistry = new TaskRegistry();
+		ImageModel a = createImageModel("a");
+		TestTask cancelled = taskRegistry.register(TaskRegistry.Operation.META_DATA, Collections.singletonList(a), TestTask::new);
+		assertEquals(1, taskRegistry.cancel(Collections.singletonList(a)));
+
+		TestTask task = taskRegistry.register(TaskRegistry.Operation.META_DATA, Collections.singletonList(a), TestTask::new);
+		assertNotNull(task);
+		cancelled.getDoneHandler().run();
+
+		assertEquals(1, taskRegistry.getPendingCount());
+		assertNull(taskRegistry.register(TaskRegistry.Operation.META_DATA, Collections.singletonList(a), TestTask::new));
+	}
+
+	/**
+	 * Creates an image model.
+	 *
+	 * @param name
+	 * 		base name of the file
+	 * @return image model
+	 */
+	private static ImageModel createImageModel(String name) {
+		ImageModel imageModel = new ImageModel();
+		imageModel.setImage(new File(name + ".jpg"));
+		return imageModel;
+	}
+
+	/**
+	 * Task that only records its images and cancellations.
+	 *
+	 * @author osterrath
+	 */
+	private static class TestTask extends ExternalProcessTask<Void> {
+		/**
+		 * Images of the task.
+		 */
+		private final List<ImageModel> imageModels;
+
+		/**
+		 * Flag if the task has been cancelled.
+		 */
+		private boolean cancelled;
+
+		/**
+		 * Number of cancellations.
+		 */
+		private int cancelCount;
+
+		/**
+		 * Ctor.
+		 *
+		 * @param imageModels
+		 * 		images of the task
+		 */
+		private TestTask(List<ImageModel> imageModels) {
+			this.imageModels = imageModels;
+		}
+
+		@Override
+		protected Void call() {
+			return null;
+		}
+
+		@Override
+		String getProcessName() {
+			return "test";
+		}
+
+		/**
+		 * Records the cancellation, cancelling an FX task would need the toolkit.
+		 *
+		 * @param mayInterruptIfRunning
+		 * 		ignored
+		 * @return <code>true</code>
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			cancelled = true;
+			cancelCount++;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package net.packsam.geolocatefx.task;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for the CSV formatting of {@link WriteGeolocationTask}.
+ *
+ * @author osterrath
+ */
+public class WriteGeolocationTaskTest {
+	/**
+	 * Keeps plain values unquoted.
+	 */
+	@Test
+	public void keepsPlainValues() {
+		assertEquals("/photos/IMG_0001.JPG", WriteGeolocationTask.quoteCsv("/photos/IMG_0001.JPG"));
+		assertEquals("C:\\photos\\with space.jpg", WriteGeolocationTask.quoteCsv("C:\\photos\\with space.jpg"));
+	}
+
+	/**
+	 * Quotes values with separators, quotes and line breaks.
+	 */
+	@Test
+	public void quotesSpecialValues() {
+		assertEquals("\"/photos/a,b.jpg\"", WriteGeolocationTask.quoteCsv("/photos/a,b.jpg"));
+		assertEquals("\"/photos/say \"\"cheese\"\".jpg\"", WriteGeolocationTask.quoteCsv("/photos/say \"cheese\".jpg"));
+		assertEquals("\"/photos/line\nbreak.jpg\"", WriteGeolocationTask.quoteCsv("/photos/line\nbreak.jpg"));
+	}
+
+	/**
+	 * Formats coordinates as absolute values without exponent.
+	 */
+	@Test
+	public void formatsCoordinates() {
+		assertEquals("48.137154", WriteGeolocationTask.formatCoordinate(48.137154));
+		assertEquals("70.650391", WriteGeolocationTask.formatCoordinate(-70.650391));
+		assertEquals("0.000010", WriteGeolocationTask.formatCoordinate(1e-5));
+		assertEquals("0.0", WriteGeolocationTask.formatCoordinate(0));
+	}
+}
@@ -0,0 +1,207 @@
+package net.packsam.geolocatefx.track;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.packsam.geolocatefx.model.LatLong;
+
+/**
+ * Tests for {@link GpxTrack}.
+ *
+ * @author osterrath
+ */
+public class GpxTrackTest {
+	/**
+	 * Maximum gap used by the tests, 10 minutes.
+	 */
+	private final static long MAX_GAP = 600_000L;
+
+	/**
+	 * Temporary GPX file.
+	 */
+	private File file;
+
+	/**
+	 * Creates the temporary file.
+	 *
+	 * @throws IOException
+	 * 		could not create file
+	 */
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("track", ".gpx");
+	}
+
+	/**
+	 * Deletes the temporary file.
+	 */
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Reads all track points with a time from all segments in chronological order.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void readsTrackPoints() throws IOException {
+		GpxTrack track = read(
+				"<trkseg>",
+				point(48.2, 11.2, "2019-07-14T10:10:00Z"),
+				point(48.1, 11.1, "2019-07-14T10:05:00Z"),
+				"<trkpt lat=\"48.0\" lon=\"11.0\"></trkpt>",
+				"</trkseg><trkseg>",
+				point(48.3, 11.3, "2019-07-14T10:15:00"),
+				"<trkpt lat=\"invalid\" lon=\"11.0\"><time>2019-07-14T10:20:00Z</time></trkpt>",
+				"</trkseg>"
+		);
+
+		assertEquals(3, track.size());
+		assertPosition(48.1, 11.1, track.getPosition(date("2019-07-14T10:05:00Z"), MAX_GAP));
+		assertPosition(48.3, 11.3, track.getPosition(date("2019-07-14T10:15:00Z"), MAX_GAP));
+	}
+
+	/**
+	 * Interpolates linearly between two track points and converts time zones.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void interpolatesPositions() throws IOException {
+		GpxTrack track = read(
+				"<trkseg>",
+				point(48.0, 11.0, "2019-07-14T10:00:00Z"),
+				point(49.0, 13.0, "2019-07-14T12:10:00+02:00"),
+				"</trkseg>"
+		);
+
+		assertPosition(48.25, 11.5, track.getPosition(date("2019-07-14T10:02:30Z"), MAX_GAP));
+	}
+
+	/**
+	 * Interpolates along the shorter way across the antimeridian.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void interpolatesAcrossAntimeridian() throws IOException {
+		GpxTrack track = read(
+				"<trkseg>",
+				point(-17.0, 179.0, "2019-07-14T10:00:00Z"),
+				point(-17.0, -179.0, "2019-07-14T10:04:00Z"),
+				"</trkseg>"
+		);
+
+		assertPosition(-17.0, 179.5, track.getPosition(date("2019-07-14T10:01:00Z"), MAX_GAP));
+		assertPosition(-17.0, -179.5, track.getPosition(date("2019-07-14T10:03:00Z"), MAX_GAP));
+	}
+
+	/**
+	 * Uses the nearest point before and after the track and nothing in large gaps.
+	 *
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	@Test
+	public void respectsMaximumGap() throws IOException {
+		GpxTrack track = read(
+				"<trkseg>",
+				point(48.0, 11.0, "2019-07-14T10:00:00Z"),
+				point(49.0, 12.0, "2019-07-14T11:00:00Z"),
+				"</trkseg>"
+		);
+
+		assertPosition(48.0, 11.0, track.getPosition(date("2019-07-14T09:55:00Z"), MAX_GAP));
+		assertPosition(49.0, 12.0, track.getPosition(date("2019-07-14T11:05:00Z"), MAX_GAP));
+		assertNull(track.getPosition(date("2019-07-14T09:45:00Z"), MAX_GAP));
+		assertNull(track.getPosition(date("2019-07-14T10:30:00Z"), MAX_GAP));
+		assertNull(track.getPosition(null, MAX_GAP));
+	}
+
+	/**
+	 * Rejects files that are no XML.
+	 *
+	 * @throws IOException
+	 * 		expected
+	 */
+	@Test(expected = IOException.class)
+	public void rejectsInvalidFile() throws IOException {
+		Files.write(file.toPath(), "no gpx".getBytes(StandardCharsets.UTF_8));
+		GpxTrack.read(file);
+	}
+
+	/**
+	 * Writes a GPX file with the given track content and reads it.
+	 *
+	 * @param lines
+	 * 		content of the track element
+	 * @return track
+	 * @throws IOException
+	 * 		could not read file
+	 */
+	private GpxTrack read(String... lines) throws IOException {
+		String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<gpx version=\"1.1\" creator=\"test\" xmlns=\"http://www.topografix.com/GPX/1/1\"><trk>\n"
+				+ String.join("\n", lines)
+				+ "\n</trk></gpx>\n";
+		Files.write(file.toPath(), gpx.getBytes(StandardCharsets.UTF_8));
+		return GpxTrack.read(file);
+	}
+
+	/**
+	 * Creates a track point element.
+	 *
+	 * @param latitude
+	 * 		latitude
+	 * @param longitude
+	 * 		longitude
+	 * @param time
+	 * 		timestamp
+	 * @return track point element
+	 */
+	private static String point(double latitude, double longitude, String time) {
+		return "<trkpt lat=\"" + latitude + "\" lon=\"" + longitude + "\"><ele>500</ele><time>" + time + "</time></trkpt>";
+	}
+
+	/**
+	 * Parses an ISO timestamp.
+	 *
+	 * @param time
+	 * 		timestamp
+	 * @return date
+	 */
+	private static Date date(String time) {
+		return Date.from(Instant.parse(time));
+	}
+
+	/**
+	 * Checks the given position.
+	 *
+	 * @param latitude
+	 * 		expected latitude
+	 * @param longitude
+	 * 		expected longitude
+	 * @param position
+	 * 		position
+	 */
+	private static void assertPosition(double latitude, double longitude, LatLong position) {
+		assertEquals(latitude, position.getLatitude(), 1e-9);
+		assertEquals(longitude, position.getLongitude(), 1e-9);
+	}
+}